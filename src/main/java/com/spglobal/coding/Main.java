@@ -5,6 +5,7 @@ import com.spglobal.coding.consumers.dto.GetPriceRecordResponse;
 import com.spglobal.coding.consumers.dto.GetPriceRecordsListResponse;
 import com.spglobal.coding.producers.InstrumentProducer;
 import com.spglobal.coding.producers.dto.BatchCompletionResponse;
+import com.spglobal.coding.producers.dto.BatchResult;
 import com.spglobal.coding.producers.dto.BatchStartResponse;
 import com.spglobal.coding.producers.dto.BatchUploadResponse;
 import com.spglobal.coding.services.InstrumentPriceService;
@@ -25,26 +26,31 @@ public class Main {
 
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
-    public static void main(String[] args) throws InterruptedException {
+    private static final Duration BATCH_TIMEOUT = Duration.ofSeconds(30);
+
+    public static void main(String[] args) {
         InstrumentPriceService instrumentPriceService = new InstrumentPriceService();
         ChunkProcessor chunkProcessor = new ChunkProcessor(instrumentPriceService);
 
         InstrumentProducer producer = new InstrumentProducer(chunkProcessor);
         InstrumentConsumer consumer = new InstrumentConsumer(instrumentPriceService);
 
-        Map<InstrumentType, Map<String, PriceRecord>> latestPrices = InstrumentPriceService.getLatestPrices();
+        Map<InstrumentType, Map<String, PriceRecord>> latestPrices = instrumentPriceService.getLatestPrices();
 
         List<UpdatePriceRecordRequest> updatePriceRecordRequestList = UpdatePriceRecordRequestFactory.generateUpdatePriceRecordRequestBatch();
         try {
             BatchStartResponse startResponse = producer.startNewBatch();
             BatchUploadResponse uploadResponse = producer.uploadRequests(startResponse.batchId(), updatePriceRecordRequestList);
             BatchCompletionResponse completionResponse = producer.completeBatch(startResponse.batchId());
+            BatchResult result = producer.awaitBatch(startResponse.batchId(), BATCH_TIMEOUT);
+            logger.info("Batch {} finished with status {}, {} requests failed", result.batchId(), result.status(), result.getFailedCount());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
         } catch (Exception e) {
             logger.info("Unexpected error while producer generation: {}", e.getMessage());
         }
 
-        Thread.sleep(2000);
-
         GetPriceRecordsListResponse getPriceRecordsListResponse1 = consumer.getPriceRecordsByInstrumentType(InstrumentType.STOCK);
         GetPriceRecordsListResponse getPriceRecordsListResponse2 = consumer.getPriceRecordsByInstrumentType(InstrumentType.COMMODITIES);
 
@@ -3,7 +3,9 @@ package com.spglobal.coding.consumers;
 import com.spglobal.coding.consumers.dto.GetPriceRecordResponse;
 import com.spglobal.coding.consumers.dto.GetPriceRecordsListResponse;
 import com.spglobal.coding.services.PriceService;
+import com.spglobal.coding.services.PriceSnapshot;
 import com.spglobal.coding.services.model.PriceRecord;
+import com.spglobal.coding.utils.InstrumentRegistry;
 import com.spglobal.coding.utils.enums.InstrumentType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +19,9 @@ import java.util.Optional;
  * using various parameters such as record IDs, instrument IDs, instrument types,
  * and time durations. It logs all relevant actions and results for auditing
  * and debugging purposes.
+ * <p>
+ * Every call reads from a single {@link PriceSnapshot} of the price service, and its response carries the epoch of
+ * that snapshot.
  */
 
 public class InstrumentConsumer implements Consumer {
@@ -39,15 +44,16 @@ public class InstrumentConsumer implements Consumer {
     @Override
     public GetPriceRecordResponse getPriceRecordById(String id, InstrumentType instrumentType) {
         logger.info("Fetching PriceRecord for recordId: {} with InstrumentType: {}", id, instrumentType);
-        Optional<PriceRecord> priceRecord = priceService.getPriceRecordWithRecordId(id, instrumentType);
+        PriceSnapshot snapshot = priceService.getSnapshot();
+        Optional<PriceRecord> priceRecord = snapshot.getPriceRecordWithRecordId(id, instrumentType);
 
         if (priceRecord.isEmpty()) {
             logger.warn("No PriceRecord found for recordId: {}", id);
-            return new GetPriceRecordResponse(Optional.empty());
+            return new GetPriceRecordResponse(Optional.empty(), snapshot.getEpoch());
         }
 
         logger.info("PriceRecord found for recordId: {}", id);
-        return new GetPriceRecordResponse(priceRecord);
+        return new GetPriceRecordResponse(priceRecord, snapshot.getEpoch());
     }
 
     @Override
@@ -57,6 +63,9 @@ public class InstrumentConsumer implements Consumer {
 
     /**
      * Retrieves the latest price record for a given instrument ID and optional InstrumentType.
+     * <p>
+     * When no InstrumentType is given, the type registered for the instrument ID in the {@link InstrumentRegistry}
+     * is used to look the record up directly, falling back to a search over all types if that lookup misses.
      *
      * @param instrumentId the instrument ID of the price record
      * @param instrumentType the optional InstrumentType
@@ -65,15 +74,23 @@ public class InstrumentConsumer implements Consumer {
     @Override
     public GetPriceRecordResponse getPriceRecordByInstrumentId(String instrumentId, InstrumentType instrumentType) {
         logger.info("Fetching PriceRecord for instrumentId: {} with InstrumentType: {}", instrumentId, instrumentType);
-        Optional<PriceRecord> priceRecord = priceService.getPriceRecordWithInstrumentId(instrumentId, instrumentType);
+        PriceSnapshot snapshot = priceService.getSnapshot();
+        Optional<PriceRecord> priceRecord = Optional.empty();
+        InstrumentType registeredType = instrumentType == null ? InstrumentRegistry.getInstance().findInstrumentType(instrumentId).orElse(null) : null;
+        if (registeredType != null) {
+            priceRecord = snapshot.getPriceRecordWithInstrumentId(instrumentId, registeredType);
+        }
+        if (priceRecord.isEmpty()) {
+            priceRecord = snapshot.getPriceRecordWithInstrumentId(instrumentId, instrumentType);
+        }
 
         if (priceRecord.isEmpty()) {
             logger.warn("No PriceRecord found for instrumentId: {}", instrumentId);
-            return new GetPriceRecordResponse(Optional.empty());
+            return new GetPriceRecordResponse(Optional.empty(), snapshot.getEpoch());
         }
 
         logger.info("Found PriceRecord ID {} for instrumentId: {}", priceRecord.get().getId(), instrumentId);
-        return new GetPriceRecordResponse(priceRecord);
+        return new GetPriceRecordResponse(priceRecord, snapshot.getEpoch());
     }
 
     @Override
@@ -90,14 +107,15 @@ public class InstrumentConsumer implements Consumer {
     @Override
     public GetPriceRecordsListResponse getPriceRecordsByInstrumentType(InstrumentType instrumentType) {
         logger.info("Fetching all PriceRecords for InstrumentType: {}", instrumentType);
-        List<PriceRecord> priceRecords = priceService.getPriceRecordsWithInstrumentType(instrumentType);
+        PriceSnapshot snapshot = priceService.getSnapshot();
+        List<PriceRecord> priceRecords = snapshot.getPriceRecordsWithInstrumentType(instrumentType);
 
         if (priceRecords.isEmpty()) {
             logger.warn("No PriceRecords found for InstrumentType: {}", instrumentType);
         }
 
         logger.info("Found {} PriceRecords for InstrumentType: {}", priceRecords.size(), instrumentType);
-        return new GetPriceRecordsListResponse(priceRecords);
+        return new GetPriceRecordsListResponse(priceRecords, snapshot.getEpoch());
     }
 
     /**
@@ -109,6 +127,6 @@ public class InstrumentConsumer implements Consumer {
     @Override
     public GetPriceRecordsListResponse getPriceRecordsInLastDuration(Duration duration) {
         logger.info("Fetching PriceRecords within the last {} duration", duration);
-        return priceService.getPriceRecordsWithDuration(duration);
+        return priceService.getSnapshot().getPriceRecordsWithDuration(duration);
     }
 }
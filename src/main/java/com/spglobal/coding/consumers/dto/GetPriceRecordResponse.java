@@ -4,5 +4,12 @@ import com.spglobal.coding.services.model.PriceRecord;
 
 import java.util.Optional;
 
-public record GetPriceRecordResponse(Optional<PriceRecord> priceRecord) {
+/**
+ * @param epoch the publication epoch the record was read from.
+ */
+public record GetPriceRecordResponse(Optional<PriceRecord> priceRecord, long epoch) {
+
+    public GetPriceRecordResponse(Optional<PriceRecord> priceRecord) {
+        this(priceRecord, 0L);
+    }
 }
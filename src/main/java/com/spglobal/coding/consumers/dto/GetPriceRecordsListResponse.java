@@ -4,5 +4,12 @@ import com.spglobal.coding.services.model.PriceRecord;
 
 import java.util.List;
 
-public record GetPriceRecordsListResponse(List<PriceRecord> priceRecordList) {
+/**
+ * @param epoch the publication epoch the records were read from.
+ */
+public record GetPriceRecordsListResponse(List<PriceRecord> priceRecordList, long epoch) {
+
+    public GetPriceRecordsListResponse(List<PriceRecord> priceRecordList) {
+        this(priceRecordList, 0L);
+    }
 }
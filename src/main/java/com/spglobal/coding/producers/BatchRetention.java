@@ -0,0 +1,113 @@
+package com.spglobal.coding.producers;
+
+import com.spglobal.coding.utils.config.RetentionPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Remembers the batches of a producer that reached their final status, oldest first, and evicts them according to a
+ * {@link RetentionPolicy}.
+ * <p>
+ * The sweeps of all producers run on one shared daemon thread, and only while a producer has retained batches; a
+ * producer that is no longer used therefore holds no thread. Batches are evicted outside of the lock of the retention,
+ * so that the eviction may take map entry locks that are held while retiring.
+ */
+final class BatchRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRetention.class);
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "batch-retention-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RetentionPolicy retentionPolicy;
+    private final Consumer<String> evictor;
+    private final ArrayDeque<RetiredBatch> retiredBatches = new ArrayDeque<>(); // guarded by this
+    private ScheduledFuture<?> sweep; // null while no batch is retained
+    private long evictedCount;
+
+    /**
+     * @param evictor forgets everything the producer keeps of a batch, given its ID.
+     */
+    BatchRetention(RetentionPolicy retentionPolicy, Consumer<String> evictor) {
+        this.retentionPolicy = retentionPolicy;
+        this.evictor = evictor;
+    }
+
+    /**
+     * Starts the retention of a batch that reached its final status.
+     *
+     * @param onEviction run once the batch has been evicted, e.g. to delete a spill file; may be null.
+     */
+    void retire(String batchId, Runnable onEviction) {
+        List<RetiredBatch> evicted = new ArrayList<>();
+        synchronized (this) {
+            retiredBatches.add(new RetiredBatch(batchId, System.nanoTime() + retentionPolicy.getRetention().toNanos(), onEviction));
+            while (retiredBatches.size() > retentionPolicy.getMaxRetainedBatches()) {
+                evicted.add(retiredBatches.poll());
+            }
+            if (sweep == null && !retiredBatches.isEmpty()) {
+                long interval = retentionPolicy.getSweepInterval().toNanos();
+                sweep = SWEEPER.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.NANOSECONDS);
+            }
+        }
+        evict(evicted);
+    }
+
+    // Evicts the batches whose retention is over
+    void sweep() {
+        List<RetiredBatch> evicted = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (this) {
+            while (!retiredBatches.isEmpty() && retiredBatches.peek().expiresAt() - now <= 0) {
+                evicted.add(retiredBatches.poll());
+            }
+            if (retiredBatches.isEmpty() && sweep != null) {
+                sweep.cancel(false);
+                sweep = null;
+            }
+        }
+        evict(evicted);
+        if (!evicted.isEmpty()) {
+            logger.info("Evicted {} batches past their retention", evicted.size());
+        }
+    }
+
+    private void evict(List<RetiredBatch> evicted) {
+        for (RetiredBatch batch : evicted) {
+            try {
+                evictor.accept(batch.batchId());
+                if (batch.onEviction() != null) {
+                    batch.onEviction().run();
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not evict batch with ID: {}: {}", batch.batchId(), e.getMessage());
+            }
+        }
+        synchronized (this) {
+            evictedCount += evicted.size();
+        }
+    }
+
+    synchronized int getRetainedCount() {
+        return retiredBatches.size();
+    }
+
+    synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    private record RetiredBatch(String batchId, long expiresAt, Runnable onEviction) {
+    }
+}
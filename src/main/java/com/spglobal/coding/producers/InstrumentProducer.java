@@ -2,19 +2,41 @@ package com.spglobal.coding.producers;
 
 import com.spglobal.coding.producers.dto.BatchCancellationResponse;
 import com.spglobal.coding.producers.dto.BatchCompletionResponse;
+import com.spglobal.coding.producers.dto.BatchProgress;
+import com.spglobal.coding.producers.dto.BatchResult;
+import com.spglobal.coding.producers.dto.BatchStartRequest;
 import com.spglobal.coding.producers.dto.BatchStartResponse;
 import com.spglobal.coding.producers.dto.BatchUploadResponse;
 import com.spglobal.coding.utils.dto.BatchProcessResponse;
 import com.spglobal.coding.producers.model.PriceRecordUpdateRequestBatch;
+import com.spglobal.coding.utils.BatchProgressRecorder;
 import com.spglobal.coding.utils.ChunkProcessor;
+import com.spglobal.coding.utils.ChunkStream;
+import com.spglobal.coding.utils.config.RetentionPolicy;
+import com.spglobal.coding.utils.dedup.FingerprintWindow;
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.BatchMode;
 import com.spglobal.coding.utils.enums.BatchStatus;
+import com.spglobal.coding.utils.enums.CompletionStatus;
+import com.spglobal.coding.utils.enums.PriorityClass;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+import com.spglobal.coding.utils.exceptions.ChunkProcessorSaturatedException;
+import com.spglobal.coding.utils.retry.FailedRequestRetrier;
+import com.spglobal.coding.utils.staging.BatchStagingStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * The InstrumentProducer class manages the lifecycle of update price record requests batches.
@@ -33,24 +55,105 @@ public class InstrumentProducer implements Producer {
 
     protected static final Map<String, PriceRecordUpdateRequestBatch> batchMap = new ConcurrentHashMap<>(); // map to pair the batchId with their records
     protected static final Map<String, List<UpdatePriceRecordRequest>> failedRequestsMap = new ConcurrentHashMap<>(); // map to store all the failed records with their batchId
+    protected static final Map<String, String> idempotencyKeys = new LinkedHashMap<>() { // map to pair the idempotency keys with their batchId, oldest first
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_IDEMPOTENCY_KEYS;
+        }
+    };
+
+    public static final int DEFAULT_REPLAY_WINDOW = 1 << 17;
+    private static final int MAX_IDEMPOTENCY_KEYS = 100_000;
 
     private static final String BATCH_ID_ERROR_MESSAGE_PREFIX = "Batch run with ID ";
     private static final String BATCH_NOT_FOUND_ERROR_MESSAGE_SUFFIX = " does not exist.";
 
     private final ChunkProcessor chunkProcessor;
+    private final FingerprintWindow replayWindow;
+    private final FailedRequestRetrier failedRequestRetrier; // null if failed requests are not retried
+    private final BatchRetention batchRetention;
 
     public InstrumentProducer(ChunkProcessor chunkProcessor) {
+        this(chunkProcessor, null);
+    }
+
+    /**
+     * @param replayWindow the fingerprints of the records recently uploaded to batches with an idempotency key, shared
+     *                     by those batches; null for a window of {@link #DEFAULT_REPLAY_WINDOW} records. Records
+     *                     that end up failed or cancelled are removed from the window again, so that they can be resent.
+     */
+    public InstrumentProducer(ChunkProcessor chunkProcessor, FingerprintWindow replayWindow) {
+        this(chunkProcessor, replayWindow, null);
+    }
+
+    /**
+     * @param replayWindow         see {@link #InstrumentProducer(ChunkProcessor, FingerprintWindow)}.
+     * @param failedRequestRetrier processes the failed requests of the batches again; null to only store them. Requests
+     *                             that succeed on a retry are removed from the stored failed requests, while the
+     *                             status and the {@link BatchResult} of their batch keep reporting its own processing.
+     */
+    public InstrumentProducer(ChunkProcessor chunkProcessor, FingerprintWindow replayWindow, FailedRequestRetrier failedRequestRetrier) {
+        this(chunkProcessor, replayWindow, failedRequestRetrier, null);
+    }
+
+    /**
+     * @param failedRequestRetrier see {@link #InstrumentProducer(ChunkProcessor, FingerprintWindow, FailedRequestRetrier)}.
+     * @param retentionPolicy      how long batches are remembered once they reached their final status; null for
+     *                             {@link RetentionPolicy#defaults()}. The requests of a batch are released as soon as
+     *                             it reaches its final status, whatever the policy.
+     */
+    public InstrumentProducer(ChunkProcessor chunkProcessor, FingerprintWindow replayWindow, FailedRequestRetrier failedRequestRetrier,
+                              RetentionPolicy retentionPolicy) {
         this.chunkProcessor = chunkProcessor;
+        this.replayWindow = Objects.requireNonNullElseGet(replayWindow, () -> new FingerprintWindow(DEFAULT_REPLAY_WINDOW));
+        this.failedRequestRetrier = failedRequestRetrier;
+        this.batchRetention = new BatchRetention(Objects.requireNonNullElseGet(retentionPolicy, RetentionPolicy::defaults),
+                InstrumentProducer::evictBatch);
+        if (failedRequestRetrier != null) {
+            failedRequestRetrier.addRecoveryListener(InstrumentProducer::forgetRecovered);
+        }
     }
 
     /**
-     * Starts a new batch and returns a unique batch ID.
-     * Throws an exception if a batch with the same ID already exists.
+     * Starts a new buffered batch and returns a unique batch ID.
      *
      * @return the batch ID of the newly started batch
      */
     @Override
     public BatchStartResponse startNewBatch() {
+        return startNewBatch(BatchStartRequest.defaults());
+    }
+
+    /**
+     * Starts a new batch with the given options and returns a unique batch ID.
+     * Throws an exception if a batch with the same ID already exists.
+     * <p>
+     * If a batch was started before with the same idempotency key, and was neither cancelled nor failed, its ID is
+     * returned instead and the response is marked as a replay. Keys are remembered as long as their batch is retained.
+     *
+     * @param request the options of the batch, e.g. whether its requests are streamed to the ChunkProcessor
+     * @return the batch ID of the newly started batch
+     */
+    @Override
+    public BatchStartResponse startNewBatch(BatchStartRequest request) {
+        String idempotencyKey = request.getIdempotencyKey();
+        if (idempotencyKey == null) {
+            return new BatchStartResponse(createBatch(request));
+        }
+        synchronized (idempotencyKeys) {
+            String existingBatchId = idempotencyKeys.get(idempotencyKey);
+            PriceRecordUpdateRequestBatch existingBatch = existingBatchId == null ? null : batchMap.get(existingBatchId);
+            if (existingBatch != null && existingBatch.getStatus() != BatchStatus.CANCELLED && existingBatch.getStatus() != BatchStatus.FAILED) {
+                logger.info("Batch with ID: {} was already started with idempotency key {}", existingBatchId, idempotencyKey);
+                return new BatchStartResponse(existingBatchId, true);
+            }
+            String batchId = createBatch(request);
+            idempotencyKeys.put(idempotencyKey, batchId);
+            return new BatchStartResponse(batchId);
+        }
+    }
+
+    private String createBatch(BatchStartRequest request) {
         final String batchId = UUID.randomUUID().toString();
 
         // Check if the batchId already exists before adding a new one
@@ -58,22 +161,32 @@ public class InstrumentProducer implements Producer {
             if (existingBatch != null) {
                 throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + " is already started.");
             }
-            logger.info("Started new batch with ID: {}", batchId);
-            return new PriceRecordUpdateRequestBatch();
+            logger.info("Started new {} batch with ID: {}", request.getBatchMode(), batchId);
+            PriceRecordUpdateRequestBatch batch = new PriceRecordUpdateRequestBatch(request.getBatchMode(),
+                    new BatchStagingStore(request.getSpillThreshold(), request.getSpillDirectory()),
+                    request.getIdempotencyKey(), request.getIdempotencyKey() != null ? replayWindow : null);
+            batch.setSchedulingWeight(request.getSchedulingWeight());
+            batch.setPriorityClass(request.getPriorityClass());
+            return batch;
         });
 
-        return new BatchStartResponse(batchId);
+        return batchId;
     }
 
     /**
      * Uploads update requests to an active batch.
      * Ensures that the batch exists and is active before adding requests.
+     * For a streaming batch, full chunks are handed to the ChunkProcessor right away.
+     * Records uploaded before are skipped if the batch has an idempotency key.
      *
      * @param batchId the ID of the batch to upload records to
      * @param requests the list of PriceRecord objects to be added to the batch
      */
     @Override
     public BatchUploadResponse uploadRequests(String batchId, List<UpdatePriceRecordRequest> requests) {
+        int[] added = new int[1];
+        ChunkStream[] stream = new ChunkStream[1];
+        List<List<UpdatePriceRecordRequest>> streamed = new ArrayList<>(1); // the requests to append to the stream
         PriceRecordUpdateRequestBatch updatedBatch = batchMap.compute(batchId, (id, batch) -> {
             if (batch == null) {
                 throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + BATCH_NOT_FOUND_ERROR_MESSAGE_SUFFIX);
@@ -82,91 +195,337 @@ public class InstrumentProducer implements Producer {
                 throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + " is not active or already in progress.");
             }
 
-            batch.addAll(requests);
+            if (batch.getBatchMode() == BatchMode.STREAMING) {
+                if (batch.getChunkStream() == null) {
+                    applySchedule(batchId, batch);
+                    batch.setChunkStream(chunkProcessor.openStream(batchId));
+                }
+                stream[0] = batch.getChunkStream();
+                streamed.add(batch.acceptStreamed(requests)); // Appended below
+                added[0] = streamed.get(0).size();
+            } else {
+                added[0] = batch.addAll(requests);
+            }
             batch.setStatus(BatchStatus.UPLOADING_REQUESTS);
+            return batch;
+        });
+
+        // Appending submits full chunks, which may block on a full queue or run them under CALLER_RUNS, so it happens
+        // outside of the map entry lock. The stream is synchronized; it is closed if the batch was completed or
+        // cancelled in the meantime.
+        if (stream[0] != null) {
+            try {
+                stream[0].append(streamed.get(0));
+            } catch (IllegalStateException e) {
+                batchMap.computeIfPresent(batchId, (id, batch) -> {
+                    batch.revertStreamed(streamed.get(0));
+                    return batch;
+                });
+                throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + " is not active or already in progress.", e);
+            }
+        }
+        logger.info("Uploaded {} records to batch with ID: {}, skipped {} duplicates", added[0], batchId, requests.size() - added[0]);
+
+        return new BatchUploadResponse(batchId, updatedBatch.getStatus(), added[0], requests.size() - added[0]);
+    }
 
-            logger.info("Uploaded {} records to batch with ID: {}", requests.size(), batchId);
+    /**
+     * Uploads update requests encoded in the binary wire format to an active buffered batch.
+     * The records are decoded straight into the columnar requests of the batch, without creating a request object each.
+     * Records uploaded before are skipped if the batch has an idempotency key.
+     *
+     * @param batchId the ID of the batch to upload records to
+     * @param encodedRequests the encoded records, see {@link com.spglobal.coding.utils.wire.UpdateRequestWireEncoder}
+     */
+    @Override
+    public BatchUploadResponse uploadRequests(String batchId, ByteBuffer encodedRequests) {
+        int[] decoded = new int[1];
+        int[] duplicates = new int[1];
+        PriceRecordUpdateRequestBatch updatedBatch = batchMap.compute(batchId, (id, batch) -> {
+            if (batch == null) {
+                throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + BATCH_NOT_FOUND_ERROR_MESSAGE_SUFFIX);
+            }
+            if (batch.getStatus() != BatchStatus.STARTED && batch.getStatus() != BatchStatus.UPLOADING_REQUESTS) {
+                throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + " is not active or already in progress.");
+            }
+
+            int duplicatesBefore = batch.getDuplicateCount();
+            decoded[0] = batch.addEncoded(encodedRequests);
+            duplicates[0] = batch.getDuplicateCount() - duplicatesBefore;
+            batch.setStatus(BatchStatus.UPLOADING_REQUESTS);
+
+            logger.info("Uploaded {} encoded records to batch with ID: {}, skipped {} duplicates", decoded[0], batchId, duplicates[0]);
             return batch;
         });
 
-        return new BatchUploadResponse(batchId, updatedBatch.getStatus(), requests.size());
+        return new BatchUploadResponse(batchId, updatedBatch.getStatus(), decoded[0], duplicates[0]);
     }
 
     /**
      * Processes the batch using asynchronous processing
      * The batch status is updated based on the success or failure of the batch processing.
+     * For a streaming batch, most chunks are already being processed; this only flushes the last one and awaits them all.
+     * For a batch spilled to disk, the spill file is deleted once the batch has been processed.
+     * <p>
+     * If the ChunkProcessor is saturated and rejects the batch, the batch goes back to uploading and a
+     * {@link CompletionStatus#REJECTED_RETRIABLE} response is returned; completing it again later is safe.
+     * <p>
+     * The response carries a future of the {@link BatchResult}, completing once the batch has reached its final status;
+     * it can be chained on, or listeners registered with {@link BatchCompletionResponse#whenFinished}.
      *
      * @param batchId the ID of the batch to complete
      */
     @Override
     public BatchCompletionResponse completeBatch(String batchId) {
-        batchMap.compute(batchId, (id, batch) -> {
-            if (batch == null) {
+        PriceRecordUpdateRequestBatch batch = batchMap.compute(batchId, (id, existingBatch) -> {
+            if (existingBatch == null) {
                 throw new IllegalArgumentException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + BATCH_NOT_FOUND_ERROR_MESSAGE_SUFFIX);
             }
-            if (batch.getStatus() != BatchStatus.UPLOADING_REQUESTS) {
+            if (existingBatch.getStatus() != BatchStatus.UPLOADING_REQUESTS) {
                 throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + " cannot be processed. Uploading requests is not in progress.");
             }
-            if (batch.getRequests().isEmpty()) {
+            if (existingBatch.getUploadedCount() == 0) {
                 throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + " does not contain valid update requests.");
             }
 
-            batch.setStatus(BatchStatus.PROCESSING);
-            List<UpdatePriceRecordRequest> requests = batch.getRequests();
-            CompletableFuture<BatchProcessResponse> batchProcessResponse = chunkProcessor.processBatch(batchId, requests);
+            // A cancel can find the batch processing before its chunks are submitted, so it is cancellable from now on
+            chunkProcessor.registerBatch(batchId);
+            existingBatch.setStatus(BatchStatus.PROCESSING);
+            existingBatch.setCompletion(new CompletableFuture<>());
+            return existingBatch;
+        });
 
-            // Handle the result of chunk processing
-            batchProcessResponse.thenAccept(response -> {
-                if (response.isSuccess() && response.failedRequests().isEmpty()) {
-                    batch.setStatus(BatchStatus.COMPLETED);
-                    logger.info("Completed batch with ID: {}", batchId);
-                } else {
-                    batch.setStatus(BatchStatus.PROCESSED_WITH_ERRORS);
-                    failedRequestsMap.put(batchId, response.failedRequests());
-                    logger.info("Partially completed batch with ID: {}. Failed update requests are stored.", batchId);
-                }
-            }).exceptionally(ex -> {
-                logger.error("Error processing batch with ID: {}. Error: {}", batchId, ex.getMessage());
-                batch.setStatus(BatchStatus.FAILED);
-                return null;
-            });
+        // Submitting may block on a full queue, so it happens outside of the map entry lock.
+        // No more requests can be uploaded now that the batch is processing.
+        CompletableFuture<BatchProcessResponse> batchProcessResponse;
+        BatchStagingStore stagingStore = batch.getStagingStore();
+        applySchedule(batchId, batch);
+        try {
+            if (batch.getBatchMode() == BatchMode.STREAMING) {
+                batchProcessResponse = batch.getChunkStream().complete();
+            } else if (batch.getColumnarRequests() != null) {
+                batchProcessResponse = chunkProcessor.processColumnarBatch(batchId, batch.getColumnarRequests());
+            } else if (stagingStore.isSpilled()) {
+                batchProcessResponse = chunkProcessor.processStagedBatch(batchId, stagingStore)
+                        .whenComplete((response, ex) -> stagingStore.release());
+            } else {
+                batchProcessResponse = chunkProcessor.processBatch(batchId, batch.getRequests());
+            }
+        } catch (ChunkProcessorSaturatedException e) {
+            batch.setStatus(BatchStatus.UPLOADING_REQUESTS);
+            batch.getCompletion().complete(null);
+            logger.warn("Batch with ID: {} was rejected, the ChunkProcessor is saturated: {}", batchId, e.getMessage());
+            return new BatchCompletionResponse(batchId, CompletionStatus.REJECTED_RETRIABLE, e.getMessage(), batch.getResult());
+        }
 
-            return batch;
+        // Handle the result of chunk processing
+        CompletableFuture<BatchProcessResponse> completion = batch.getCompletion();
+        batchProcessResponse.thenAccept(response -> {
+            logger.info("Processed batch with ID: {}. {}", batchId, response.metrics());
+            if (response.isCancelled()) {
+                batch.setStatus(BatchStatus.CANCELLED);
+                failedRequestsMap.put(batchId, response.failedRequests());
+                batch.forgetRecords(response.failedRequests());
+                logger.info("Cancelled batch with ID: {} while processing. Requests that were not applied are stored.", batchId);
+            } else if (response.isSuccess() && response.failedRequests().isEmpty()) {
+                batch.setStatus(BatchStatus.COMPLETED);
+                logger.info("Completed batch with ID: {}", batchId);
+            } else {
+                batch.setStatus(BatchStatus.PROCESSED_WITH_ERRORS);
+                failedRequestsMap.put(batchId, response.failedRequests());
+                batch.forgetRecords(response.failedRequests());
+                if (failedRequestRetrier != null) {
+                    failedRequestRetrier.submit(batchId, response.failedRequests(), response.outcomes());
+                }
+                logger.info("Partially completed batch with ID: {}. Failed update requests are stored.", batchId);
+            }
+        }).exceptionally(ex -> {
+            logger.error("Error processing batch with ID: {}. Error: {}", batchId, ex.getMessage());
+            batch.setStatus(BatchStatus.FAILED);
+            return null;
+        }).thenRun(() -> {
+            batch.releasePayload();
+            completion.complete(batchProcessResponse.isCompletedExceptionally() ? null : batchProcessResponse.join());
+            batch.getResult().complete(toResult(batchId, batch.getStatus(), batchProcessResponse));
+            batchRetention.retire(batchId, null);
         });
 
-        return new BatchCompletionResponse(batchId, "Batch processing has started.");
+        return new BatchCompletionResponse(batchId, CompletionStatus.ACCEPTED, "Batch processing has started.", batch.getResult());
+    }
+
+    private static BatchResult toResult(String batchId, BatchStatus status, CompletableFuture<BatchProcessResponse> batchProcessResponse) {
+        try {
+            BatchProcessResponse response = batchProcessResponse.join();
+            return new BatchResult(batchId, status, response.failedRequests(), response.outcomes());
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return new BatchResult(batchId, status, Collections.emptyList(), UpdateOutcomes.none(), cause.getMessage());
+        }
+    }
+
+    /**
+     * Waits until a batch has reached its final status, without polling.
+     *
+     * @param batchId the ID of the batch, which must have been started and not yet evicted.
+     * @param timeout how long to wait at most.
+     * @return the final state of the batch.
+     * @throws TimeoutException if the batch has not finished within the timeout.
+     */
+    @Override
+    public BatchResult awaitBatch(String batchId, Duration timeout) throws InterruptedException, TimeoutException {
+        PriceRecordUpdateRequestBatch batch = batchMap.get(batchId);
+        if (batch == null) {
+            throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + BATCH_NOT_FOUND_ERROR_MESSAGE_SUFFIX);
+        }
+        try {
+            return batch.getResult().get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            // Results are never completed exceptionally
+            throw new IllegalStateException("Result of batch " + batchId + " completed exceptionally", e.getCause());
+        }
+    }
+
+    // The ChunkProcessor forgets the schedule and the progress recorder once the batch has been processed, so they are
+    // set right before submitting
+    private void applySchedule(String batchId, PriceRecordUpdateRequestBatch batch) {
+        chunkProcessor.trackProgress(batchId, batch.getProgress());
+        if (batch.getSchedulingWeight() != 1) {
+            chunkProcessor.setBatchWeight(batchId, batch.getSchedulingWeight());
+        }
+        if (batch.getPriorityClass() != PriorityClass.STANDARD) {
+            chunkProcessor.setBatchPriority(batchId, batch.getPriorityClass());
+        }
+    }
+
+    /**
+     * Returns the live progress of a batch: its processed requests by outcome, the processing rate and the estimated
+     * remaining time. Reading it takes no lock and does not slow down the processing, so it can be polled.
+     *
+     * @param batchId the ID of the batch, which must have been started and not yet evicted.
+     */
+    @Override
+    public BatchProgress getBatchProgress(String batchId) {
+        PriceRecordUpdateRequestBatch batch = batchMap.get(batchId);
+        if (batch == null) {
+            throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + BATCH_NOT_FOUND_ERROR_MESSAGE_SUFFIX);
+        }
+        BatchStatus status = batch.getStatus();
+        BatchProgressRecorder progress = batch.getProgress();
+        long total = batch.getUploadedCount();
+        long processed = progress.getProcessedRequests();
+        double requestsPerSecond = progress.getRequestsPerSecond(status.isFinal());
+
+        Duration remainingTime = null;
+        if (status.isFinal()) {
+            remainingTime = Duration.ZERO;
+        } else if (requestsPerSecond > 0) {
+            remainingTime = Duration.ofNanos((long) (Math.max(0, total - processed) * 1e9 / requestsPerSecond));
+        }
+        return new BatchProgress(batchId, status, total, processed,
+                progress.getCount(UpdateOutcome.APPLIED),
+                progress.getCount(UpdateOutcome.SUPERSEDED),
+                progress.getCount(UpdateOutcome.STALE_IGNORED),
+                progress.getFailedCount(),
+                requestsPerSecond,
+                remainingTime);
     }
 
     /**
      * Cancels the batch with the given batch ID if it is in a cancellable state.
      *
      * <p>The requests associated with the cancelled batch are moved to the {@code failedRequestsMap},
-     * and the cancellation action is logged for auditing purposes.
+     * and the cancellation action is logged for auditing purposes. For a streaming batch, chunks that were already
+     * submitted are still applied; only the requests that were not submitted yet are cancelled. The requests of a
+     * batch spilled to disk are kept as a view over its spill file, which is therefore deleted only once the batch is
+     * evicted.
+     *
+     * <p>A batch that is processing is cancelled in the ChunkProcessor: its queued chunks are dropped and its running
+     * chunks stop before their next instrument. This waits until those chunks have stopped; the response then lists the
+     * requests that were not applied, and the updates applied until then are kept. A batch whose processing finished
+     * before the cancel reached the ChunkProcessor is not cancellable.
      *
      * @param batchId the unique identifier of the batch to cancel. Must not be {@code null}.
      */
     @Override
     public BatchCancellationResponse cancelBatch(String batchId) {
-        batchMap.compute(batchId, (id, batch) -> {
+        boolean[] processing = new boolean[1];
+        ChunkStream[] stream = new ChunkStream[1];
+        PriceRecordUpdateRequestBatch cancelledBatch = batchMap.compute(batchId, (id, batch) -> {
             if (batch == null) {
                 throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + BATCH_NOT_FOUND_ERROR_MESSAGE_SUFFIX);
             }
 
+            if (batch.getStatus() == BatchStatus.PROCESSING) {
+                processing[0] = true;
+                return batch; // Cancelled below, waiting for the chunks must not hold the map entry lock
+            }
+
             if (batch.getStatus() != BatchStatus.STARTED && batch.getStatus() != BatchStatus.UPLOADING_REQUESTS) {
                 throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + " cannot be cancelled as it is not in a cancellable state.");
             }
 
-            // Update the status to CANCELLED and return the updated batch
+            // Update the status to CANCELLED and return the updated batch; no more requests can be uploaded now
             batch.setStatus(BatchStatus.CANCELLED);
-            failedRequestsMap.put(batchId, batch.getRequests());
-
-            logger.info("Cancelled batch with ID: {}", batchId);
-
-            // Return the updated batch
+            stream[0] = batch.getChunkStream();
+            if (stream[0] == null) {
+                failedRequestsMap.put(batchId, batch.getRequests());
+                batch.forgetRecords(batch.getRequests());
+            }
             return batch;
         });
 
-        return new BatchCancellationResponse(batchId, failedRequestsMap.getOrDefault(batchId, Collections.emptyList()));
+        if (processing[0]) {
+            return cancelProcessingBatch(batchId, cancelledBatch);
+        }
+        if (stream[0] != null) {
+            // Cancelling the stream waits for an append in progress, so it must not hold the map entry lock
+            List<UpdatePriceRecordRequest> unsubmitted = stream[0].cancel();
+            batchMap.computeIfPresent(batchId, (id, batch) -> {
+                failedRequestsMap.put(batchId, unsubmitted);
+                batch.forgetRecords(unsubmitted);
+                return batch;
+            });
+        }
+        logger.info("Cancelled batch with ID: {}", batchId);
+        BatchCancellationResponse response = new BatchCancellationResponse(batchId, failedRequestsMap.getOrDefault(batchId, Collections.emptyList()));
+        BatchStagingStore stagingStore = cancelledBatch.getStagingStore();
+        cancelledBatch.releasePayload();
+        cancelledBatch.getResult().complete(new BatchResult(batchId, BatchStatus.CANCELLED, response.cancelledRequests(), response.outcomes()));
+        batchRetention.retire(batchId, stagingStore != null && stagingStore.isSpilled() ? stagingStore::release : null);
+        return response;
+    }
+
+    private BatchCancellationResponse cancelProcessingBatch(String batchId, PriceRecordUpdateRequestBatch batch) {
+        boolean cancelled = chunkProcessor.cancelBatch(batchId);
+        BatchProcessResponse response = batch.getCompletion().join();
+        if (response == null) {
+            // The batch was rejected and is uploading again, or it failed; cancel it in the state it is in now
+            return cancelBatch(batchId);
+        }
+        if (!cancelled) {
+            throw new IllegalStateException(BATCH_ID_ERROR_MESSAGE_PREFIX + batchId + " cannot be cancelled as it has already been processed.");
+        }
+        logger.info("Cancelled processing batch with ID: {}, {} requests were not applied", batchId, response.failedRequests().size());
+        return new BatchCancellationResponse(batchId, response.failedRequests(), response.outcomes());
+    }
+
+    // Removes the requests that succeeded on a retry from the failed requests of their batch, unless it was evicted
+    private static void forgetRecovered(String batchId, List<UpdatePriceRecordRequest> recovered) {
+        Set<UpdatePriceRecordRequest> recoveredRequests = Collections.newSetFromMap(new IdentityHashMap<>());
+        recoveredRequests.addAll(recovered);
+        failedRequestsMap.computeIfPresent(batchId, (id, failedRequests) ->
+                failedRequests.stream().filter(request -> !recoveredRequests.contains(request)).toList());
+    }
+
+    // Forgets a batch whose retention is over
+    private static void evictBatch(String batchId) {
+        PriceRecordUpdateRequestBatch batch = batchMap.remove(batchId);
+        failedRequestsMap.remove(batchId);
+        if (batch != null && batch.getIdempotencyKey() != null) {
+            synchronized (idempotencyKeys) {
+                idempotencyKeys.remove(batch.getIdempotencyKey(), batchId);
+            }
+        }
     }
 
     // Public method for testing purposes
@@ -2,19 +2,33 @@ package com.spglobal.coding.producers;
 
 import com.spglobal.coding.producers.dto.BatchCancellationResponse;
 import com.spglobal.coding.producers.dto.BatchCompletionResponse;
+import com.spglobal.coding.producers.dto.BatchProgress;
+import com.spglobal.coding.producers.dto.BatchResult;
+import com.spglobal.coding.producers.dto.BatchStartRequest;
 import com.spglobal.coding.producers.dto.BatchStartResponse;
 import com.spglobal.coding.producers.dto.BatchUploadResponse;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 
 public interface Producer {
 
     BatchStartResponse startNewBatch();
 
+    BatchStartResponse startNewBatch(BatchStartRequest request);
+
     BatchUploadResponse uploadRequests(String batchId, List<UpdatePriceRecordRequest> requests);
 
+    BatchUploadResponse uploadRequests(String batchId, ByteBuffer encodedRequests);
+
     BatchCompletionResponse completeBatch(String batchId);
 
     BatchCancellationResponse cancelBatch(String batchId);
+
+    BatchResult awaitBatch(String batchId, Duration timeout) throws InterruptedException, TimeoutException;
+
+    BatchProgress getBatchProgress(String batchId);
 }
@@ -1,10 +1,22 @@
 package com.spglobal.coding.producers.dto;
 
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
 
 import java.util.List;
 
+/**
+ * @param cancelledRequests the requests that were not applied.
+ * @param outcomes          the outcome counts of the batch, and the reason of each request in the order of
+ *                          cancelledRequests; requests applied before the cancellation count as APPLIED.
+ */
 public record BatchCancellationResponse(String batchId,
-                                        List<UpdatePriceRecordRequest> cancelledRequests)
+                                        List<UpdatePriceRecordRequest> cancelledRequests,
+                                        UpdateOutcomes outcomes)
 {
+    // Response of a batch cancelled before it was processed
+    public BatchCancellationResponse(String batchId, List<UpdatePriceRecordRequest> cancelledRequests) {
+        this(batchId, cancelledRequests, UpdateOutcomes.allFailed(cancelledRequests.size(), UpdateOutcome.CANCELLED));
+    }
 }
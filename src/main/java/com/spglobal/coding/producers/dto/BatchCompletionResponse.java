@@ -1,6 +1,52 @@
 package com.spglobal.coding.producers.dto;
 
+import com.spglobal.coding.utils.enums.CompletionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * @param result completes with the final state of the batch once it has been processed; never completes exceptionally.
+ *               A batch that was rejected completes it once it is completed again and processed. Null if the response
+ *               was not created by a producer.
+ */
 public record BatchCompletionResponse(String batchId,
-                                      String message)
+                                      CompletionStatus status,
+                                      String message,
+                                      CompletableFuture<BatchResult> result)
 {
+    private static final Logger logger = LoggerFactory.getLogger(BatchCompletionResponse.class);
+
+    public BatchCompletionResponse(String batchId, String message) {
+        this(batchId, CompletionStatus.ACCEPTED, message);
+    }
+
+    public BatchCompletionResponse(String batchId, CompletionStatus status, String message) {
+        this(batchId, status, message, null);
+    }
+
+    public boolean isRetriable() {
+        return status == CompletionStatus.REJECTED_RETRIABLE;
+    }
+
+    /**
+     * Registers a listener called with the final state of the batch. Listeners run on the common fork-join pool, never
+     * on the ChunkProcessor workers, so they may submit further batches. An exception thrown by a listener is logged.
+     *
+     * @return this response, to register more listeners.
+     * @throws IllegalStateException if the response has no result, i.e. it was not created by a producer.
+     */
+    public BatchCompletionResponse whenFinished(Consumer<BatchResult> listener) {
+        if (result == null) {
+            throw new IllegalStateException("Batch " + batchId + " has no result to listen to.");
+        }
+        result.thenAcceptAsync(listener).whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                logger.warn("Listener of batch {} failed: {}", batchId, ex.getMessage(), ex);
+            }
+        });
+        return this;
+    }
 }
@@ -0,0 +1,35 @@
+package com.spglobal.coding.producers.dto;
+
+import com.spglobal.coding.utils.enums.BatchStatus;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time view of the processing of a batch.
+ *
+ * @param totalRequests      the requests uploaded to the batch so far.
+ * @param processedRequests  the requests in the chunks processed so far, whatever their outcome.
+ * @param appliedRequests    processed requests that are part of a new version of their price record.
+ * @param supersededRequests processed requests skipped for newer requests of the same instrument.
+ * @param staleRequests      processed requests older than the history of their price record.
+ * @param failedRequests     processed requests that failed, e.g. invalid or cancelled ones.
+ * @param requestsPerSecond  processed requests per second since the processing started.
+ * @param remainingTime      estimated time until all uploaded requests are processed, from the rate so far;
+ *                           zero once the batch has reached its final status, null while there is no rate yet.
+ */
+public record BatchProgress(String batchId,
+                            BatchStatus status,
+                            long totalRequests,
+                            long processedRequests,
+                            long appliedRequests,
+                            long supersededRequests,
+                            long staleRequests,
+                            long failedRequests,
+                            double requestsPerSecond,
+                            Duration remainingTime)
+{
+    // Share of the uploaded requests processed so far, from 0 to 1
+    public double getCompletedFraction() {
+        return totalRequests == 0 ? 0 : Math.min(1, (double) processedRequests / totalRequests);
+    }
+}
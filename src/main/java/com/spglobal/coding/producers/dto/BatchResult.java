@@ -0,0 +1,34 @@
+package com.spglobal.coding.producers.dto;
+
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.BatchStatus;
+
+import java.util.List;
+
+/**
+ * The final state of a batch, once it is completed, processed with errors, failed or cancelled.
+ *
+ * @param status         the final status of the batch.
+ * @param failedRequests the requests that were not applied; empty if the batch failed as a whole.
+ * @param outcomes       the outcome counts of the batch, and the reason of each request in the order of failedRequests.
+ * @param errorMessage   why the batch failed as a whole, null otherwise.
+ */
+public record BatchResult(String batchId,
+                          BatchStatus status,
+                          List<UpdatePriceRecordRequest> failedRequests,
+                          UpdateOutcomes outcomes,
+                          String errorMessage)
+{
+    public BatchResult(String batchId, BatchStatus status, List<UpdatePriceRecordRequest> failedRequests, UpdateOutcomes outcomes) {
+        this(batchId, status, failedRequests, outcomes, null);
+    }
+
+    public boolean isSuccess() {
+        return status == BatchStatus.COMPLETED;
+    }
+
+    public int getFailedCount() {
+        return failedRequests.size();
+    }
+}
@@ -0,0 +1,146 @@
+package com.spglobal.coding.producers.dto;
+
+import com.spglobal.coding.utils.enums.BatchMode;
+import com.spglobal.coding.utils.enums.PriorityClass;
+import com.spglobal.coding.utils.staging.BatchStagingStore;
+
+import java.nio.file.Path;
+
+/**
+ * Options for starting a new batch.
+ * <p>
+ * This class is immutable and follows the Builder pattern, so that options can be added without breaking callers.
+ * </p>
+ * <p>
+ * A buffered batch keeps its first {@code spillThreshold} requests on the heap and spills the rest to a file in the
+ * spill directory, see {@link BatchStagingStore}. By default nothing is spilled.
+ * </p>
+ * <p>
+ * Starting a batch again with the idempotency key of an earlier batch returns that batch instead of a new one, and the
+ * records uploaded to a batch with an idempotency key are checked against the records uploaded recently, so that a
+ * producer retrying after a timeout does not apply its records twice. Without a key nothing is checked.
+ * </p>
+ * <p>
+ * The scheduling weight sets the share of the ChunkProcessor a batch gets while other batches are processed, if the
+ * ChunkProcessor schedules fairly. A producer passing the same options for all of its batches weights all of them alike.
+ * The priority class decides which batches go first: live ticks are sent as {@link PriorityClass#REAL_TIME} and
+ * historical reloads as {@link PriorityClass#BACKFILL}, so that a reload only uses the workers the live ticks leave idle.
+ * </p>
+ */
+public class BatchStartRequest {
+    private final BatchMode batchMode;
+    private final int spillThreshold;
+    private final Path spillDirectory;
+    private final String idempotencyKey;
+    private final int schedulingWeight;
+    private final PriorityClass priorityClass;
+
+    private BatchStartRequest(Builder builder) {
+        this.batchMode = builder.batchMode;
+        this.spillThreshold = builder.spillThreshold;
+        this.spillDirectory = builder.spillDirectory;
+        this.idempotencyKey = builder.idempotencyKey;
+        this.schedulingWeight = builder.schedulingWeight;
+        this.priorityClass = builder.priorityClass;
+    }
+
+    public static BatchStartRequest defaults() {
+        return new Builder().build();
+    }
+
+    public BatchMode getBatchMode() {
+        return batchMode;
+    }
+
+    // Number of requests staged on the heap before further requests are spilled to disk
+    public int getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    public Path getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public int getSchedulingWeight() {
+        return schedulingWeight;
+    }
+
+    public PriorityClass getPriorityClass() {
+        return priorityClass;
+    }
+
+    // Null if the batch is not protected against replays
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchStartRequest{" +
+                "batchMode=" + batchMode +
+                ", spillThreshold=" + spillThreshold +
+                ", spillDirectory=" + spillDirectory +
+                ", idempotencyKey=" + idempotencyKey +
+                ", schedulingWeight=" + schedulingWeight +
+                ", priorityClass=" + priorityClass +
+                '}';
+    }
+
+    public static class Builder {
+        private BatchMode batchMode = BatchMode.BUFFERED;
+        private int spillThreshold = BatchStagingStore.NEVER_SPILL;
+        private Path spillDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+        private String idempotencyKey;
+        private int schedulingWeight = 1;
+        private PriorityClass priorityClass = PriorityClass.STANDARD;
+
+        public Builder setBatchMode(BatchMode batchMode) {
+            this.batchMode = batchMode;
+            return this;
+        }
+
+        public Builder setSpillThreshold(int spillThreshold) {
+            this.spillThreshold = spillThreshold;
+            return this;
+        }
+
+        public Builder setSpillDirectory(Path spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        public Builder setIdempotencyKey(String idempotencyKey) {
+            this.idempotencyKey = idempotencyKey;
+            return this;
+        }
+
+        public Builder setSchedulingWeight(int schedulingWeight) {
+            this.schedulingWeight = schedulingWeight;
+            return this;
+        }
+
+        public Builder setPriorityClass(PriorityClass priorityClass) {
+            this.priorityClass = priorityClass;
+            return this;
+        }
+
+        public BatchStartRequest build() {
+            if (spillThreshold < 0) {
+                throw new IllegalArgumentException("spillThreshold must not be negative");
+            }
+            if (spillDirectory == null) {
+                throw new IllegalArgumentException("spillDirectory cannot be null");
+            }
+            if (schedulingWeight <= 0) {
+                throw new IllegalArgumentException("schedulingWeight must be positive");
+            }
+            if (priorityClass == null) {
+                throw new IllegalArgumentException("priorityClass cannot be null");
+            }
+            if (idempotencyKey != null && idempotencyKey.isBlank()) {
+                throw new IllegalArgumentException("idempotencyKey cannot be blank");
+            }
+            return new BatchStartRequest(this);
+        }
+    }
+}
@@ -1,5 +1,12 @@
 package com.spglobal.coding.producers.dto;
 
-public record BatchStartResponse(String batchId)
+/**
+ * @param replay true if a batch with the same idempotency key was started before, whose ID is returned.
+ */
+public record BatchStartResponse(String batchId,
+                                 boolean replay)
 {
+    public BatchStartResponse(String batchId) {
+        this(batchId, false);
+    }
 }
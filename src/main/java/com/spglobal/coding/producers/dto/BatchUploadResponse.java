@@ -2,8 +2,16 @@ package com.spglobal.coding.producers.dto;
 
 import com.spglobal.coding.utils.enums.BatchStatus;
 
+/**
+ * @param uploadedCount  the number of records added to the batch.
+ * @param duplicateCount the number of records skipped because they were uploaded before.
+ */
 public record BatchUploadResponse(String batchId,
                                   BatchStatus batchStatus,
-                                  int uploadedCount)
+                                  int uploadedCount,
+                                  int duplicateCount)
 {
+    public BatchUploadResponse(String batchId, BatchStatus batchStatus, int uploadedCount) {
+        this(batchId, batchStatus, uploadedCount, 0);
+    }
 }
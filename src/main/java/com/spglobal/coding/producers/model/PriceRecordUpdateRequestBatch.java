@@ -1,29 +1,190 @@
 package com.spglobal.coding.producers.model;
 
+import com.spglobal.coding.producers.dto.BatchResult;
+import com.spglobal.coding.utils.BatchProgressRecorder;
+import com.spglobal.coding.utils.ChunkStream;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+import com.spglobal.coding.utils.dedup.FingerprintWindow;
+import com.spglobal.coding.utils.dedup.RecordFingerprints;
+import com.spglobal.coding.utils.dto.BatchProcessResponse;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.BatchMode;
 import com.spglobal.coding.utils.enums.BatchStatus;
+import com.spglobal.coding.utils.enums.PriorityClass;
+import com.spglobal.coding.utils.staging.BatchStagingStore;
+import com.spglobal.coding.utils.wire.UpdateRequestWireDecoder;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Represents a batch of {@link UpdatePriceRecordRequest} objects that are processed together.
  * <p>
- * This class manages a list of price records and tracks the status of the batch using {@link BatchStatus}.
+ * This class manages the staged price records and tracks the status of the batch using {@link BatchStatus}.
  * The batch starts in the {@code STARTED} status and can be updated as needed.
  * New requests can be added to the batch using the {@code addAll} method.
+ * <p>
+ * In {@link BatchMode#STREAMING} mode the requests are not kept in the batch: they are appended to the
+ * {@link ChunkStream} of the batch, which processes them while the upload is still going.
+ * <p>
+ * In {@link BatchMode#BUFFERED} mode the requests are held by a {@link BatchStagingStore}, which may spill them to disk
+ * once the batch grows past its threshold.
+ * <p>
+ * Requests uploaded in the binary wire format are decoded into a {@link ColumnarRequestBatch} instead. A buffered
+ * batch takes either encoded uploads or request lists, not both.
+ * <p>
+ * A batch with a {@link FingerprintWindow} skips every uploaded record whose fingerprint is in the window already,
+ * i.e. records sent before within the replay window, by this batch or by another one sharing the window.
+ * <p>
+ * Once the batch reaches its final status its requests are released with {@link #releasePayload()}; the status and
+ * counts stay available.
  */
 public class PriceRecordUpdateRequestBatch {
-    private final List<UpdatePriceRecordRequest> requests;
-    private BatchStatus status;
+    private BatchStagingStore stagingStore; // null once the payload is released
+    private final BatchMode batchMode;
+    private final String idempotencyKey;
+    private final FingerprintWindow replayWindow; // null if records are not checked for replays
+    private ChunkStream chunkStream;
+    private ColumnarRequestBatch columnarRequests; // null until the first encoded upload
+    private volatile int uploadedCount; // read by progress queries while uploading
+    private int duplicateCount;
+    private int schedulingWeight = 1;
+    private PriorityClass priorityClass = PriorityClass.STANDARD;
+    private volatile CompletableFuture<BatchProcessResponse> completion; // null until the batch is completed
+    private final CompletableFuture<BatchResult> result = new CompletableFuture<>();
+    private final BatchProgressRecorder progress = new BatchProgressRecorder();
+    private volatile BatchStatus status;
 
     public PriceRecordUpdateRequestBatch() {
-        this.requests = new ArrayList<>();
+        this(BatchMode.BUFFERED);
+    }
+
+    public PriceRecordUpdateRequestBatch(BatchMode batchMode) {
+        this(batchMode, new BatchStagingStore());
+    }
+
+    public PriceRecordUpdateRequestBatch(BatchMode batchMode, BatchStagingStore stagingStore) {
+        this(batchMode, stagingStore, null, null);
+    }
+
+    /**
+     * @param idempotencyKey the key the producer started the batch with, may be null.
+     * @param replayWindow   the fingerprints of recently uploaded records; null to accept all records.
+     */
+    public PriceRecordUpdateRequestBatch(BatchMode batchMode, BatchStagingStore stagingStore, String idempotencyKey,
+                                         FingerprintWindow replayWindow) {
+        this.stagingStore = stagingStore;
+        this.batchMode = batchMode;
+        this.idempotencyKey = idempotencyKey;
+        this.replayWindow = replayWindow;
         this.status = BatchStatus.STARTED;
     }
 
+    // Read-only view once requests have been spilled or uploaded encoded, empty once the payload is released
     public List<UpdatePriceRecordRequest> getRequests() {
-        return requests;
+        if (columnarRequests != null) {
+            return columnarRequests.asRequestList();
+        }
+        return stagingStore != null ? stagingStore.asList() : Collections.emptyList();
+    }
+
+    public ColumnarRequestBatch getColumnarRequests() {
+        return columnarRequests;
+    }
+
+    // null once the payload is released
+    public BatchStagingStore getStagingStore() {
+        return stagingStore;
+    }
+
+    public BatchMode getBatchMode() {
+        return batchMode;
+    }
+
+    public ChunkStream getChunkStream() {
+        return chunkStream;
+    }
+
+    public void setChunkStream(ChunkStream chunkStream) {
+        this.chunkStream = chunkStream;
+    }
+
+    // Share of the ChunkProcessor workers the batch gets next to other batches, with fair scheduling
+    public int getSchedulingWeight() {
+        return schedulingWeight;
+    }
+
+    public void setSchedulingWeight(int schedulingWeight) {
+        this.schedulingWeight = schedulingWeight;
+    }
+
+    public PriorityClass getPriorityClass() {
+        return priorityClass;
+    }
+
+    public void setPriorityClass(PriorityClass priorityClass) {
+        this.priorityClass = priorityClass;
+    }
+
+    // Completes once the status reflects the processing, with the response of the batch, or null if it was not processed
+    public CompletableFuture<BatchProcessResponse> getCompletion() {
+        return completion;
+    }
+
+    public void setCompletion(CompletableFuture<BatchProcessResponse> completion) {
+        this.completion = completion;
+    }
+
+    // Counted by the ChunkProcessor while the batch is processed
+    public BatchProgressRecorder getProgress() {
+        return progress;
+    }
+
+    // Completes with the final state of the batch, once it has reached it
+    public CompletableFuture<BatchResult> getResult() {
+        return result;
+    }
+
+    /**
+     * Removes records that were not applied from the replay window, so that they are accepted when sent again.
+     */
+    public void forgetRecords(List<UpdatePriceRecordRequest> requests) {
+        if (replayWindow == null) {
+            return;
+        }
+        for (UpdatePriceRecordRequest request : requests) {
+            replayWindow.remove(RecordFingerprints.of(request));
+        }
+    }
+
+    /**
+     * Drops the references to the requests of the batch, once it has reached its final status. Lists of requests
+     * handed out before stay valid; a spill file is not deleted by this.
+     */
+    public void releasePayload() {
+        stagingStore = null;
+        columnarRequests = null;
+        chunkStream = null;
+    }
+
+    public boolean isPayloadReleased() {
+        return stagingStore == null;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public int getUploadedCount() {
+        return uploadedCount;
+    }
+
+    // Records skipped because they were uploaded before within the replay window
+    public int getDuplicateCount() {
+        return duplicateCount;
     }
 
     public BatchStatus getStatus() {
@@ -34,7 +195,85 @@ public class PriceRecordUpdateRequestBatch {
         this.status = status;
     }
 
-    public void addAll(List<UpdatePriceRecordRequest> requests) {
-        this.requests.addAll(requests);
+    /**
+     * Adds requests to a buffered batch, skipping replayed records if the batch has a replay window. The requests of a
+     * streaming batch are taken with {@link #acceptStreamed(List)} instead, and appended to its chunk stream by the
+     * caller, outside of any lock since appending may block on a full ChunkProcessor queue.
+     *
+     * @return the number of requests added.
+     * @throws IllegalStateException if the batch is streaming or already holds encoded requests.
+     */
+    public int addAll(List<UpdatePriceRecordRequest> requests) {
+        if (batchMode == BatchMode.STREAMING) {
+            throw new IllegalStateException("Batch is streaming, its requests are accepted with acceptStreamed.");
+        }
+        if (columnarRequests != null) {
+            throw new IllegalStateException("Batch already holds encoded requests, request lists cannot be added.");
+        }
+        List<UpdatePriceRecordRequest> newRequests = accept(requests);
+        stagingStore.addAll(newRequests);
+        return newRequests.size();
+    }
+
+    /**
+     * Counts requests as uploaded to a streaming batch, skipping replayed records if the batch has a replay window,
+     * without appending them to its chunk stream yet.
+     *
+     * @return the requests the caller has to append to the chunk stream.
+     */
+    public List<UpdatePriceRecordRequest> acceptStreamed(List<UpdatePriceRecordRequest> requests) {
+        return accept(requests);
+    }
+
+    /**
+     * Takes back requests returned by {@link #acceptStreamed(List)} that could not be appended, e.g. because the
+     * stream was closed in the meantime; they are accepted again when sent again.
+     */
+    public void revertStreamed(List<UpdatePriceRecordRequest> requests) {
+        uploadedCount -= requests.size();
+        forgetRecords(requests);
+    }
+
+    private List<UpdatePriceRecordRequest> accept(List<UpdatePriceRecordRequest> requests) {
+        List<UpdatePriceRecordRequest> newRequests = requests;
+        if (replayWindow != null) {
+            newRequests = new ArrayList<>(requests.size());
+            for (UpdatePriceRecordRequest request : requests) {
+                if (replayWindow.addIfAbsent(RecordFingerprints.of(request))) {
+                    newRequests.add(request);
+                }
+            }
+            duplicateCount += requests.size() - newRequests.size();
+        }
+        uploadedCount += newRequests.size();
+        return newRequests;
+    }
+
+    /**
+     * Decodes requests in the binary wire format into the columnar requests of the batch.
+     *
+     * Replayed records are dropped from the columns right after decoding, if the batch has a replay window.
+     *
+     * @return the number of requests added.
+     * @throws IllegalStateException if the batch is streaming or already holds request lists.
+     * @throws IllegalArgumentException if the message is malformed; the batch is left unchanged then.
+     */
+    public int addEncoded(ByteBuffer encodedRequests) {
+        if (batchMode == BatchMode.STREAMING || !stagingStore.isEmpty()) {
+            throw new IllegalStateException("Encoded requests can only be added to a buffered batch without request lists.");
+        }
+        if (columnarRequests == null) {
+            columnarRequests = new ColumnarRequestBatch();
+        }
+        int firstRow = columnarRequests.size();
+        int added = UpdateRequestWireDecoder.decodeInto(encodedRequests, columnarRequests);
+        if (replayWindow != null) {
+            int duplicates = columnarRequests.retainRows(firstRow,
+                    row -> replayWindow.addIfAbsent(RecordFingerprints.of(columnarRequests, row)));
+            duplicateCount += duplicates;
+            added -= duplicates;
+        }
+        uploadedCount += added;
+        return added;
     }
 }
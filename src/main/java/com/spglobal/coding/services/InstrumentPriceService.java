@@ -2,17 +2,30 @@ package com.spglobal.coding.services;
 
 import com.spglobal.coding.consumers.dto.GetPriceRecordsListResponse;
 import com.spglobal.coding.utils.dto.ChunkProcessRequest;
+import com.spglobal.coding.utils.dto.ColumnarChunkProcessRequest;
 import com.spglobal.coding.services.dto.ChunkProcessResponse;
 import com.spglobal.coding.services.model.Payload;
 import com.spglobal.coding.services.model.PriceRecord;
+import com.spglobal.coding.utils.CancellationToken;
+import com.spglobal.coding.utils.FixedPointPrices;
+import com.spglobal.coding.utils.HotPathEventLog;
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
 import com.spglobal.coding.utils.exceptions.UpdateRequestProcessingException;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.HotPathEvent;
 import com.spglobal.coding.utils.enums.InstrumentType;
+import com.spglobal.coding.utils.enums.PriceRepresentation;
+import com.spglobal.coding.utils.enums.PublicationMode;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+import com.spglobal.coding.utils.model.InstrumentReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
 import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -28,39 +41,225 @@ public class InstrumentPriceService implements PriceService {
 
     private static final Logger logger = LoggerFactory.getLogger(InstrumentPriceService.class);
 
+    private static final int HISTORY_SIZE = 10;
+    private static final InstrumentType[] INSTRUMENT_TYPES = InstrumentType.values();
+
     // First we're mapping InstrumentType with their values and then their Instrument ID's with their Records.
-    protected static final Map<InstrumentType, Map<String, PriceRecord>> latestPrices = new ConcurrentHashMap<>();
+    // Owned by this service, so that the updates of another service never reach its snapshots
+    protected final Map<InstrumentType, Map<String, PriceRecord>> latestPrices = new ConcurrentHashMap<>();
+
+    private final PriceRepresentation priceRepresentation;
+    private final HotPathEventLog eventLog;
+    private final PublicationMode publicationMode;
+    private final Map<String, StagedPriceUpdates> stagedBatches = new ConcurrentHashMap<>();
+    private final Object publishLock = new Object();
+    private volatile MapPriceSnapshot publishedSnapshot;
+
+    public InstrumentPriceService() {
+        this(PriceRepresentation.DECIMAL);
+    }
 
-    private static final int HISTORY_SIZE = 10;
+    /**
+     * @param priceRepresentation how prices are stored. {@code null} selects {@link PriceRepresentation#DECIMAL}.
+     */
+    public InstrumentPriceService(PriceRepresentation priceRepresentation) {
+        this(priceRepresentation, new HotPathEventLog());
+    }
+
+    /**
+     * @param priceRepresentation how prices are stored. {@code null} selects {@link PriceRepresentation#DECIMAL}.
+     * @param eventLog            where the outcomes of single records are counted and sample-logged. {@code null}
+     *                            selects a log with the default sampling.
+     */
+    public InstrumentPriceService(PriceRepresentation priceRepresentation, HotPathEventLog eventLog) {
+        this(priceRepresentation, eventLog, PublicationMode.IMMEDIATE);
+    }
+
+    /**
+     * @param priceRepresentation how prices are stored. {@code null} selects {@link PriceRepresentation#DECIMAL}.
+     * @param publicationMode     when updates become visible to readers. {@code null} selects {@link PublicationMode#IMMEDIATE}.
+     */
+    public InstrumentPriceService(PriceRepresentation priceRepresentation, PublicationMode publicationMode) {
+        this(priceRepresentation, new HotPathEventLog(), publicationMode);
+    }
+
+    /**
+     * @param priceRepresentation how prices are stored. {@code null} selects {@link PriceRepresentation#DECIMAL}.
+     * @param eventLog            where the outcomes of single records are counted and sample-logged. {@code null}
+     *                            selects a log with the default sampling.
+     * @param publicationMode     when updates become visible to readers. {@code null} selects {@link PublicationMode#IMMEDIATE}.
+     */
+    public InstrumentPriceService(PriceRepresentation priceRepresentation, HotPathEventLog eventLog, PublicationMode publicationMode) {
+        this.priceRepresentation = Objects.requireNonNullElse(priceRepresentation, PriceRepresentation.DECIMAL);
+        this.eventLog = Objects.requireNonNullElseGet(eventLog, HotPathEventLog::new);
+        this.publicationMode = Objects.requireNonNullElse(publicationMode, PublicationMode.IMMEDIATE);
+        this.publishedSnapshot = this.publicationMode == PublicationMode.EPOCH
+                ? copyOf(new MapPriceSnapshot(-1L, Map.of()), EnumSet.allOf(InstrumentType.class))
+                : new MapPriceSnapshot(0L, latestPrices);
+    }
 
     /**
      * Processes a chunk of update requests from a batch and updates the latest prices for each instrument.
-     * Any requests that fail to process are logged and returned in the response.
+     * <p>
+     * The chunk is first pre-aggregated per instrument: only the newest {@code HISTORY_SIZE} requests of every
+     * instrument are kept, and a single merged update is then applied per instrument. This avoids one map operation
+     * and one history insertion per request when the same instrument appears many times in the chunk. Requests older
+     * than the history of the current record of their instrument are dropped while grouping.
+     * Any requests that fail to process are returned in the response, together with the outcome of every request.
+     * <p>
+     * A chunk whose batch is cancelled while it runs stops before the next instrument it would update; the requests of
+     * the remaining instruments are returned as {@link UpdateOutcome#CANCELLED} failed requests.
      *
      * @param chunkProcessRequest Request containing the batch ID and list of update requests to be processed.
      * @return A response indicating whether the chunk processing was successful and containing any failed request.
      */
     @Override
     public ChunkProcessResponse processChunk(ChunkProcessRequest chunkProcessRequest) {
+        String batchId = chunkProcessRequest.batchId();
         List<UpdatePriceRecordRequest> failedRequests = new ArrayList<>();
+        UpdateOutcomes.Builder outcomes = new UpdateOutcomes.Builder();
 
-        logger.info("Processing Started for {} records in chunk from batchId {}", chunkProcessRequest.updateRequestList().size(), chunkProcessRequest.batchId());
+        logger.info("Processing Started for {} records in chunk from batchId {}", chunkProcessRequest.updateRequestList().size(), batchId);
+        Map<InstrumentType, Map<String, InstrumentUpdateGroup>> groups = new EnumMap<>(InstrumentType.class);
         for (UpdatePriceRecordRequest updateRequest : chunkProcessRequest.updateRequestList()) {
-            try {
-                updateLatestPrice(chunkProcessRequest.batchId(), updateRequest); // Process each record in the batch
-            } catch (UpdateRequestProcessingException e) {
+            if (!isValid(updateRequest)) {
                 failedRequests.add(updateRequest); // Add the failed process to a list for future assessment
-                logger.error("Failed to process record for instrument: {} in batchId: {}. Error: {}",
-                        updateRequest.getInstrument(), chunkProcessRequest.batchId(), e.getMessage());
+                outcomes.addFailure(UpdateOutcome.INVALID_NULL_FIELD);
+                eventLog.record(batchId, HotPathEvent.INVALID_REQUEST, updateRequest.getInstrument());
+                continue;
+            }
+            String instrumentId = InstrumentRegistry.getInstance().resolve(updateRequest.getInstrument(), updateRequest.getInstrumentType()).getInstrumentId();
+            groups.computeIfAbsent(updateRequest.getInstrumentType(), k -> new HashMap<>())
+                    .computeIfAbsent(instrumentId, id -> new InstrumentUpdateGroup(updateRequest.getInstrument(), id, updateRequest.getInstrumentType(),
+                            HISTORY_SIZE, currentRecord(batchId, updateRequest.getInstrumentType(), id)))
+                    .add(updateRequest);
+        }
+
+        CancellationToken cancellation = chunkProcessRequest.cancellation();
+        for (Map<String, InstrumentUpdateGroup> groupsOfType : groups.values()) {
+            for (InstrumentUpdateGroup group : groupsOfType.values()) {
+                recordStale(batchId, group.getInstrumentId(), group.getStaleCount(), outcomes);
+                outcomes.add(UpdateOutcome.SUPERSEDED, group.getSupersededCount());
+                if (cancellation.isCancelled()) {
+                    group.cancelRetained(failedRequests, outcomes);
+                    continue;
+                }
+                List<Payload> payloads = group.toPayloadsNewestFirst(request -> toPayload(batchId, request), failedRequests, outcomes);
+                if (!payloads.isEmpty()) {
+                    outcomes.add(applyMergedUpdate(batchId, group.getInstrument(), group.getInstrumentId(), group.getInstrumentType(), payloads),
+                            payloads.size());
+                }
+            }
+        }
+
+        logger.info("Chunk processing for batchId {} completed with {} failed requests.", batchId, failedRequests.size());
+        return new ChunkProcessResponse(failedRequests.isEmpty(), failedRequests, outcomes.build());
+    }
+
+    /**
+     * Processes a chunk of rows of a columnar batch with the same semantics as {@link #processChunk(ChunkProcessRequest)}.
+     * <p>
+     * Instead of grouping request objects, the rows are sorted by instrument and type in a single {@code long[]} of
+     * (group key, position) pairs. Every run of equal keys is one instrument; its newest {@code HISTORY_SIZE} rows are
+     * selected by request time, and only those are turned into payloads. Rows older than the history of the current
+     * record of their instrument are skipped before selection. Request objects are only created for rows that fail.
+     *
+     * @param chunkProcessRequest Request containing the batch ID, the columnar batch and the rows to be processed.
+     * @return A response indicating whether the chunk processing was successful and containing any failed request.
+     */
+    @Override
+    public ChunkProcessResponse processColumnarChunk(ColumnarChunkProcessRequest chunkProcessRequest) {
+        String batchId = chunkProcessRequest.batchId();
+        ColumnarRequestBatch batch = chunkProcessRequest.batch();
+        int size = chunkProcessRequest.size();
+        List<UpdatePriceRecordRequest> failedRequests = new ArrayList<>();
+        UpdateOutcomes.Builder outcomes = new UpdateOutcomes.Builder();
+
+        logger.info("Processing Started for {} columnar rows in chunk from batchId {}", size, batchId);
+        long[] keyedPositions = new long[size];
+        int valid = 0;
+        for (int i = 0; i < size; i++) {
+            int row = chunkProcessRequest.row(i);
+            InstrumentType instrumentType = batch.getInstrumentType(row);
+            if (!batch.hasRequestTime(row) || batch.getDenseInstrumentId(row) < 0 || instrumentType == null) {
+                failedRequests.add(batch.toRequest(row));
+                outcomes.addFailure(UpdateOutcome.INVALID_NULL_FIELD);
+                eventLog.record(batchId, HotPathEvent.INVALID_REQUEST, batch.getInstrument(row));
+                continue;
             }
+            long groupKey = (long) batch.getDenseInstrumentId(row) * INSTRUMENT_TYPES.length + instrumentType.ordinal();
+            keyedPositions[valid++] = groupKey << 32 | i;
+        }
+        Arrays.sort(keyedPositions, 0, valid);
+
+        CancellationToken cancellation = chunkProcessRequest.cancellation();
+        int[] newestRows = new int[HISTORY_SIZE];
+        int end;
+        for (int start = 0; start < valid; start = end) {
+            long groupKey = keyedPositions[start] >>> 32;
+            InstrumentType instrumentType = INSTRUMENT_TYPES[(int) (groupKey % INSTRUMENT_TYPES.length)];
+            InstrumentReference reference = InstrumentRegistry.getInstance().getByDenseId((int) (groupKey / INSTRUMENT_TYPES.length));
+            PriceRecord currentRecord = currentRecord(batchId, instrumentType, reference.getInstrumentId());
+            int retained = 0;
+            int stale = 0;
+            for (end = start; end < valid && keyedPositions[end] >>> 32 == groupKey; end++) {
+                int row = chunkProcessRequest.row((int) keyedPositions[end]);
+                if (currentRecord != null && currentRecord.isStale(batch.getRequestEpochSecond(row), batch.getRequestNano(row))) {
+                    stale++;
+                } else {
+                    retained = retainNewest(batch, newestRows, retained, row);
+                }
+            }
+
+            recordStale(batchId, reference.getInstrumentId(), stale, outcomes);
+            outcomes.add(UpdateOutcome.SUPERSEDED, end - start - stale - retained);
+            if (cancellation.isCancelled()) {
+                for (int i = 0; i < retained; i++) {
+                    failedRequests.add(batch.toRequest(newestRows[i]));
+                    outcomes.addFailure(UpdateOutcome.CANCELLED);
+                }
+                continue;
+            }
+            List<Payload> payloads = new ArrayList<>(retained);
+            for (int i = 0; i < retained; i++) {
+                Payload payload = toPayload(batchId, batch, newestRows[i]);
+                if (payload == null) {
+                    failedRequests.add(batch.toRequest(newestRows[i]));
+                    outcomes.addFailure(UpdateOutcome.INVALID_PRICE);
+                } else {
+                    payloads.add(payload);
+                }
+            }
+            if (payloads.isEmpty()) {
+                continue;
+            }
+            // Columnar rows are resolved by dense ID, so the type is learned here as resolve does for list requests
+            InstrumentRegistry.getInstance().learnType(reference, instrumentType);
+            outcomes.add(applyMergedUpdate(batchId, reference.getInstrument(), reference.getInstrumentId(), instrumentType, payloads), payloads.size());
         }
 
-        logger.info("Chunk processing for batchId {} completed with {} failed requests.", chunkProcessRequest.batchId(), failedRequests.size());
-        return new ChunkProcessResponse(failedRequests.isEmpty(), failedRequests);
+        logger.info("Columnar chunk processing for batchId {} completed with {} failed requests.", batchId, failedRequests.size());
+        return new ChunkProcessResponse(failedRequests.isEmpty(), failedRequests, outcomes.build());
+    }
+
+    // Inserts the row into the rows kept newest first if it is among the HISTORY_SIZE newest; returns the new count
+    private static int retainNewest(ColumnarRequestBatch batch, int[] newestRows, int retained, int row) {
+        int position = retained;
+        while (position > 0 && batch.compareRequestTime(newestRows[position - 1], row) < 0) {
+            position--;
+        }
+        if (position == newestRows.length) {
+            return retained; // Older than everything retained, it can never make it into the history
+        }
+        int count = Math.min(retained + 1, newestRows.length);
+        System.arraycopy(newestRows, position, newestRows, position + 1, count - position - 1);
+        newestRows[position] = row;
+        return count;
     }
 
     /**
-     * Updates the latest price for a given price record if it is more recent than the current record.
+     * Updates the latest price for a given price record if it is more recent than the current record. The batch is
+     * ended with {@link #publishBatch(String)} and {@link #summarizeBatch(String)}, as a chunked batch.
      *
      * @param batchId     The batch ID for which the price record is being updated.
      * @param updateRequest The new price record to be updated.
@@ -68,187 +267,304 @@ public class InstrumentPriceService implements PriceService {
      */
     @Override
     public void updateLatestPrice(String batchId, UpdatePriceRecordRequest updateRequest) {
-        if (updateRequest.getRequestTime() == null || updateRequest.getInstrument() == null) {
-            String errorMessage = String.format("Received invalid UpdateRequest in batchId %s. RequestTime or Instrument is null.", batchId);
-            logger.error(errorMessage);
-            throw new UpdateRequestProcessingException(errorMessage);
+        UpdateOutcome outcome = applyUpdate(batchId, updateRequest);
+        if (outcome.isFailure()) {
+            throw new UpdateRequestProcessingException(String.format("Received invalid UpdateRequest in batchId %s: %s", batchId, outcome));
         }
+    }
 
-        InstrumentType instrumentType = updateRequest.getInstrumentType();
-        Map<String, PriceRecord> priceMap = latestPrices.computeIfAbsent(instrumentType, k -> new ConcurrentHashMap<>());
-
-        // Generate instrument ID
-        String instrumentId = generateIdFromInstrument(updateRequest.getInstrument());
-
-        priceMap.compute(instrumentId, (id, currentRecord) -> {
-            Payload newPayload = new Payload(
-                    updateRequest.getId(),
-                    updateRequest.getValue(),
-                    updateRequest.getCurrency(),
-                    updateRequest.getRequestTime()
-            );
+    /**
+     * Updates the latest price for a given price record if it is more recent than the current record, without throwing
+     * when the request is rejected. The batch is ended with {@link #publishBatch(String)} and
+     * {@link #summarizeBatch(String)}, as a chunked batch.
+     * <p>
+     * A request older than the full history of the current record is rejected with a single map lookup, before any
+     * payload is created or any map is written.
+     *
+     * @param batchId       The batch ID for which the price record is being updated.
+     * @param updateRequest The new price record to be updated.
+     * @return {@link UpdateOutcome#APPLIED} or {@link UpdateOutcome#STALE_IGNORED}, or the reason the request was rejected.
+     */
+    @Override
+    public UpdateOutcome applyUpdate(String batchId, UpdatePriceRecordRequest updateRequest) {
+        if (updateRequest.getRequestTime() == null || updateRequest.getInstrument() == null) {
+            eventLog.record(batchId, HotPathEvent.INVALID_REQUEST, updateRequest.getInstrument());
+            return UpdateOutcome.INVALID_NULL_FIELD;
+        }
 
-            if (currentRecord == null) {
-                logger.info("Creating new PriceRecord for Instrument ID: {} in batchId {}", instrumentId, batchId);
-                return new PriceRecord(updateRequest.getInstrument(), instrumentId, instrumentType, updateRequest.getRequestTime(), newPayload.getValue(), newPayload);
-            } else {
-                logger.info("Updating existing PriceRecord for Instrument ID: {} in batchId {}", instrumentId, batchId);
-                try {
-                    addRequestToPayloadHistory(currentRecord, newPayload);
-                    return currentRecord;
-                } catch (UpdateRequestProcessingException e) {
-                    logger.error("Failed to update PriceRecord for Instrument ID: {} due to outdated request. Error: {}", instrumentId, e.getMessage());
-                    throw new UpdateRequestProcessingException("Outdated request for Instrument ID: " + instrumentId);
-                }
-            }
-        });
+        String instrumentId = InstrumentRegistry.getInstance().resolve(updateRequest.getInstrument(), updateRequest.getInstrumentType()).getInstrumentId();
+        PriceRecord currentRecord = currentRecord(batchId, updateRequest.getInstrumentType(), instrumentId);
+        if (currentRecord != null && currentRecord.isStale(updateRequest.getRequestTime())) {
+            eventLog.record(batchId, HotPathEvent.STALE_REQUESTS_REJECTED, instrumentId, 1);
+            return UpdateOutcome.STALE_IGNORED;
+        }
+        Payload newPayload = toPayload(batchId, updateRequest);
+        if (newPayload == null) {
+            return UpdateOutcome.INVALID_PRICE;
+        }
+        return applyMergedUpdate(batchId, updateRequest.getInstrument(), instrumentId, updateRequest.getInstrumentType(), List.of(newPayload));
     }
 
     /**
-     * Adds a new payload to the price record's payload history and updates the record if the new payload
-     * is the most recent.
-     * @param priceRecord the {@link PriceRecord} to update with the new payload
-     * @param newPayload the new {@link Payload} to add to the history and possibly update the record
-     * @throws UpdateRequestProcessingException if the payload history is null
+     * Returns the record the updates of a batch are applied to: the record staged for the batch with
+     * {@link PublicationMode#EPOCH}, or else the latest record. Its history only ever moves forward, so a request that is
+     * stale against it stays stale until it would be applied.
+     *
+     * @return the record, or null if the instrument has none yet.
      */
-    private void addRequestToPayloadHistory(PriceRecord priceRecord, Payload newPayload) {
-        SortedSet<Payload> payloadHistory = priceRecord.getPayloadHistory();
+    private PriceRecord currentRecord(String batchId, InstrumentType instrumentType, String instrumentId) {
+        if (instrumentType == null) {
+            return null;
+        }
+        if (publicationMode == PublicationMode.EPOCH) {
+            StagedPriceUpdates staged = stagedBatches.get(batchId);
+            PriceRecord stagedRecord = staged == null ? null : staged.getStaged(instrumentType, instrumentId);
+            if (stagedRecord != null) {
+                return stagedRecord;
+            }
+        }
+        Map<String, PriceRecord> priceMap = latestPrices.get(instrumentType);
+        return priceMap == null ? null : priceMap.get(instrumentId);
+    }
 
-        // Validate if the history exists and is not empty
-        if (payloadHistory == null) {
-            logger.info("Unexpected Exception: payload history is null for Instrument ID: {}", priceRecord.getInstrumentId());
-            throw new UpdateRequestProcessingException("Payload history is null for an existing record");
+    private void recordStale(String batchId, String instrumentId, int staleCount, UpdateOutcomes.Builder outcomes) {
+        if (staleCount > 0) {
+            outcomes.add(UpdateOutcome.STALE_IGNORED, staleCount);
+            eventLog.record(batchId, HotPathEvent.STALE_REQUESTS_REJECTED, instrumentId, staleCount);
         }
+    }
 
-        // Check if the new payload is the most recent
-        if (newPayload.getAsOf().isAfter(priceRecord.getLastUpdateTime())) {
-            logger.info("New payload is the latest for Instrument ID: {}. Updating record and adding to history.", priceRecord.getInstrumentId());
+    /**
+     * Applies the payloads of one instrument to its price record with a single map operation.
+     * <p>
+     * Price records are immutable: the map entry is swapped for the next version of the record, so readers only ever
+     * see complete versions without taking any lock. With {@link PublicationMode#EPOCH} the next version is staged for
+     * the batch instead.
+     *
+     * @param batchId        The batch ID for which the price record is being updated.
+     * @param instrument     The name of the instrument, used when a new record has to be created.
+     * @param instrumentId   The ID of the instrument.
+     * @param instrumentType The type of the instrument.
+     * @param payloads       The payloads to apply, ordered from the newest to the oldest. Must not be empty.
+     * @return {@link UpdateOutcome#STALE_IGNORED} if the payloads left the record unchanged, otherwise {@link UpdateOutcome#APPLIED}.
+     */
+    private UpdateOutcome applyMergedUpdate(String batchId, String instrument, String instrumentId, InstrumentType instrumentType, List<Payload> payloads) {
+        Map<String, PriceRecord> priceMap = latestPrices.computeIfAbsent(instrumentType, k -> new ConcurrentHashMap<>());
 
-            // Update the price record with the new latest payload's timestamp and value
-            priceRecord.setLastUpdateTime(newPayload.getAsOf());
-            priceRecord.setLatestPrice(newPayload.getValue());
+        if (publicationMode == PublicationMode.EPOCH) {
+            // The latest prices only change when a batch is published, so they hold the published record
+            boolean changed = stagedBatches.computeIfAbsent(batchId, id -> new StagedPriceUpdates(HISTORY_SIZE))
+                    .stage(instrumentType, instrumentId, priceMap.get(instrumentId), payloads,
+                            currentRecord -> merge(batchId, currentRecord, instrument, instrumentId, instrumentType, payloads));
+            return changed ? UpdateOutcome.APPLIED : UpdateOutcome.STALE_IGNORED;
         }
 
-        payloadHistory.add(newPayload);
+        PriceRecord[] previousRecord = new PriceRecord[1];
+        PriceRecord nextRecord = priceMap.compute(instrumentId, (id, currentRecord) -> {
+            previousRecord[0] = currentRecord;
+            return merge(batchId, currentRecord, instrument, instrumentId, instrumentType, payloads);
+        });
+        return nextRecord == previousRecord[0] ? UpdateOutcome.STALE_IGNORED : UpdateOutcome.APPLIED;
+    }
 
-        // Ensure the history size is maintained (remove the oldest entry if it exceeds the limit)
-        if (payloadHistory.size() > HISTORY_SIZE) {
-            Payload removedPayload = payloadHistory.last();
-            payloadHistory.remove(removedPayload); // Remove the oldest payload
-            logger.debug("Payload history exceeded limit, removing oldest payload for Instrument ID: {}: {}", priceRecord.getInstrumentId(), removedPayload.getId());
+    // Creates the next version of a record with the payloads applied, or the first version if the record is null
+    private PriceRecord merge(String batchId, PriceRecord currentRecord, String instrument, String instrumentId, InstrumentType instrumentType,
+                              List<Payload> payloads) {
+        if (currentRecord == null) {
+            eventLog.record(batchId, HotPathEvent.PRICE_RECORD_CREATED, instrumentId);
+            PriceRecord priceRecord = new PriceRecord(instrument, instrumentId, instrumentType, payloads.get(0), HISTORY_SIZE);
+            return payloads.size() > 1 ? priceRecord.withPayloads(payloads.subList(1, payloads.size())) : priceRecord;
         }
 
-        logger.info("Successfully updated PriceRecord for Instrument ID: {}", priceRecord.getInstrumentId());
+        PriceRecord nextVersion = currentRecord.withPayloads(payloads);
+        if (nextVersion == currentRecord) {
+            eventLog.record(batchId, HotPathEvent.STALE_PAYLOADS_IGNORED, instrumentId);
+        } else {
+            eventLog.record(batchId, HotPathEvent.PRICE_RECORD_UPDATED, instrumentId, nextVersion.getVersion());
+        }
+        return nextVersion;
     }
 
     /**
-     * Retrieves a PriceRecord by its unique record ID and instrument type.
+     * Makes the updates of a processed batch visible to readers.
      * <p>
-     * If the instrument type is null, the method searches through all available instrument types.
-     * If the instrument type is specified, it only searches within the map for that type.
+     * With {@link PublicationMode#EPOCH} the staged records of the batch are written to the latest prices and published
+     * as the next epoch in one step. A record that another batch published in the meantime gets the staged payloads
+     * applied on top of it. The new snapshot copies the record maps of the instrument types the batch changed and
+     * shares all others with the previous epoch. With {@link PublicationMode#IMMEDIATE} the updates are visible already
+     * and only the epoch number moves on.
      *
-     * @param recordId      The unique ID of the PriceRecord to be retrieved. Must not be null.
-     * @param instrumentType The type of the financial instrument. If null, all instrument types will be searched.
-     * @return An Optional containing the PriceRecord if found, or an empty Optional if not found.
-     * @throws NullPointerException if recordId is null.
+     * @param batchId The ID of the processed batch.
+     * @return the epoch from which on the updates of the batch are visible.
      */
     @Override
-    public Optional<PriceRecord> getPriceRecordWithRecordId(String recordId, InstrumentType instrumentType) {
-        Objects.requireNonNull(recordId, "recordId cannot be null");
-
-        if (instrumentType == null) {  // // If instrumentType is absent, search all maps and stream over their values
-            return latestPrices.values().stream()
-                    .flatMap(map -> map.values().stream())
-                    .filter(priceRecord -> recordId.equals(priceRecord.getId()))
-                    .findFirst();
+    public long publishBatch(String batchId) {
+        StagedPriceUpdates staged = stagedBatches.remove(batchId);
+        synchronized (publishLock) {
+            if (publicationMode == PublicationMode.IMMEDIATE) {
+                publishedSnapshot = new MapPriceSnapshot(publishedSnapshot.getEpoch() + 1, latestPrices);
+                return publishedSnapshot.getEpoch();
+            }
+            if (staged == null) {
+                return publishedSnapshot.getEpoch(); // Nothing to publish
+            }
+            for (InstrumentType instrumentType : staged.getInstrumentTypes()) {
+                Map<String, PriceRecord> priceMap = latestPrices.computeIfAbsent(instrumentType, k -> new ConcurrentHashMap<>());
+                staged.getUpdates(instrumentType).forEach((instrumentId, update) -> {
+                    PriceRecord currentRecord = priceMap.get(instrumentId);
+                    PriceRecord stagedRecord = update.staged();
+                    priceMap.put(instrumentId, currentRecord == update.base() ? stagedRecord
+                            : merge(batchId, currentRecord, stagedRecord.getInstrument(), instrumentId, instrumentType, update.payloadsNewestFirst()));
+                });
+            }
+            publishedSnapshot = copyOf(publishedSnapshot, staged.getInstrumentTypes());
+            logger.info("Published the updates of batchId {} as epoch {}", batchId, publishedSnapshot.getEpoch());
+            return publishedSnapshot.getEpoch();
         }
-        // If instrumentType is present, get the map for that type and stream the values
-        return latestPrices.getOrDefault(instrumentType, Map.of()).values()
-                .stream()
-                .filter(priceRecord -> recordId.equals(priceRecord.getId()))
-                .findFirst();
     }
 
+    /**
+     * Drops the staged updates of a batch that will not be published, e.g. because it failed or was cancelled.
+     *
+     * @param batchId The ID of the batch.
+     */
     @Override
-    public Optional<PriceRecord> getPriceRecordWithRecordId(String recordId) {
-        return getPriceRecordWithRecordId(recordId, null);
+    public void discardBatch(String batchId) {
+        if (stagedBatches.remove(batchId) != null) {
+            logger.info("Discarded the staged updates of batchId {}", batchId);
+        }
+    }
+
+    // The next epoch: the record maps of the changed types are copied from the latest prices, the others shared
+    private MapPriceSnapshot copyOf(MapPriceSnapshot previous, Set<InstrumentType> changedTypes) {
+        Map<InstrumentType, Map<String, PriceRecord>> prices = new EnumMap<>(InstrumentType.class);
+        prices.putAll(previous.getPrices());
+        for (InstrumentType instrumentType : changedTypes) {
+            Map<String, PriceRecord> priceMap = latestPrices.get(instrumentType);
+            if (priceMap == null || priceMap.isEmpty()) {
+                prices.remove(instrumentType);
+            } else {
+                prices.put(instrumentType, Map.copyOf(priceMap));
+            }
+        }
+        return new MapPriceSnapshot(previous.getEpoch() + 1, Collections.unmodifiableMap(prices));
     }
 
     /**
-     * Retrieves a PriceRecord by its unique instrument ID and instrument type.
-     * <p>
-     * If the instrument type is null, the method searches through all available instrument types.
-     * If the instrument type is specified, it only searches within the map for that type.
+     * Creates the payload of a request in the configured price representation.
      *
-     * @param instrumentId   The unique ID of the financial instrument. Must not be null.
-     * @param instrumentType The type of the financial instrument. If null, all instrument types will be searched.
-     * @return An Optional containing the PriceRecord if found, or an empty Optional if not found.
-     * @throws NullPointerException if instrumentId is null.
+     * @return the payload, or null if the price cannot be represented as a fixed-point mantissa.
      */
-    @Override
-    public Optional<PriceRecord> getPriceRecordWithInstrumentId(String instrumentId, InstrumentType instrumentType) {
-        Objects.requireNonNull(instrumentId, "instrumentId cannot be null");
-
-        if (instrumentType == null) { // If instrumentType is not present, search all maps for the PriceRecord
-            return latestPrices.values().stream()
-                    .map(priceMap -> priceMap.get(instrumentId))
-                    .filter(Objects::nonNull)
-                    .findFirst(); // Return the first record if any
+    private Payload toPayload(String batchId, UpdatePriceRecordRequest updateRequest) {
+        if (priceRepresentation == PriceRepresentation.DECIMAL) {
+            return new Payload(updateRequest.getId(), updateRequest.getValue(), updateRequest.getCurrency(), updateRequest.getRequestTime());
+        }
 
+        int scale = FixedPointPrices.scaleOf(updateRequest.getCurrency());
+        long mantissa;
+        if (updateRequest.hasFixedPointValue() && FixedPointPrices.canRescale(updateRequest.getPriceMantissa(), updateRequest.getPriceScale(), scale)) {
+            mantissa = FixedPointPrices.rescale(updateRequest.getPriceMantissa(), updateRequest.getPriceScale(), scale);
+        } else if (!updateRequest.hasFixedPointValue() && updateRequest.getValue() != null
+                && FixedPointPrices.fitsMantissa(updateRequest.getValue(), scale)) {
+            mantissa = FixedPointPrices.toMantissa(updateRequest.getValue(), scale);
+        } else {
+            eventLog.record(batchId, HotPathEvent.INVALID_PRICE, updateRequest.getInstrument());
+            return null;
         }
-        // If instrumentType is present, get the corresponding map and look up the PriceRecord
-        Map<String, PriceRecord> priceMap = latestPrices.get(instrumentType);
-        return Optional.ofNullable(priceMap).map(map -> map.get(instrumentId));
+        return new Payload(updateRequest.getId(), mantissa, scale, updateRequest.getCurrency(), updateRequest.getRequestTime());
     }
 
-    @Override
-    public Optional<PriceRecord> getPriceRecordWithInstrumentId(String instrumentId) {
-        return getPriceRecordWithInstrumentId(instrumentId, null);
+    // Creates the payload of a columnar row in the configured price representation, see toPayload(String, UpdatePriceRecordRequest)
+    private Payload toPayload(String batchId, ColumnarRequestBatch batch, int row) {
+        Currency currency = batch.getCurrency(row);
+        if (priceRepresentation == PriceRepresentation.DECIMAL) {
+            BigDecimal value = batch.hasPrice(row) ? FixedPointPrices.toBigDecimal(batch.getPriceMantissa(row), batch.getPriceScale(row)) : null;
+            return new Payload(batch.getId(row), value, currency, batch.getRequestTime(row));
+        }
+        int scale = FixedPointPrices.scaleOf(currency);
+        if (!batch.hasPrice(row) || !FixedPointPrices.canRescale(batch.getPriceMantissa(row), batch.getPriceScale(row), scale)) {
+            eventLog.record(batchId, HotPathEvent.INVALID_PRICE, batch.getInstrument(row));
+            return null;
+        }
+        long mantissa = FixedPointPrices.rescale(batch.getPriceMantissa(row), batch.getPriceScale(row), scale);
+        return new Payload(batch.getId(row), mantissa, scale, currency, batch.getRequestTime(row));
     }
 
     /**
-     * Retrieves all PriceRecords of a specified instrument type.
+     * Logs one line with the counts of the per-record events of a batch, once all of its chunks have been processed.
+     * The events themselves are recorded as {@link HotPathEvent}s, of which only a sample is logged.
      *
-     * @param instrumentType The type of the financial instrument.
-     * @return A list of PriceRecords associated with the given instrument type. If no records are found, an empty list is returned.
+     * @param batchId The ID of the processed batch.
      */
     @Override
-    public List<PriceRecord> getPriceRecordsWithInstrumentType(InstrumentType instrumentType) {
-        return Optional.ofNullable(latestPrices.get(instrumentType))
-                .map(priceMap -> priceMap.values().stream().toList()) // Convert values to a stream and collect into a list
-                .orElse(List.of()); // Return an empty list if the priceMap is null
+    public void summarizeBatch(String batchId) {
+        eventLog.summarize(batchId);
+    }
+
+    private static boolean isValid(UpdatePriceRecordRequest updateRequest) {
+        return updateRequest.getRequestTime() != null && updateRequest.getInstrument() != null && updateRequest.getInstrumentType() != null;
     }
 
     /**
-     * Retrieves a list of PriceRecords that have been updated within the specified duration.
-     * <p>
-     * The duration is subtracted from the current time, and only PriceRecords updated after that point are included.
-     *
-     * @param duration The time duration to filter the PriceRecords (e.g., past 24 hours).
-     * @return A GetPriceRecordsListResponse containing a list of PriceRecords updated within the given duration.
+     * Returns the prices readers currently see. With {@link PublicationMode#EPOCH} this is the immutable snapshot of the
+     * last published epoch, fetched with a single volatile read, so a reader never sees part of a batch; with
+     * {@link PublicationMode#IMMEDIATE} a live view of the latest prices.
      */
     @Override
-    public GetPriceRecordsListResponse getPriceRecordsWithDuration(Duration duration) {
-        // Get the threshold date-time, which is the current time minus the duration
-        LocalDateTime threshold = LocalDateTime.now().minus(duration);
+    public PriceSnapshot getSnapshot() {
+        return publishedSnapshot;
+    }
 
-        final List<PriceRecord> priceRecordList = latestPrices.values().stream()
-                .flatMap(priceMap -> priceMap.values().stream())  // Stream all PriceRecord values
-                .filter(priceRecord -> priceRecord.getLastUpdateTime().isAfter(threshold))  // Filter by duration
-                .toList();
+    @Override
+    public long getEpoch() {
+        return publishedSnapshot.getEpoch();
+    }
+
+    // The lookups below read from the current snapshot, see MapPriceSnapshot
 
-        return new GetPriceRecordsListResponse(priceRecordList);
+    @Override
+    public Optional<PriceRecord> getPriceRecordWithRecordId(String recordId, InstrumentType instrumentType) {
+        return publishedSnapshot.getPriceRecordWithRecordId(recordId, instrumentType);
+    }
+
+    @Override
+    public Optional<PriceRecord> getPriceRecordWithRecordId(String recordId) {
+        return getPriceRecordWithRecordId(recordId, null);
+    }
+
+    @Override
+    public Optional<PriceRecord> getPriceRecordWithInstrumentId(String instrumentId, InstrumentType instrumentType) {
+        return publishedSnapshot.getPriceRecordWithInstrumentId(instrumentId, instrumentType);
+    }
+
+    @Override
+    public Optional<PriceRecord> getPriceRecordWithInstrumentId(String instrumentId) {
+        return getPriceRecordWithInstrumentId(instrumentId, null);
+    }
+
+    @Override
+    public List<PriceRecord> getPriceRecordsWithInstrumentType(InstrumentType instrumentType) {
+        return publishedSnapshot.getPriceRecordsWithInstrumentType(instrumentType);
+    }
+
+    @Override
+    public GetPriceRecordsListResponse getPriceRecordsWithDuration(Duration duration) {
+        return publishedSnapshot.getPriceRecordsWithDuration(duration);
     }
 
     /**
      * Clears all stored price records from memory.
      * <p>
-     * This operation will remove all price records for all instrument types.
+     * This operation will remove all price records for all instrument types, and the staged updates of all batches.
      */
     @Override
     public void clearAllPrices() {
         logger.info("Clearing all prices from memory.");
-        latestPrices.clear();
+        synchronized (publishLock) {
+            stagedBatches.clear();
+            latestPrices.clear();
+            publishIfEpochMode();
+        }
     }
 
     /**
@@ -261,17 +577,27 @@ public class InstrumentPriceService implements PriceService {
         logger.info("Clearing price for instrumentId: {}", instrumentId);
 
         // Iterate over the map entries to clear the price for the given instrumentId
-        for (Map<String, PriceRecord> priceMap : latestPrices.values()) {
-            priceMap.remove(instrumentId);
+        synchronized (publishLock) {
+            for (Map<String, PriceRecord> priceMap : latestPrices.values()) {
+                priceMap.remove(instrumentId);
+            }
+            publishIfEpochMode();
+        }
+    }
+
+    // Removals are published as a new epoch straight away
+    private void publishIfEpochMode() {
+        if (publicationMode == PublicationMode.EPOCH) {
+            publishedSnapshot = copyOf(publishedSnapshot, EnumSet.allOf(InstrumentType.class));
         }
     }
 
-    // Helper method to Generate a consistent instrument ID based on the instrument name
+    // Helper method to Generate a consistent instrument ID based on the instrument name, cached by the InstrumentRegistry
     static String generateIdFromInstrument(final String instrumentName) {
-        return instrumentName.replaceAll("\\s+", "_").toUpperCase();
+        return InstrumentRegistry.getInstance().instrumentIdOf(instrumentName);
     }
 
-    public static Map<InstrumentType, Map<String, PriceRecord>> getLatestPrices() {
+    public Map<InstrumentType, Map<String, PriceRecord>> getLatestPrices() {
         return latestPrices;
     }
 }
@@ -0,0 +1,117 @@
+package com.spglobal.coding.services;
+
+import com.spglobal.coding.services.model.Payload;
+import com.spglobal.coding.services.model.PriceRecord;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
+import com.spglobal.coding.utils.enums.InstrumentType;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Collects all update requests of a single instrument within one chunk.
+ * <p>
+ * Only the {@code capacity} most recent requests (by request time) are retained for the merged update, since anything
+ * older would be evicted from the payload history straight away. Requests older than the history of the current
+ * price record of the instrument are counted as stale and dropped as they are added.
+ */
+final class InstrumentUpdateGroup {
+    private static final Comparator<UpdatePriceRecordRequest> BY_REQUEST_TIME = Comparator.comparing(UpdatePriceRecordRequest::getRequestTime);
+
+    private final String instrument;
+    private final String instrumentId;
+    private final InstrumentType instrumentType;
+    private final int capacity;
+    private final PriceRecord currentRecord; // null for a new instrument
+    private final PriorityQueue<UpdatePriceRecordRequest> retained; // min-heap, the oldest retained request is at the head
+    private int requestCount;
+    private int staleCount;
+
+    /**
+     * @param currentRecord the record the updates will be applied to, null if there is none yet.
+     */
+    InstrumentUpdateGroup(String instrument, String instrumentId, InstrumentType instrumentType, int capacity, PriceRecord currentRecord) {
+        this.instrument = instrument;
+        this.instrumentId = instrumentId;
+        this.instrumentType = instrumentType;
+        this.capacity = capacity;
+        this.currentRecord = currentRecord;
+        this.retained = new PriorityQueue<>(capacity + 1, BY_REQUEST_TIME);
+    }
+
+    void add(UpdatePriceRecordRequest updateRequest) {
+        requestCount++;
+        if (currentRecord != null && currentRecord.isStale(updateRequest.getRequestTime())) {
+            staleCount++;
+            return;
+        }
+        retained.offer(updateRequest);
+        if (retained.size() > capacity) {
+            retained.poll(); // Drop the oldest request, it can never make it into the history
+        }
+    }
+
+    /**
+     * Converts the retained requests to payloads. Requests the converter rejects are added to {@code failedRequests}
+     * as {@link UpdateOutcome#INVALID_PRICE}.
+     *
+     * @param converter      creates the payload of a request, or returns null if its price cannot be represented.
+     * @param failedRequests collects the requests that could not be converted.
+     * @param outcomes       collects the reasons of the failed requests.
+     * @return the payloads, ordered from the newest to the oldest.
+     */
+    List<Payload> toPayloadsNewestFirst(Function<UpdatePriceRecordRequest, Payload> converter, List<UpdatePriceRecordRequest> failedRequests,
+                                        UpdateOutcomes.Builder outcomes) {
+        List<UpdatePriceRecordRequest> ordered = new ArrayList<>(retained);
+        ordered.sort(BY_REQUEST_TIME.reversed());
+
+        List<Payload> payloads = new ArrayList<>(ordered.size());
+        for (UpdatePriceRecordRequest updateRequest : ordered) {
+            Payload payload = converter.apply(updateRequest);
+            if (payload == null) {
+                failedRequests.add(updateRequest);
+                outcomes.addFailure(UpdateOutcome.INVALID_PRICE);
+            } else {
+                payloads.add(payload);
+            }
+        }
+        return payloads;
+    }
+
+    /**
+     * Reports the retained requests as {@link UpdateOutcome#CANCELLED}, for a chunk that stops before this instrument.
+     */
+    void cancelRetained(List<UpdatePriceRecordRequest> failedRequests, UpdateOutcomes.Builder outcomes) {
+        for (UpdatePriceRecordRequest updateRequest : retained) {
+            failedRequests.add(updateRequest);
+            outcomes.addFailure(UpdateOutcome.CANCELLED);
+        }
+    }
+
+    String getInstrument() {
+        return instrument;
+    }
+
+    String getInstrumentId() {
+        return instrumentId;
+    }
+
+    InstrumentType getInstrumentType() {
+        return instrumentType;
+    }
+
+    // Number of requests dropped because they are older than the history of the current record
+    int getStaleCount() {
+        return staleCount;
+    }
+
+    // Number of requests dropped because newer requests of the instrument filled the retained capacity
+    int getSupersededCount() {
+        return requestCount - staleCount - retained.size();
+    }
+}
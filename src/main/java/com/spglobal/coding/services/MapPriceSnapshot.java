@@ -0,0 +1,124 @@
+package com.spglobal.coding.services;
+
+import com.spglobal.coding.consumers.dto.GetPriceRecordsListResponse;
+import com.spglobal.coding.services.model.PriceRecord;
+import com.spglobal.coding.utils.enums.InstrumentType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A {@link PriceSnapshot} over a map of price records per instrument type and instrument ID. The snapshot is as stable
+ * as the map: published epochs wrap immutable maps, the live view of the IMMEDIATE publication mode the latest prices.
+ */
+final class MapPriceSnapshot implements PriceSnapshot {
+
+    private final long epoch;
+    private final Map<InstrumentType, Map<String, PriceRecord>> prices;
+
+    MapPriceSnapshot(long epoch, Map<InstrumentType, Map<String, PriceRecord>> prices) {
+        this.epoch = epoch;
+        this.prices = prices;
+    }
+
+    @Override
+    public long getEpoch() {
+        return epoch;
+    }
+
+    Map<InstrumentType, Map<String, PriceRecord>> getPrices() {
+        return prices;
+    }
+
+    /**
+     * Retrieves a PriceRecord by its unique record ID and instrument type.
+     * <p>
+     * If the instrument type is null, the method searches through all available instrument types.
+     * If the instrument type is specified, it only searches within the map for that type.
+     *
+     * @param recordId      The unique ID of the PriceRecord to be retrieved. Must not be null.
+     * @param instrumentType The type of the financial instrument. If null, all instrument types will be searched.
+     * @return An Optional containing the PriceRecord if found, or an empty Optional if not found.
+     * @throws NullPointerException if recordId is null.
+     */
+    @Override
+    public Optional<PriceRecord> getPriceRecordWithRecordId(String recordId, InstrumentType instrumentType) {
+        Objects.requireNonNull(recordId, "recordId cannot be null");
+
+        if (instrumentType == null) {  // If instrumentType is absent, search all maps and stream over their values
+            return prices.values().stream()
+                    .flatMap(map -> map.values().stream())
+                    .filter(priceRecord -> recordId.equals(priceRecord.getId()))
+                    .findFirst();
+        }
+        // If instrumentType is present, get the map for that type and stream the values
+        return prices.getOrDefault(instrumentType, Map.of()).values()
+                .stream()
+                .filter(priceRecord -> recordId.equals(priceRecord.getId()))
+                .findFirst();
+    }
+
+    /**
+     * Retrieves a PriceRecord by its unique instrument ID and instrument type.
+     * <p>
+     * If the instrument type is null, the method searches through all available instrument types.
+     * If the instrument type is specified, it only searches within the map for that type.
+     *
+     * @param instrumentId   The unique ID of the financial instrument. Must not be null.
+     * @param instrumentType The type of the financial instrument. If null, all instrument types will be searched.
+     * @return An Optional containing the PriceRecord if found, or an empty Optional if not found.
+     * @throws NullPointerException if instrumentId is null.
+     */
+    @Override
+    public Optional<PriceRecord> getPriceRecordWithInstrumentId(String instrumentId, InstrumentType instrumentType) {
+        Objects.requireNonNull(instrumentId, "instrumentId cannot be null");
+
+        if (instrumentType == null) { // If instrumentType is not present, search all maps for the PriceRecord
+            return prices.values().stream()
+                    .map(priceMap -> priceMap.get(instrumentId))
+                    .filter(Objects::nonNull)
+                    .findFirst(); // Return the first record if any
+        }
+        // If instrumentType is present, get the corresponding map and look up the PriceRecord
+        Map<String, PriceRecord> priceMap = prices.get(instrumentType);
+        return Optional.ofNullable(priceMap).map(map -> map.get(instrumentId));
+    }
+
+    /**
+     * Retrieves all PriceRecords of a specified instrument type.
+     *
+     * @param instrumentType The type of the financial instrument.
+     * @return A list of PriceRecords associated with the given instrument type. If no records are found, an empty list is returned.
+     */
+    @Override
+    public List<PriceRecord> getPriceRecordsWithInstrumentType(InstrumentType instrumentType) {
+        return Optional.ofNullable(prices.get(instrumentType))
+                .map(priceMap -> priceMap.values().stream().toList()) // Convert values to a stream and collect into a list
+                .orElse(List.of()); // Return an empty list if the priceMap is null
+    }
+
+    /**
+     * Retrieves a list of PriceRecords that have been updated within the specified duration.
+     * <p>
+     * The duration is subtracted from the current time, and only PriceRecords updated after that point are included.
+     *
+     * @param duration The time duration to filter the PriceRecords (e.g., past 24 hours).
+     * @return A GetPriceRecordsListResponse containing a list of PriceRecords updated within the given duration.
+     */
+    @Override
+    public GetPriceRecordsListResponse getPriceRecordsWithDuration(Duration duration) {
+        // Get the threshold date-time, which is the current time minus the duration
+        LocalDateTime threshold = LocalDateTime.now().minus(duration);
+
+        final List<PriceRecord> priceRecordList = prices.values().stream()
+                .flatMap(priceMap -> priceMap.values().stream())  // Stream all PriceRecord values
+                .filter(priceRecord -> priceRecord.getLastUpdateTime().isAfter(threshold))  // Filter by duration
+                .toList();
+
+        return new GetPriceRecordsListResponse(priceRecordList, epoch);
+    }
+}
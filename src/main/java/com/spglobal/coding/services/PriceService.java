@@ -1,33 +1,39 @@
 package com.spglobal.coding.services;
 
-import com.spglobal.coding.consumers.dto.GetPriceRecordsListResponse;
 import com.spglobal.coding.utils.dto.ChunkProcessRequest;
+import com.spglobal.coding.utils.dto.ColumnarChunkProcessRequest;
 import com.spglobal.coding.services.dto.ChunkProcessResponse;
 import com.spglobal.coding.services.model.PriceRecord;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
-import com.spglobal.coding.utils.enums.InstrumentType;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
 
-import java.time.Duration;
-import java.util.List;
 import java.util.Optional;
 
-public interface PriceService {
+/**
+ * Applies update requests to price records and serves them. As a {@link PriceSnapshot} it reads from the current snapshot.
+ */
+public interface PriceService extends PriceSnapshot {
 
     ChunkProcessResponse processChunk(ChunkProcessRequest chunkProcessRequest);
 
+    ChunkProcessResponse processColumnarChunk(ColumnarChunkProcessRequest chunkProcessRequest);
+
+    // A batch updated request by request ends like a chunked one: with publishBatch, then summarizeBatch
     void updateLatestPrice(String batchId, UpdatePriceRecordRequest updateRequest);
 
-    Optional<PriceRecord> getPriceRecordWithRecordId(String recordId, InstrumentType instrumentType);
+    UpdateOutcome applyUpdate(String batchId, UpdatePriceRecordRequest updateRequest);  // Reports rejections instead of throwing
 
-    Optional<PriceRecord> getPriceRecordWithRecordId(String recordId);  // No instrumentType
+    void summarizeBatch(String batchId);  // Called once all chunks of the batch have been processed
 
-    Optional<PriceRecord> getPriceRecordWithInstrumentId(String instrumentId, InstrumentType instrumentType);
+    long publishBatch(String batchId);  // Makes the updates of a processed batch visible, returns the epoch they are visible from
 
-    Optional<PriceRecord> getPriceRecordWithInstrumentId(String instrumentId);  // No instrumentType
+    void discardBatch(String batchId);  // Drops the updates of a batch that will not be published
 
-    List<PriceRecord> getPriceRecordsWithInstrumentType(InstrumentType instrumentType);
+    PriceSnapshot getSnapshot();  // The prices readers currently see; the service itself reads from it as well
 
-    GetPriceRecordsListResponse getPriceRecordsWithDuration(Duration duration);
+    Optional<PriceRecord> getPriceRecordWithRecordId(String recordId);  // No instrumentType
+
+    Optional<PriceRecord> getPriceRecordWithInstrumentId(String instrumentId);  // No instrumentType
 
     void clearAllPrices();
 
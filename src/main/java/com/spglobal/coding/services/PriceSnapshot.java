@@ -0,0 +1,29 @@
+package com.spglobal.coding.services;
+
+import com.spglobal.coding.consumers.dto.GetPriceRecordsListResponse;
+import com.spglobal.coding.services.model.PriceRecord;
+import com.spglobal.coding.utils.enums.InstrumentType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read access to price records as of one publication epoch.
+ * <p>
+ * A snapshot taken from a {@link PriceService} in {@link com.spglobal.coding.utils.enums.PublicationMode#EPOCH} mode
+ * never changes, so several lookups on it see the same prices across all instruments.
+ */
+public interface PriceSnapshot {
+
+    // Number of the epoch the records are read from
+    long getEpoch();
+
+    Optional<PriceRecord> getPriceRecordWithRecordId(String recordId, InstrumentType instrumentType);
+
+    Optional<PriceRecord> getPriceRecordWithInstrumentId(String instrumentId, InstrumentType instrumentType);
+
+    List<PriceRecord> getPriceRecordsWithInstrumentType(InstrumentType instrumentType);
+
+    GetPriceRecordsListResponse getPriceRecordsWithDuration(Duration duration);
+}
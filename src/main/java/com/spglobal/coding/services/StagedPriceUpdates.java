@@ -0,0 +1,80 @@
+package com.spglobal.coding.services;
+
+import com.spglobal.coding.services.model.Payload;
+import com.spglobal.coding.services.model.PriceRecord;
+import com.spglobal.coding.utils.enums.InstrumentType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * The updates of one batch in {@link com.spglobal.coding.utils.enums.PublicationMode#EPOCH} mode, waiting to be
+ * published.
+ * <p>
+ * For every instrument the batch remembers the published record its updates started from, the record with its updates
+ * applied, and the newest payloads it applied. If another batch publishes the instrument first, the payloads are
+ * applied again on top of that batch's record instead of overwriting it.
+ */
+final class StagedPriceUpdates {
+
+    private static final Comparator<Payload> NEWEST_FIRST = Comparator.comparing(Payload::getAsOf).reversed();
+
+    record StagedUpdate(PriceRecord base, PriceRecord staged, List<Payload> payloadsNewestFirst) {
+    }
+
+    private final int historySize;
+    private final Map<InstrumentType, Map<String, StagedUpdate>> updates = new ConcurrentHashMap<>();
+
+    StagedPriceUpdates(int historySize) {
+        this.historySize = historySize;
+    }
+
+    /**
+     * Stages payloads of an instrument on top of what the batch staged for it before, or else of its published record.
+     *
+     * @param published the published record of the instrument, null if there is none.
+     * @param payloads  the payloads, ordered from the newest to the oldest.
+     * @param merge     creates the next version of the record it is given, which is null for a new instrument.
+     * @return whether the staged record changed.
+     */
+    boolean stage(InstrumentType instrumentType, String instrumentId, PriceRecord published, List<Payload> payloads,
+                  UnaryOperator<PriceRecord> merge) {
+        boolean[] changed = new boolean[1];
+        updates.computeIfAbsent(instrumentType, k -> new ConcurrentHashMap<>()).compute(instrumentId, (id, update) -> {
+            PriceRecord current = update == null ? published : update.staged();
+            PriceRecord next = merge.apply(current);
+            changed[0] = next != current;
+            return new StagedUpdate(update == null ? published : update.base(), next,
+                    newest(update == null ? List.of() : update.payloadsNewestFirst(), payloads));
+        });
+        return changed[0];
+    }
+
+    // The newest historySize payloads of both lists; older ones would be evicted from the history anyway
+    private List<Payload> newest(List<Payload> staged, List<Payload> added) {
+        List<Payload> merged = new ArrayList<>(staged.size() + added.size());
+        merged.addAll(staged);
+        merged.addAll(added);
+        merged.sort(NEWEST_FIRST);
+        return merged.size() > historySize ? List.copyOf(merged.subList(0, historySize)) : merged;
+    }
+
+    // The record staged for an instrument, null if the batch did not update it yet
+    PriceRecord getStaged(InstrumentType instrumentType, String instrumentId) {
+        StagedUpdate update = getUpdates(instrumentType).get(instrumentId);
+        return update == null ? null : update.staged();
+    }
+
+    Set<InstrumentType> getInstrumentTypes() {
+        return updates.keySet();
+    }
+
+    Map<String, StagedUpdate> getUpdates(InstrumentType instrumentType) {
+        return updates.getOrDefault(instrumentType, Map.of());
+    }
+}
@@ -1,9 +1,17 @@
 package com.spglobal.coding.services.dto;
 
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
 
 import java.util.List;
 
 public record ChunkProcessResponse(boolean isSuccess,
-                                   List<UpdatePriceRecordRequest> failedRequests)
-{ }
+                                   List<UpdatePriceRecordRequest> failedRequests,
+                                   UpdateOutcomes outcomes)
+{
+    // Response of a chunk whose failed requests all count as CHUNK_FAILED
+    public ChunkProcessResponse(boolean isSuccess, List<UpdatePriceRecordRequest> failedRequests) {
+        this(isSuccess, failedRequests, UpdateOutcomes.allFailed(failedRequests == null ? 0 : failedRequests.size(), UpdateOutcome.CHUNK_FAILED));
+    }
+}
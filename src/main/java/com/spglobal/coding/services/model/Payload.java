@@ -1,5 +1,6 @@
 package com.spglobal.coding.services.model;
 
+import com.spglobal.coding.utils.FixedPointPrices;
 import com.spglobal.coding.utils.enums.Currency;
 
 import java.math.BigDecimal;
@@ -14,16 +15,36 @@ import java.time.LocalDateTime;
  * - The currency in which the value is denominated ({@code currency}).
  * - The time at which the price was recorded ({@code asOf}).
  * </p>
+ * <p>
+ * In fixed-point mode the value is held as a {@code long} mantissa and a scale instead of a {@link BigDecimal};
+ * {@link #getValue()} then creates the decimal only when it is read.
+ * </p>
  */
 public class Payload {
     private final int id;
     private final BigDecimal value;
+    private final long valueMantissa;
+    private final int valueScale;
+    private final boolean fixedPoint;
     private final Currency currency;
     private final LocalDateTime asOf;
 
     public Payload(int id, BigDecimal value, Currency currency, LocalDateTime asOf) {
         this.id = id;
         this.value = value;
+        this.valueMantissa = 0L;
+        this.valueScale = 0;
+        this.fixedPoint = false;
+        this.currency = currency;
+        this.asOf = asOf;
+    }
+
+    public Payload(int id, long valueMantissa, int valueScale, Currency currency, LocalDateTime asOf) {
+        this.id = id;
+        this.value = null;
+        this.valueMantissa = valueMantissa;
+        this.valueScale = valueScale;
+        this.fixedPoint = true;
         this.currency = currency;
         this.asOf = asOf;
     }
@@ -33,7 +54,19 @@ public class Payload {
     }
 
     public BigDecimal getValue() {
-        return value;
+        return fixedPoint ? FixedPointPrices.toBigDecimal(valueMantissa, valueScale) : value;
+    }
+
+    public boolean isFixedPoint() {
+        return fixedPoint;
+    }
+
+    public long getValueMantissa() {
+        return valueMantissa;
+    }
+
+    public int getValueScale() {
+        return valueScale;
     }
 
     public Currency getCurrency() {
@@ -0,0 +1,134 @@
+package com.spglobal.coding.services.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, bounded history of the payloads of a price record, ordered from the newest to the oldest {@code asOf}.
+ * <p>
+ * The history is an array-backed ring buffer holding at most {@code capacity} payloads. Every price record version owns
+ * its own history, so adding payloads copies the (small, fixed size) ring and inserts into the copy:
+ * <ul>
+ *     <li>A payload that is at least as recent as the newest one moves the head back by one slot, which overwrites
+ *     (evicts) the oldest payload once the buffer is full. This is the common case and is constant-time.</li>
+ *     <li>Out-of-order payloads are shifted into place, which is bounded by the capacity.</li>
+ *     <li>Payloads older than the oldest payload of a full history are rejected, since they would be evicted straight away.</li>
+ *     <li>Payloads with the same {@code asOf} are all kept; the one added last comes first.</li>
+ * </ul>
+ * <p>
+ * Since an instance never changes after construction, readers iterate it without any locking or copying.
+ */
+public final class PayloadHistory extends AbstractList<Payload> {
+    private final Payload[] slots;
+    private final int head; // slot of the newest payload
+    private final int size;
+
+    private PayloadHistory(Payload[] slots, int head, int size) {
+        this.slots = slots;
+        this.head = head;
+        this.size = size;
+    }
+
+    public static PayloadHistory empty(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        return new PayloadHistory(new Payload[capacity], 0, 0);
+    }
+
+    /**
+     * Returns a new history with the given payloads added. Payloads older than a full history are left out.
+     *
+     * @param payloadsNewestFirst the payloads to add, ordered from the newest to the oldest.
+     * @return the new history, or this history if none of the payloads could be added.
+     */
+    public PayloadHistory withPayloads(List<Payload> payloadsNewestFirst) {
+        Payload[] newSlots = slots.clone();
+        int[] state = {head, size};
+        boolean changed = false;
+
+        // Add from the oldest to the newest, so that payloads newer than the history take the constant-time path
+        for (int i = payloadsNewestFirst.size() - 1; i >= 0; i--) {
+            changed |= insert(newSlots, state, payloadsNewestFirst.get(i));
+        }
+        return changed ? new PayloadHistory(newSlots, state[0], state[1]) : this;
+    }
+
+    private static boolean insert(Payload[] slots, int[] state, Payload payload) {
+        int capacity = slots.length;
+        int currentHead = state[0];
+        int currentSize = state[1];
+
+        int position = 0;
+        if (currentSize > 0 && payload.getAsOf().isBefore(slots[currentHead].getAsOf())) {
+            // Out of order, keep equal timestamps ahead of the new payload
+            position = 1;
+            while (position < currentSize && !slots[physical(capacity, currentHead, position)].getAsOf().isBefore(payload.getAsOf())) {
+                position++;
+            }
+            if (position == capacity) {
+                return false;
+            }
+        }
+
+        if (position == 0) {
+            int newHead = physical(capacity, currentHead, capacity - 1); // One slot before the head, i.e. the oldest slot when full
+            slots[newHead] = payload;
+            state[0] = newHead;
+        } else {
+            int last = Math.min(currentSize, capacity - 1); // When full, the oldest payload is shifted out
+            for (int i = last; i > position; i--) {
+                slots[physical(capacity, currentHead, i)] = slots[physical(capacity, currentHead, i - 1)];
+            }
+            slots[physical(capacity, currentHead, position)] = payload;
+        }
+        if (currentSize < capacity) {
+            state[1] = currentSize + 1;
+        }
+        return true;
+    }
+
+    @Override
+    public Payload get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for history of size " + size);
+        }
+        return slots[physical(slots.length, head, index)];
+    }
+
+    /**
+     * @return the newest payload.
+     * @throws NoSuchElementException if the history is empty.
+     */
+    public Payload first() {
+        if (size == 0) {
+            throw new NoSuchElementException("Payload history is empty");
+        }
+        return get(0);
+    }
+
+    /**
+     * @return the oldest retained payload.
+     * @throws NoSuchElementException if the history is empty.
+     */
+    public Payload last() {
+        if (size == 0) {
+            throw new NoSuchElementException("Payload history is empty");
+        }
+        return get(size - 1);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    private static int physical(int capacity, int currentHead, int logicalIndex) {
+        return (currentHead + logicalIndex) % capacity;
+    }
+}
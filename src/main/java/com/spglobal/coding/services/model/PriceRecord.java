@@ -4,55 +4,116 @@ import com.spglobal.coding.utils.enums.InstrumentType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Comparator;
-import java.util.SortedSet;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
  * Represents a record of a financial instrument's price at a specific point in time.
  * <p>
  * This class holds details about a price record, including:
  * <ul>
- *     <li>A unique identifier for the price record ({@code id}).</li>
+ *     <li>A unique identifier for the price record ({@code id}), shared by all versions of the record.</li>
  *     <li>The name of the financial instrument ({@code instrument}).</li>
  *     <li>The unique identifier for the instrument ({@code instrumentId}).</li>
  *     <li>The type of instrument ({@code instrumentType}).</li>
+ *     <li>The version of the record ({@code version}), increasing by one with every update.</li>
  *     <li>The last time the price was updated ({@code lastUpdateTime}).</li>
- *     <li>The latest recorded price of the instrument ({@code latestPrice}).</li>
+ *     <li>The latest recorded payload of the instrument, holding its latest price ({@code latestPayload}).</li>
  *     <li>A history of the price's payload, which consists of the value and currency ({@code payloadHistory}).</li>
  * </ul>
  * <p>
- * The class is immutable except for the fields {@code lastUpdateTime} and {@code latestPrice},
- * which can be updated using setter methods to reflect new price data. The price history is maintained using
- * a {@link ConcurrentSkipListSet}, ordered by the timestamp of each payload in reverse chronological order.
- * The history keeps track of the last 10 payloads.
+ * The class is immutable. An update creates the next version of the record with {@link #withPayloads(List)}, which the
+ * price map then swaps in, so a reader always sees the latest price, its update time and its history from the same version.
+ * The latest price is read from the latest payload, so in fixed-point mode it is only materialised as a {@link BigDecimal}
+ * when requested. The price history is maintained using a fixed-capacity {@link PayloadHistory} ring buffer, ordered by
+ * the timestamp of each payload in reverse chronological order. The history keeps track of the last {@code historySize} payloads.
  * <p>
- * It is recommended to use the Builder pattern to extend this class in the future for more flexible object construction.
+ * Once the history is full, every record also knows the time of its oldest retained payload: anything older could never
+ * enter the history, so {@link #isStale(long, int)} rejects such requests before a payload is even created.
  */
 public class PriceRecord {
     private final String id;                // Unique ID for each PriceRecord
     private final String instrument;        // Name of the instrument
     private final String instrumentId;      // Unique ID for the instrument
     private final InstrumentType instrumentType;
-    private  LocalDateTime lastUpdateTime;
-    private  BigDecimal latestPrice;
-    private final SortedSet<Payload> payloadHistory;
+    private final long version;
+    private final LocalDateTime lastUpdateTime;
+    private final Payload latestPayload;
+    private final PayloadHistory payloadHistory;
+    // Time of the oldest retained payload if the history is full; requests before it are stale. Long.MIN_VALUE if not full.
+    private final long staleBeforeEpochSecond;
+    private final int staleBeforeNano;
 
     public PriceRecord(String instrument,
                        String instrumentId,
                        InstrumentType instrumentType,
-                       LocalDateTime lastUpdateTime,
-                       BigDecimal latestPrice,
-                       Payload initialPayload) {
-        this.id = UUID.randomUUID().toString();
+                       Payload initialPayload,
+                       int historySize) {
+        this(UUID.randomUUID().toString(), instrument, instrumentId, instrumentType, 1L,
+                initialPayload.getAsOf(), initialPayload, PayloadHistory.empty(historySize).withPayloads(List.of(initialPayload)));
+    }
+
+    private PriceRecord(String id,
+                        String instrument,
+                        String instrumentId,
+                        InstrumentType instrumentType,
+                        long version,
+                        LocalDateTime lastUpdateTime,
+                        Payload latestPayload,
+                        PayloadHistory payloadHistory) {
+        this.id = id;
         this.instrument = instrument;
         this.instrumentId = instrumentId;
         this.instrumentType = instrumentType;
+        this.version = version;
         this.lastUpdateTime = lastUpdateTime;
-        this.latestPrice = latestPrice;
-        this.payloadHistory = new ConcurrentSkipListSet<>(Comparator.comparing(Payload::getAsOf).reversed());
-        payloadHistory.add(initialPayload);
+        this.latestPayload = latestPayload;
+        this.payloadHistory = payloadHistory;
+        if (payloadHistory.size() == payloadHistory.capacity()) {
+            LocalDateTime oldest = payloadHistory.last().getAsOf();
+            this.staleBeforeEpochSecond = oldest.toEpochSecond(ZoneOffset.UTC);
+            this.staleBeforeNano = oldest.getNano();
+        } else {
+            this.staleBeforeEpochSecond = Long.MIN_VALUE;
+            this.staleBeforeNano = 0;
+        }
+    }
+
+    /**
+     * Tells whether a payload with the given time would be rejected by the history of this record, since it is older
+     * than the oldest payload of a full history. Allocates nothing.
+     *
+     * @param epochSecond the time in seconds since the epoch (UTC).
+     * @param nano        the nanoseconds of the second.
+     */
+    public boolean isStale(long epochSecond, int nano) {
+        return epochSecond < staleBeforeEpochSecond || (epochSecond == staleBeforeEpochSecond && nano < staleBeforeNano);
+    }
+
+    public boolean isStale(LocalDateTime asOf) {
+        return isStale(asOf.toEpochSecond(ZoneOffset.UTC), asOf.getNano());
+    }
+
+    /**
+     * Creates the next version of this record with the given payloads applied. The latest price moves to the newest
+     * payload if it is more recent than this record.
+     *
+     * @param payloadsNewestFirst the payloads to apply, ordered from the newest to the oldest. Must not be empty.
+     * @return the next version, or this record if none of the payloads changes it.
+     */
+    public PriceRecord withPayloads(List<Payload> payloadsNewestFirst) {
+        PayloadHistory newHistory = payloadHistory.withPayloads(payloadsNewestFirst);
+        if (newHistory == payloadHistory) {
+            return this;
+        }
+
+        Payload newestPayload = payloadsNewestFirst.get(0);
+        boolean isLatest = newestPayload.getAsOf().isAfter(lastUpdateTime);
+        return new PriceRecord(id, instrument, instrumentId, instrumentType, version + 1,
+                isLatest ? newestPayload.getAsOf() : lastUpdateTime,
+                isLatest ? newestPayload : latestPayload,
+                newHistory);
     }
 
     public String getId() {
@@ -71,24 +132,30 @@ public class PriceRecord {
         return instrumentType;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public LocalDateTime getLastUpdateTime() {
         return lastUpdateTime;
     }
 
     public BigDecimal getLatestPrice() {
-        return latestPrice;
+        return latestPayload == null ? null : latestPayload.getValue();
     }
 
-    public SortedSet<Payload> getPayloadHistory() {
-        return payloadHistory;
+    public Payload getLatestPayload() {
+        return latestPayload;
     }
 
-    public void setLastUpdateTime(LocalDateTime lastUpdateTime) {
-        this.lastUpdateTime = lastUpdateTime;
+    public PayloadHistory getPayloadHistory() {
+        return payloadHistory;
     }
 
-    public void setLatestPrice(BigDecimal latestPrice) {
-        this.latestPrice = latestPrice;
+    // Payloads before this time are stale, null while the history is not full
+    public LocalDateTime getStaleBefore() {
+        return staleBeforeEpochSecond == Long.MIN_VALUE ? null
+                : LocalDateTime.ofEpochSecond(staleBeforeEpochSecond, staleBeforeNano, ZoneOffset.UTC);
     }
 
     @Override
@@ -98,6 +165,7 @@ public class PriceRecord {
                 ", instrument='" + instrument + '\'' +
                 ", instrumentId='" + instrumentId + '\'' +
                 ", instrumentType=" + instrumentType +
+                ", version=" + version +
                 ", lastUpdateTime=" + lastUpdateTime +
                 ", payload=" + payloadHistory +
                 '}';
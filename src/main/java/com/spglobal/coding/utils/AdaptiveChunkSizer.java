@@ -0,0 +1,68 @@
+package com.spglobal.coding.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks chunk sizes from the recently measured processing time per record.
+ * <p>
+ * The per-record time is an exponentially weighted moving average over the processed chunks. A chunk is sized so
+ * that it takes about the target duration, but small enough that the batch is spread over all idle workers, and
+ * always within the configured bounds. Until a first chunk has been measured, only the idle workers are considered.
+ */
+class AdaptiveChunkSizer {
+
+    private static final double SMOOTHING = 0.2; // weight of the latest chunk in the moving average
+    private static final long NOT_MEASURED = Double.doubleToLongBits(-1);
+
+    private final long targetChunkNanos;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final AtomicLong nanosPerRecordBits = new AtomicLong(NOT_MEASURED);
+
+    AdaptiveChunkSizer(long targetChunkNanos, int minChunkSize, int maxChunkSize) {
+        this.targetChunkNanos = targetChunkNanos;
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * Feeds the processing time of a chunk into the moving average.
+     */
+    void record(int chunkSize, long chunkNanos) {
+        if (chunkSize <= 0) {
+            return;
+        }
+        double sample = (double) chunkNanos / chunkSize;
+        long current;
+        long updated;
+        do {
+            current = nanosPerRecordBits.get();
+            double average = Double.longBitsToDouble(current);
+            updated = Double.doubleToLongBits(average < 0 ? sample : average + SMOOTHING * (sample - average));
+        } while (!nanosPerRecordBits.compareAndSet(current, updated));
+    }
+
+    /**
+     * @param batchSize   number of records still to be partitioned.
+     * @param idleWorkers workers currently free to pick up a chunk.
+     * @return the size the chunks of the batch should have.
+     */
+    int chunkSizeFor(int batchSize, int idleWorkers) {
+        double nanosPerRecord = getNanosPerRecord();
+        long size = nanosPerRecord > 0 ? (long) (targetChunkNanos / nanosPerRecord) : maxChunkSize;
+        if (idleWorkers > 1) {
+            // Do not leave idle workers without a chunk
+            size = Math.min(size, ceilDiv(batchSize, idleWorkers));
+        }
+        return (int) Math.max(minChunkSize, Math.min(maxChunkSize, size));
+    }
+
+    // Moving average of the processing time per record, negative until a chunk has been measured
+    double getNanosPerRecord() {
+        return Double.longBitsToDouble(nanosPerRecordBits.get());
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,35 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.dto.BatchMetrics;
+
+/**
+ * Collects the chunk sizes and processing times of one batch while its chunks complete.
+ */
+class BatchMetricsRecorder {
+
+    private final int plannedChunkSize;
+    private int chunkCount;
+    private int minChunkSize = Integer.MAX_VALUE;
+    private int maxChunkSize;
+    private long totalChunkNanos;
+    private long maxChunkNanos;
+
+    BatchMetricsRecorder(int plannedChunkSize) {
+        this.plannedChunkSize = plannedChunkSize;
+    }
+
+    synchronized void record(int chunkSize, long chunkNanos) {
+        chunkCount++;
+        minChunkSize = Math.min(minChunkSize, chunkSize);
+        maxChunkSize = Math.max(maxChunkSize, chunkSize);
+        totalChunkNanos += chunkNanos;
+        maxChunkNanos = Math.max(maxChunkNanos, chunkNanos);
+    }
+
+    synchronized BatchMetrics toMetrics() {
+        if (chunkCount == 0) {
+            return new BatchMetrics(plannedChunkSize, 0, 0, 0, 0, 0);
+        }
+        return new BatchMetrics(plannedChunkSize, chunkCount, minChunkSize, maxChunkSize, totalChunkNanos / chunkCount, maxChunkNanos);
+    }
+}
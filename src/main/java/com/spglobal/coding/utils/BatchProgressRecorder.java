@@ -0,0 +1,91 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the processed requests of one batch and their outcomes while its chunks complete, see
+ * {@link ChunkProcessor#trackProgress(String, BatchProgressRecorder)}.
+ * <p>
+ * The counters are added to once per chunk, from the outcomes reported by the PriceService, and can be read at any
+ * time without blocking the workers. A read while chunks complete may see the counts of a chunk only partly.
+ */
+public final class BatchProgressRecorder {
+
+    private static final UpdateOutcome[] OUTCOMES = UpdateOutcome.values();
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final LongAdder processedChunks = new LongAdder();
+    private final LongAdder processedRequests = new LongAdder();
+    private final LongAdder[] outcomeCounts = new LongAdder[OUTCOMES.length];
+    private final AtomicLong startedAt = new AtomicLong(NOT_STARTED);
+    private volatile long lastRecordedAt = NOT_STARTED;
+
+    public BatchProgressRecorder() {
+        for (int i = 0; i < outcomeCounts.length; i++) {
+            outcomeCounts[i] = new LongAdder();
+        }
+    }
+
+    // Marks the start of the processing; later calls keep the first start
+    void start() {
+        startedAt.compareAndSet(NOT_STARTED, System.nanoTime());
+    }
+
+    void record(int requestCount, UpdateOutcomes outcomes) {
+        for (UpdateOutcome outcome : OUTCOMES) {
+            long count = outcomes.getCount(outcome);
+            if (count > 0) {
+                outcomeCounts[outcome.ordinal()].add(count);
+            }
+        }
+        processedRequests.add(requestCount);
+        processedChunks.increment();
+        lastRecordedAt = System.nanoTime();
+    }
+
+    public long getProcessedChunks() {
+        return processedChunks.sum();
+    }
+
+    public long getProcessedRequests() {
+        return processedRequests.sum();
+    }
+
+    public long getCount(UpdateOutcome outcome) {
+        return outcomeCounts[outcome.ordinal()].sum();
+    }
+
+    // Requests with an outcome that is a failure, e.g. invalid or cancelled ones
+    public long getFailedCount() {
+        long failed = 0;
+        for (UpdateOutcome outcome : OUTCOMES) {
+            if (outcome.isFailure()) {
+                failed += outcomeCounts[outcome.ordinal()].sum();
+            }
+        }
+        return failed;
+    }
+
+    public boolean isStarted() {
+        return startedAt.get() != NOT_STARTED;
+    }
+
+    /**
+     * @param finished whether the batch has been processed; the rate is then taken until its last chunk completed,
+     *                 otherwise until now.
+     * @return processed requests per second since the processing started, 0 if nothing was processed yet.
+     */
+    public double getRequestsPerSecond(boolean finished) {
+        long start = startedAt.get();
+        long end = finished ? lastRecordedAt : System.nanoTime();
+        long requests = processedRequests.sum();
+        if (start == NOT_STARTED || end == NOT_STARTED || requests == 0 || end - start <= 0) {
+            return 0;
+        }
+        return requests * 1e9 / (end - start);
+    }
+}
@@ -0,0 +1,37 @@
+package com.spglobal.coding.utils;
+
+/**
+ * Tells the workers processing a batch to stop. Cancellation is cooperative: the {@link ChunkProcessor} no longer starts
+ * the chunks of a cancelled batch, and a chunk that is already running checks the token before each instrument it
+ * updates, so that every instrument is either updated by the chunk or left as it was.
+ */
+public final class CancellationToken {
+
+    // Token of chunks that are not part of a cancellable batch
+    public static final CancellationToken NEVER = new CancellationToken(false);
+
+    private final boolean cancellable;
+    private volatile boolean cancelled;
+
+    public CancellationToken() {
+        this(true);
+    }
+
+    private CancellationToken(boolean cancellable) {
+        this.cancellable = cancellable;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if this is the {@link #NEVER} token.
+     */
+    public void cancel() {
+        if (!cancellable) {
+            throw new UnsupportedOperationException("This token cannot be cancelled");
+        }
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
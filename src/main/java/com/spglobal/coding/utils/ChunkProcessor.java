@@ -1,34 +1,169 @@
 package com.spglobal.coding.utils;
 
 import com.spglobal.coding.utils.dto.BatchProcessResponse;
-import com.spglobal.coding.utils.dto.ChunkProcessRequest;
 import com.spglobal.coding.services.PriceService;
 import com.spglobal.coding.services.dto.ChunkProcessResponse;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+import com.spglobal.coding.utils.config.ChunkProcessorConfig;
+import com.spglobal.coding.utils.dto.ColumnarChunkProcessRequest;
+import com.spglobal.coding.utils.dto.LaneMetrics;
+import com.spglobal.coding.utils.dto.ChunkProcessorMetrics;
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.ChunkSizing;
+import com.spglobal.coding.utils.enums.ExecutionEngine;
+import com.spglobal.coding.utils.enums.PartitioningStrategy;
+import com.spglobal.coding.utils.enums.PriorityClass;
+import com.spglobal.coding.utils.enums.SaturationPolicy;
+import com.spglobal.coding.utils.enums.SchedulingPolicy;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+import com.spglobal.coding.utils.exceptions.ChunkProcessorSaturatedException;
+import com.spglobal.coding.utils.staging.BatchStagingStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
 
 /**
  * The ChunkProcessor class handles the processing of large batches of Update Requests by splitting them into smaller chunks
  * and processing them asynchronously using a thread pool.
+ * <p>
+ * How chunks are sharded, sized, queued and scheduled is set by its {@link ChunkProcessorConfig}.
  */
 public class ChunkProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger(ChunkProcessor.class);
-    private static final int CHUNK_SIZE = 1000;
+    private static final BatchSchedule DEFAULT_SCHEDULE = new BatchSchedule(1, PriorityClass.STANDARD);
     private final ExecutorService executorService;
+    private final ExecutorService[] shardExecutors;
+    private final PartitioningStrategy partitioningStrategy;
+    private final SaturationPolicy saturationPolicy;
+    private final ExecutionEngine executionEngine;
     private final PriceService priceService;
 
+    // Caps the chunks processed at the same time on virtual threads, null for the platform pool
+    private final Semaphore concurrencyLimit;
+
+    // Chunk sizing; the sizer is null with fixed sizing
+    private final int chunkSize;
+    private final AdaptiveChunkSizer chunkSizer;
+    private final int parallelism;
+    private final AtomicInteger runningChunks = new AtomicInteger();
+
+    // Free slots of the submission queue, shared by all executors
+    private final int queueCapacity;
+    private final Semaphore queueSlots;
+
+    // Queued chunks, one queue per executor; each executor task runs whichever chunk its queue hands out when the task
+    // starts. The schedule of batches without an entry is weight 1, STANDARD
+    private final List<PriorityChunkQueue<QueuedChunk>> chunkQueues;
+    private final Map<String, BatchSchedule> batchSchedules = new ConcurrentHashMap<>();
+
+    // Cancellation of the batches being processed, from their first submitted chunk until they are combined
+    private final Map<String, CancellationToken> cancellationTokens = new ConcurrentHashMap<>();
+
+    // Progress of the batches being tracked, until they are combined
+    private final Map<String, BatchProgressRecorder> progressRecorders = new ConcurrentHashMap<>();
+
+    // Queue metrics
+    private final LongAccumulator peakQueueDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder submittedChunks = new LongAdder();
+    private final LongAdder callerRunChunks = new LongAdder();
+    private final LongAdder rejectedSubmissions = new LongAdder();
+    private final LongAdder dequeuedChunks = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+
+    // Lane metrics, indexed by the ordinal of the priority class
+    private final LaneMetricsRecorder[] laneMetrics = newLaneMetrics();
+    private final long startedAt = System.nanoTime();
+
     public ChunkProcessor(PriceService priceService) {
+        this(priceService, ChunkProcessorConfig.defaults());
+    }
+
+    public ChunkProcessor(PriceService priceService, PartitioningStrategy partitioningStrategy) {
+        this(priceService, new ChunkProcessorConfig.Builder().setPartitioningStrategy(partitioningStrategy).build());
+    }
+
+    public ChunkProcessor(PriceService priceService, ChunkProcessorConfig config) {
         this.priceService = priceService;
-        this.executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        logger.info("ChunkProcessor initialized with a fixed thread pool of size: {}", Runtime.getRuntime().availableProcessors());
+        this.partitioningStrategy = config.getPartitioningStrategy();
+        this.saturationPolicy = config.getSaturationPolicy();
+        this.executionEngine = config.getExecutionEngine();
+        this.concurrencyLimit = executionEngine == ExecutionEngine.VIRTUAL_THREADS ? new Semaphore(config.getMaxConcurrentChunks()) : null;
+        this.queueCapacity = config.getQueueCapacity();
+        this.queueSlots = new Semaphore(queueCapacity);
+        int poolSize = config.getPoolSize();
+        this.chunkSize = config.getChunkSize();
+        this.chunkSizer = config.getChunkSizing() == ChunkSizing.ADAPTIVE
+                ? new AdaptiveChunkSizer(config.getTargetChunkDuration().toNanos(), config.getMinChunkSize(), config.getMaxChunkSize())
+                : null;
+        this.parallelism = concurrencyLimit != null && partitioningStrategy == PartitioningStrategy.FIXED_SIZE
+                ? config.getMaxConcurrentChunks()
+                : poolSize;
+        this.chunkQueues = newChunkQueues(partitioningStrategy == PartitioningStrategy.INSTRUMENT_AFFINE ? poolSize : 1,
+                config.getSchedulingPolicy() == SchedulingPolicy.FAIR, config.getChunkSize());
+
+        // The executor queues never fill up on their own: a chunk is only handed over once it holds a queue slot
+        if (partitioningStrategy == PartitioningStrategy.INSTRUMENT_AFFINE) {
+            this.executorService = null;
+            this.shardExecutors = new ExecutorService[poolSize];
+            for (int i = 0; i < poolSize; i++) {
+                shardExecutors[i] = newShardExecutor();
+            }
+            logger.info("ChunkProcessor initialized with {} instrument-affine shards, {}", poolSize, config);
+        } else {
+            this.executorService = executionEngine == ExecutionEngine.VIRTUAL_THREADS
+                    ? VirtualThreads.newPerTaskExecutor()
+                    : newBoundedExecutor(poolSize);
+            this.shardExecutors = null;
+            logger.info("ChunkProcessor initialized with a {} executor, {}", executionEngine, config);
+        }
+    }
+
+    private static List<PriorityChunkQueue<QueuedChunk>> newChunkQueues(int count, boolean fair, int quantum) {
+        List<PriorityChunkQueue<QueuedChunk>> queues = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            queues.add(new PriorityChunkQueue<>(fair, quantum));
+        }
+        return List.copyOf(queues);
+    }
+
+    private static LaneMetricsRecorder[] newLaneMetrics() {
+        PriorityClass[] priorityClasses = PriorityClass.values();
+        LaneMetricsRecorder[] recorders = new LaneMetricsRecorder[priorityClasses.length];
+        for (PriorityClass priorityClass : priorityClasses) {
+            recorders[priorityClass.ordinal()] = new LaneMetricsRecorder(priorityClass);
+        }
+        return recorders;
+    }
+
+    private ExecutorService newBoundedExecutor(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity));
+    }
+
+    // A shard keeps a single writer thread with either engine, so that the updates of an instrument stay ordered
+    private ExecutorService newShardExecutor() {
+        if (executionEngine == ExecutionEngine.VIRTUAL_THREADS) {
+            return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueCapacity), VirtualThreads.newThreadFactory());
+        }
+        return newBoundedExecutor(1);
     }
 
     /**
@@ -39,73 +174,647 @@ public class ChunkProcessor {
      * @param allRequests the list of UpdateRequests to be processed.
      * @return a CompletableFuture containing a BatchProcessResponse with the status of the batch and any failed records.
      * @throws NullPointerException if batchId or allRequests is null.
+     * @throws ChunkProcessorSaturatedException if the REJECT policy is configured and the queue cannot take the whole batch;
+     *                                          no chunk of the batch has been submitted in that case.
      */
     public CompletableFuture<BatchProcessResponse> processBatch(String batchId, List<UpdatePriceRecordRequest> allRequests) {
         if (batchId == null || allRequests == null) {
             throw new NullPointerException("batchId/Records cannot be null");
         }
 
-        // Split records into chunks
-        List<List<UpdatePriceRecordRequest>> chunks = partitionBatchIntoChunks(allRequests);
-        logger.info("Partitioned batch with batchId {} into {} chunks", batchId, chunks.size());
+        // Split records into chunks, per shard with instrument-affine partitioning
+        int plannedChunkSize = planChunkSize(allRequests.size());
+        BatchMetricsRecorder metricsRecorder = new BatchMetricsRecorder(plannedChunkSize);
+        List<List<UpdatePriceRecordRequest>> chunks = new ArrayList<>();
+        List<Integer> chunkShards = new ArrayList<>();
+        if (partitioningStrategy == PartitioningStrategy.INSTRUMENT_AFFINE) {
+            List<List<UpdatePriceRecordRequest>> shards = partitionBatchByInstrument(allRequests);
+            for (int shard = 0; shard < shards.size(); shard++) {
+                for (List<UpdatePriceRecordRequest> chunk : partitionBatchIntoChunks(shards.get(shard), plannedChunkSize)) {
+                    chunks.add(chunk);
+                    chunkShards.add(shard);
+                }
+            }
+            logger.info("Partitioned batch with batchId {} into {} instrument-affine chunks of up to {} requests", batchId, chunks.size(), plannedChunkSize);
+        } else {
+            chunks = partitionBatchIntoChunks(allRequests, plannedChunkSize);
+            logger.info("Partitioned batch with batchId {} into {} chunks of up to {} requests", batchId, chunks.size(), plannedChunkSize);
+        }
+
+        return submitBatch(batchId, asWork(batchId, chunks), chunkShards, metricsRecorder);
+    }
+
+    /**
+     * Processes a batch held by a {@link BatchStagingStore}. Requests staged on the heap are chunked as by
+     * {@link #processBatch(String, List)}; spilled requests are chunked as views decoding straight from the spill
+     * file, so they are read back sequentially without being copied onto the heap.
+     *
+     * @param batchId the unique identifier of the batch being processed.
+     * @param store   the staged requests of the batch. It must not be released before the returned future completes.
+     * @return a CompletableFuture containing a BatchProcessResponse with the status of the batch and any failed records.
+     * @throws NullPointerException if batchId or store is null.
+     * @throws ChunkProcessorSaturatedException if the REJECT policy is configured and the queue cannot take the whole batch.
+     */
+    public CompletableFuture<BatchProcessResponse> processStagedBatch(String batchId, BatchStagingStore store) {
+        if (batchId == null || store == null) {
+            throw new NullPointerException("batchId/Store cannot be null");
+        }
+        if (!store.isSpilled()) {
+            return processBatch(batchId, store.heapRequests());
+        }
+
+        int plannedChunkSize = planChunkSize(store.size());
+        BatchMetricsRecorder metricsRecorder = new BatchMetricsRecorder(plannedChunkSize);
+        List<List<UpdatePriceRecordRequest>> chunks = new ArrayList<>();
+        List<Integer> chunkShards = new ArrayList<>();
+        if (partitioningStrategy == PartitioningStrategy.INSTRUMENT_AFFINE) {
+            // Heap requests were staged first, so they go ahead of the spilled ones in every shard
+            List<List<UpdatePriceRecordRequest>> heapShards = partitionBatchByInstrument(store.heapRequests());
+            int[][] spilledShards = partitionSpilledByInstrument(store);
+            for (int shard = 0; shard < heapShards.size(); shard++) {
+                for (List<UpdatePriceRecordRequest> chunk : partitionBatchIntoChunks(heapShards.get(shard), plannedChunkSize)) {
+                    chunks.add(chunk);
+                    chunkShards.add(shard);
+                }
+                int[] indices = spilledShards[shard];
+                for (int from = 0; from < indices.length; from += plannedChunkSize) {
+                    chunks.add(store.spilledSelection(indices, from, Math.min(from + plannedChunkSize, indices.length)));
+                    chunkShards.add(shard);
+                }
+            }
+        } else {
+            chunks.addAll(partitionBatchIntoChunks(store.heapRequests(), plannedChunkSize));
+            int spilled = store.spilledCount();
+            for (int from = 0; from < spilled; from += plannedChunkSize) {
+                chunks.add(store.spilledRange(from, Math.min(from + plannedChunkSize, spilled)));
+            }
+        }
+        logger.info("Partitioned staged batch with batchId {} into {} chunks of up to {} requests, {} of {} requests spilled to disk",
+                batchId, chunks.size(), plannedChunkSize, store.spilledCount(), store.size());
+
+        return submitBatch(batchId, asWork(batchId, chunks), chunkShards, metricsRecorder);
+    }
+
+    /**
+     * Processes a columnar batch. Chunks are row ranges of the batch, handed to
+     * {@link PriceService#processColumnarChunk(ColumnarChunkProcessRequest)} without creating a request object per row;
+     * with instrument-affine partitioning a chunk is a range of the rows routed to its shard.
+     *
+     * @param batchId the unique identifier of the batch being processed.
+     * @param batch   the rows of the batch. It must not be changed while the batch is processed.
+     * @return a CompletableFuture containing a BatchProcessResponse with the status of the batch and any failed records.
+     * @throws NullPointerException if batchId or batch is null.
+     * @throws ChunkProcessorSaturatedException if the REJECT policy is configured and the queue cannot take the whole batch.
+     */
+    public CompletableFuture<BatchProcessResponse> processColumnarBatch(String batchId, ColumnarRequestBatch batch) {
+        if (batchId == null || batch == null) {
+            throw new NullPointerException("batchId/Batch cannot be null");
+        }
+
+        int plannedChunkSize = planChunkSize(batch.size());
+        BatchMetricsRecorder metricsRecorder = new BatchMetricsRecorder(plannedChunkSize);
+        List<ChunkWork> chunks = new ArrayList<>();
+        List<Integer> chunkShards = new ArrayList<>();
+        if (partitioningStrategy == PartitioningStrategy.INSTRUMENT_AFFINE) {
+            int[][] shards = partitionByDenseInstrumentId(batch.size(), batch::getDenseInstrumentId);
+            for (int shard = 0; shard < shards.length; shard++) {
+                int[] rows = shards[shard];
+                for (int from = 0; from < rows.length; from += plannedChunkSize) {
+                    chunks.add(new ChunkWork.Columnar(new ColumnarChunkProcessRequest(batchId, batch, rows, from, Math.min(from + plannedChunkSize, rows.length))));
+                    chunkShards.add(shard);
+                }
+            }
+        } else {
+            for (int from = 0; from < batch.size(); from += plannedChunkSize) {
+                chunks.add(new ChunkWork.Columnar(new ColumnarChunkProcessRequest(batchId, batch, from, Math.min(from + plannedChunkSize, batch.size()))));
+            }
+        }
+        logger.info("Partitioned columnar batch with batchId {} into {} chunks of up to {} rows", batchId, chunks.size(), plannedChunkSize);
+
+        return submitBatch(batchId, chunks, chunkShards, metricsRecorder);
+    }
+
+    private static List<ChunkWork> asWork(String batchId, List<List<UpdatePriceRecordRequest>> chunks) {
+        List<ChunkWork> work = new ArrayList<>(chunks.size());
+        for (List<UpdatePriceRecordRequest> chunk : chunks) {
+            work.add(new ChunkWork.RequestList(batchId, chunk));
+        }
+        return work;
+    }
 
+    // Submits the chunks of a batch; chunkShards is empty unless partitioning is instrument-affine
+    private CompletableFuture<BatchProcessResponse> submitBatch(String batchId, List<? extends ChunkWork> chunks,
+                                                                List<Integer> chunkShards, BatchMetricsRecorder metricsRecorder) {
         // Create a list of CompletableFuture for processing each chunk
-        List<CompletableFuture<ChunkProcessResponse>> futures = chunks.stream()
-                .map(chunk -> CompletableFuture.supplyAsync(() -> processChunk(batchId, chunk), executorService)
-                        .exceptionally(ex -> {
-                            logger.error("Exception occurred while processing chunk for batchId {}: {}", batchId, ex.getMessage());
-                            return new ChunkProcessResponse(false, chunk); // Handle the exception and return a response with the failed chunk
-                        }))
-                .toList();
-
-        // Combine all futures into one CompletableFuture
+        List<CompletableFuture<ChunkProcessResponse>> futures = new ArrayList<>(chunks.size());
+        cancellationTokens.putIfAbsent(batchId, new CancellationToken());
+        if (saturationPolicy == SaturationPolicy.REJECT) {
+            // Admit the batch as a whole so that a rejected batch can be retried without applying anything twice.
+            // A batch larger than the whole queue is admitted once the queue is empty, the surplus chunks then wait for slots.
+            int reserved = Math.min(chunks.size(), queueCapacity);
+            if (!queueSlots.tryAcquire(reserved)) {
+                rejectedSubmissions.increment();
+                forgetBatch(batchId);
+                throw new ChunkProcessorSaturatedException("ChunkProcessor queue cannot take the " + chunks.size()
+                        + " chunks of batch " + batchId + ", " + queueSlots.availablePermits() + " of " + queueCapacity + " slots free.");
+            }
+            recordQueueDepth();
+            for (int i = 0; i < chunks.size(); i++) {
+                int shard = chunkShards.isEmpty() ? 0 : chunkShards.get(i);
+                futures.add(i < reserved
+                        ? enqueue(batchId, chunks.get(i), shard, metricsRecorder)
+                        : submitBlocking(batchId, chunks.get(i), shard, metricsRecorder));
+            }
+        } else {
+            for (int i = 0; i < chunks.size(); i++) {
+                futures.add(submitWork(batchId, chunks.get(i), chunkShards.isEmpty() ? 0 : chunkShards.get(i), metricsRecorder));
+            }
+        }
+
+        return combineChunkResults(batchId, futures, metricsRecorder);
+    }
+
+    /**
+     * Opens a stream for a batch whose requests are still being uploaded. Chunks are processed as soon as they fill up.
+     *
+     * @param batchId the unique identifier of the batch being streamed.
+     * @return the stream to append the uploaded requests to.
+     * @throws NullPointerException if batchId is null.
+     */
+    public ChunkStream openStream(String batchId) {
+        if (batchId == null) {
+            throw new NullPointerException("batchId cannot be null");
+        }
+        int plannedChunkSize = planChunkSize(Integer.MAX_VALUE);
+        cancellationTokens.putIfAbsent(batchId, new CancellationToken());
+        return new ChunkStream(batchId, this, shardCount(), plannedChunkSize, new BatchMetricsRecorder(plannedChunkSize));
+    }
+
+    /**
+     * Sets the weight of a batch for {@link SchedulingPolicy#FAIR} scheduling: while batches have chunks queued, each
+     * gets a share of the processed requests in proportion to its weight. Batches without a weight have weight 1. The
+     * weight is forgotten once the batch has been processed.
+     *
+     * @param batchId the unique identifier of the batch, set before its chunks are submitted.
+     * @param weight  the weight, at least 1.
+     * @throws IllegalArgumentException if the weight is not positive.
+     */
+    public void setBatchWeight(String batchId, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight of batch " + batchId + " must be positive: " + weight);
+        }
+        batchSchedules.compute(batchId, (id, schedule) -> new BatchSchedule(weight,
+                schedule == null ? PriorityClass.STANDARD : schedule.priorityClass()));
+    }
+
+    /**
+     * Sets the priority class of a batch: its queued chunks are picked up before those of every less urgent class,
+     * whatever their submission order. Batches without a class are {@link PriorityClass#STANDARD}. The class is
+     * forgotten once the batch has been processed.
+     * Backfill batches therefore only get the workers no live batch is waiting for; the throughput and queue waits of
+     * each class are exposed through {@link #getLaneMetrics()}.
+     * <p>
+     * A chunk that already runs is not interrupted, so a live chunk may wait for the running chunk of each worker.
+     *
+     * @param batchId       the unique identifier of the batch, set before its chunks are submitted.
+     * @param priorityClass the priority class of the batch.
+     * @throws NullPointerException if priorityClass is null.
+     */
+    public void setBatchPriority(String batchId, PriorityClass priorityClass) {
+        if (priorityClass == null) {
+            throw new NullPointerException("priorityClass cannot be null");
+        }
+        batchSchedules.compute(batchId, (id, schedule) -> new BatchSchedule(schedule == null ? 1 : schedule.weight(), priorityClass));
+    }
+
+    /**
+     * Counts the processed requests of a batch and their outcomes in the given recorder, as each chunk completes; the
+     * processing starts for the recorder now. The recorder is forgotten once the batch has been processed.
+     *
+     * @param batchId  the unique identifier of the batch, set before its chunks are submitted.
+     * @param recorder the counters of the batch, readable at any time.
+     */
+    public void trackProgress(String batchId, BatchProgressRecorder recorder) {
+        recorder.start();
+        progressRecorders.put(batchId, recorder);
+    }
+
+    /**
+     * Makes a batch cancellable with {@link #cancelBatch(String)} before its chunks are submitted, so that a cancel
+     * between the two is not lost: the chunks of a batch cancelled in between are dropped as they are picked up. The
+     * batch is forgotten once it has been processed or rejected.
+     *
+     * @param batchId the unique identifier of the batch, registered right before its chunks are submitted.
+     */
+    public void registerBatch(String batchId) {
+        cancellationTokens.putIfAbsent(batchId, new CancellationToken());
+    }
+
+    /**
+     * Cancels a batch that is being processed. Its queued chunks are dropped without being processed and its running
+     * chunks stop before the next instrument they would update. The requests that were not applied are reported as
+     * {@link UpdateOutcome#CANCELLED} failed requests in the response of the batch; the updates applied until then
+     * are kept and published with the batch.
+     *
+     * @param batchId the unique identifier of the batch.
+     * @return true if the batch was being processed, false if it is unknown or has already been processed.
+     */
+    public boolean cancelBatch(String batchId) {
+        CancellationToken cancellation = cancellationTokens.get(batchId);
+        if (cancellation == null) {
+            return false;
+        }
+        cancellation.cancel();
+        int dropped = 0;
+        for (PriorityChunkQueue<QueuedChunk> queue : chunkQueues) {
+            // The executor tasks of the dropped chunks find the queue empty, or run the chunks of other batches
+            for (QueuedChunk queuedChunk : queue.removeIf(queued -> queued.batchId().equals(batchId))) {
+                queueSlots.release();
+                queuedChunk.future().complete(recordProgress(batchId, queuedChunk.chunk(), cancelledResponse(queuedChunk.chunk())));
+                dropped++;
+            }
+        }
+        logger.info("Cancelled batchId {}, dropped {} queued chunks", batchId, dropped);
+        return true;
+    }
+
+    // Called when a batch will never be combined, e.g. its chunks were rejected
+    void forgetBatch(String batchId) {
+        batchSchedules.remove(batchId);
+        cancellationTokens.remove(batchId);
+        progressRecorders.remove(batchId);
+    }
+
+    private record BatchSchedule(int weight, PriorityClass priorityClass) {
+    }
+
+    /**
+     * Picks the chunk size for a batch: the configured size with fixed sizing, otherwise derived from the measured
+     * per-record processing time and the workers that are neither busy nor about to pick up a queued chunk.
+     */
+    int planChunkSize(int batchSize) {
+        if (chunkSizer == null) {
+            return chunkSize;
+        }
+        int queuedChunks = queueCapacity - queueSlots.availablePermits();
+        int idleWorkers = Math.max(1, parallelism - runningChunks.get() - queuedChunks);
+        return chunkSizer.chunkSizeFor(batchSize, idleWorkers);
+    }
+
+    // Combine all futures into one CompletableFuture
+    CompletableFuture<BatchProcessResponse> combineChunkResults(String batchId, List<CompletableFuture<ChunkProcessResponse>> futures,
+                                                                BatchMetricsRecorder metricsRecorder) {
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
                 .thenApply(result -> {
-                    // Combine all failed records from futures
-                    List<UpdatePriceRecordRequest> allFailedRequests = futures.stream()
-                            .map(CompletableFuture::join)
+                    // Combine all failed records from futures, and their reasons in the same order
+                    List<ChunkProcessResponse> responses = futures.stream().map(CompletableFuture::join).toList();
+                    List<UpdatePriceRecordRequest> allFailedRequests = responses.stream()
                             .flatMap(response -> response.failedRequests().stream())
                             .toList();
+                    UpdateOutcomes outcomes = UpdateOutcomes.combine(responses.stream().map(ChunkProcessResponse::outcomes).toList());
+
+                    long epoch = priceService.publishBatch(batchId);
 
                     // Return the BatchProcessResponse with the combined failed records
-                    logger.info("Batch processing for batchId {} completed with {} failed records", batchId, allFailedRequests.size());
-                    return new BatchProcessResponse(allFailedRequests.isEmpty(), allFailedRequests);
+                    logger.info("Batch processing for batchId {} completed with {} failed records, outcomes {}, stale rate {}%, visible from epoch {}",
+                            batchId, allFailedRequests.size(), outcomes, String.format("%.1f", outcomes.getRate(UpdateOutcome.STALE_IGNORED) * 100), epoch);
+                    return new BatchProcessResponse(allFailedRequests.isEmpty(), allFailedRequests, metricsRecorder.toMetrics(), outcomes);
+                })
+                .whenComplete((response, error) -> {
+                    forgetBatch(batchId);
+                    if (error != null) {
+                        priceService.discardBatch(batchId); // Never publish part of a batch that did not finish
+                    }
+                    priceService.summarizeBatch(batchId); // Also when a chunk failed
                 });
     }
 
+    /**
+     * Submits a chunk to the executor of the given shard; without sharding everything goes to the shared pool.
+     * If the queue is full, the chunk is handled according to the configured {@link SaturationPolicy}.
+     *
+     * @throws ChunkProcessorSaturatedException if the REJECT policy is configured and the queue is full.
+     */
+    CompletableFuture<ChunkProcessResponse> submitChunk(String batchId, List<UpdatePriceRecordRequest> chunk, int shard,
+                                                        BatchMetricsRecorder metricsRecorder) {
+        return submitWork(batchId, new ChunkWork.RequestList(batchId, chunk), shard, metricsRecorder);
+    }
+
+    private CompletableFuture<ChunkProcessResponse> submitWork(String batchId, ChunkWork chunk, int shard,
+                                                               BatchMetricsRecorder metricsRecorder) {
+        switch (saturationPolicy) {
+            case CALLER_RUNS -> {
+                if (!queueSlots.tryAcquire()) {
+                    submittedChunks.increment();
+                    callerRunChunks.increment();
+                    return CompletableFuture.completedFuture(processChunk(batchId, chunk, metricsRecorder));
+                }
+            }
+            case REJECT -> {
+                if (!queueSlots.tryAcquire()) {
+                    rejectedSubmissions.increment();
+                    throw new ChunkProcessorSaturatedException("ChunkProcessor queue is full, " + queueCapacity
+                            + " chunks are waiting. Chunk of batch " + batchId + " was not submitted.");
+                }
+            }
+            default -> {
+                return submitBlocking(batchId, chunk, shard, metricsRecorder);
+            }
+        }
+        recordQueueDepth();
+        return enqueue(batchId, chunk, shard, metricsRecorder);
+    }
+
+    // Waits for a free queue slot before submitting the chunk
+    private CompletableFuture<ChunkProcessResponse> submitBlocking(String batchId, ChunkWork chunk, int shard,
+                                                                   BatchMetricsRecorder metricsRecorder) {
+        try {
+            queueSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for a queue slot for batchId {}", batchId);
+            return CompletableFuture.completedFuture(new ChunkProcessResponse(false, chunk.requests()));
+        }
+        recordQueueDepth();
+        return enqueue(batchId, chunk, shard, metricsRecorder);
+    }
+
+    // Hands a chunk holding a queue slot to its executor; the slot is given back once a worker picks the chunk up
+    private CompletableFuture<ChunkProcessResponse> enqueue(String batchId, ChunkWork chunk, int shard,
+                                                            BatchMetricsRecorder metricsRecorder) {
+        ExecutorService executor = shardExecutors == null ? executorService : shardExecutors[shard];
+        submittedChunks.increment();
+        BatchSchedule schedule = batchSchedules.getOrDefault(batchId, DEFAULT_SCHEDULE);
+        QueuedChunk queuedChunk = new QueuedChunk(batchId, chunk, schedule.priorityClass(), System.nanoTime(),
+                metricsRecorder, new CompletableFuture<>());
+        PriorityChunkQueue<QueuedChunk> queue = chunkQueues.get(shardExecutors == null ? 0 : shard);
+        queue.add(schedule.priorityClass(), batchId, schedule.weight(), queuedChunk, chunk.size());
+        CompletableFuture<ChunkProcessResponse> future = queuedChunk.future().exceptionally(ex -> {
+            logger.error("Exception occurred while processing chunk for batchId {}: {}", batchId, ex.getMessage());
+            return new ChunkProcessResponse(false, chunk.requests()); // Handle the exception and return a response with the failed chunk
+        });
+        // Every queued chunk gets one executor task; which chunk a task runs is only decided when it starts
+        try {
+            executor.execute(() -> runNextChunk(queue));
+        } catch (RejectedExecutionException e) {
+            // Only happens once the processor has been shut down; drop a queued chunk so that each one keeps a task
+            QueuedChunk dropped = queue.poll();
+            if (dropped != null) {
+                queueSlots.release();
+                logger.error("Chunk for batchId {} was rejected by the executor: {}", dropped.batchId(), e.getMessage());
+                dropped.future().complete(new ChunkProcessResponse(false, dropped.chunk().requests()));
+            }
+        }
+        return future;
+    }
+
+    private void runNextChunk(PriorityChunkQueue<QueuedChunk> queue) {
+        // On virtual threads the chunk keeps its queue slot until it may actually run
+        if (concurrencyLimit != null) {
+            try {
+                concurrencyLimit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                QueuedChunk next = queue.poll();
+                if (next != null) {
+                    queueSlots.release();
+                    logger.error("Interrupted while waiting to process a chunk for batchId {}", next.batchId());
+                    next.future().complete(new ChunkProcessResponse(false, next.chunk().requests()));
+                }
+                return;
+            }
+        }
+        // Picked only once the task may run, so that the pick takes every chunk queued until now into account
+        QueuedChunk next = queue.poll();
+        if (next == null) {
+            // The chunk of this task was dropped by a cancellation
+            if (concurrencyLimit != null) {
+                concurrencyLimit.release();
+            }
+            return;
+        }
+        try {
+            LaneMetricsRecorder lane = laneMetrics[next.priorityClass().ordinal()];
+            lane.recordDequeued(onDequeued(next.enqueuedAt()));
+            ChunkProcessResponse response = processChunk(next.batchId(), next.chunk(), next.metricsRecorder());
+            lane.recordProcessed(next.chunk().size());
+            next.future().complete(response);
+        } catch (RuntimeException e) {
+            next.future().completeExceptionally(e);
+        } finally {
+            if (concurrencyLimit != null) {
+                concurrencyLimit.release();
+            }
+        }
+    }
+
+    private record QueuedChunk(String batchId, ChunkWork chunk, PriorityClass priorityClass, long enqueuedAt,
+                               BatchMetricsRecorder metricsRecorder, CompletableFuture<ChunkProcessResponse> future) {
+    }
+
+    // Gives the queue slot back and returns how long the chunk waited
+    private long onDequeued(long enqueuedAt) {
+        queueSlots.release();
+        long waitNanos = System.nanoTime() - enqueuedAt;
+        dequeuedChunks.increment();
+        totalQueueWaitNanos.add(waitNanos);
+        maxQueueWaitNanos.accumulate(waitNanos);
+        return waitNanos;
+    }
+
+    private void recordQueueDepth() {
+        peakQueueDepth.accumulate(queueCapacity - queueSlots.availablePermits());
+    }
+
+    /**
+     * Returns a snapshot of the submission queue metrics. The values are read one by one and may be slightly out of
+     * sync with each other while chunks are being submitted.
+     */
+    public ChunkProcessorMetrics getMetrics() {
+        long dequeued = dequeuedChunks.sum();
+        return new ChunkProcessorMetrics(
+                queueCapacity - queueSlots.availablePermits(),
+                (int) peakQueueDepth.get(),
+                queueCapacity,
+                submittedChunks.sum(),
+                callerRunChunks.sum(),
+                rejectedSubmissions.sum(),
+                dequeued == 0 ? 0 : totalQueueWaitNanos.sum() / dequeued,
+                maxQueueWaitNanos.get());
+    }
+
+    /**
+     * Returns a snapshot of the metrics of each priority lane, most urgent first. Chunks run by the submitting thread
+     * under {@link SaturationPolicy#CALLER_RUNS} are not part of any lane.
+     */
+    public Map<PriorityClass, LaneMetrics> getLaneMetrics() {
+        long uptimeNanos = System.nanoTime() - startedAt;
+        Map<PriorityClass, LaneMetrics> metrics = new EnumMap<>(PriorityClass.class);
+        for (PriorityClass priorityClass : PriorityClass.values()) {
+            int queued = 0;
+            for (PriorityChunkQueue<QueuedChunk> queue : chunkQueues) {
+                queued += queue.size(priorityClass);
+            }
+            metrics.put(priorityClass, laneMetrics[priorityClass.ordinal()].toMetrics(queued, uptimeNanos));
+        }
+        return metrics;
+    }
+
     /**
      * Processes a single chunk of UpdateRequests for the given batchId.
      *
      * @param batchId the unique identifier of the batch to which the chunk belongs.
-     * @param chunk   the list of UpdateRequests in this chunk.
+     * @param chunk   the UpdateRequests in this chunk, as a list or as rows of a columnar batch.
+     * @param metricsRecorder collects the size and processing time of the chunk for the batch metrics.
      * @return a ChunkProcessResponse indicating the success or failure of the chunk processing, along with any failed requests.
      */
-    private ChunkProcessResponse processChunk(String batchId, List<UpdatePriceRecordRequest> chunk) {
+    private ChunkProcessResponse processChunk(String batchId, ChunkWork chunk, BatchMetricsRecorder metricsRecorder) {
+        CancellationToken cancellation = cancellationTokens.getOrDefault(batchId, CancellationToken.NEVER);
+        if (cancellation.isCancelled()) {
+            return recordProgress(batchId, chunk, cancelledResponse(chunk));
+        }
         logger.info("Processing chunk for batchId {} with {} requests", batchId, chunk.size());
+        runningChunks.incrementAndGet();
+        long start = System.nanoTime();
         try {
             // Process the chunk and return the response
-            return priceService.processChunk(new ChunkProcessRequest(batchId, chunk));
+            return recordProgress(batchId, chunk, chunk.processOn(priceService, cancellation));
         } catch (Exception e) {
-            return new ChunkProcessResponse(false, chunk);
+            return recordProgress(batchId, chunk, new ChunkProcessResponse(false, chunk.requests()));
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            runningChunks.decrementAndGet();
+            metricsRecorder.record(chunk.size(), elapsed);
+            if (chunkSizer != null) {
+                chunkSizer.record(chunk.size(), elapsed);
+            }
         }
     }
 
+    // Adds the outcomes of a chunk to the progress of its batch, if it is tracked
+    private ChunkProcessResponse recordProgress(String batchId, ChunkWork chunk, ChunkProcessResponse response) {
+        BatchProgressRecorder recorder = progressRecorders.get(batchId);
+        if (recorder != null) {
+            recorder.record(chunk.size(), response.outcomes());
+        }
+        return response;
+    }
+
+    // Response of a chunk of a cancelled batch that was never started
+    private static ChunkProcessResponse cancelledResponse(ChunkWork chunk) {
+        List<UpdatePriceRecordRequest> requests = chunk.requests();
+        return new ChunkProcessResponse(false, requests, UpdateOutcomes.allFailed(requests.size(), UpdateOutcome.CANCELLED));
+    }
+
     /**
-     * Partitions a large list of UpdateRequests into smaller chunks of a predefined size.
+     * Partitions a large list of UpdateRequests into smaller chunks of the configured size.
      *
      * @param list the full list of PriceRecords to be partitioned.
      * @return a list of lists, where each inner list is a chunk of UpdateRequests.
      */
-     List<List<UpdatePriceRecordRequest>> partitionBatchIntoChunks(List<UpdatePriceRecordRequest> list) {
+    List<List<UpdatePriceRecordRequest>> partitionBatchIntoChunks(List<UpdatePriceRecordRequest> list) {
+        return partitionBatchIntoChunks(list, chunkSize);
+    }
+
+    List<List<UpdatePriceRecordRequest>> partitionBatchIntoChunks(List<UpdatePriceRecordRequest> list, int size) {
         List<List<UpdatePriceRecordRequest>> chunks = new ArrayList<>();
-        for (int i = 0; i < list.size(); i += CHUNK_SIZE) { // Create sublist for each chunk
-            chunks.add(list.subList(i, Math.min(i + CHUNK_SIZE, list.size())));
+        for (int i = 0; i < list.size(); i += size) { // Create sublist for each chunk
+            chunks.add(list.subList(i, Math.min(i + size, list.size())));
         }
         return chunks;
     }
 
+    /**
+     * Routes every UpdateRequest to a shard chosen by the hash of its instrument ID.
+     * Requests keep their relative order inside a shard, and all requests of an instrument land in the same shard.
+     * Requests without an instrument are routed to the first shard, where they are rejected by the price service.
+     *
+     * @param list the full list of UpdateRequests to be routed.
+     * @return one list of UpdateRequests per shard, indexed by shard number.
+     */
+    List<List<UpdatePriceRecordRequest>> partitionBatchByInstrument(List<UpdatePriceRecordRequest> list) {
+        int shardCount = shardCount();
+        List<List<UpdatePriceRecordRequest>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (UpdatePriceRecordRequest request : list) {
+            shards.get(shardFor(request.getInstrument(), shardCount)).add(request);
+        }
+        return shards;
+    }
+
+    /**
+     * Routes the spilled requests of a store to shards like {@link #partitionBatchByInstrument(List)}, reading only
+     * the instrument of every record.
+     *
+     * @return the indices of the spilled requests per shard, in staging order.
+     */
+    int[][] partitionSpilledByInstrument(BatchStagingStore store) {
+        return partitionByDenseInstrumentId(store.spilledCount(), store::spilledDenseInstrumentId);
+    }
+
+    /**
+     * Routes {@code count} indexed requests to shards by the instrument behind their dense instrument ID, -1 meaning
+     * no instrument. Uses the same shards as {@link #partitionBatchByInstrument(List)}.
+     *
+     * @return the indices per shard, in ascending order.
+     */
+    int[][] partitionByDenseInstrumentId(int count, IntUnaryOperator denseInstrumentIdOf) {
+        int shardCount = shardCount();
+        int[] indexShards = new int[count];
+        int[] shardSizes = new int[shardCount];
+        for (int i = 0; i < count; i++) {
+            int shard = shardForDenseId(denseInstrumentIdOf.applyAsInt(i), shardCount);
+            indexShards[i] = shard;
+            shardSizes[shard]++;
+        }
+        int[][] shards = new int[shardCount][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards[shard] = new int[shardSizes[shard]];
+            shardSizes[shard] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int shard = indexShards[i];
+            shards[shard][shardSizes[shard]++] = i;
+        }
+        return shards;
+    }
+
+    int shardCount() {
+        return shardExecutors == null ? 1 : shardExecutors.length;
+    }
+
+    // Shard the request has to be processed on, always 0 without instrument-affine partitioning
+    int shardOf(UpdatePriceRecordRequest request) {
+        return shardExecutors == null ? 0 : shardFor(request.getInstrument(), shardExecutors.length);
+    }
+
+    // The shard is derived from the instrument ID rather than the raw name so that names normalising to the same ID share a writer
+    static int shardFor(String instrument, int shardCount) {
+        if (instrument == null) {
+            return 0;
+        }
+        return Math.floorMod(InstrumentRegistry.getInstance().instrumentIdOf(instrument).hashCode(), shardCount);
+    }
+
+    // Same shard as shardFor on the name of the instrument, without resolving the name again
+    static int shardForDenseId(int denseId, int shardCount) {
+        if (denseId < 0) {
+            return 0;
+        }
+        return Math.floorMod(InstrumentRegistry.getInstance().getByDenseId(denseId).getInstrumentId().hashCode(), shardCount);
+    }
+
     public void shutdown() {
         logger.info("Shutting down executor service");
-        executorService.shutdown(); // Shutdown the executor service
+        if (executorService != null) {
+            executorService.shutdown(); // Shutdown the executor service
+        }
+        if (shardExecutors != null) {
+            for (ExecutorService shardExecutor : shardExecutors) {
+                shardExecutor.shutdown();
+            }
+        }
     }
 }
@@ -0,0 +1,140 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.services.dto.ChunkProcessResponse;
+import com.spglobal.coding.utils.dto.BatchProcessResponse;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.exceptions.ChunkProcessorSaturatedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Feeds the requests of a streaming batch to the {@link ChunkProcessor} while they are being uploaded.
+ * <p>
+ * Appended requests are buffered per shard until a full chunk is available, which is then submitted straight away.
+ * Only the partially filled chunks are held on the heap, so the batch never has to be materialised in full.
+ * {@link #complete()} flushes the remaining partial chunks and returns a future combining all chunk results.
+ * <p>
+ * When the ChunkProcessor rejects a chunk because its queue is full, the requests stay buffered and are submitted
+ * again on the next append or completion. A rejected completion leaves the stream open so it can be retried.
+ */
+public class ChunkStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkStream.class);
+
+    private final String batchId;
+    private final ChunkProcessor chunkProcessor;
+    private final int chunkSize;
+    private final BatchMetricsRecorder metricsRecorder;
+    private final List<List<UpdatePriceRecordRequest>> pending; // one buffer per shard
+    private final List<CompletableFuture<ChunkProcessResponse>> futures = new ArrayList<>();
+    private boolean closed;
+
+    ChunkStream(String batchId, ChunkProcessor chunkProcessor, int shardCount, int chunkSize, BatchMetricsRecorder metricsRecorder) {
+        this.batchId = batchId;
+        this.chunkProcessor = chunkProcessor;
+        this.chunkSize = chunkSize;
+        this.metricsRecorder = metricsRecorder;
+        this.pending = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            pending.add(new ArrayList<>(chunkSize));
+        }
+    }
+
+    /**
+     * Appends requests to the stream, submitting every chunk that becomes full.
+     *
+     * @param requests the requests to append.
+     * @throws IllegalStateException if the stream has already been completed or cancelled.
+     */
+    public synchronized void append(List<UpdatePriceRecordRequest> requests) {
+        if (closed) {
+            throw new IllegalStateException("Chunk stream for batchId " + batchId + " is already closed.");
+        }
+        boolean saturated = false;
+        for (UpdatePriceRecordRequest request : requests) {
+            int shard = chunkProcessor.shardOf(request);
+            List<UpdatePriceRecordRequest> buffer = pending.get(shard);
+            buffer.add(request);
+            if (!saturated && buffer.size() >= chunkSize) {
+                try {
+                    flush(shard, false);
+                } catch (ChunkProcessorSaturatedException e) {
+                    // Keep buffering, the full chunks are submitted again on the next append or on completion
+                    logger.warn("ChunkProcessor is saturated, keeping requests of batchId {} buffered", batchId);
+                    saturated = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes the partially filled chunks and closes the stream.
+     *
+     * @return a future completing once every chunk of the batch has been processed.
+     * @throws ChunkProcessorSaturatedException if the ChunkProcessor rejected a chunk; the stream stays open and the
+     *                                          completion can be retried.
+     */
+    public synchronized CompletableFuture<BatchProcessResponse> complete() {
+        if (closed) {
+            throw new IllegalStateException("Chunk stream for batchId " + batchId + " is already closed.");
+        }
+        for (int shard = 0; shard < pending.size(); shard++) {
+            flush(shard, true);
+        }
+        closed = true;
+        logger.info("Streaming batch with batchId {} completed after submitting {} chunks", batchId, futures.size());
+        return chunkProcessor.combineChunkResults(batchId, futures, metricsRecorder);
+    }
+
+    // Submits the buffered requests of a shard in chunks, including the trailing partial chunk if requested.
+    // Whatever could not be submitted stays buffered.
+    private void flush(int shard, boolean includePartial) {
+        List<UpdatePriceRecordRequest> buffer = pending.get(shard);
+        if (buffer.size() == chunkSize || (includePartial && !buffer.isEmpty() && buffer.size() < chunkSize)) {
+            // Common case: the buffer is exactly one chunk and can be handed over as is
+            futures.add(chunkProcessor.submitChunk(batchId, buffer, shard, metricsRecorder));
+            pending.set(shard, new ArrayList<>(chunkSize));
+            return;
+        }
+        int from = 0;
+        try {
+            while (buffer.size() - from >= chunkSize || (includePartial && from < buffer.size())) {
+                int to = Math.min(from + chunkSize, buffer.size());
+                futures.add(chunkProcessor.submitChunk(batchId, new ArrayList<>(buffer.subList(from, to)), shard, metricsRecorder));
+                from = to;
+            }
+        } finally {
+            if (from > 0) {
+                List<UpdatePriceRecordRequest> remaining = new ArrayList<>(chunkSize);
+                remaining.addAll(buffer.subList(from, buffer.size()));
+                pending.set(shard, remaining);
+            }
+        }
+    }
+
+    /**
+     * Closes the stream without submitting the partially filled chunks. Chunks submitted before are still processed,
+     * and their updates are published together once they have all completed, as for a completed stream.
+     *
+     * @return the requests that were never submitted.
+     */
+    public synchronized List<UpdatePriceRecordRequest> cancel() {
+        closed = true;
+        chunkProcessor.combineChunkResults(batchId, futures, metricsRecorder);
+        logger.info("Streaming batch with batchId {} cancelled after submitting {} chunks", batchId, futures.size());
+        List<UpdatePriceRecordRequest> unsubmitted = new ArrayList<>();
+        for (List<UpdatePriceRecordRequest> buffer : pending) {
+            unsubmitted.addAll(buffer);
+            buffer.clear();
+        }
+        return unsubmitted;
+    }
+
+    public synchronized int getSubmittedChunkCount() {
+        return futures.size();
+    }
+}
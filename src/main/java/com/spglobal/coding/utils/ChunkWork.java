@@ -0,0 +1,57 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.services.PriceService;
+import com.spglobal.coding.services.dto.ChunkProcessResponse;
+import com.spglobal.coding.utils.dto.ChunkProcessRequest;
+import com.spglobal.coding.utils.dto.ColumnarChunkProcessRequest;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chunk queued in the {@link ChunkProcessor}: either a list of request objects, or a range of rows of a columnar batch.
+ */
+sealed interface ChunkWork {
+
+    int size();
+
+    ChunkProcessResponse processOn(PriceService priceService, CancellationToken cancellation);
+
+    // All requests of the chunk, reported as failed when the chunk fails as a whole
+    List<UpdatePriceRecordRequest> requests();
+
+    record RequestList(String batchId, List<UpdatePriceRecordRequest> requests) implements ChunkWork {
+        @Override
+        public int size() {
+            return requests.size();
+        }
+
+        @Override
+        public ChunkProcessResponse processOn(PriceService priceService, CancellationToken cancellation) {
+            return priceService.processChunk(new ChunkProcessRequest(batchId, requests, cancellation));
+        }
+    }
+
+    record Columnar(ColumnarChunkProcessRequest request) implements ChunkWork {
+        @Override
+        public int size() {
+            return request.size();
+        }
+
+        @Override
+        public ChunkProcessResponse processOn(PriceService priceService, CancellationToken cancellation) {
+            return priceService.processColumnarChunk(request.withCancellation(cancellation));
+        }
+
+        // Only materialised on failure
+        @Override
+        public List<UpdatePriceRecordRequest> requests() {
+            List<UpdatePriceRecordRequest> requests = new ArrayList<>(request.size());
+            for (int i = 0; i < request.size(); i++) {
+                requests.add(request.batch().toRequest(request.row(i)));
+            }
+            return requests;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.spglobal.coding.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Queue of chunks that hands them out by deficit round robin over the batches they belong to.
+ * <p>
+ * Every batch with queued chunks has its own FIFO queue and a deficit, counted in requests. When it is the turn of a
+ * batch whose deficit does not cover its next chunk, the batch gets {@code weight * quantum} requests more and goes to
+ * the back of the round. Over time every waiting batch thus gets a share of the requests processed in proportion to its
+ * weight, whatever the size of its chunks, and a small batch waits for at most one turn of each other batch instead of
+ * for all chunks queued before it. A batch whose queue runs empty leaves the round and loses its deficit.
+ * <p>
+ * All methods are thread safe.
+ *
+ * @param <T> the queued chunks.
+ */
+final class FairChunkQueue<T> {
+
+    private final int quantum;
+    private final Map<String, Flow<T>> flows = new HashMap<>();
+    private final ArrayDeque<Flow<T>> round = new ArrayDeque<>();
+    private int size;
+
+    /**
+     * @param quantum the number of requests a batch of weight 1 may run per turn.
+     */
+    FairChunkQueue(int quantum) {
+        if (quantum <= 0) {
+            throw new IllegalArgumentException("quantum must be positive");
+        }
+        this.quantum = quantum;
+    }
+
+    /**
+     * Queues a chunk behind the other chunks of its batch.
+     *
+     * @param weight only used when the batch has no queued chunks yet, it then joins the round with this weight.
+     * @param cost   the number of requests of the chunk.
+     */
+    synchronized void add(String batchId, int weight, T chunk, int cost) {
+        Flow<T> flow = flows.get(batchId);
+        if (flow == null) {
+            flow = new Flow<>(batchId, weight);
+            flows.put(batchId, flow);
+            round.addLast(flow);
+        }
+        flow.chunks.addLast(new Queued<>(chunk, Math.max(cost, 1)));
+        size++;
+    }
+
+    /**
+     * @return the next chunk to run, or null if no chunk is queued.
+     */
+    synchronized T poll() {
+        while (true) {
+            Flow<T> flow = round.peekFirst();
+            if (flow == null) {
+                return null;
+            }
+            Queued<T> next = flow.chunks.peekFirst();
+            if (flow.deficit < next.cost()) {
+                flow.deficit += (long) flow.weight * quantum;
+                round.addLast(round.pollFirst());
+                continue;
+            }
+            flow.deficit -= next.cost();
+            flow.chunks.pollFirst();
+            size--;
+            if (flow.chunks.isEmpty()) {
+                round.pollFirst();
+                flows.remove(flow.batchId);
+            }
+            return next.chunk();
+        }
+    }
+
+    /**
+     * Removes the queued chunks matching the filter, e.g. those of a cancelled batch. A batch left without chunks
+     * leaves the round.
+     *
+     * @return the removed chunks.
+     */
+    synchronized List<T> removeIf(Predicate<? super T> filter) {
+        List<T> removed = new ArrayList<>();
+        for (Iterator<Flow<T>> flowIterator = round.iterator(); flowIterator.hasNext(); ) {
+            Flow<T> flow = flowIterator.next();
+            for (Iterator<Queued<T>> chunkIterator = flow.chunks.iterator(); chunkIterator.hasNext(); ) {
+                T chunk = chunkIterator.next().chunk();
+                if (filter.test(chunk)) {
+                    chunkIterator.remove();
+                    removed.add(chunk);
+                }
+            }
+            if (flow.chunks.isEmpty()) {
+                flowIterator.remove();
+                flows.remove(flow.batchId);
+            }
+        }
+        size -= removed.size();
+        return removed;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // Number of batches with queued chunks
+    synchronized int batchCount() {
+        return flows.size();
+    }
+
+    private record Queued<T>(T chunk, int cost) {
+    }
+
+    private static final class Flow<T> {
+        private final String batchId;
+        private final int weight;
+        private final ArrayDeque<Queued<T>> chunks = new ArrayDeque<>();
+        private long deficit;
+
+        Flow(String batchId, int weight) {
+            this.batchId = batchId;
+            this.weight = weight;
+        }
+    }
+}
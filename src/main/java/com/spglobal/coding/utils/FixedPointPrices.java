@@ -0,0 +1,95 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.enums.Currency;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Helpers for prices stored as a {@code long} mantissa and a decimal scale, i.e. {@code value = mantissa / 10^scale}.
+ */
+public final class FixedPointPrices {
+
+    // Scale used when a price has no currency to take its scale from
+    public static final int DEFAULT_SCALE = 4;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Private constructor to prevent instantiation
+    private FixedPointPrices() {
+    }
+
+    public static int scaleOf(Currency currency) {
+        return currency == null ? DEFAULT_SCALE : currency.getFixedPointScale();
+    }
+
+    /**
+     * Converts a decimal value into a mantissa with the given scale, rounding half-even.
+     *
+     * @throws ArithmeticException if the rounded value does not fit into a {@code long}.
+     */
+    public static long toMantissa(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    // Tells whether toMantissa(value, scale) succeeds, without throwing
+    public static boolean fitsMantissa(BigDecimal value, int scale) {
+        if (value.precision() - value.scale() + scale <= 18) {
+            return true; // At most 18 digits after rounding, always fits
+        }
+        return value.setScale(scale, RoundingMode.HALF_EVEN).unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    public static BigDecimal toBigDecimal(long mantissa, int scale) {
+        return BigDecimal.valueOf(mantissa, scale);
+    }
+
+    /**
+     * Changes the scale of a mantissa without going through {@link BigDecimal}, rounding half-even when decreasing it.
+     *
+     * @throws ArithmeticException if the result does not fit into a {@code long}.
+     */
+    public static long rescale(long mantissa, int fromScale, int toScale) {
+        if (fromScale == toScale) {
+            return mantissa;
+        }
+        if (toScale > fromScale) {
+            return Math.multiplyExact(mantissa, powerOfTen(toScale - fromScale));
+        }
+        long divisor = powerOfTen(fromScale - toScale);
+        long quotient = mantissa / divisor;
+        long remainder = Math.abs(mantissa % divisor);
+        long twiceRemainder = remainder * 2;
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient += mantissa < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    // Tells whether rescale(mantissa, fromScale, toScale) succeeds, without throwing
+    public static boolean canRescale(long mantissa, int fromScale, int toScale) {
+        int difference = Math.abs(toScale - fromScale);
+        if (difference >= POWERS_OF_TEN.length) {
+            return false;
+        }
+        if (toScale <= fromScale) {
+            return true;
+        }
+        long limit = Long.MAX_VALUE / POWERS_OF_TEN[difference];
+        return mantissa <= limit && mantissa >= -limit;
+    }
+
+    private static long powerOfTen(int exponent) {
+        if (exponent >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Scale difference too large for a long mantissa: " + exponent);
+        }
+        return POWERS_OF_TEN[exponent];
+    }
+}
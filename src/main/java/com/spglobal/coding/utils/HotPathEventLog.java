@@ -0,0 +1,141 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.enums.HotPathEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the {@link HotPathEvent}s of the price update path and logs only a sample of them.
+ * <p>
+ * Every event is counted, in total and per batch. Of the events of a batch, the first {@code firstPerBatch} of each
+ * kind are logged, and then one in every {@code sampleEvery}; all others cost a counter increment and are neither
+ * formatted nor written. Once a batch has been processed, {@link #summarize(String)} logs one line with its counts.
+ * The counts of a batch are kept until then, so every batch that events are recorded for has to be summarized.
+ * With DEBUG enabled for this class every event is logged, for a full audit trail.
+ * <p>
+ * All methods are thread safe and lock free.
+ */
+public class HotPathEventLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotPathEventLog.class);
+
+    public static final int DEFAULT_FIRST_PER_BATCH = 10;
+    public static final int DEFAULT_SAMPLE_EVERY = 1000;
+
+    private static final HotPathEvent[] EVENTS = HotPathEvent.values();
+    private static final int LOGGED_SLOT = EVENTS.length; // per-batch slot counting the lines written
+
+    private final int firstPerBatch;
+    private final int sampleEvery;
+    private final LongAdder[] totals = new LongAdder[EVENTS.length];
+    private final Map<String, AtomicLongArray> batchCounts = new ConcurrentHashMap<>();
+
+    public HotPathEventLog() {
+        this(DEFAULT_FIRST_PER_BATCH, DEFAULT_SAMPLE_EVERY);
+    }
+
+    /**
+     * @param firstPerBatch number of events of each kind logged at the start of every batch.
+     * @param sampleEvery   one in this many events is logged after that; 0 logs none.
+     */
+    public HotPathEventLog(int firstPerBatch, int sampleEvery) {
+        if (firstPerBatch < 0 || sampleEvery < 0) {
+            throw new IllegalArgumentException("firstPerBatch and sampleEvery must not be negative");
+        }
+        this.firstPerBatch = firstPerBatch;
+        this.sampleEvery = sampleEvery;
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records an event about a subject, usually an instrument ID.
+     *
+     * @return whether the event was logged.
+     */
+    public boolean record(String batchId, HotPathEvent event, String subject) {
+        if (!count(batchId, event)) {
+            return false;
+        }
+        write(event, subject, null);
+        return true;
+    }
+
+    // Same as record(batchId, event, subject) with a numeric detail, boxed only if the event is logged
+    public boolean record(String batchId, HotPathEvent event, String subject, long detail) {
+        if (!count(batchId, event)) {
+            return false;
+        }
+        write(event, subject, detail);
+        return true;
+    }
+
+    public boolean record(String batchId, HotPathEvent event, String subject, String detail) {
+        if (!count(batchId, event)) {
+            return false;
+        }
+        write(event, subject, detail);
+        return true;
+    }
+
+    // Counts the event and tells whether it has to be logged
+    private boolean count(String batchId, HotPathEvent event) {
+        totals[event.ordinal()].increment();
+        AtomicLongArray counts = batchCounts.computeIfAbsent(batchId, id -> new AtomicLongArray(EVENTS.length + 1));
+        long occurrence = counts.incrementAndGet(event.ordinal());
+        boolean sampled = occurrence <= firstPerBatch || (sampleEvery > 0 && occurrence % sampleEvery == 0);
+        if (!sampled && !logger.isDebugEnabled()) {
+            return false;
+        }
+        counts.incrementAndGet(LOGGED_SLOT);
+        return true;
+    }
+
+    private void write(HotPathEvent event, String subject, Object detail) {
+        if (event.isFailure()) {
+            logger.error(event.getMessage(), subject, detail);
+        } else {
+            logger.info(event.getMessage(), subject, detail);
+        }
+    }
+
+    /**
+     * Logs the event counts of a processed batch in a single line and forgets the batch.
+     *
+     * @return the number of events of each kind recorded for the batch.
+     */
+    public Map<HotPathEvent, Long> summarize(String batchId) {
+        Map<HotPathEvent, Long> summary = new EnumMap<>(HotPathEvent.class);
+        AtomicLongArray counts = batchCounts.remove(batchId);
+        if (counts == null) {
+            return summary;
+        }
+        long recorded = 0;
+        for (HotPathEvent event : EVENTS) {
+            long count = counts.get(event.ordinal());
+            if (count > 0) {
+                summary.put(event, count);
+                recorded += count;
+            }
+        }
+        logger.info("Hot-path events of batchId {}: {} ({} of {} events logged)", batchId, summary, counts.get(LOGGED_SLOT), recorded);
+        return summary;
+    }
+
+    // Number of batches with recorded events that have not been summarized yet
+    public int getOpenBatchCount() {
+        return batchCounts.size();
+    }
+
+    // Number of events of a kind recorded since start-up, across all batches
+    public long getTotal(HotPathEvent event) {
+        return totals[event.ordinal()].sum();
+    }
+}
@@ -0,0 +1,180 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.enums.InstrumentType;
+import com.spglobal.coding.utils.model.InstrumentReference;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide registry of instrument reference data, mapping instrument name, instrument ID, dense integer ID and
+ * {@link InstrumentType} onto each other.
+ * <p>
+ * Names are normalised by collapsing whitespace runs into an underscore and upper-casing the result, so "Crude Oil" and
+ * "crude  oil" resolve to the same {@code CRUDE_OIL} reference. References are kept by instrument ID only; the names
+ * resolved recently are cached in a table of fixed size, so that resolving them again costs a single array read and
+ * does not allocate, however many spellings clients send.
+ * <p>
+ * All lookups are lock free. Registering a new instrument ID takes a short lock to hand out the next dense ID.
+ */
+public final class InstrumentRegistry {
+
+    private static final InstrumentRegistry INSTANCE = new InstrumentRegistry();
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NAME_CACHE_SIZE = 4096; // a power of two
+
+    // Indexed by the hash of the name; a slot is overwritten by the last name resolved into it
+    private final NameCacheEntry[] nameCache = new NameCacheEntry[NAME_CACHE_SIZE];
+    private final Map<String, InstrumentReference> byInstrumentId = new ConcurrentHashMap<>();
+    private volatile InstrumentReference[] byDenseId = new InstrumentReference[INITIAL_CAPACITY];
+    private int size; // guarded by this
+
+    InstrumentRegistry() {
+    }
+
+    public static InstrumentRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Resolves the reference of an instrument name, registering it if it has not been seen before.
+     *
+     * @param instrument the instrument name. Must not be null.
+     * @return the reference shared by all names normalising to the same instrument ID.
+     */
+    public InstrumentReference resolve(String instrument) {
+        int slot = spread(instrument.hashCode()) & (NAME_CACHE_SIZE - 1);
+        NameCacheEntry cached = nameCache[slot];
+        if (cached != null && cached.name().equals(instrument)) {
+            return cached.reference();
+        }
+        InstrumentReference reference = byInstrumentId.computeIfAbsent(normalise(instrument), id -> newReference(instrument, id, null));
+        nameCache[slot] = new NameCacheEntry(instrument, reference); // Racing writes may drop an entry, never corrupt one
+        return reference;
+    }
+
+    /**
+     * Resolves the reference of an instrument name and learns its type from traffic if no type has been learned yet.
+     * A learned type is only used where no registered type exists, see {@link #findInstrumentType(String)}.
+     *
+     * @param instrument     the instrument name. Must not be null.
+     * @param instrumentType the type carried by the caller, may be null.
+     * @return the reference of the instrument.
+     */
+    public InstrumentReference resolve(String instrument, InstrumentType instrumentType) {
+        InstrumentReference reference = resolve(instrument);
+        learnType(reference, instrumentType);
+        return reference;
+    }
+
+    /**
+     * Learns the type of an already resolved instrument from traffic if no type has been learned yet.
+     *
+     * @param reference      the reference of the instrument. Must not be null.
+     * @param instrumentType the type carried by the caller, may be null.
+     */
+    public void learnType(InstrumentReference reference, InstrumentType instrumentType) {
+        if (reference.getLearnedType() == null && instrumentType != null) {
+            reference.setLearnedType(instrumentType);
+        }
+    }
+
+    /**
+     * Registers an instrument as reference data. The given type overrides a previously registered one, and takes
+     * precedence over a learned one.
+     *
+     * @param instrument     the instrument name. Must not be null.
+     * @param instrumentType the type of the instrument. Must not be null.
+     * @return the reference of the instrument.
+     */
+    public InstrumentReference register(String instrument, InstrumentType instrumentType) {
+        Objects.requireNonNull(instrumentType, "instrumentType cannot be null");
+        InstrumentReference reference = resolve(instrument);
+        reference.setRegisteredType(instrumentType);
+        return reference;
+    }
+
+    /**
+     * @param instrument the instrument name. Must not be null.
+     * @return the instrument ID the name normalises to.
+     */
+    public String instrumentIdOf(String instrument) {
+        return resolve(instrument).getInstrumentId();
+    }
+
+    public Optional<InstrumentReference> findByInstrumentId(String instrumentId) {
+        return instrumentId == null ? Optional.empty() : Optional.ofNullable(byInstrumentId.get(instrumentId));
+    }
+
+    // The registered type of an instrument, or the type learned from traffic if none was registered
+    public Optional<InstrumentType> findInstrumentType(String instrumentId) {
+        return findByInstrumentId(instrumentId).map(InstrumentReference::getInstrumentType);
+    }
+
+    // The type of an instrument registered as reference data only
+    public Optional<InstrumentType> findRegisteredType(String instrumentId) {
+        return findByInstrumentId(instrumentId).map(InstrumentReference::getRegisteredType);
+    }
+
+    /**
+     * @param denseId the dense ID handed out on registration.
+     * @return the reference with the given dense ID.
+     * @throws IllegalArgumentException if no instrument has been registered with that dense ID.
+     */
+    public InstrumentReference getByDenseId(int denseId) {
+        InstrumentReference[] references = byDenseId;
+        InstrumentReference reference = denseId >= 0 && denseId < references.length ? references[denseId] : null;
+        if (reference == null) {
+            throw new IllegalArgumentException("No instrument registered with dense ID: " + denseId);
+        }
+        return reference;
+    }
+
+    public int size() {
+        return byInstrumentId.size();
+    }
+
+    private synchronized InstrumentReference newReference(String instrument, String instrumentId, InstrumentType instrumentType) {
+        InstrumentReference reference = new InstrumentReference(instrument, instrumentId, size, instrumentType);
+        InstrumentReference[] references = byDenseId;
+        if (size == references.length) {
+            references = Arrays.copyOf(references, references.length * 2);
+        }
+        references[size++] = reference;
+        byDenseId = references; // Publish the slot through the volatile write
+        return reference;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // Immutable, so that a slot read without synchronization always sees a complete entry
+    private record NameCacheEntry(String name, InstrumentReference reference) {
+    }
+
+    /**
+     * Generates the instrument ID of a name: every run of whitespace becomes an underscore and the result is upper-cased.
+     * Only called when the name is not cached.
+     */
+    static String normalise(String instrument) {
+        StringBuilder builder = new StringBuilder(instrument.length());
+        boolean inWhitespace = false;
+        for (int i = 0; i < instrument.length(); i++) {
+            char c = instrument.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+                if (!inWhitespace) {
+                    builder.append('_');
+                    inWhitespace = true;
+                }
+            } else {
+                builder.append(c);
+                inWhitespace = false;
+            }
+        }
+        return builder.toString().toUpperCase();
+    }
+}
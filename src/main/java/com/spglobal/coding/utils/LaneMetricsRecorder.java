@@ -0,0 +1,47 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.dto.LaneMetrics;
+import com.spglobal.coding.utils.enums.PriorityClass;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the queue waits and processed requests of one priority lane while its chunks run.
+ */
+class LaneMetricsRecorder {
+
+    private final PriorityClass priorityClass;
+    private final LongAdder dequeuedChunks = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder processedChunks = new LongAdder();
+    private final LongAdder processedRequests = new LongAdder();
+
+    LaneMetricsRecorder(PriorityClass priorityClass) {
+        this.priorityClass = priorityClass;
+    }
+
+    void recordDequeued(long waitNanos) {
+        dequeuedChunks.increment();
+        totalQueueWaitNanos.add(waitNanos);
+        maxQueueWaitNanos.accumulate(waitNanos);
+    }
+
+    void recordProcessed(int requestCount) {
+        processedChunks.increment();
+        processedRequests.add(requestCount);
+    }
+
+    LaneMetrics toMetrics(int queuedChunks, long uptimeNanos) {
+        long dequeued = dequeuedChunks.sum();
+        long requests = processedRequests.sum();
+        return new LaneMetrics(priorityClass,
+                queuedChunks,
+                processedChunks.sum(),
+                requests,
+                uptimeNanos <= 0 ? 0 : requests * 1e9 / uptimeNanos,
+                dequeued == 0 ? 0 : totalQueueWaitNanos.sum() / dequeued,
+                maxQueueWaitNanos.get());
+    }
+}
@@ -0,0 +1,70 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.enums.PriorityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Queue of chunks with one lane per {@link PriorityClass}. A chunk of a more urgent lane is always handed out before
+ * the chunks of less urgent lanes, however long they have been waiting.
+ * <p>
+ * Within a lane the chunks are handed out by a {@link FairChunkQueue}: by deficit round robin over their batches if
+ * the queue is fair, otherwise in the order they were added, since all chunks of a lane then share one flow.
+ * <p>
+ * All methods are thread safe.
+ *
+ * @param <T> the queued chunks.
+ */
+final class PriorityChunkQueue<T> {
+
+    private static final PriorityClass[] PRIORITY_CLASSES = PriorityClass.values();
+    private static final String SHARED_FLOW = "";
+
+    private final List<FairChunkQueue<T>> lanes; // indexed by the ordinal of the priority class, most urgent first
+    private final boolean fair;
+
+    /**
+     * @param fair    whether the batches of a lane take turns, or its chunks run in the order they were added.
+     * @param quantum the number of requests a batch of weight 1 may run per turn, see {@link FairChunkQueue}.
+     */
+    PriorityChunkQueue(boolean fair, int quantum) {
+        this.fair = fair;
+        List<FairChunkQueue<T>> priorityLanes = new ArrayList<>(PRIORITY_CLASSES.length);
+        for (int i = 0; i < PRIORITY_CLASSES.length; i++) {
+            priorityLanes.add(new FairChunkQueue<>(quantum));
+        }
+        this.lanes = List.copyOf(priorityLanes);
+    }
+
+    synchronized void add(PriorityClass priorityClass, String batchId, int weight, T chunk, int cost) {
+        lanes.get(priorityClass.ordinal()).add(fair ? batchId : SHARED_FLOW, weight, chunk, cost);
+    }
+
+    /**
+     * @return the next chunk of the most urgent lane with queued chunks, or null if no chunk is queued.
+     */
+    synchronized T poll() {
+        for (FairChunkQueue<T> lane : lanes) {
+            T chunk = lane.poll();
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    // Removes the queued chunks matching the filter from all lanes
+    synchronized List<T> removeIf(Predicate<? super T> filter) {
+        List<T> removed = new ArrayList<>();
+        for (FairChunkQueue<T> lane : lanes) {
+            removed.addAll(lane.removeIf(filter));
+        }
+        return removed;
+    }
+
+    synchronized int size(PriorityClass priorityClass) {
+        return lanes.get(priorityClass.ordinal()).size();
+    }
+}
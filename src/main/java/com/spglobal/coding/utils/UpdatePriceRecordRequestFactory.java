@@ -22,6 +22,7 @@ public class UpdatePriceRecordRequestFactory {
 
     private static final Random RANDOM = new Random();
     private static final Map<InstrumentType, String[]> map = generateInstrumentsMap();
+    private static final InstrumentRegistry registry = registerInstruments();
 
     // Private constructor to prevent instantiation
     private UpdatePriceRecordRequestFactory() {
@@ -35,6 +36,17 @@ public class UpdatePriceRecordRequestFactory {
         return Collections.unmodifiableMap(instrumentsMap);
     }
 
+    // Register stocks and commodities as reference data so that their types can be resolved from their IDs
+    private static InstrumentRegistry registerInstruments() {
+        InstrumentRegistry instrumentRegistry = InstrumentRegistry.getInstance();
+        map.forEach((type, instruments) -> {
+            for (String instrument : instruments) {
+                instrumentRegistry.register(instrument, type);
+            }
+        });
+        return instrumentRegistry;
+    }
+
     // Generate a batch of random UpdatePriceRecordRequest instances
     public static List<UpdatePriceRecordRequest> generateUpdatePriceRecordRequestBatch() {
         final List<UpdatePriceRecordRequest> requests = new ArrayList<>();
@@ -69,7 +81,7 @@ public class UpdatePriceRecordRequestFactory {
 
     // Generate a consistent instrument ID based on the instrument name
     static String generateIdFromInstrument(final String instrumentName) {
-        return instrumentName.replaceAll("\\s+", "_").toUpperCase();
+        return registry.instrumentIdOf(instrumentName);
     }
 
     // Get a random instrument type, either STOCK or COMMODITIES
@@ -84,20 +96,9 @@ public class UpdatePriceRecordRequestFactory {
     }
 
     public static InstrumentType getInstrumentTypeFromId(String instrumentId) {
-        // Check if the instrument ID belongs to the stocks or commodities list
-        if (instrumentId != null) {
-            for (String stock : stocks) {
-                if (generateIdFromInstrument(stock).equals(instrumentId)) {
-                    return InstrumentType.STOCK;
-                }
-            }
-            for (String commodity : commodities) {
-                if (generateIdFromInstrument(commodity).equals(instrumentId)) {
-                    return InstrumentType.COMMODITIES;
-                }
-            }
-        }
-        throw new IllegalArgumentException("Instrument ID not found or unknown type: " + instrumentId);
+        // Resolve the type from the registered reference data only, types learned from traffic are not known here
+        return registry.findRegisteredType(instrumentId)
+                .orElseThrow(() -> new IllegalArgumentException("Instrument ID not found or unknown type: " + instrumentId));
     }
 
     public static String getRandomInstrumentId() {
@@ -0,0 +1,73 @@
+package com.spglobal.coding.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual-thread API of Java 21.
+ * <p>
+ * The project is still compiled for Java 17 by default, so the API is looked up reflectively once and the
+ * execution engine can be chosen at runtime. {@link #isAvailable()} tells whether the running JVM supports it.
+ */
+final class VirtualThreads {
+
+    private static final MethodHandle NEW_PER_TASK_EXECUTOR;
+    private static final MethodHandle NEW_THREAD_FACTORY;
+
+    static {
+        MethodHandle perTaskExecutor = null;
+        MethodHandle threadFactory = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            perTaskExecutor = lookup.findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+            MethodHandle factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+            threadFactory = MethodHandles.filterReturnValue(ofVirtual, factory.asType(MethodType.methodType(ThreadFactory.class, virtualBuilderClass)));
+        } catch (ReflectiveOperationException e) {
+            // Running on a JVM without virtual threads
+            perTaskExecutor = null;
+            threadFactory = null;
+        }
+        NEW_PER_TASK_EXECUTOR = perTaskExecutor;
+        NEW_THREAD_FACTORY = threadFactory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    static boolean isAvailable() {
+        return NEW_PER_TASK_EXECUTOR != null && NEW_THREAD_FACTORY != null;
+    }
+
+    // Executor starting a new virtual thread for every task
+    static ExecutorService newPerTaskExecutor() {
+        checkAvailable();
+        try {
+            return (ExecutorService) NEW_PER_TASK_EXECUTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create a virtual-thread executor", e);
+        }
+    }
+
+    // Factory creating unstarted virtual threads
+    static ThreadFactory newThreadFactory() {
+        checkAvailable();
+        try {
+            return (ThreadFactory) NEW_THREAD_FACTORY.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create a virtual-thread factory", e);
+        }
+    }
+
+    private static void checkAvailable() {
+        if (!isAvailable()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21, running on Java " + Runtime.version().feature());
+        }
+    }
+}
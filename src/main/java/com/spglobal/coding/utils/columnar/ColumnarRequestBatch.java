@@ -0,0 +1,334 @@
+package com.spglobal.coding.utils.columnar;
+
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.InstrumentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Batch of update requests stored column by column in parallel primitive arrays.
+ * <p>
+ * A row holds the same fields as an {@link UpdatePriceRecordRequest}: the instrument as its dense ID from the
+ * {@link InstrumentRegistry}, the instrument type and currency as ordinals, the price as a {@code long} mantissa and a
+ * scale, and the request time as UTC epoch seconds and nanos. A batch of any size is therefore a dozen arrays instead
+ * of several objects per request, and is read sequentially when processed in row ranges.
+ * <p>
+ * Rows are appended by a single thread; once the batch is handed to the ChunkProcessor it must not be changed anymore
+ * and can then be read by any number of threads.
+ */
+public final class ColumnarRequestBatch {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static final byte PRICE_PRESENT = 1;
+    private static final byte TIME_PRESENT = 2;
+
+    private static final InstrumentType[] INSTRUMENT_TYPES = InstrumentType.values();
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private final InstrumentRegistry registry;
+    private int size;
+    private int[] ids;
+    private int[] denseInstrumentIds; // -1 without instrument
+    private byte[] instrumentTypes;   // -1 if null
+    private long[] priceMantissas;
+    private int[] priceScales;
+    private byte[] currencies;        // -1 if null
+    private byte[] flags;
+    private long[] requestEpochSeconds;
+    private int[] requestNanos;
+
+    public ColumnarRequestBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnarRequestBatch(int initialCapacity) {
+        this(initialCapacity, InstrumentRegistry.getInstance());
+    }
+
+    ColumnarRequestBatch(int initialCapacity, InstrumentRegistry registry) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        this.registry = registry;
+        this.ids = new int[initialCapacity];
+        this.denseInstrumentIds = new int[initialCapacity];
+        this.instrumentTypes = new byte[initialCapacity];
+        this.priceMantissas = new long[initialCapacity];
+        this.priceScales = new int[initialCapacity];
+        this.currencies = new byte[initialCapacity];
+        this.flags = new byte[initialCapacity];
+        this.requestEpochSeconds = new long[initialCapacity];
+        this.requestNanos = new int[initialCapacity];
+    }
+
+    /**
+     * Converts a list of requests into a columnar batch.
+     *
+     * @throws IllegalArgumentException if a price does not fit a {@code long} mantissa.
+     */
+    public static ColumnarRequestBatch of(List<UpdatePriceRecordRequest> requests) {
+        ColumnarRequestBatch batch = new ColumnarRequestBatch(Math.max(1, requests.size()));
+        for (UpdatePriceRecordRequest request : requests) {
+            batch.add(request);
+        }
+        return batch;
+    }
+
+    /**
+     * Appends a request as a new row.
+     *
+     * @throws IllegalArgumentException if its price does not fit a {@code long} mantissa.
+     */
+    public void add(UpdatePriceRecordRequest request) {
+        byte rowFlags = 0;
+        long mantissa = 0;
+        int scale = 0;
+        if (request.hasFixedPointValue()) {
+            rowFlags |= PRICE_PRESENT;
+            mantissa = request.getPriceMantissa();
+            scale = request.getPriceScale();
+        } else if (request.getValue() != null) {
+            BigDecimal value = request.getValue();
+            if (value.unscaledValue().bitLength() >= Long.SIZE) {
+                throw new IllegalArgumentException("Value of request " + request.getId() + " does not fit a fixed-point mantissa: " + value);
+            }
+            rowFlags |= PRICE_PRESENT;
+            mantissa = value.unscaledValue().longValue();
+            scale = value.scale();
+        }
+        int row = nextRow();
+        LocalDateTime requestTime = request.getRequestTime();
+        if (requestTime != null) {
+            rowFlags |= TIME_PRESENT;
+            requestEpochSeconds[row] = requestTime.toEpochSecond(ZoneOffset.UTC);
+            requestNanos[row] = requestTime.getNano();
+        } else {
+            requestEpochSeconds[row] = 0;
+            requestNanos[row] = 0;
+        }
+        ids[row] = request.getId();
+        denseInstrumentIds[row] = request.getInstrument() == null ? -1 : registry.resolve(request.getInstrument()).getDenseId();
+        instrumentTypes[row] = ordinalOf(request.getInstrumentType());
+        priceMantissas[row] = mantissa;
+        priceScales[row] = scale;
+        currencies[row] = ordinalOf(request.getCurrency());
+        flags[row] = rowFlags;
+    }
+
+    /**
+     * Appends a row from its primitive fields, without any intermediate object.
+     *
+     * @param denseInstrumentId the dense ID of the instrument in the {@link InstrumentRegistry}, -1 without instrument.
+     * @param instrumentType    may be null.
+     * @param currency          may be null.
+     */
+    public void add(int id, int denseInstrumentId, InstrumentType instrumentType, long priceMantissa, int priceScale,
+                    Currency currency, long requestEpochSecond, int requestNano) {
+        int row = nextRow();
+        ids[row] = id;
+        denseInstrumentIds[row] = denseInstrumentId;
+        instrumentTypes[row] = ordinalOf(instrumentType);
+        priceMantissas[row] = priceMantissa;
+        priceScales[row] = priceScale;
+        currencies[row] = ordinalOf(currency);
+        flags[row] = PRICE_PRESENT | TIME_PRESENT;
+        requestEpochSeconds[row] = requestEpochSecond;
+        requestNanos[row] = requestNano;
+    }
+
+    private int nextRow() {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            denseInstrumentIds = Arrays.copyOf(denseInstrumentIds, capacity);
+            instrumentTypes = Arrays.copyOf(instrumentTypes, capacity);
+            priceMantissas = Arrays.copyOf(priceMantissas, capacity);
+            priceScales = Arrays.copyOf(priceScales, capacity);
+            currencies = Arrays.copyOf(currencies, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            requestEpochSeconds = Arrays.copyOf(requestEpochSeconds, capacity);
+            requestNanos = Arrays.copyOf(requestNanos, capacity);
+        }
+        return size++;
+    }
+
+    private static byte ordinalOf(Enum<?> value) {
+        return (byte) (value == null ? -1 : value.ordinal());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Drops the rows from {@code size} on, e.g. to undo a partially appended upload.
+     */
+    public void truncate(int size) {
+        if (size < 0 || size > this.size) {
+            throw new IndexOutOfBoundsException("Cannot truncate " + this.size + " rows to " + size);
+        }
+        this.size = size;
+    }
+
+    /**
+     * Replaces the instrument of the rows from {@code fromRow} on, e.g. to turn instrument codes local to a message
+     * into dense IDs once the whole message has been read. Rows without instrument are left as they are.
+     *
+     * @param mapping gives the dense ID of the instrument of a row, given the value it holds now.
+     */
+    public void mapDenseInstrumentIds(int fromRow, IntUnaryOperator mapping) {
+        if (fromRow < 0 || fromRow > size) {
+            throw new IndexOutOfBoundsException("Row " + fromRow + " out of bounds for " + size + " rows");
+        }
+        for (int row = fromRow; row < size; row++) {
+            if (denseInstrumentIds[row] >= 0) {
+                denseInstrumentIds[row] = mapping.applyAsInt(denseInstrumentIds[row]);
+            }
+        }
+    }
+
+    /**
+     * Removes the rows from {@code fromRow} on that do not satisfy the predicate; the remaining rows keep their order.
+     *
+     * @param keep tells whether to keep a row, given its index before anything is removed.
+     * @return the number of rows removed.
+     */
+    public int retainRows(int fromRow, IntPredicate keep) {
+        if (fromRow < 0 || fromRow > size) {
+            throw new IndexOutOfBoundsException("Row " + fromRow + " out of bounds for " + size + " rows");
+        }
+        int kept = fromRow;
+        for (int row = fromRow; row < size; row++) {
+            if (!keep.test(row)) {
+                continue;
+            }
+            if (kept != row) {
+                ids[kept] = ids[row];
+                denseInstrumentIds[kept] = denseInstrumentIds[row];
+                instrumentTypes[kept] = instrumentTypes[row];
+                priceMantissas[kept] = priceMantissas[row];
+                priceScales[kept] = priceScales[row];
+                currencies[kept] = currencies[row];
+                flags[kept] = flags[row];
+                requestEpochSeconds[kept] = requestEpochSeconds[row];
+                requestNanos[kept] = requestNanos[row];
+            }
+            kept++;
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * @return a read-only view of the rows as requests, each materialised when read.
+     */
+    public List<UpdatePriceRecordRequest> asRequestList() {
+        return new AbstractList<>() {
+            @Override
+            public UpdatePriceRecordRequest get(int index) {
+                return toRequest(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public int getId(int row) {
+        return ids[checkRow(row)];
+    }
+
+    public int getDenseInstrumentId(int row) {
+        return denseInstrumentIds[checkRow(row)];
+    }
+
+    // Name of the instrument as registered, or null without instrument
+    public String getInstrument(int row) {
+        int denseId = getDenseInstrumentId(row);
+        return denseId < 0 ? null : registry.getByDenseId(denseId).getInstrument();
+    }
+
+    public InstrumentType getInstrumentType(int row) {
+        byte ordinal = instrumentTypes[checkRow(row)];
+        return ordinal < 0 ? null : INSTRUMENT_TYPES[ordinal];
+    }
+
+    public boolean hasPrice(int row) {
+        return (flags[checkRow(row)] & PRICE_PRESENT) != 0;
+    }
+
+    public long getPriceMantissa(int row) {
+        return priceMantissas[checkRow(row)];
+    }
+
+    public int getPriceScale(int row) {
+        return priceScales[checkRow(row)];
+    }
+
+    public Currency getCurrency(int row) {
+        byte ordinal = currencies[checkRow(row)];
+        return ordinal < 0 ? null : CURRENCIES[ordinal];
+    }
+
+    public boolean hasRequestTime(int row) {
+        return (flags[checkRow(row)] & TIME_PRESENT) != 0;
+    }
+
+    // Seconds of the request time since the epoch (UTC), 0 without request time
+    public long getRequestEpochSecond(int row) {
+        return requestEpochSeconds[checkRow(row)];
+    }
+
+    public int getRequestNano(int row) {
+        return requestNanos[checkRow(row)];
+    }
+
+    // Allocates the LocalDateTime, prefer compareRequestTime for ordering rows
+    public LocalDateTime getRequestTime(int row) {
+        return hasRequestTime(row) ? LocalDateTime.ofEpochSecond(requestEpochSeconds[row], requestNanos[row], ZoneOffset.UTC) : null;
+    }
+
+    /**
+     * Compares the request times of two rows which both have one, without materialising them.
+     */
+    public int compareRequestTime(int row, int otherRow) {
+        int bySecond = Long.compare(requestEpochSeconds[checkRow(row)], requestEpochSeconds[checkRow(otherRow)]);
+        return bySecond != 0 ? bySecond : Integer.compare(requestNanos[row], requestNanos[otherRow]);
+    }
+
+    /**
+     * Materialises a row as a request object, e.g. to report it as failed.
+     */
+    public UpdatePriceRecordRequest toRequest(int row) {
+        UpdatePriceRecordRequest.Builder builder = new UpdatePriceRecordRequest.Builder()
+                .setId(getId(row))
+                .setInstrument(getInstrument(row))
+                .setInstrumentType(getInstrumentType(row))
+                .setCurrency(getCurrency(row))
+                .setRequestTime(getRequestTime(row));
+        if (hasPrice(row)) {
+            builder.setFixedPointValue(priceMantissas[row], priceScales[row]);
+        }
+        return builder.build();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + size + " rows");
+        }
+        return row;
+    }
+}
@@ -0,0 +1,224 @@
+package com.spglobal.coding.utils.config;
+
+import com.spglobal.coding.utils.enums.ChunkSizing;
+import com.spglobal.coding.utils.enums.ExecutionEngine;
+import com.spglobal.coding.utils.enums.PartitioningStrategy;
+import com.spglobal.coding.utils.enums.SaturationPolicy;
+import com.spglobal.coding.utils.enums.SchedulingPolicy;
+
+import java.time.Duration;
+
+/**
+ * Configuration of a {@link com.spglobal.coding.utils.ChunkProcessor}.
+ * <p>
+ * This class is immutable and follows the Builder pattern. Unset options keep the defaults below.
+ * </p>
+ * <p>
+ * The queue capacity bounds the chunks waiting for a worker: a slot is taken when a chunk is submitted and given back
+ * when a worker picks it up. What happens when no slot is free is decided by the {@link SaturationPolicy}.
+ * </p>
+ */
+public class ChunkProcessorConfig {
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    public static final int DEFAULT_MAX_CONCURRENT_CHUNKS = 256;
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_MIN_CHUNK_SIZE = 64;
+    public static final int DEFAULT_MAX_CHUNK_SIZE = 10_000;
+    public static final Duration DEFAULT_TARGET_CHUNK_DURATION = Duration.ofMillis(10);
+
+    private final PartitioningStrategy partitioningStrategy;
+    private final ExecutionEngine executionEngine;
+    private final int maxConcurrentChunks;
+    private final int poolSize;
+    private final int queueCapacity;
+    private final SaturationPolicy saturationPolicy;
+    private final SchedulingPolicy schedulingPolicy;
+    private final ChunkSizing chunkSizing;
+    private final int chunkSize;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final Duration targetChunkDuration;
+
+    private ChunkProcessorConfig(Builder builder) {
+        this.partitioningStrategy = builder.partitioningStrategy;
+        this.executionEngine = builder.executionEngine;
+        this.maxConcurrentChunks = builder.maxConcurrentChunks;
+        this.poolSize = builder.poolSize;
+        this.queueCapacity = builder.queueCapacity;
+        this.saturationPolicy = builder.saturationPolicy;
+        this.schedulingPolicy = builder.schedulingPolicy;
+        this.chunkSizing = builder.chunkSizing;
+        this.chunkSize = builder.chunkSize;
+        this.minChunkSize = builder.minChunkSize;
+        this.maxChunkSize = builder.maxChunkSize;
+        this.targetChunkDuration = builder.targetChunkDuration;
+    }
+
+    public static ChunkProcessorConfig defaults() {
+        return new Builder().build();
+    }
+
+    public PartitioningStrategy getPartitioningStrategy() {
+        return partitioningStrategy;
+    }
+
+    public ExecutionEngine getExecutionEngine() {
+        return executionEngine;
+    }
+
+    // Maximum number of chunks processed at the same time on virtual threads; the platform pool is bounded by its size
+    public int getMaxConcurrentChunks() {
+        return maxConcurrentChunks;
+    }
+
+    // Number of worker threads, or of shards with instrument-affine partitioning
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    // Maximum number of chunks waiting to be processed, across all workers
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public SaturationPolicy getSaturationPolicy() {
+        return saturationPolicy;
+    }
+
+    // Order in which queued chunks of concurrent batches run; with FAIR the chunk size is the quantum of a turn
+    public SchedulingPolicy getSchedulingPolicy() {
+        return schedulingPolicy;
+    }
+
+    public ChunkSizing getChunkSizing() {
+        return chunkSizing;
+    }
+
+    // Size of every chunk with fixed sizing
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    // Bounds of the chunk size with adaptive sizing
+    public int getMinChunkSize() {
+        return minChunkSize;
+    }
+
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    // Time a chunk should take to process with adaptive sizing
+    public Duration getTargetChunkDuration() {
+        return targetChunkDuration;
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkProcessorConfig{" +
+                "partitioningStrategy=" + partitioningStrategy +
+                ", executionEngine=" + executionEngine +
+                ", maxConcurrentChunks=" + maxConcurrentChunks +
+                ", poolSize=" + poolSize +
+                ", queueCapacity=" + queueCapacity +
+                ", saturationPolicy=" + saturationPolicy +
+                ", schedulingPolicy=" + schedulingPolicy +
+                ", chunkSizing=" + chunkSizing +
+                ", chunkSize=" + chunkSize +
+                ", minChunkSize=" + minChunkSize +
+                ", maxChunkSize=" + maxChunkSize +
+                ", targetChunkDuration=" + targetChunkDuration +
+                '}';
+    }
+
+    public static class Builder {
+        private PartitioningStrategy partitioningStrategy = PartitioningStrategy.FIXED_SIZE;
+        private ExecutionEngine executionEngine = ExecutionEngine.PLATFORM_POOL;
+        private int maxConcurrentChunks = DEFAULT_MAX_CONCURRENT_CHUNKS;
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private SaturationPolicy saturationPolicy = SaturationPolicy.BLOCK;
+        private SchedulingPolicy schedulingPolicy = SchedulingPolicy.FIFO;
+        private ChunkSizing chunkSizing = ChunkSizing.FIXED;
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private int minChunkSize = DEFAULT_MIN_CHUNK_SIZE;
+        private int maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+        private Duration targetChunkDuration = DEFAULT_TARGET_CHUNK_DURATION;
+
+        public Builder setPartitioningStrategy(PartitioningStrategy partitioningStrategy) {
+            this.partitioningStrategy = partitioningStrategy;
+            return this;
+        }
+
+        public Builder setExecutionEngine(ExecutionEngine executionEngine) {
+            this.executionEngine = executionEngine;
+            return this;
+        }
+
+        public Builder setMaxConcurrentChunks(int maxConcurrentChunks) {
+            this.maxConcurrentChunks = maxConcurrentChunks;
+            return this;
+        }
+
+        public Builder setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        public Builder setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder setSaturationPolicy(SaturationPolicy saturationPolicy) {
+            this.saturationPolicy = saturationPolicy;
+            return this;
+        }
+
+        public Builder setSchedulingPolicy(SchedulingPolicy schedulingPolicy) {
+            this.schedulingPolicy = schedulingPolicy;
+            return this;
+        }
+
+        public Builder setChunkSizing(ChunkSizing chunkSizing) {
+            this.chunkSizing = chunkSizing;
+            return this;
+        }
+
+        public Builder setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder setMinChunkSize(int minChunkSize) {
+            this.minChunkSize = minChunkSize;
+            return this;
+        }
+
+        public Builder setMaxChunkSize(int maxChunkSize) {
+            this.maxChunkSize = maxChunkSize;
+            return this;
+        }
+
+        public Builder setTargetChunkDuration(Duration targetChunkDuration) {
+            this.targetChunkDuration = targetChunkDuration;
+            return this;
+        }
+
+        public ChunkProcessorConfig build() {
+            if (poolSize <= 0 || queueCapacity <= 0 || maxConcurrentChunks <= 0) {
+                throw new IllegalArgumentException("poolSize, queueCapacity and maxConcurrentChunks must be positive");
+            }
+            if (chunkSize <= 0 || minChunkSize <= 0 || maxChunkSize < minChunkSize) {
+                throw new IllegalArgumentException("Chunk sizes must be positive and minChunkSize must not exceed maxChunkSize");
+            }
+            if (schedulingPolicy == null) {
+                throw new IllegalArgumentException("schedulingPolicy cannot be null");
+            }
+            if (targetChunkDuration == null || targetChunkDuration.isNegative() || targetChunkDuration.isZero()) {
+                throw new IllegalArgumentException("targetChunkDuration must be positive");
+            }
+            return new ChunkProcessorConfig(this);
+        }
+    }
+}
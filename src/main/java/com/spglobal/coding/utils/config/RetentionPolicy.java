@@ -0,0 +1,90 @@
+package com.spglobal.coding.utils.config;
+
+import java.time.Duration;
+
+/**
+ * Decides how long the {@link com.spglobal.coding.producers.InstrumentProducer} remembers batches that reached their
+ * final status.
+ * <p>
+ * The requests of such a batch are released right away; only its status and counts are kept, together with the
+ * requests that were not applied. Those are forgotten once the batch is older than {@code retention}, or earlier if more
+ * than {@code maxRetainedBatches} batches are retained, oldest first. A sweep runs every {@code sweepInterval} while
+ * batches are retained.
+ * <p>
+ * This class is immutable and follows the Builder pattern. Unset options keep the defaults below.
+ */
+public class RetentionPolicy {
+    public static final Duration DEFAULT_RETENTION = Duration.ofHours(1);
+    public static final int DEFAULT_MAX_RETAINED_BATCHES = 10_000;
+    public static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+    private final Duration retention;
+    private final int maxRetainedBatches;
+    private final Duration sweepInterval;
+
+    private RetentionPolicy(Builder builder) {
+        this.retention = builder.retention;
+        this.maxRetainedBatches = builder.maxRetainedBatches;
+        this.sweepInterval = builder.sweepInterval;
+    }
+
+    public static RetentionPolicy defaults() {
+        return new Builder().build();
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public int getMaxRetainedBatches() {
+        return maxRetainedBatches;
+    }
+
+    public Duration getSweepInterval() {
+        return sweepInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "RetentionPolicy{" +
+                "retention=" + retention +
+                ", maxRetainedBatches=" + maxRetainedBatches +
+                ", sweepInterval=" + sweepInterval +
+                '}';
+    }
+
+    public static class Builder {
+        private Duration retention = DEFAULT_RETENTION;
+        private int maxRetainedBatches = DEFAULT_MAX_RETAINED_BATCHES;
+        private Duration sweepInterval = DEFAULT_SWEEP_INTERVAL;
+
+        public Builder setRetention(Duration retention) {
+            this.retention = retention;
+            return this;
+        }
+
+        // 0 to forget batches as soon as they reach their final status
+        public Builder setMaxRetainedBatches(int maxRetainedBatches) {
+            this.maxRetainedBatches = maxRetainedBatches;
+            return this;
+        }
+
+        public Builder setSweepInterval(Duration sweepInterval) {
+            this.sweepInterval = sweepInterval;
+            return this;
+        }
+
+        public RetentionPolicy build() {
+            if (retention == null || retention.isNegative()) {
+                throw new IllegalArgumentException("retention must not be negative");
+            }
+            if (maxRetainedBatches < 0) {
+                throw new IllegalArgumentException("maxRetainedBatches must not be negative");
+            }
+            if (sweepInterval == null || sweepInterval.isNegative() || sweepInterval.isZero()) {
+                throw new IllegalArgumentException("sweepInterval must be positive");
+            }
+            return new RetentionPolicy(this);
+        }
+    }
+}
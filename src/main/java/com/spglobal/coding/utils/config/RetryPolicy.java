@@ -0,0 +1,133 @@
+package com.spglobal.coding.utils.config;
+
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decides which failed update requests the {@link com.spglobal.coding.utils.retry.FailedRequestRetrier} processes
+ * again, and when.
+ * <p>
+ * Every failure reason has its own number of attempts, counting the first processing: a reason with one attempt is
+ * never retried. By default only {@link UpdateOutcome#CHUNK_FAILED} is retried, since a request rejected for its
+ * content fails the same way every time. Outcomes that are not failures, such as {@link UpdateOutcome#STALE_IGNORED},
+ * are never retried.
+ * <p>
+ * The n-th retry waits {@code initialBackoff * backoffMultiplier^(n - 1)}, at most {@code maxBackoff}.
+ * <p>
+ * This class is immutable and follows the Builder pattern. Unset options keep the defaults below.
+ */
+public class RetryPolicy {
+    public static final int DEFAULT_CHUNK_FAILED_ATTEMPTS = 5;
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(500);
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(30);
+    public static final double DEFAULT_BACKOFF_MULTIPLIER = 2;
+
+    private final Map<UpdateOutcome, Integer> maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double backoffMultiplier;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = new EnumMap<>(builder.maxAttempts);
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.backoffMultiplier = builder.backoffMultiplier;
+    }
+
+    public static RetryPolicy defaults() {
+        return new Builder().build();
+    }
+
+    // Attempts a request failing for the given reason gets in total, at least 1
+    public int getMaxAttempts(UpdateOutcome reason) {
+        return maxAttempts.getOrDefault(reason, 1);
+    }
+
+    /**
+     * @param attempts the attempts made so far, including the first processing.
+     * @return whether a request that failed for the given reason after that many attempts is tried again.
+     */
+    public boolean shouldRetry(UpdateOutcome reason, int attempts) {
+        return attempts < getMaxAttempts(reason);
+    }
+
+    /**
+     * @param retry the number of the retry, from 1.
+     * @return how long to wait before that retry.
+     */
+    public Duration getBackoff(int retry) {
+        double nanos = initialBackoff.toNanos() * Math.pow(backoffMultiplier, retry - 1);
+        return nanos >= maxBackoff.toNanos() ? maxBackoff : Duration.ofNanos((long) nanos);
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public double getBackoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", initialBackoff=" + initialBackoff +
+                ", maxBackoff=" + maxBackoff +
+                ", backoffMultiplier=" + backoffMultiplier +
+                '}';
+    }
+
+    public static class Builder {
+        private final Map<UpdateOutcome, Integer> maxAttempts = new EnumMap<>(Map.of(UpdateOutcome.CHUNK_FAILED, DEFAULT_CHUNK_FAILED_ATTEMPTS));
+        private Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+        private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+        private double backoffMultiplier = DEFAULT_BACKOFF_MULTIPLIER;
+
+        // 1 to never retry requests failing for this reason
+        public Builder setMaxAttempts(UpdateOutcome reason, int maxAttempts) {
+            this.maxAttempts.put(reason, maxAttempts);
+            return this;
+        }
+
+        public Builder setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        public Builder setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        public Builder setBackoffMultiplier(double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            for (Map.Entry<UpdateOutcome, Integer> entry : maxAttempts.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null || entry.getValue() < 1) {
+                    throw new IllegalArgumentException("maxAttempts must be at least 1: " + entry);
+                }
+                if (!entry.getKey().isFailure() && entry.getValue() > 1) {
+                    throw new IllegalArgumentException(entry.getKey() + " is not a failure and cannot be retried");
+                }
+            }
+            if (initialBackoff == null || initialBackoff.isNegative() || maxBackoff == null || maxBackoff.compareTo(initialBackoff) < 0) {
+                throw new IllegalArgumentException("initialBackoff must not be negative and must not exceed maxBackoff");
+            }
+            if (backoffMultiplier < 1) {
+                throw new IllegalArgumentException("backoffMultiplier must be at least 1");
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
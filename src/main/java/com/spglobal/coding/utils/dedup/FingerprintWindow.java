@@ -0,0 +1,167 @@
+package com.spglobal.coding.utils.dedup;
+
+/**
+ * Remembers the record fingerprints seen recently, to recognise records that are sent again.
+ * <p>
+ * Fingerprints are kept in two generations of {@code windowSize} each. When the current generation is full it
+ * replaces the previous one, so the window always covers at least the last {@code windowSize} fingerprints and at most
+ * twice as many, in bounded memory. Every generation has a small Bloom filter in front of an exact open-addressing set
+ * of the fingerprints: most new records are let through by the filter with a few bit tests, and a filter hit is only
+ * reported as a duplicate once the exact set confirms it. A fingerprint can be forgotten again, e.g. when its record
+ * was not applied and may be resent; it then stays in the Bloom filter but not in the exact set.
+ * <p>
+ * The generations are allocated on first use. All methods are thread safe.
+ */
+public final class FingerprintWindow {
+
+    private static final int BLOOM_BITS_PER_ENTRY = 8;
+    private static final int BLOOM_HASHES = 3;
+    private static final long EMPTY = 0L;
+    private static final long ZERO_FINGERPRINT = 1L; // Stands in for fingerprint 0, which marks empty slots
+
+    private final int windowSize;
+    private Generation current;
+    private Generation previous;
+    private long filterHits;
+    private long duplicates;
+
+    /**
+     * @param windowSize the number of most recent fingerprints that are always remembered.
+     */
+    public FingerprintWindow(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Remembers a fingerprint unless it is in the window already.
+     *
+     * @return true if the fingerprint is new, false if it is a duplicate.
+     */
+    public synchronized boolean addIfAbsent(long fingerprint) {
+        long key = fingerprint == EMPTY ? ZERO_FINGERPRINT : fingerprint;
+        if (current == null) {
+            current = new Generation(windowSize);
+        }
+        boolean currentHit = current.mightContain(key);
+        boolean previousHit = previous != null && previous.mightContain(key);
+        if (currentHit || previousHit) {
+            filterHits++;
+            if ((currentHit && current.contains(key)) || (previousHit && previous.contains(key))) {
+                duplicates++;
+                return false;
+            }
+        }
+        if (current.size == windowSize) {
+            previous = current;
+            current = new Generation(windowSize);
+        }
+        current.add(key);
+        return true;
+    }
+
+    /**
+     * Forgets a fingerprint, so that it is no longer reported as a duplicate.
+     *
+     * @return true if the fingerprint was in the window.
+     */
+    public synchronized boolean remove(long fingerprint) {
+        long key = fingerprint == EMPTY ? ZERO_FINGERPRINT : fingerprint;
+        boolean removed = current != null && current.remove(key);
+        return (previous != null && previous.remove(key)) || removed;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    // Fingerprints that passed the Bloom filter and had to be checked in the exact sets
+    public synchronized long getFilterHits() {
+        return filterHits;
+    }
+
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    private static final class Generation {
+        private final long[] bloom;
+        private final int bloomMask;
+        private final long[] slots;
+        private final int slotMask;
+        private int size;
+
+        Generation(int capacity) {
+            int bloomBits = Integer.highestOneBit(Math.max(64, capacity * BLOOM_BITS_PER_ENTRY - 1)) << 1;
+            this.bloom = new long[bloomBits >>> 6];
+            this.bloomMask = bloomBits - 1;
+            int slotCount = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1; // Load factor at most one half
+            this.slots = new long[slotCount];
+            this.slotMask = slotCount - 1;
+        }
+
+        boolean mightContain(long key) {
+            int h1 = (int) key;
+            int h2 = (int) (key >>> 32) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (h1 + i * h2) & bloomMask;
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean contains(long key) {
+            return indexOf(key) >= 0;
+        }
+
+        boolean remove(long key) {
+            int slot = indexOf(key);
+            if (slot < 0) {
+                return false;
+            }
+            // Shift the following keys of the probe sequence back, so that no lookup stops at the emptied slot
+            for (int next = (slot + 1) & slotMask; slots[next] != EMPTY; next = (next + 1) & slotMask) {
+                int home = homeSlot(slots[next]);
+                if (((next - home) & slotMask) >= ((next - slot) & slotMask)) {
+                    slots[slot] = slots[next];
+                    slot = next;
+                }
+            }
+            slots[slot] = EMPTY;
+            size--;
+            return true;
+        }
+
+        private int indexOf(long key) {
+            for (int slot = homeSlot(key); slots[slot] != EMPTY; slot = (slot + 1) & slotMask) {
+                if (slots[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private int homeSlot(long key) {
+            return (int) (key ^ (key >>> 32)) & slotMask;
+        }
+
+        void add(long key) {
+            int h1 = (int) key;
+            int h2 = (int) (key >>> 32) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (h1 + i * h2) & bloomMask;
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+            int slot = homeSlot(key);
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & slotMask;
+            }
+            slots[slot] = key;
+            size++;
+        }
+    }
+}
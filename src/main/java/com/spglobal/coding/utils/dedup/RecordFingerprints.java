@@ -0,0 +1,89 @@
+package com.spglobal.coding.utils.dedup;
+
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 64-bit fingerprints of update requests, computed from what they update: instrument, instrument type, price, currency
+ * and request time. The request ID is left out, since a resent record may be numbered anew.
+ * <p>
+ * Equal prices give equal fingerprints whatever their scale, and a request gives the same fingerprint as its row in a
+ * {@link ColumnarRequestBatch}.
+ */
+public final class RecordFingerprints {
+
+    private static final long NO_PRICE = 0x9E3779B97F4A7C15L;
+    private static final long WIDE_PRICE = 0xC2B2AE3D27D4EB4FL; // Marks prices beyond a long mantissa
+
+    private RecordFingerprints() {
+    }
+
+    public static long of(UpdatePriceRecordRequest request) {
+        return of(request, InstrumentRegistry.getInstance());
+    }
+
+    static long of(UpdatePriceRecordRequest request, InstrumentRegistry registry) {
+        long price;
+        if (request.hasFixedPointValue()) {
+            price = price(request.getPriceMantissa(), request.getPriceScale());
+        } else if (request.getValue() == null) {
+            price = NO_PRICE;
+        } else {
+            BigDecimal value = request.getValue();
+            price = value.unscaledValue().bitLength() < Long.SIZE
+                    ? price(value.unscaledValue().longValue(), value.scale())
+                    : WIDE_PRICE ^ value.stripTrailingZeros().hashCode();
+        }
+        LocalDateTime requestTime = request.getRequestTime();
+        return combine(request.getInstrument() == null ? -1 : registry.resolve(request.getInstrument()).getDenseId(),
+                request.getInstrumentType() == null ? -1 : request.getInstrumentType().ordinal(),
+                price,
+                request.getCurrency() == null ? -1 : request.getCurrency().ordinal(),
+                requestTime != null,
+                requestTime == null ? 0 : requestTime.toEpochSecond(ZoneOffset.UTC),
+                requestTime == null ? 0 : requestTime.getNano());
+    }
+
+    public static long of(ColumnarRequestBatch batch, int row) {
+        return combine(batch.getDenseInstrumentId(row),
+                batch.getInstrumentType(row) == null ? -1 : batch.getInstrumentType(row).ordinal(),
+                batch.hasPrice(row) ? price(batch.getPriceMantissa(row), batch.getPriceScale(row)) : NO_PRICE,
+                batch.getCurrency(row) == null ? -1 : batch.getCurrency(row).ordinal(),
+                batch.hasRequestTime(row),
+                batch.getRequestEpochSecond(row),
+                batch.getRequestNano(row));
+    }
+
+    // Hash of a price with its trailing zeros removed, so that 1.50 and 1.5 match
+    private static long price(long mantissa, int scale) {
+        if (mantissa == 0) {
+            return mix(0);
+        }
+        while (mantissa % 10 == 0) {
+            mantissa /= 10;
+            scale--;
+        }
+        return mix(mantissa * 31 + scale);
+    }
+
+    private static long combine(int denseInstrumentId, int instrumentType, long price, int currency, boolean hasTime,
+                                long epochSecond, int nano) {
+        long hash = mix(denseInstrumentId);
+        hash = mix(hash ^ ((long) instrumentType << 8 | (currency & 0xFF)));
+        hash = mix(hash ^ price);
+        hash = mix(hash ^ (hasTime ? epochSecond : Long.MIN_VALUE));
+        return mix(hash ^ nano);
+    }
+
+    // Finalizer of SplitMix64, spreads every input bit over the whole result
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
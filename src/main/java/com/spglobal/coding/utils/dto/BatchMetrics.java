@@ -0,0 +1,26 @@
+package com.spglobal.coding.utils.dto;
+
+/**
+ * Chunking and timing figures of a processed batch.
+ *
+ * @param plannedChunkSize  chunk size picked when the batch was partitioned.
+ * @param chunkCount        number of chunks the batch was split into.
+ * @param minChunkSize      size of the smallest chunk.
+ * @param maxChunkSize      size of the largest chunk.
+ * @param averageChunkNanos average time spent processing a chunk.
+ * @param maxChunkNanos     longest time spent processing a chunk.
+ */
+public record BatchMetrics(int plannedChunkSize,
+                           int chunkCount,
+                           int minChunkSize,
+                           int maxChunkSize,
+                           long averageChunkNanos,
+                           long maxChunkNanos)
+{
+    private static final BatchMetrics NONE = new BatchMetrics(0, 0, 0, 0, 0, 0);
+
+    // Metrics of a batch that was not processed through the ChunkProcessor
+    public static BatchMetrics none() {
+        return NONE;
+    }
+}
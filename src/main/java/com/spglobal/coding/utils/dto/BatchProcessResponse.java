@@ -1,8 +1,28 @@
 package com.spglobal.coding.utils.dto;
 
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+
 import java.util.List;
 
+/**
+ * @param outcomes the outcome counts of the batch, and the reason of each failed request in the order of failedRequests.
+ */
 public record BatchProcessResponse(boolean isSuccess,
-                                   List<UpdatePriceRecordRequest> failedRequests)
+                                   List<UpdatePriceRecordRequest> failedRequests,
+                                   BatchMetrics metrics,
+                                   UpdateOutcomes outcomes)
 {
+    public BatchProcessResponse(boolean isSuccess, List<UpdatePriceRecordRequest> failedRequests) {
+        this(isSuccess, failedRequests, BatchMetrics.none());
+    }
+
+    public BatchProcessResponse(boolean isSuccess, List<UpdatePriceRecordRequest> failedRequests, BatchMetrics metrics) {
+        this(isSuccess, failedRequests, metrics,
+                UpdateOutcomes.allFailed(failedRequests == null ? 0 : failedRequests.size(), UpdateOutcome.CHUNK_FAILED));
+    }
+
+    // Whether the batch was cancelled while requests of it were still to be applied
+    public boolean isCancelled() {
+        return outcomes.getCount(UpdateOutcome.CANCELLED) > 0;
+    }
 }
@@ -1,8 +1,14 @@
 package com.spglobal.coding.utils.dto;
 
+import com.spglobal.coding.utils.CancellationToken;
+
 import java.util.List;
 
 public record ChunkProcessRequest(String batchId,
-                                  List<UpdatePriceRecordRequest> updateRequestList)
+                                  List<UpdatePriceRecordRequest> updateRequestList,
+                                  CancellationToken cancellation)
 {
+    public ChunkProcessRequest(String batchId, List<UpdatePriceRecordRequest> updateRequestList) {
+        this(batchId, updateRequestList, CancellationToken.NEVER);
+    }
 }
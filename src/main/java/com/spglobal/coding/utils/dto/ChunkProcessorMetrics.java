@@ -0,0 +1,24 @@
+package com.spglobal.coding.utils.dto;
+
+/**
+ * Point-in-time view of the submission queue of a ChunkProcessor.
+ *
+ * @param queueDepth          chunks currently waiting for a worker.
+ * @param peakQueueDepth      highest queue depth observed.
+ * @param queueCapacity       maximum number of waiting chunks.
+ * @param submittedChunks     chunks accepted so far, including those run by the caller.
+ * @param callerRunChunks     chunks processed by the submitting thread under the caller-runs policy.
+ * @param rejectedSubmissions batches or chunks turned away under the reject policy.
+ * @param averageQueueWaitNanos average time a chunk waited in the queue before a worker picked it up.
+ * @param maxQueueWaitNanos   longest time a chunk waited in the queue.
+ */
+public record ChunkProcessorMetrics(int queueDepth,
+                                    int peakQueueDepth,
+                                    int queueCapacity,
+                                    long submittedChunks,
+                                    long callerRunChunks,
+                                    long rejectedSubmissions,
+                                    long averageQueueWaitNanos,
+                                    long maxQueueWaitNanos)
+{
+}
@@ -0,0 +1,39 @@
+package com.spglobal.coding.utils.dto;
+
+import com.spglobal.coding.utils.CancellationToken;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+
+/**
+ * A chunk of a {@link ColumnarRequestBatch}: the rows {@code from} to {@code to} (exclusive), or, if {@code rows} is
+ * given, the rows listed in {@code rows[from]} to {@code rows[to - 1]}.
+ */
+public record ColumnarChunkProcessRequest(String batchId,
+                                          ColumnarRequestBatch batch,
+                                          int[] rows,
+                                          int from,
+                                          int to,
+                                          CancellationToken cancellation)
+{
+    public ColumnarChunkProcessRequest(String batchId, ColumnarRequestBatch batch, int[] rows, int from, int to) {
+        this(batchId, batch, rows, from, to, CancellationToken.NEVER);
+    }
+
+    public ColumnarChunkProcessRequest(String batchId, ColumnarRequestBatch batch, int from, int to) {
+        this(batchId, batch, null, from, to);
+    }
+
+    // The same rows, processed on behalf of a batch that can be cancelled
+    public ColumnarChunkProcessRequest withCancellation(CancellationToken cancellation) {
+        return new ColumnarChunkProcessRequest(batchId, batch, rows, from, to, cancellation);
+    }
+
+    public int size() {
+        return to - from;
+    }
+
+    // Row of the batch at the given position of the chunk
+    public int row(int index) {
+        int position = from + index;
+        return rows == null ? position : rows[position];
+    }
+}
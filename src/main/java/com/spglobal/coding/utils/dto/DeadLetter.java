@@ -0,0 +1,18 @@
+package com.spglobal.coding.utils.dto;
+
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+
+/**
+ * An update request that is given up on after it failed.
+ *
+ * @param batchId  the batch the request was uploaded with.
+ * @param request  the request.
+ * @param reason   why its last attempt failed.
+ * @param attempts the number of times it was processed.
+ */
+public record DeadLetter(String batchId,
+                         UpdatePriceRecordRequest request,
+                         UpdateOutcome reason,
+                         int attempts)
+{
+}
@@ -0,0 +1,25 @@
+package com.spglobal.coding.utils.dto;
+
+import com.spglobal.coding.utils.enums.PriorityClass;
+
+/**
+ * Point-in-time view of one priority lane of a ChunkProcessor. Chunks run by the submitting thread under the
+ * caller-runs policy never enter a lane and are not counted.
+ *
+ * @param priorityClass         the lane.
+ * @param queuedChunks          chunks of the lane currently waiting for a worker.
+ * @param processedChunks       chunks of the lane processed so far.
+ * @param processedRequests     requests in those chunks.
+ * @param requestsPerSecond     processed requests per second since the ChunkProcessor was created.
+ * @param averageQueueWaitNanos average time a chunk of the lane waited before a worker picked it up.
+ * @param maxQueueWaitNanos     longest time a chunk of the lane waited.
+ */
+public record LaneMetrics(PriorityClass priorityClass,
+                          int queuedChunks,
+                          long processedChunks,
+                          long processedRequests,
+                          double requestsPerSecond,
+                          long averageQueueWaitNanos,
+                          long maxQueueWaitNanos)
+{
+}
@@ -0,0 +1,168 @@
+package com.spglobal.coding.utils.dto;
+
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link UpdateOutcome}s of the requests of a chunk or a batch: a count per outcome, and the reason of every
+ * failed request, in the order of the failed requests it is reported with. Reasons are kept as one byte each.
+ */
+public final class UpdateOutcomes {
+
+    private static final UpdateOutcome[] OUTCOMES = UpdateOutcome.values();
+    private static final UpdateOutcomes NONE = new UpdateOutcomes(new long[OUTCOMES.length], new byte[0]);
+
+    private final long[] counts;
+    private final byte[] failureReasons;
+
+    private UpdateOutcomes(long[] counts, byte[] failureReasons) {
+        this.counts = counts;
+        this.failureReasons = failureReasons;
+    }
+
+    public static UpdateOutcomes none() {
+        return NONE;
+    }
+
+    // Outcomes of failedCount requests that all failed for the same reason
+    public static UpdateOutcomes allFailed(int failedCount, UpdateOutcome reason) {
+        Builder builder = new Builder(failedCount);
+        for (int i = 0; i < failedCount; i++) {
+            builder.addFailure(reason);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Combines the outcomes of the chunks of a batch. The failure reasons are concatenated in the order of the list.
+     */
+    public static UpdateOutcomes combine(List<UpdateOutcomes> outcomes) {
+        long[] counts = new long[OUTCOMES.length];
+        int failureCount = 0;
+        for (UpdateOutcomes chunkOutcomes : outcomes) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += chunkOutcomes.counts[i];
+            }
+            failureCount += chunkOutcomes.failureReasons.length;
+        }
+        byte[] failureReasons = new byte[failureCount];
+        int position = 0;
+        for (UpdateOutcomes chunkOutcomes : outcomes) {
+            System.arraycopy(chunkOutcomes.failureReasons, 0, failureReasons, position, chunkOutcomes.failureReasons.length);
+            position += chunkOutcomes.failureReasons.length;
+        }
+        return new UpdateOutcomes(counts, failureReasons);
+    }
+
+    public long getCount(UpdateOutcome outcome) {
+        return counts[outcome.ordinal()];
+    }
+
+    // Number of requests the outcomes are of
+    public long getTotalCount() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return the share of the requests with the given outcome, from 0 to 1; 0 if there are no requests.
+     */
+    public double getRate(UpdateOutcome outcome) {
+        long total = getTotalCount();
+        return total == 0 ? 0 : (double) counts[outcome.ordinal()] / total;
+    }
+
+    public int getFailureCount() {
+        return failureReasons.length;
+    }
+
+    /**
+     * @param index index of the failed request, in the list of failed requests reported with these outcomes.
+     * @return why the request failed.
+     */
+    public UpdateOutcome getFailureReason(int index) {
+        return OUTCOMES[failureReasons[index]];
+    }
+
+    // The outcomes that occurred, with their counts
+    public Map<UpdateOutcome, Long> toMap() {
+        Map<UpdateOutcome, Long> map = new EnumMap<>(UpdateOutcome.class);
+        for (UpdateOutcome outcome : OUTCOMES) {
+            if (counts[outcome.ordinal()] > 0) {
+                map.put(outcome, counts[outcome.ordinal()]);
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UpdateOutcomes that)) return false;
+        return Arrays.equals(counts, that.counts) && Arrays.equals(failureReasons, that.failureReasons);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(counts) + Arrays.hashCode(failureReasons);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    /**
+     * Collects the outcomes of a chunk while it is processed. Not thread safe.
+     */
+    public static class Builder {
+        private final long[] counts = new long[OUTCOMES.length];
+        private byte[] failureReasons;
+        private int failureCount;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedFailures) {
+            this.failureReasons = new byte[Math.max(expectedFailures, 1)];
+        }
+
+        /**
+         * Counts requests that did not fail.
+         *
+         * @throws IllegalArgumentException if the outcome is a failure; use {@link #addFailure(UpdateOutcome)}.
+         */
+        public Builder add(UpdateOutcome outcome, int requestCount) {
+            if (outcome.isFailure()) {
+                throw new IllegalArgumentException("Failed requests must be added one by one: " + outcome);
+            }
+            counts[outcome.ordinal()] += requestCount;
+            return this;
+        }
+
+        // Adds the reason of the next failed request, in the order the failed requests are reported
+        public Builder addFailure(UpdateOutcome reason) {
+            if (!reason.isFailure()) {
+                throw new IllegalArgumentException("Not a failure: " + reason);
+            }
+            if (failureCount == failureReasons.length) {
+                failureReasons = Arrays.copyOf(failureReasons, failureReasons.length * 2);
+            }
+            failureReasons[failureCount++] = (byte) reason.ordinal();
+            counts[reason.ordinal()]++;
+            return this;
+        }
+
+        public UpdateOutcomes build() {
+            return new UpdateOutcomes(counts.clone(), Arrays.copyOf(failureReasons, failureCount));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.spglobal.coding.utils.dto;
 
+import com.spglobal.coding.utils.FixedPointPrices;
 import com.spglobal.coding.utils.enums.Currency;
 import com.spglobal.coding.utils.enums.InstrumentType;
 
@@ -17,12 +18,19 @@ import java.time.LocalDateTime;
  * including the instrument's ID, instrument's name, its type, the value of the price,
  * the currency in which the price is expressed, and the time when the request was made.
  * </p>
+ * <p>
+ * The price can either be given as a {@link BigDecimal} or, to avoid allocating one per request, as a fixed-point
+ * {@code long} mantissa with a decimal scale. In the latter case {@link #getValue()} materialises the decimal on demand.
+ * </p>
  */
 public class UpdatePriceRecordRequest {
     private final int id;
     private final String instrument;
     private final InstrumentType instrumentType;
     private final BigDecimal value;
+    private final long priceMantissa;
+    private final int priceScale;
+    private final boolean fixedPoint;
     private final Currency currency;
     private final LocalDateTime requestTime;
 
@@ -31,6 +39,9 @@ public class UpdatePriceRecordRequest {
         this.instrument = builder.instrument;
         this.instrumentType = builder.instrumentType;
         this.value = builder.value;
+        this.priceMantissa = builder.priceMantissa;
+        this.priceScale = builder.priceScale;
+        this.fixedPoint = builder.fixedPoint;
         this.currency = builder.currency;
         this.requestTime = builder.requestTime;
     }
@@ -48,9 +59,24 @@ public class UpdatePriceRecordRequest {
     }
 
     public BigDecimal getValue() {
+        if (fixedPoint) {
+            return FixedPointPrices.toBigDecimal(priceMantissa, priceScale);
+        }
         return value;
     }
 
+    public boolean hasFixedPointValue() {
+        return fixedPoint;
+    }
+
+    public long getPriceMantissa() {
+        return priceMantissa;
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
     public Currency getCurrency() {
         return currency;
     }
@@ -65,7 +91,7 @@ public class UpdatePriceRecordRequest {
                 "id=" + id +
                 ", instrument='" + instrument + '\'' +
                 ", instrumentType=" + instrumentType +
-                ", value=" + value +
+                ", value=" + getValue() +
                 ", currency=" + currency +
                 ", requestTime=" + requestTime +
                 '}';
@@ -76,6 +102,9 @@ public class UpdatePriceRecordRequest {
         private String instrument;
         private InstrumentType instrumentType;
         private BigDecimal value;
+        private long priceMantissa;
+        private int priceScale;
+        private boolean fixedPoint;
         private Currency currency;
         private LocalDateTime requestTime;
 
@@ -96,6 +125,16 @@ public class UpdatePriceRecordRequest {
 
         public Builder setValue(BigDecimal value) {
             this.value = value;
+            this.fixedPoint = false;
+            return this;
+        }
+
+        // Sets the price as mantissa / 10^scale without allocating a BigDecimal
+        public Builder setFixedPointValue(long priceMantissa, int priceScale) {
+            this.priceMantissa = priceMantissa;
+            this.priceScale = priceScale;
+            this.value = null;
+            this.fixedPoint = true;
             return this;
         }
 
@@ -0,0 +1,14 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * How the requests of a batch are handed to the ChunkProcessor.
+ * <ul>
+ *     <li>{@code BUFFERED} - requests are kept in the batch until it is completed and then processed all at once.</li>
+ *     <li>{@code STREAMING} - uploaded requests are cut into chunks and processed while the upload is still going;
+ *     completing the batch only flushes the last partial chunk and waits for the outstanding ones.</li>
+ * </ul>
+ */
+public enum BatchMode {
+    BUFFERED,
+    STREAMING
+}
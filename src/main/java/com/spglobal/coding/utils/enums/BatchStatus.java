@@ -7,5 +7,10 @@ public enum BatchStatus {
     PROCESSED_WITH_ERRORS,
     COMPLETED,
     FAILED,
-    CANCELLED
+    CANCELLED;
+
+    // Whether no status follows this one
+    public boolean isFinal() {
+        return this == PROCESSED_WITH_ERRORS || this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
 }
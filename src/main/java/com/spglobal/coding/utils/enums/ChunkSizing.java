@@ -0,0 +1,15 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * How the ChunkProcessor sizes the chunks of a batch.
+ * <ul>
+ *     <li>{@code FIXED} - every chunk holds the configured chunk size.</li>
+ *     <li>{@code ADAPTIVE} - the size is derived from the measured per-record processing time, a target chunk duration
+ *     and the number of idle workers, see {@code AdaptiveChunkSizer}. The sizes and timings of each batch are reported
+ *     in its {@code BatchMetrics}.</li>
+ * </ul>
+ */
+public enum ChunkSizing {
+    FIXED,
+    ADAPTIVE
+}
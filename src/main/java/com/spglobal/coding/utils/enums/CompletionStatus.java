@@ -0,0 +1,13 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * Outcome of asking a producer to complete a batch.
+ * <ul>
+ *     <li>{@code ACCEPTED} - the batch has been handed to the ChunkProcessor.</li>
+ *     <li>{@code REJECTED_RETRIABLE} - the ChunkProcessor is saturated; the batch is left untouched and can be completed again later.</li>
+ * </ul>
+ */
+public enum CompletionStatus {
+    ACCEPTED,
+    REJECTED_RETRIABLE
+}
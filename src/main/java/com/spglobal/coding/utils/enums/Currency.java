@@ -1,6 +1,17 @@
 package com.spglobal.coding.utils.enums;
 
 public enum Currency {
-    USD,
-    INR
+    USD(4),
+    INR(2);
+
+    // Number of decimal places kept for prices in this currency when stored in fixed-point
+    private final int fixedPointScale;
+
+    Currency(int fixedPointScale) {
+        this.fixedPointScale = fixedPointScale;
+    }
+
+    public int getFixedPointScale() {
+        return fixedPointScale;
+    }
 }
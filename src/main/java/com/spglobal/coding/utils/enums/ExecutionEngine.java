@@ -0,0 +1,15 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * Threads the ChunkProcessor runs chunks on.
+ * <ul>
+ *     <li>{@code PLATFORM_POOL} - a fixed pool of platform threads, sized by the configured pool size.</li>
+ *     <li>{@code VIRTUAL_THREADS} - one virtual thread per chunk, limited by the configured maximum of concurrent chunks.
+ *     Instrument-affine shards each get a virtual worker thread instead. Pays off when chunk handling blocks, e.g. on
+ *     I/O. Requires Java 21.</li>
+ * </ul>
+ */
+public enum ExecutionEngine {
+    PLATFORM_POOL,
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,31 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * Events of the price update hot path, counted and sample-logged by the {@link com.spglobal.coding.utils.HotPathEventLog}.
+ * Failures are logged at ERROR, everything else at INFO.
+ */
+public enum HotPathEvent {
+    PRICE_RECORD_CREATED(false, "Created PriceRecord for Instrument ID: {}"),
+    PRICE_RECORD_UPDATED(false, "Updated PriceRecord for Instrument ID: {} to version {}"),
+    STALE_PAYLOADS_IGNORED(false, "Payloads older than the retained history ignored for Instrument ID: {}"),
+    STALE_REQUESTS_REJECTED(false, "Requests older than the retained history rejected for Instrument ID: {}, count {}"),
+    INVALID_REQUEST(true, "Rejected request for instrument: {}. Error: RequestTime, Instrument or InstrumentType is null."),
+    INVALID_PRICE(true, "Rejected request for instrument: {}. Error: Value is null or out of the fixed-point range.");
+
+    private final boolean failure;
+    private final String message;
+
+    HotPathEvent(boolean failure, String message) {
+        this.failure = failure;
+        this.message = message;
+    }
+
+    public boolean isFailure() {
+        return failure;
+    }
+
+    // SLF4J message pattern taking the subject and, if present, one detail
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,14 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * Strategy used by the ChunkProcessor to split a batch into units of work.
+ * <ul>
+ *     <li>{@code FIXED_SIZE} - slices the batch into fixed size chunks processed by a shared thread pool.</li>
+ *     <li>{@code INSTRUMENT_AFFINE} - routes every request to a single-threaded shard chosen by the hash of its
+ *     instrument ID, so that each instrument only ever has one writer thread.</li>
+ * </ul>
+ */
+public enum PartitioningStrategy {
+    FIXED_SIZE,
+    INSTRUMENT_AFFINE
+}
@@ -0,0 +1,14 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * How the price service stores prices.
+ * <ul>
+ *     <li>{@code DECIMAL} - prices are kept as the {@link java.math.BigDecimal} received with the request.</li>
+ *     <li>{@code FIXED_POINT} - prices are kept as a {@code long} mantissa with the scale of their currency and are only
+ *     turned into a {@link java.math.BigDecimal} when read.</li>
+ * </ul>
+ */
+public enum PriceRepresentation {
+    DECIMAL,
+    FIXED_POINT
+}
@@ -0,0 +1,16 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * Urgency of a batch. The ChunkProcessor keeps a queue lane per class and always runs the queued chunks of the most
+ * urgent lane first.
+ * <ul>
+ *     <li>{@code REAL_TIME} - live ticks; their chunks jump ahead of every chunk of the other lanes.</li>
+ *     <li>{@code STANDARD} - regular batches.</li>
+ *     <li>{@code BACKFILL} - historical reloads; their chunks only run when no other chunk is waiting.</li>
+ * </ul>
+ */
+public enum PriorityClass {
+    REAL_TIME,
+    STANDARD,
+    BACKFILL
+}
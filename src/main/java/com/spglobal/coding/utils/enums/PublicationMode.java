@@ -0,0 +1,14 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * When the updates of a batch become visible to readers of the price service.
+ * <ul>
+ *     <li>{@code IMMEDIATE} - every chunk writes straight into the latest prices; readers may see a batch half applied.</li>
+ *     <li>{@code EPOCH} - the updates of a batch are staged and published together in one epoch flip once the batch
+ *     has been processed; readers always see whole batches.</li>
+ * </ul>
+ */
+public enum PublicationMode {
+    IMMEDIATE,
+    EPOCH
+}
@@ -0,0 +1,15 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * What the ChunkProcessor does when its bounded submission queue is full.
+ * <ul>
+ *     <li>{@code BLOCK} - the submitting producer waits until a queue slot frees up.</li>
+ *     <li>{@code CALLER_RUNS} - the submitting producer processes the chunk itself.</li>
+ *     <li>{@code REJECT} - the batch is not admitted and the caller gets a retriable rejection.</li>
+ * </ul>
+ */
+public enum SaturationPolicy {
+    BLOCK,
+    CALLER_RUNS,
+    REJECT
+}
@@ -0,0 +1,14 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * Order in which the ChunkProcessor runs the queued chunks of concurrent batches of the same {@link PriorityClass}.
+ * <ul>
+ *     <li>{@code FIFO} - chunks run in the order they were submitted, so a large batch delays every batch after it.</li>
+ *     <li>{@code FAIR} - the batches with queued chunks take turns by deficit round robin: each turn a batch may run
+ *     chunks worth its weight times the quantum in requests, so small batches finish while large ones are running.</li>
+ * </ul>
+ */
+public enum SchedulingPolicy {
+    FIFO,
+    FAIR
+}
@@ -0,0 +1,34 @@
+package com.spglobal.coding.utils.enums;
+
+/**
+ * Outcome of a single update request.
+ * <ul>
+ *     <li>{@code APPLIED} - the request is part of a new version of its price record.</li>
+ *     <li>{@code SUPERSEDED} - newer requests for the same instrument in the chunk filled the history, so it was skipped.</li>
+ *     <li>{@code STALE_IGNORED} - the request is older than the history retained by its price record.</li>
+ *     <li>{@code INVALID_NULL_FIELD} - the request time, instrument or instrument type is null.</li>
+ *     <li>{@code INVALID_PRICE} - the price is missing, or out of range for the fixed-point representation.</li>
+ *     <li>{@code CHUNK_FAILED} - the chunk of the request failed as a whole, e.g. it timed out or was rejected.</li>
+ *     <li>{@code CANCELLED} - the batch was cancelled before the request was applied.</li>
+ * </ul>
+ * The last four are failures: their requests are reported back as failed requests.
+ */
+public enum UpdateOutcome {
+    APPLIED(false),
+    SUPERSEDED(false),
+    STALE_IGNORED(false),
+    INVALID_NULL_FIELD(true),
+    INVALID_PRICE(true),
+    CHUNK_FAILED(true),
+    CANCELLED(true);
+
+    private final boolean failure;
+
+    UpdateOutcome(boolean failure) {
+        this.failure = failure;
+    }
+
+    public boolean isFailure() {
+        return failure;
+    }
+}
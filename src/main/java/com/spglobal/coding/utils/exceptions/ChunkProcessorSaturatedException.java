@@ -0,0 +1,7 @@
+package com.spglobal.coding.utils.exceptions;
+
+public class ChunkProcessorSaturatedException extends RuntimeException {
+    public ChunkProcessorSaturatedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,72 @@
+package com.spglobal.coding.utils.model;
+
+import com.spglobal.coding.utils.enums.InstrumentType;
+
+/**
+ * Reference data of a single instrument held by the {@link com.spglobal.coding.utils.InstrumentRegistry}.
+ * <p>
+ * Every instrument ID has exactly one reference, shared by all the instrument names normalising to that ID.
+ * The dense ID is a small, stable integer assigned in registration order which can be used to index arrays.
+ * The instrument type is unknown ({@code null}) until it is either registered as reference data or learned
+ * from the first update request carrying it. Both are kept apart, so that a type seen in traffic never passes for
+ * reference data.
+ */
+public final class InstrumentReference {
+    private final String instrument;
+    private final String instrumentId;
+    private final int denseId;
+    private volatile InstrumentType registeredType;
+    private volatile InstrumentType learnedType;
+
+    public InstrumentReference(String instrument, String instrumentId, int denseId, InstrumentType registeredType) {
+        this.instrument = instrument;
+        this.instrumentId = instrumentId;
+        this.denseId = denseId;
+        this.registeredType = registeredType;
+    }
+
+    public String getInstrument() {
+        return instrument;
+    }
+
+    public String getInstrumentId() {
+        return instrumentId;
+    }
+
+    public int getDenseId() {
+        return denseId;
+    }
+
+    // The registered type if there is one, otherwise the learned one
+    public InstrumentType getInstrumentType() {
+        InstrumentType type = registeredType;
+        return type != null ? type : learnedType;
+    }
+
+    public InstrumentType getRegisteredType() {
+        return registeredType;
+    }
+
+    public void setRegisteredType(InstrumentType registeredType) {
+        this.registeredType = registeredType;
+    }
+
+    public InstrumentType getLearnedType() {
+        return learnedType;
+    }
+
+    public void setLearnedType(InstrumentType learnedType) {
+        this.learnedType = learnedType;
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentReference{" +
+                "instrument='" + instrument + '\'' +
+                ", instrumentId='" + instrumentId + '\'' +
+                ", denseId=" + denseId +
+                ", registeredType=" + registeredType +
+                ", learnedType=" + learnedType +
+                '}';
+    }
+}
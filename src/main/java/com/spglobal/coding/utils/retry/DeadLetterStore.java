@@ -0,0 +1,62 @@
+package com.spglobal.coding.utils.retry;
+
+import com.spglobal.coding.utils.dto.DeadLetter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the update requests that failed for good, for an operator to inspect, fix and upload again.
+ * <p>
+ * The store holds at most {@code capacity} dead letters; once it is full, the oldest one is dropped for every new one
+ * and counted as evicted. All methods are thread safe.
+ */
+public class DeadLetterStore {
+
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    private final int capacity;
+    private final ArrayDeque<DeadLetter> deadLetters = new ArrayDeque<>();
+    private long evictedCount;
+
+    public DeadLetterStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DeadLetterStore(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public synchronized void add(DeadLetter deadLetter) {
+        if (deadLetters.size() == capacity) {
+            deadLetters.pollFirst();
+            evictedCount++;
+        }
+        deadLetters.addLast(deadLetter);
+    }
+
+    // The dead letters currently held, oldest first
+    public synchronized List<DeadLetter> getDeadLetters() {
+        return new ArrayList<>(deadLetters);
+    }
+
+    // Removes and returns the dead letters currently held, oldest first
+    public synchronized List<DeadLetter> drain() {
+        List<DeadLetter> drained = new ArrayList<>(deadLetters);
+        deadLetters.clear();
+        return drained;
+    }
+
+    public synchronized int size() {
+        return deadLetters.size();
+    }
+
+    // Number of dead letters dropped because the store was full
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+}
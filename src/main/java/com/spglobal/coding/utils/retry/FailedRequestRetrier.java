@@ -0,0 +1,246 @@
+package com.spglobal.coding.utils.retry;
+
+import com.spglobal.coding.utils.ChunkProcessor;
+import com.spglobal.coding.utils.config.RetryPolicy;
+import com.spglobal.coding.utils.dto.BatchProcessResponse;
+import com.spglobal.coding.utils.dto.DeadLetter;
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.PriorityClass;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+import com.spglobal.coding.utils.exceptions.ChunkProcessorSaturatedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Processes failed update requests again, instead of rerunning the batches they failed in.
+ * <p>
+ * Each failed request handed over waits for the backoff of its {@link RetryPolicy}. When retries are due, all of them
+ * are submitted to the {@link ChunkProcessor} together, whatever batch they failed in, as one retry batch of
+ * {@link PriorityClass#BACKFILL} priority; retries therefore only use the capacity live batches leave idle. A request
+ * failing again waits for its next, longer backoff. Requests whose reason is not retried, or whose attempts are used up,
+ * go to the {@link DeadLetterStore}.
+ * <p>
+ * A retry batch rejected by a saturated ChunkProcessor does not count as an attempt; its requests wait for their
+ * backoff again. The requests that succeed on a retry are reported to the recovery listeners, per batch they failed in.
+ */
+public class FailedRequestRetrier {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailedRequestRetrier.class);
+    public static final String RETRY_BATCH_PREFIX = "retry-";
+
+    private final ChunkProcessor chunkProcessor;
+    private final RetryPolicy retryPolicy;
+    private final DeadLetterStore deadLetterStore;
+    private final ScheduledExecutorService scheduler;
+    private final PriorityQueue<PendingRetry> pendingRetries = new PriorityQueue<>(Comparator.comparingLong(PendingRetry::dueAt));
+    private final AtomicLong retryBatchCount = new AtomicLong();
+    private final LongAdder retriedRequests = new LongAdder();
+    private final LongAdder recoveredRequests = new LongAdder();
+    private final List<BiConsumer<String, List<UpdatePriceRecordRequest>>> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    public FailedRequestRetrier(ChunkProcessor chunkProcessor) {
+        this(chunkProcessor, RetryPolicy.defaults(), new DeadLetterStore());
+    }
+
+    public FailedRequestRetrier(ChunkProcessor chunkProcessor, RetryPolicy retryPolicy, DeadLetterStore deadLetterStore) {
+        this.chunkProcessor = chunkProcessor;
+        this.retryPolicy = Objects.requireNonNullElseGet(retryPolicy, RetryPolicy::defaults);
+        this.deadLetterStore = Objects.requireNonNullElseGet(deadLetterStore, DeadLetterStore::new);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "failed-request-retrier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("FailedRequestRetrier initialized with {}", this.retryPolicy);
+    }
+
+    /**
+     * Takes the failed requests of a processed batch, after their first attempt.
+     *
+     * @param batchId        the batch the requests failed in.
+     * @param failedRequests the failed requests of the batch.
+     * @param outcomes       the outcomes of the batch, with the reason of every failed request in the same order.
+     */
+    public void submit(String batchId, List<UpdatePriceRecordRequest> failedRequests, UpdateOutcomes outcomes) {
+        List<PendingRetry> retries = new ArrayList<>();
+        for (int i = 0; i < failedRequests.size(); i++) {
+            onFailure(batchId, failedRequests.get(i), reasonOf(outcomes, i), 1, retries);
+        }
+        schedule(retries);
+    }
+
+    /**
+     * Registers a listener called with the ID of a batch and those of its failed requests that succeeded on a retry.
+     * Listeners run on the thread completing the retry batch, in registration order.
+     */
+    public void addRecoveryListener(BiConsumer<String, List<UpdatePriceRecordRequest>> listener) {
+        recoveryListeners.add(Objects.requireNonNull(listener, "listener cannot be null"));
+    }
+
+    // Schedules the next retry of a request that failed, or gives up on it
+    private void onFailure(String batchId, UpdatePriceRecordRequest request, UpdateOutcome reason, int attempts, List<PendingRetry> retries) {
+        if (retryPolicy.shouldRetry(reason, attempts)) {
+            retries.add(new PendingRetry(batchId, request, attempts, System.nanoTime() + retryPolicy.getBackoff(attempts).toNanos()));
+        } else {
+            deadLetterStore.add(new DeadLetter(batchId, request, reason, attempts));
+        }
+    }
+
+    private static UpdateOutcome reasonOf(UpdateOutcomes outcomes, int index) {
+        return index < outcomes.getFailureCount() ? outcomes.getFailureReason(index) : UpdateOutcome.CHUNK_FAILED;
+    }
+
+    private void schedule(List<PendingRetry> retries) {
+        if (retries.isEmpty()) {
+            return;
+        }
+        long firstDueAt = Long.MAX_VALUE;
+        synchronized (pendingRetries) {
+            for (PendingRetry retry : retries) {
+                pendingRetries.add(retry);
+                firstDueAt = Math.min(firstDueAt, retry.dueAt());
+            }
+        }
+        try {
+            scheduler.schedule(this::retryDueRequests, Math.max(0, firstDueAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.warn("FailedRequestRetrier is shut down, {} requests are not retried", retries.size());
+        }
+    }
+
+    // Submits all requests whose backoff is over as one retry batch
+    private void retryDueRequests() {
+        List<PendingRetry> due = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (pendingRetries) {
+            while (!pendingRetries.isEmpty() && pendingRetries.peek().dueAt() <= now) {
+                due.add(pendingRetries.poll());
+            }
+        }
+        if (due.isEmpty()) {
+            return; // Taken by an earlier run
+        }
+
+        String retryBatchId = RETRY_BATCH_PREFIX + retryBatchCount.incrementAndGet();
+        List<UpdatePriceRecordRequest> requests = due.stream().map(PendingRetry::request).toList();
+        CompletableFuture<BatchProcessResponse> response;
+        try {
+            chunkProcessor.setBatchPriority(retryBatchId, PriorityClass.BACKFILL);
+            response = chunkProcessor.processBatch(retryBatchId, requests);
+        } catch (ChunkProcessorSaturatedException e) {
+            logger.warn("Retry batch {} was rejected, the ChunkProcessor is saturated: {}", retryBatchId, e.getMessage());
+            schedule(due.stream()
+                    .map(retry -> new PendingRetry(retry.batchId(), retry.request(), retry.attempts(),
+                            System.nanoTime() + retryPolicy.getBackoff(retry.attempts()).toNanos()))
+                    .toList());
+            return;
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        retriedRequests.add(due.size());
+        logger.info("Retrying {} failed requests as batch {}", due.size(), retryBatchId);
+        response.whenComplete((batchResponse, error) -> onRetried(retryBatchId, due, batchResponse, error));
+    }
+
+    private void onRetried(String retryBatchId, List<PendingRetry> retried, BatchProcessResponse response, Throwable error) {
+        List<PendingRetry> retries = new ArrayList<>();
+        if (error != null) {
+            logger.error("Retry batch {} failed: {}", retryBatchId, error.getMessage());
+            for (PendingRetry retry : retried) {
+                onFailure(retry.batchId(), retry.request(), UpdateOutcome.CHUNK_FAILED, retry.attempts() + 1, retries);
+            }
+        } else {
+            // The failed requests are the submitted instances
+            Map<UpdatePriceRecordRequest, PendingRetry> byRequest = new IdentityHashMap<>(retried.size());
+            for (PendingRetry retry : retried) {
+                byRequest.put(retry.request(), retry);
+            }
+            List<UpdatePriceRecordRequest> failedRequests = response.failedRequests();
+            for (int i = 0; i < failedRequests.size(); i++) {
+                PendingRetry retry = byRequest.remove(failedRequests.get(i));
+                if (retry != null) {
+                    onFailure(retry.batchId(), retry.request(), reasonOf(response.outcomes(), i), retry.attempts() + 1, retries);
+                }
+            }
+            recoveredRequests.add(byRequest.size());
+            logger.info("Retry batch {} recovered {} of {} requests", retryBatchId, byRequest.size(), retried.size());
+            notifyRecovered(byRequest.values());
+        }
+        schedule(retries);
+    }
+
+    private void notifyRecovered(Collection<PendingRetry> recovered) {
+        if (recovered.isEmpty() || recoveryListeners.isEmpty()) {
+            return;
+        }
+        Map<String, List<UpdatePriceRecordRequest>> byBatch = new LinkedHashMap<>();
+        for (PendingRetry retry : recovered) {
+            byBatch.computeIfAbsent(retry.batchId(), id -> new ArrayList<>()).add(retry.request());
+        }
+        for (BiConsumer<String, List<UpdatePriceRecordRequest>> listener : recoveryListeners) {
+            byBatch.forEach((batchId, requests) -> {
+                try {
+                    listener.accept(batchId, requests);
+                } catch (RuntimeException e) {
+                    logger.warn("Recovery listener failed for batch {}: {}", batchId, e.getMessage(), e);
+                }
+            });
+        }
+    }
+
+    public DeadLetterStore getDeadLetterStore() {
+        return deadLetterStore;
+    }
+
+    // Number of requests waiting for their next retry
+    public int getPendingCount() {
+        synchronized (pendingRetries) {
+            return pendingRetries.size();
+        }
+    }
+
+    // Number of retries submitted so far, a request retried twice counts twice
+    public long getRetriedCount() {
+        return retriedRequests.sum();
+    }
+
+    // Number of requests that succeeded on a retry
+    public long getRecoveredCount() {
+        return recoveredRequests.sum();
+    }
+
+    /**
+     * Stops retrying. Requests still waiting for a retry are not retried.
+     */
+    public void shutdown() {
+        logger.info("Shutting down FailedRequestRetrier, {} requests are not retried", getPendingCount());
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @param attempts the attempts made so far, including the first processing.
+     * @param dueAt    System.nanoTime() at which the request is retried.
+     */
+    private record PendingRetry(String batchId, UpdatePriceRecordRequest request, int attempts, long dueAt) {
+    }
+}
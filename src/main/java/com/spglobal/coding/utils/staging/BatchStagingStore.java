@@ -0,0 +1,161 @@
+package com.spglobal.coding.utils.staging;
+
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Holds the uploaded requests of a batch until it is processed.
+ * <p>
+ * The first {@code spillThreshold} requests are kept on the heap. Once the threshold is crossed, further requests are
+ * appended to a memory-mapped spill file in a fixed-width binary form, see {@link StagedRequestCodec}, so that very
+ * large uploads do not need a larger heap. Requests that cannot be encoded without loss stay on the heap.
+ * <p>
+ * Spilled requests are read back through views decoding straight from the mapping, e.g. one per chunk with
+ * {@link #spilledRange(int, int)}. The store is written by one thread at a time while uploading and is read-only afterwards.
+ */
+public class BatchStagingStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchStagingStore.class);
+
+    public static final int NEVER_SPILL = Integer.MAX_VALUE;
+    static final int RECORDS_PER_SEGMENT = 1 << 20; // 40 MB per mapped segment
+
+    private final int spillThreshold;
+    private final Path spillDirectory;
+    private final int recordsPerSegment;
+    private final InstrumentRegistry registry;
+    private final List<UpdatePriceRecordRequest> heapRequests = new ArrayList<>();
+    private SpillFile spillFile;
+    private boolean spillFailed;
+
+    public BatchStagingStore() {
+        this(NEVER_SPILL, null);
+    }
+
+    public BatchStagingStore(int spillThreshold, Path spillDirectory) {
+        this(spillThreshold, spillDirectory, RECORDS_PER_SEGMENT, InstrumentRegistry.getInstance());
+    }
+
+    BatchStagingStore(int spillThreshold, Path spillDirectory, int recordsPerSegment, InstrumentRegistry registry) {
+        this.spillThreshold = spillThreshold;
+        this.spillDirectory = spillDirectory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.registry = registry;
+    }
+
+    public void addAll(List<UpdatePriceRecordRequest> requests) {
+        for (UpdatePriceRecordRequest request : requests) {
+            if (heapRequests.size() < spillThreshold || spillFailed || !StagedRequestCodec.canEncode(request, registry)) {
+                heapRequests.add(request);
+            } else {
+                spill(request);
+            }
+        }
+    }
+
+    private void spill(UpdatePriceRecordRequest request) {
+        try {
+            if (spillFile == null) {
+                spillFile = SpillFile.create(spillDirectory, recordsPerSegment, registry);
+                logger.info("Spill threshold of {} requests crossed, staging further requests in {}", spillThreshold, spillFile.getPath());
+            }
+            spillFile.append(request);
+        } catch (IOException e) {
+            // Never lose an upload: keep staging on the heap instead
+            logger.error("Could not spill staged requests to disk, keeping them on the heap: {}", e.getMessage());
+            spillFailed = true;
+            heapRequests.add(request);
+        }
+    }
+
+    public int size() {
+        return heapRequests.size() + spilledCount();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean isSpilled() {
+        return spilledCount() > 0;
+    }
+
+    // Requests staged on the heap
+    public List<UpdatePriceRecordRequest> heapRequests() {
+        return heapRequests;
+    }
+
+    public int spilledCount() {
+        return spillFile == null ? 0 : spillFile.size();
+    }
+
+    /**
+     * @return a view of the spilled requests from index {@code from}, inclusive, to {@code to}, exclusive.
+     */
+    public List<UpdatePriceRecordRequest> spilledRange(int from, int to) {
+        checkRange(from, to, spilledCount());
+        return new StagedChunk(spillFile, from, to);
+    }
+
+    /**
+     * @return a view of the spilled requests whose indices are listed in {@code indices[from]} to {@code indices[to - 1]}.
+     */
+    public List<UpdatePriceRecordRequest> spilledSelection(int[] indices, int from, int to) {
+        checkRange(from, to, indices.length);
+        return new StagedChunk(spillFile, indices, from, to);
+    }
+
+    /**
+     * @return the dense instrument ID of a spilled request, or -1 if it has no instrument; nothing else is decoded.
+     */
+    public int spilledDenseInstrumentId(int index) {
+        return spillFile.denseInstrumentIdAt(index);
+    }
+
+    /**
+     * @return all staged requests; the heap list itself as long as nothing has been spilled, a read-only view otherwise.
+     */
+    public List<UpdatePriceRecordRequest> asList() {
+        return isSpilled() ? new StagedRequestsView() : heapRequests;
+    }
+
+    /**
+     * Deletes the spill file once the batch has been processed. Views handed out before must not be used afterwards.
+     */
+    public void release() {
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                logger.warn("Could not delete spill file {}: {}", spillFile.getPath(), e.getMessage());
+            }
+        }
+    }
+
+    private static void checkRange(int from, int to, int size) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + size);
+        }
+    }
+
+    private class StagedRequestsView extends AbstractList<UpdatePriceRecordRequest> implements RandomAccess {
+        @Override
+        public UpdatePriceRecordRequest get(int index) {
+            return index < heapRequests.size() ? heapRequests.get(index) : spillFile.read(index - heapRequests.size());
+        }
+
+        @Override
+        public int size() {
+            return BatchStagingStore.this.size();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.spglobal.coding.utils.staging;
+
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file of fixed-width staged requests, mapped into memory segment by segment.
+ * <p>
+ * Records are written by a single uploading thread and read once the upload is over, by any number of threads.
+ * Reads decode straight from the mapped segments, the file content is never copied onto the heap.
+ */
+final class SpillFile implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int recordsPerSegment;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final InstrumentRegistry registry;
+    private int size;
+
+    private SpillFile(Path path, FileChannel channel, int recordsPerSegment, InstrumentRegistry registry) {
+        this.path = path;
+        this.channel = channel;
+        this.recordsPerSegment = recordsPerSegment;
+        this.registry = registry;
+    }
+
+    static SpillFile create(Path directory, int recordsPerSegment, InstrumentRegistry registry) throws IOException {
+        Path path = Files.createTempFile(directory, "batch-", ".spill");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new SpillFile(path, channel, recordsPerSegment, registry);
+    }
+
+    void append(UpdatePriceRecordRequest request) throws IOException {
+        int segment = size / recordsPerSegment;
+        if (segment == segments.size()) {
+            // Mapping past the end of the file grows it
+            long segmentBytes = (long) recordsPerSegment * StagedRequestCodec.RECORD_SIZE;
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, segment * segmentBytes, segmentBytes));
+        }
+        StagedRequestCodec.encode(request, segments.get(segment), offsetOf(size), registry);
+        size++;
+    }
+
+    UpdatePriceRecordRequest read(int index) {
+        return StagedRequestCodec.decode(segmentOf(index), offsetOf(index), registry);
+    }
+
+    // Dense instrument ID of a record, read without decoding the rest of it
+    int denseInstrumentIdAt(int index) {
+        return StagedRequestCodec.denseIdAt(segmentOf(index), offsetOf(index));
+    }
+
+    int size() {
+        return size;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    private MappedByteBuffer segmentOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + size + " staged requests");
+        }
+        return segments.get(index / recordsPerSegment);
+    }
+
+    private int offsetOf(int index) {
+        return (index % recordsPerSegment) * StagedRequestCodec.RECORD_SIZE;
+    }
+
+    /**
+     * Closes and deletes the file. The mapped segments are unmapped by the garbage collector once unreachable.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,43 @@
+package com.spglobal.coding.utils.staging;
+
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view over staged requests of a {@link SpillFile}: either a contiguous range of records, or a selection
+ * of record indices. Requests are decoded from the mapped file on access and are not retained by the view.
+ */
+final class StagedChunk extends AbstractList<UpdatePriceRecordRequest> implements RandomAccess {
+
+    private final SpillFile spillFile;
+    private final int[] indices; // null for a contiguous range
+    private final int from;
+    private final int to;
+
+    StagedChunk(SpillFile spillFile, int from, int to) {
+        this(spillFile, null, from, to);
+    }
+
+    StagedChunk(SpillFile spillFile, int[] indices, int from, int to) {
+        this.spillFile = spillFile;
+        this.indices = indices;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public UpdatePriceRecordRequest get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        int position = from + index;
+        return spillFile.read(indices == null ? position : indices[position]);
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+}
@@ -0,0 +1,131 @@
+package com.spglobal.coding.utils.staging;
+
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.InstrumentType;
+import com.spglobal.coding.utils.model.InstrumentReference;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Fixed-width binary layout of a staged {@link UpdatePriceRecordRequest}.
+ * <pre>
+ *  0  int   dense instrument ID from the InstrumentRegistry, -1 without instrument
+ *  4  int   request ID
+ *  8  long  price mantissa
+ * 16  int   price scale
+ * 20  byte  instrument type ordinal, -1 if null
+ * 21  byte  currency ordinal, -1 if null
+ * 22  byte  flags, see below
+ * 24  long  request time, seconds since the epoch (UTC)
+ * 32  int   request time, nanos of second
+ * </pre>
+ * Every record has the same size, so a record is found by its index alone and never spans two mapped segments.
+ */
+final class StagedRequestCodec {
+
+    static final int RECORD_SIZE = 40;
+
+    private static final int DENSE_ID_OFFSET = 0;
+    private static final int ID_OFFSET = 4;
+    private static final int MANTISSA_OFFSET = 8;
+    private static final int SCALE_OFFSET = 16;
+    private static final int TYPE_OFFSET = 20;
+    private static final int CURRENCY_OFFSET = 21;
+    private static final int FLAGS_OFFSET = 22;
+    private static final int EPOCH_SECOND_OFFSET = 24;
+    private static final int NANO_OFFSET = 32;
+
+    private static final byte VALUE_PRESENT = 1;
+    private static final byte FIXED_POINT = 2;
+    private static final byte TIME_PRESENT = 4;
+
+    private static final InstrumentType[] INSTRUMENT_TYPES = InstrumentType.values();
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private StagedRequestCodec() {
+    }
+
+    /**
+     * Tells whether the request can be encoded without losing information: its price has to fit a long mantissa,
+     * and its instrument name has to be the one the registry knows the instrument by.
+     */
+    static boolean canEncode(UpdatePriceRecordRequest request, InstrumentRegistry registry) {
+        if (request.getInstrument() != null
+                && !registry.resolve(request.getInstrument()).getInstrument().equals(request.getInstrument())) {
+            return false;
+        }
+        return request.hasFixedPointValue()
+                || request.getValue() == null
+                || request.getValue().unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    // Writes the request at the given offset using absolute puts; canEncode has to be checked first
+    static void encode(UpdatePriceRecordRequest request, ByteBuffer buffer, int offset, InstrumentRegistry registry) {
+        byte flags = 0;
+        long mantissa = 0;
+        int scale = 0;
+        if (request.hasFixedPointValue()) {
+            flags |= VALUE_PRESENT | FIXED_POINT;
+            mantissa = request.getPriceMantissa();
+            scale = request.getPriceScale();
+        } else if (request.getValue() != null) {
+            flags |= VALUE_PRESENT;
+            mantissa = request.getValue().unscaledValue().longValueExact();
+            scale = request.getValue().scale();
+        }
+        long epochSecond = 0;
+        int nano = 0;
+        if (request.getRequestTime() != null) {
+            flags |= TIME_PRESENT;
+            epochSecond = request.getRequestTime().toEpochSecond(ZoneOffset.UTC);
+            nano = request.getRequestTime().getNano();
+        }
+
+        buffer.putInt(offset + DENSE_ID_OFFSET, request.getInstrument() == null ? -1 : registry.resolve(request.getInstrument()).getDenseId());
+        buffer.putInt(offset + ID_OFFSET, request.getId());
+        buffer.putLong(offset + MANTISSA_OFFSET, mantissa);
+        buffer.putInt(offset + SCALE_OFFSET, scale);
+        buffer.put(offset + TYPE_OFFSET, (byte) (request.getInstrumentType() == null ? -1 : request.getInstrumentType().ordinal()));
+        buffer.put(offset + CURRENCY_OFFSET, (byte) (request.getCurrency() == null ? -1 : request.getCurrency().ordinal()));
+        buffer.put(offset + FLAGS_OFFSET, flags);
+        buffer.putLong(offset + EPOCH_SECOND_OFFSET, epochSecond);
+        buffer.putInt(offset + NANO_OFFSET, nano);
+    }
+
+    // Reads the request at the given offset using absolute gets, so concurrent readers do not interfere
+    static UpdatePriceRecordRequest decode(ByteBuffer buffer, int offset, InstrumentRegistry registry) {
+        int denseId = denseIdAt(buffer, offset);
+        byte type = buffer.get(offset + TYPE_OFFSET);
+        byte currency = buffer.get(offset + CURRENCY_OFFSET);
+        byte flags = buffer.get(offset + FLAGS_OFFSET);
+
+        UpdatePriceRecordRequest.Builder builder = new UpdatePriceRecordRequest.Builder()
+                .setId(buffer.getInt(offset + ID_OFFSET))
+                .setInstrument(denseId < 0 ? null : registry.getByDenseId(denseId).getInstrument())
+                .setInstrumentType(type < 0 ? null : INSTRUMENT_TYPES[type])
+                .setCurrency(currency < 0 ? null : CURRENCIES[currency]);
+
+        long mantissa = buffer.getLong(offset + MANTISSA_OFFSET);
+        int scale = buffer.getInt(offset + SCALE_OFFSET);
+        if ((flags & FIXED_POINT) != 0) {
+            builder.setFixedPointValue(mantissa, scale);
+        } else if ((flags & VALUE_PRESENT) != 0) {
+            builder.setValue(new BigDecimal(BigInteger.valueOf(mantissa), scale));
+        }
+        if ((flags & TIME_PRESENT) != 0) {
+            builder.setRequestTime(LocalDateTime.ofEpochSecond(buffer.getLong(offset + EPOCH_SECOND_OFFSET),
+                    buffer.getInt(offset + NANO_OFFSET), ZoneOffset.UTC));
+        }
+        return builder.build();
+    }
+
+    static int denseIdAt(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + DENSE_ID_OFFSET);
+    }
+}
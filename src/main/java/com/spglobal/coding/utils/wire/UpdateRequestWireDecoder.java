@@ -0,0 +1,111 @@
+package com.spglobal.coding.utils.wire;
+
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.InstrumentType;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads messages of the {@link UpdateRequestWireFormat} straight into the rows of a {@link ColumnarRequestBatch}.
+ * <p>
+ * No object is created per record: every record is copied field by field into the columns, and the instrument codes
+ * of a message are resolved to dense instrument IDs once, after the whole message has been read. A malformed message
+ * therefore registers no instrument in the {@link InstrumentRegistry}.
+ */
+public final class UpdateRequestWireDecoder {
+
+    private static final InstrumentType[] INSTRUMENT_TYPES = InstrumentType.values();
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private UpdateRequestWireDecoder() {
+    }
+
+    /**
+     * Appends the records of a message to a batch. The position of the message buffer is left untouched.
+     *
+     * @param message the encoded records, from its position to its limit.
+     * @param target  the batch the records are appended to.
+     * @return the number of records appended.
+     * @throws IllegalArgumentException if the message is malformed; nothing is appended then.
+     */
+    public static int decodeInto(ByteBuffer message, ColumnarRequestBatch target) {
+        return decodeInto(message, target, InstrumentRegistry.getInstance());
+    }
+
+    static int decodeInto(ByteBuffer message, ColumnarRequestBatch target, InstrumentRegistry registry) {
+        ByteBuffer buffer = message.duplicate().order(ByteOrder.BIG_ENDIAN);
+        int initialSize = target.size();
+        String[] names = new String[16]; // indexed by instrument code
+        int instrumentCount = 0;
+        long previousNanos = 0;
+        try {
+            while (buffer.hasRemaining()) {
+                byte tag = buffer.get();
+                if (tag == UpdateRequestWireFormat.DICTIONARY) {
+                    long code = UpdateRequestWireFormat.readVarint(buffer);
+                    if (code != instrumentCount + 1) {
+                        throw new IllegalArgumentException("Unexpected instrument code " + code + ", expected " + (instrumentCount + 1));
+                    }
+                    byte[] name = new byte[checkedLength(UpdateRequestWireFormat.readVarint(buffer), buffer)];
+                    buffer.get(name);
+                    if (++instrumentCount == names.length) {
+                        names = Arrays.copyOf(names, names.length * 2);
+                    }
+                    names[instrumentCount] = new String(name, StandardCharsets.UTF_8);
+                } else if (tag == UpdateRequestWireFormat.RECORD) {
+                    int id = buffer.getInt();
+                    long mantissa = buffer.getLong();
+                    int scale = buffer.get();
+                    InstrumentType instrumentType = ordinal(INSTRUMENT_TYPES, buffer.get());
+                    Currency currency = ordinal(CURRENCIES, buffer.get());
+                    long code = UpdateRequestWireFormat.readVarint(buffer);
+                    if (code < 0 || code > instrumentCount) {
+                        throw new IllegalArgumentException("Record " + id + " refers to undefined instrument code " + code);
+                    }
+                    long nanos = previousNanos + UpdateRequestWireFormat.unzigzag(UpdateRequestWireFormat.readVarint(buffer));
+                    previousNanos = nanos;
+                    // The code stands in for the dense ID until the message has been read
+                    int instrument = code == UpdateRequestWireFormat.NO_INSTRUMENT ? -1 : (int) code;
+                    target.add(id, instrument, instrumentType, mantissa, scale, currency,
+                            Math.floorDiv(nanos, NANOS_PER_SECOND), (int) Math.floorMod(nanos, NANOS_PER_SECOND));
+                } else {
+                    throw new IllegalArgumentException("Unknown entry tag " + tag + " at position " + (buffer.position() - 1));
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            target.truncate(initialSize);
+            throw new IllegalArgumentException("Message ends in the middle of an entry");
+        } catch (IllegalArgumentException e) {
+            target.truncate(initialSize);
+            throw e;
+        }
+
+        int[] denseIds = new int[instrumentCount + 1];
+        for (int code = 1; code <= instrumentCount; code++) {
+            denseIds[code] = registry.resolve(names[code]).getDenseId();
+        }
+        target.mapDenseInstrumentIds(initialSize, code -> denseIds[code]);
+        return target.size() - initialSize;
+    }
+
+    private static int checkedLength(long length, ByteBuffer buffer) {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Instrument name length " + length + " exceeds the message");
+        }
+        return (int) length;
+    }
+
+    private static <E> E ordinal(E[] values, byte ordinal) {
+        if (ordinal < -1 || ordinal >= values.length) {
+            throw new IllegalArgumentException("Unknown ordinal " + ordinal);
+        }
+        return ordinal < 0 ? null : values[ordinal];
+    }
+}
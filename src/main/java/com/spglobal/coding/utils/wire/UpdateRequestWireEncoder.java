@@ -0,0 +1,151 @@
+package com.spglobal.coding.utils.wire;
+
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.InstrumentType;
+
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes update requests into one message of the {@link UpdateRequestWireFormat}.
+ * <p>
+ * An encoder belongs to a single message: it remembers the instrument codes and the last timestamp it wrote. Records
+ * written from primitive fields allocate nothing once their instrument has been sent. Every record carries a price
+ * and a request time.
+ */
+public final class UpdateRequestWireEncoder {
+
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> instrumentCodes = new HashMap<>();
+    private long previousNanos;
+    private int recordCount;
+
+    /**
+     * @param buffer the buffer the message is written to, from its current position.
+     */
+    public UpdateRequestWireEncoder(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Encodes a list of requests into a new message.
+     *
+     * @return the message, ready to be read.
+     * @throws IllegalArgumentException if a request has no price or request time, or cannot be represented.
+     */
+    public static ByteBuffer encode(List<UpdatePriceRecordRequest> requests) {
+        int capacity = Math.max(64, requests.size() * (UpdateRequestWireFormat.MAX_RECORD_SIZE + 4));
+        while (true) {
+            ByteBuffer buffer = ByteBuffer.allocate(capacity);
+            try {
+                UpdateRequestWireEncoder encoder = new UpdateRequestWireEncoder(buffer);
+                for (UpdatePriceRecordRequest request : requests) {
+                    encoder.write(request);
+                }
+                return buffer.flip();
+            } catch (BufferOverflowException e) {
+                capacity *= 2; // Long instrument names, try again with more room
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the request has no price or request time, or cannot be represented.
+     * @throws BufferOverflowException if the buffer is full.
+     */
+    public void write(UpdatePriceRecordRequest request) {
+        LocalDateTime requestTime = request.getRequestTime();
+        if (requestTime == null) {
+            throw new IllegalArgumentException("Request " + request.getId() + " has no request time");
+        }
+        long mantissa;
+        int scale;
+        if (request.hasFixedPointValue()) {
+            mantissa = request.getPriceMantissa();
+            scale = request.getPriceScale();
+        } else if (request.getValue() != null) {
+            BigDecimal value = request.getValue();
+            if (value.unscaledValue().bitLength() >= Long.SIZE) {
+                throw new IllegalArgumentException("Value of request " + request.getId() + " does not fit a fixed-point mantissa: " + value);
+            }
+            mantissa = value.unscaledValue().longValue();
+            scale = value.scale();
+        } else {
+            throw new IllegalArgumentException("Request " + request.getId() + " has no value");
+        }
+        write(request.getId(), request.getInstrument(), request.getInstrumentType(), mantissa, scale, request.getCurrency(),
+                requestTime.toEpochSecond(ZoneOffset.UTC), requestTime.getNano());
+    }
+
+    /**
+     * Writes a record from its primitive fields. The instrument is written to the dictionary the first time it is seen.
+     *
+     * @param instrument     may be null.
+     * @param instrumentType may be null.
+     * @param currency       may be null.
+     * @throws IllegalArgumentException if the scale does not fit a byte or the time is out of the nanosecond range.
+     * @throws BufferOverflowException if the buffer is full; nothing of the record has been written then.
+     */
+    public void write(int id, String instrument, InstrumentType instrumentType, long priceMantissa, int priceScale,
+                      Currency currency, long requestEpochSecond, int requestNano) {
+        if (priceScale < Byte.MIN_VALUE || priceScale > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Scale of request " + id + " out of range: " + priceScale);
+        }
+        long nanos;
+        try {
+            nanos = Math.addExact(Math.multiplyExact(requestEpochSecond, 1_000_000_000L), requestNano);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Request time of request " + id + " out of range");
+        }
+        int start = buffer.position();
+        int knownInstruments = instrumentCodes.size();
+        try {
+            int instrumentCode = instrument == null ? UpdateRequestWireFormat.NO_INSTRUMENT : codeOf(instrument);
+            buffer.put(UpdateRequestWireFormat.RECORD);
+            buffer.putInt(id);
+            buffer.putLong(priceMantissa);
+            buffer.put((byte) priceScale);
+            buffer.put((byte) (instrumentType == null ? -1 : instrumentType.ordinal()));
+            buffer.put((byte) (currency == null ? -1 : currency.ordinal()));
+            UpdateRequestWireFormat.writeVarint(buffer, instrumentCode);
+            UpdateRequestWireFormat.writeVarint(buffer, UpdateRequestWireFormat.zigzag(nanos - previousNanos));
+        } catch (BufferOverflowException e) {
+            // Leave the message as it was, so that it can be sent and the record written to the next one
+            buffer.position(start);
+            if (instrumentCodes.size() > knownInstruments) {
+                instrumentCodes.remove(instrument);
+            }
+            throw e;
+        }
+        previousNanos = nanos;
+        recordCount++;
+    }
+
+    private int codeOf(String instrument) {
+        Integer code = instrumentCodes.get(instrument);
+        if (code != null) {
+            return code;
+        }
+        int newCode = instrumentCodes.size() + 1;
+        byte[] name = instrument.getBytes(StandardCharsets.UTF_8);
+        buffer.put(UpdateRequestWireFormat.DICTIONARY);
+        UpdateRequestWireFormat.writeVarint(buffer, newCode);
+        UpdateRequestWireFormat.writeVarint(buffer, name.length);
+        buffer.put(name);
+        instrumentCodes.put(instrument, newCode);
+        return newCode;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+}
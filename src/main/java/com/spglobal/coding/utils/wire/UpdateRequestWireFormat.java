@@ -0,0 +1,67 @@
+package com.spglobal.coding.utils.wire;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary wire format of update requests, written by {@link UpdateRequestWireEncoder} and read by
+ * {@link UpdateRequestWireDecoder}.
+ * <p>
+ * A message is a sequence of entries, each starting with a tag byte. All fixed-width fields are big-endian.
+ * <pre>
+ * DICTIONARY  tag 1
+ *     varint  instrument code, from 1
+ *     varint  length of the name in bytes
+ *     bytes   instrument name, UTF-8
+ * RECORD      tag 2
+ *     int     request ID
+ *     long    price mantissa
+ *     byte    price scale
+ *     byte    instrument type ordinal, -1 if none
+ *     byte    currency ordinal, -1 if none
+ *     varint  instrument code defined earlier in the message, 0 if none
+ *     varint  request time in nanos since the epoch (UTC), zigzag-encoded delta to the previous record of the message
+ * </pre>
+ * An instrument name is sent once per message, the records then refer to it by code. Consecutive records of a feed
+ * are close in time, so their timestamps usually take two to four bytes instead of eight.
+ */
+final class UpdateRequestWireFormat {
+
+    static final byte DICTIONARY = 1;
+    static final byte RECORD = 2;
+
+    static final int NO_INSTRUMENT = 0;
+
+    // Upper bound of a record without its dictionary entry: tag, fixed-width fields and two varints of at most 10 bytes
+    static final int MAX_RECORD_SIZE = 1 + 4 + 8 + 3 + 10 + 10;
+
+    private UpdateRequestWireFormat() {
+    }
+
+    static void writeVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at position " + buffer.position());
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
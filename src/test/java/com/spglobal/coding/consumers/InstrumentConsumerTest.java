@@ -3,6 +3,7 @@ package com.spglobal.coding.consumers;
 import com.spglobal.coding.consumers.dto.GetPriceRecordResponse;
 import com.spglobal.coding.consumers.dto.GetPriceRecordsListResponse;
 import com.spglobal.coding.services.InstrumentPriceService;
+import com.spglobal.coding.services.PriceSnapshot;
 import com.spglobal.coding.services.model.PriceRecord;
 import com.spglobal.coding.utils.enums.InstrumentType;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,6 +30,7 @@ class InstrumentConsumerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(instrumentPriceService.getSnapshot()).thenReturn(instrumentPriceService); // Serve reads from the mock itself
     }
 
     @Test
@@ -148,6 +150,20 @@ class InstrumentConsumerTest {
         verify(instrumentPriceService).getPriceRecordsWithInstrumentType(instrumentType);
     }
 
+    @Test
+    void testResponsesCarryTheEpochOfTheSnapshot() {
+        InstrumentType instrumentType = InstrumentType.STOCK;
+        PriceSnapshot snapshot = mock(PriceSnapshot.class);
+        when(snapshot.getEpoch()).thenReturn(7L);
+        when(snapshot.getPriceRecordsWithInstrumentType(instrumentType)).thenReturn(List.of(mock(PriceRecord.class)));
+        when(snapshot.getPriceRecordWithRecordId("record123", null)).thenReturn(Optional.empty());
+        when(instrumentPriceService.getSnapshot()).thenReturn(snapshot);
+
+        assertEquals(7L, instrumentConsumer.getPriceRecordsByInstrumentType(instrumentType).epoch());
+        assertEquals(7L, instrumentConsumer.getPriceRecordById("record123").epoch());
+        verify(instrumentPriceService, never()).getPriceRecordsWithInstrumentType(any());
+    }
+
     @Test
     void testGetPriceRecordsByInstrumentTypeNoRecords() {
         // Arrange
@@ -0,0 +1,57 @@
+package com.spglobal.coding.producers;
+
+import com.spglobal.coding.utils.config.RetentionPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRetentionTest {
+
+    private final List<String> evicted = new CopyOnWriteArrayList<>();
+
+    @Test
+    void testBatchesAreEvictedOnceTheirRetentionIsOver() throws InterruptedException {
+        BatchRetention retention = new BatchRetention(new RetentionPolicy.Builder()
+                .setRetention(Duration.ofMillis(20))
+                .setSweepInterval(Duration.ofMillis(10))
+                .build(), evicted::add);
+        AtomicInteger released = new AtomicInteger();
+
+        retention.retire("first", released::incrementAndGet);
+        retention.retire("second", null);
+        assertEquals(2, retention.getRetainedCount());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (retention.getRetainedCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(List.of("first", "second"), evicted);
+        assertEquals(1, released.get());
+        assertEquals(2, retention.getEvictedCount());
+    }
+
+    @Test
+    void testOldestBatchesAreEvictedBeyondTheBound() {
+        BatchRetention retention = new BatchRetention(new RetentionPolicy.Builder().setMaxRetainedBatches(2).build(), evicted::add);
+
+        for (int i = 0; i < 5; i++) {
+            retention.retire("batch-" + i, null);
+        }
+        retention.sweep(); // Nothing is past the default retention
+
+        assertEquals(List.of("batch-0", "batch-1", "batch-2"), evicted);
+        assertEquals(2, retention.getRetainedCount());
+    }
+
+    @Test
+    void testInvalidPolicyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RetentionPolicy.Builder().setMaxRetainedBatches(-1).build());
+        assertThrows(IllegalArgumentException.class, () -> new RetentionPolicy.Builder().setSweepInterval(Duration.ZERO).build());
+        assertThrows(IllegalArgumentException.class, () -> new RetentionPolicy.Builder().setRetention(null).build());
+    }
+}
@@ -1,23 +1,56 @@
 package com.spglobal.coding.producers;
 
+import com.spglobal.coding.producers.dto.BatchCancellationResponse;
+import com.spglobal.coding.producers.dto.BatchCompletionResponse;
+import com.spglobal.coding.producers.dto.BatchProgress;
+import com.spglobal.coding.producers.dto.BatchResult;
+import com.spglobal.coding.producers.dto.BatchStartRequest;
 import com.spglobal.coding.producers.dto.BatchStartResponse;
+import com.spglobal.coding.producers.dto.BatchUploadResponse;
 import com.spglobal.coding.utils.dto.BatchProcessResponse;
 import com.spglobal.coding.producers.model.PriceRecordUpdateRequestBatch;
 import com.spglobal.coding.utils.ChunkProcessor;
+import com.spglobal.coding.utils.ChunkStream;
 import com.spglobal.coding.utils.UpdatePriceRecordRequestFactory;
+import com.spglobal.coding.utils.config.RetentionPolicy;
+import com.spglobal.coding.utils.config.RetryPolicy;
+import com.spglobal.coding.utils.dto.BatchMetrics;
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.BatchMode;
 import com.spglobal.coding.utils.enums.BatchStatus;
+import com.spglobal.coding.utils.enums.CompletionStatus;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+import com.spglobal.coding.utils.exceptions.ChunkProcessorSaturatedException;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+import com.spglobal.coding.utils.dedup.FingerprintWindow;
+import com.spglobal.coding.utils.retry.FailedRequestRetrier;
+import com.spglobal.coding.utils.staging.BatchStagingStore;
+import com.spglobal.coding.utils.wire.UpdateRequestWireEncoder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 class InstrumentProducerTest {
@@ -143,6 +176,114 @@ class InstrumentProducerTest {
         assertEquals(BatchStatus.FAILED, batch.getStatus());
     }
 
+    @Test
+    void testCompleteBatchRejectedWhenChunkProcessorIsSaturated() {
+        // Arrange
+        BatchStartResponse startResponse = instrumentProducer.startNewBatch();
+        List<UpdatePriceRecordRequest> updatePriceRecordRequests = createRandomUpdatePriceRecordRequest(5);
+        instrumentProducer.uploadRequests(startResponse.batchId(), updatePriceRecordRequests);
+
+        when(chunkProcessor.processBatch(startResponse.batchId(), updatePriceRecordRequests))
+                .thenThrow(new ChunkProcessorSaturatedException("queue is full"))
+                .thenReturn(CompletableFuture.completedFuture(new BatchProcessResponse(true, new ArrayList<>())));
+
+        // Act
+        BatchCompletionResponse rejected = instrumentProducer.completeBatch(startResponse.batchId());
+
+        // Assert: the batch can be completed again once the processor has room
+        assertEquals(CompletionStatus.REJECTED_RETRIABLE, rejected.status());
+        assertTrue(rejected.isRetriable());
+        assertEquals(BatchStatus.UPLOADING_REQUESTS, instrumentProducer.getBatchById(startResponse.batchId()).getStatus());
+
+        BatchCompletionResponse accepted = instrumentProducer.completeBatch(startResponse.batchId());
+        assertEquals(CompletionStatus.ACCEPTED, accepted.status());
+        assertEquals(BatchStatus.COMPLETED, instrumentProducer.getBatchById(startResponse.batchId()).getStatus());
+    }
+
+    @Test
+    void testCompletionResultResolvesOnceTheBatchIsProcessed() throws Exception {
+        String batchId = instrumentProducer.startNewBatch().batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        instrumentProducer.uploadRequests(batchId, requests);
+        CompletableFuture<BatchProcessResponse> processing = new CompletableFuture<>();
+        when(chunkProcessor.processBatch(batchId, requests)).thenReturn(processing);
+        CompletableFuture<BatchResult> notified = new CompletableFuture<>();
+
+        BatchCompletionResponse response = instrumentProducer.completeBatch(batchId).whenFinished(notified::complete);
+
+        assertFalse(response.result().isDone());
+        assertThrows(TimeoutException.class, () -> instrumentProducer.awaitBatch(batchId, Duration.ofMillis(10)));
+        processing.complete(new BatchProcessResponse(false, requests.subList(0, 2)));
+
+        BatchResult result = instrumentProducer.awaitBatch(batchId, Duration.ofSeconds(5));
+        assertEquals(BatchStatus.PROCESSED_WITH_ERRORS, result.status());
+        assertEquals(2, result.getFailedCount());
+        assertFalse(result.isSuccess());
+        assertNull(result.errorMessage());
+        assertSame(result, response.result().get());
+        assertSame(result, notified.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFailingListenerDoesNotAffectOtherListeners() throws Exception {
+        String batchId = instrumentProducer.startNewBatch().batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        instrumentProducer.uploadRequests(batchId, requests);
+        when(chunkProcessor.processBatch(batchId, requests)).thenReturn(new CompletableFuture<>());
+        CompletableFuture<BatchResult> notified = new CompletableFuture<>();
+
+        BatchCompletionResponse response = instrumentProducer.completeBatch(batchId)
+                .whenFinished(result -> {
+                    throw new IllegalStateException("Listener error");
+                })
+                .whenFinished(notified::complete);
+        response.result().complete(new BatchResult(batchId, BatchStatus.COMPLETED, List.of(), UpdateOutcomes.none()));
+
+        assertEquals(BatchStatus.COMPLETED, notified.get(5, TimeUnit.SECONDS).status());
+        assertThrows(IllegalStateException.class,
+                () -> new BatchCompletionResponse(batchId, "Not created by a producer").whenFinished(result -> { }));
+    }
+
+    @Test
+    void testResultOfFailedAndCancelledBatches() throws Exception {
+        String failedBatchId = instrumentProducer.startNewBatch().batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        instrumentProducer.uploadRequests(failedBatchId, requests);
+        when(chunkProcessor.processBatch(failedBatchId, requests)).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Processing error")));
+        String cancelledBatchId = instrumentProducer.startNewBatch().batchId();
+        instrumentProducer.uploadRequests(cancelledBatchId, createRandomUpdatePriceRecordRequest(3));
+
+        BatchCompletionResponse failed = instrumentProducer.completeBatch(failedBatchId);
+        instrumentProducer.cancelBatch(cancelledBatchId);
+
+        assertEquals(BatchStatus.FAILED, failed.result().get().status());
+        assertEquals("Processing error", failed.result().get().errorMessage());
+        BatchResult cancelled = instrumentProducer.awaitBatch(cancelledBatchId, Duration.ZERO);
+        assertEquals(BatchStatus.CANCELLED, cancelled.status());
+        assertEquals(3, cancelled.getFailedCount());
+    }
+
+    @Test
+    void testBatchProgressIsReadFromItsRecorder() {
+        String batchId = instrumentProducer.startNewBatch().batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        instrumentProducer.uploadRequests(batchId, requests);
+        when(chunkProcessor.processBatch(batchId, requests)).thenReturn(new CompletableFuture<>());
+
+        BatchProgress uploading = instrumentProducer.getBatchProgress(batchId);
+        instrumentProducer.completeBatch(batchId);
+        BatchProgress processing = instrumentProducer.getBatchProgress(batchId);
+
+        verify(chunkProcessor).trackProgress(batchId, instrumentProducer.getBatchById(batchId).getProgress());
+        assertEquals(BatchStatus.UPLOADING_REQUESTS, uploading.status());
+        assertEquals(5, uploading.totalRequests());
+        assertEquals(0, uploading.processedRequests());
+        assertNull(uploading.remainingTime()); // No rate yet
+        assertEquals(BatchStatus.PROCESSING, processing.status());
+        assertEquals(0, processing.getCompletedFraction());
+        assertThrows(IllegalStateException.class, () -> instrumentProducer.getBatchProgress(UUID.randomUUID().toString()));
+    }
+
     @Test
     void testCancelInProgressBatch() {
         // Arrange
@@ -158,6 +299,105 @@ class InstrumentProducerTest {
         assertEquals(BatchStatus.CANCELLED, batch.getStatus());
     }
 
+    @Test
+    void testCancelProcessingBatchReportsRequestsNotApplied() {
+        String batchId = instrumentProducer.startNewBatch().batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        instrumentProducer.uploadRequests(batchId, requests);
+        CompletableFuture<BatchProcessResponse> processing = new CompletableFuture<>();
+        when(chunkProcessor.processBatch(batchId, requests)).thenReturn(processing);
+        List<UpdatePriceRecordRequest> notApplied = requests.subList(2, 5);
+        UpdateOutcomes outcomes = new UpdateOutcomes.Builder()
+                .add(UpdateOutcome.APPLIED, 2)
+                .addFailure(UpdateOutcome.CANCELLED)
+                .addFailure(UpdateOutcome.CANCELLED)
+                .addFailure(UpdateOutcome.CANCELLED)
+                .build();
+        when(chunkProcessor.cancelBatch(batchId)).thenAnswer(invocation ->
+                processing.complete(new BatchProcessResponse(false, notApplied, BatchMetrics.none(), outcomes)));
+        instrumentProducer.completeBatch(batchId);
+
+        BatchCancellationResponse response = instrumentProducer.cancelBatch(batchId);
+
+        verify(chunkProcessor).cancelBatch(batchId);
+        assertEquals(notApplied, response.cancelledRequests());
+        assertEquals(2, response.outcomes().getCount(UpdateOutcome.APPLIED));
+        assertEquals(BatchStatus.CANCELLED, instrumentProducer.getBatchById(batchId).getStatus());
+    }
+
+    @Test
+    void testCancelBetweenProcessingAndSubmittingCancelsTheBatch() throws Exception {
+        String batchId = instrumentProducer.startNewBatch().batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        instrumentProducer.uploadRequests(batchId, requests);
+        CountDownLatch cancelReachedProcessor = new CountDownLatch(1);
+        when(chunkProcessor.cancelBatch(batchId)).thenAnswer(invocation -> {
+            cancelReachedProcessor.countDown();
+            return true;
+        });
+        CompletableFuture<BatchCancellationResponse> cancellation = new CompletableFuture<>();
+        when(chunkProcessor.processBatch(batchId, requests)).thenAnswer(invocation -> {
+            // The batch is processing, but its chunks are only submitted once the cancel reached the ChunkProcessor
+            cancellation.completeAsync(() -> instrumentProducer.cancelBatch(batchId));
+            assertTrue(cancelReachedProcessor.await(5, TimeUnit.SECONDS));
+            return CompletableFuture.completedFuture(new BatchProcessResponse(false, requests, BatchMetrics.none(),
+                    UpdateOutcomes.allFailed(requests.size(), UpdateOutcome.CANCELLED)));
+        });
+
+        instrumentProducer.completeBatch(batchId);
+        BatchCancellationResponse response = cancellation.get(5, TimeUnit.SECONDS);
+
+        InOrder inOrder = inOrder(chunkProcessor);
+        inOrder.verify(chunkProcessor).registerBatch(batchId);
+        inOrder.verify(chunkProcessor).cancelBatch(batchId);
+        assertEquals(requests, response.cancelledRequests());
+        assertEquals(BatchStatus.CANCELLED, instrumentProducer.getBatchById(batchId).getStatus());
+    }
+
+    @Test
+    void testBatchProcessedBeforeTheCancelIsNotCancellable() {
+        String batchId = instrumentProducer.startNewBatch().batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        instrumentProducer.uploadRequests(batchId, requests);
+        CompletableFuture<BatchProcessResponse> processing = new CompletableFuture<>();
+        when(chunkProcessor.processBatch(batchId, requests)).thenReturn(processing);
+        // The batch finishes while the cancel reaches the ChunkProcessor, which no longer knows it
+        when(chunkProcessor.cancelBatch(batchId)).thenAnswer(invocation ->
+                !processing.complete(new BatchProcessResponse(true, List.of())));
+        instrumentProducer.completeBatch(batchId);
+
+        assertThrows(IllegalStateException.class, () -> instrumentProducer.cancelBatch(batchId));
+        assertEquals(BatchStatus.COMPLETED, instrumentProducer.getBatchById(batchId).getStatus());
+    }
+
+    @Test
+    void testRequestsRecoveredByARetryAreNoLongerFailed() throws Exception {
+        FailedRequestRetrier retrier = new FailedRequestRetrier(chunkProcessor, new RetryPolicy.Builder()
+                .setInitialBackoff(Duration.ZERO)
+                .setMaxBackoff(Duration.ZERO)
+                .build(), null);
+        InstrumentProducer producer = new InstrumentProducer(chunkProcessor, null, retrier);
+        CompletableFuture<String> recovered = new CompletableFuture<>();
+        retrier.addRecoveryListener((batchId, requests) -> recovered.complete(batchId)); // Called after the producer
+        String batchId = producer.startNewBatch().batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        producer.uploadRequests(batchId, requests);
+        when(chunkProcessor.processBatch(batchId, requests)).thenReturn(CompletableFuture.completedFuture(
+                new BatchProcessResponse(false, requests.subList(0, 2), BatchMetrics.none(),
+                        UpdateOutcomes.allFailed(2, UpdateOutcome.CHUNK_FAILED))));
+        when(chunkProcessor.processBatch(startsWith(FailedRequestRetrier.RETRY_BATCH_PREFIX), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(new BatchProcessResponse(true, List.of())));
+
+        BatchCompletionResponse response = producer.completeBatch(batchId);
+
+        assertEquals(batchId, recovered.get(5, TimeUnit.SECONDS));
+        assertTrue(InstrumentProducer.failedRequestsMap.get(batchId).isEmpty());
+        // The result still reports the processing of the batch itself
+        assertEquals(2, response.result().get().getFailedCount());
+        assertEquals(BatchStatus.PROCESSED_WITH_ERRORS, producer.getBatchById(batchId).getStatus());
+        retrier.shutdown();
+    }
+
     @Test
     void testCancelStartedBatch() {
         // Arrange
@@ -191,6 +431,215 @@ class InstrumentProducerTest {
         assertTrue(exception.getMessage().contains("cannot be cancelled as it is not in a cancellable state."));
     }
 
+    @Test
+    void testStreamingBatchAppendsUploadsToChunkStream() {
+        // Arrange
+        ChunkStream chunkStream = mock(ChunkStream.class);
+        when(chunkProcessor.openStream(anyString())).thenReturn(chunkStream);
+        when(chunkStream.complete()).thenReturn(CompletableFuture.completedFuture(new BatchProcessResponse(true, new ArrayList<>())));
+
+        BatchStartResponse startResponse = instrumentProducer.startNewBatch(new BatchStartRequest.Builder().setBatchMode(BatchMode.STREAMING).build());
+        List<UpdatePriceRecordRequest> firstUpload = createRandomUpdatePriceRecordRequest(5);
+        List<UpdatePriceRecordRequest> secondUpload = createRandomUpdatePriceRecordRequest(3);
+
+        // Act
+        instrumentProducer.uploadRequests(startResponse.batchId(), firstUpload);
+        instrumentProducer.uploadRequests(startResponse.batchId(), secondUpload);
+        instrumentProducer.completeBatch(startResponse.batchId());
+
+        // Assert
+        verify(chunkProcessor, times(1)).openStream(startResponse.batchId());
+        verify(chunkStream).append(firstUpload);
+        verify(chunkStream).append(secondUpload);
+        verify(chunkProcessor, never()).processBatch(anyString(), anyList());
+
+        PriceRecordUpdateRequestBatch batch = instrumentProducer.getBatchById(startResponse.batchId());
+        assertTrue(batch.getRequests().isEmpty());
+        assertEquals(8, batch.getUploadedCount());
+        assertEquals(BatchStatus.COMPLETED, batch.getStatus());
+    }
+
+    @Test
+    void testStreamedUploadIsAppendedOutsideOfTheBatchLock() {
+        ChunkStream chunkStream = mock(ChunkStream.class);
+        when(chunkProcessor.openStream(anyString())).thenReturn(chunkStream);
+        String batchId = instrumentProducer.startNewBatch(new BatchStartRequest.Builder().setBatchMode(BatchMode.STREAMING).build()).batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        // A submission blocked on a full queue must not keep other threads from the batch entry
+        doAnswer(invocation -> CompletableFuture.supplyAsync(() -> InstrumentProducer.getBatchMap().computeIfPresent(batchId, (id, batch) -> batch))
+                .get(5, TimeUnit.SECONDS))
+                .doThrow(new IllegalStateException("Chunk stream is already closed."))
+                .when(chunkStream).append(anyList());
+
+        instrumentProducer.uploadRequests(batchId, requests);
+        assertThrows(IllegalStateException.class, () -> instrumentProducer.uploadRequests(batchId, createRandomUpdatePriceRecordRequest(3)));
+
+        // The upload that could not be appended is not counted
+        assertEquals(5, instrumentProducer.getBatchById(batchId).getUploadedCount());
+    }
+
+    @Test
+    void testStreamIsCancelledOutsideOfTheBatchLock() {
+        ChunkStream chunkStream = mock(ChunkStream.class);
+        when(chunkProcessor.openStream(anyString())).thenReturn(chunkStream);
+        String batchId = instrumentProducer.startNewBatch(new BatchStartRequest.Builder().setBatchMode(BatchMode.STREAMING).build()).batchId();
+        instrumentProducer.uploadRequests(batchId, createRandomUpdatePriceRecordRequest(5));
+        List<UpdatePriceRecordRequest> unsubmitted = createRandomUpdatePriceRecordRequest(2);
+        // The cancel waits for an append in progress, which must not keep other threads from the batch entry
+        when(chunkStream.cancel()).thenAnswer(invocation -> {
+            CompletableFuture.supplyAsync(() -> InstrumentProducer.getBatchMap().computeIfPresent(batchId, (id, batch) -> batch))
+                    .get(5, TimeUnit.SECONDS);
+            return unsubmitted;
+        });
+
+        BatchCancellationResponse response = instrumentProducer.cancelBatch(batchId);
+
+        assertEquals(unsubmitted, response.cancelledRequests());
+        assertEquals(unsubmitted, InstrumentProducer.failedRequestsMap.get(batchId));
+        assertEquals(BatchStatus.CANCELLED, instrumentProducer.getBatchById(batchId).getStatus());
+    }
+
+    @Test
+    void testSpilledBatchIsProcessedFromStagingStore(@TempDir Path spillDirectory) throws IOException {
+        // Arrange
+        when(chunkProcessor.processStagedBatch(anyString(), any(BatchStagingStore.class)))
+                .thenReturn(CompletableFuture.completedFuture(new BatchProcessResponse(true, new ArrayList<>())));
+        BatchStartResponse startResponse = instrumentProducer.startNewBatch(new BatchStartRequest.Builder()
+                .setSpillThreshold(2)
+                .setSpillDirectory(spillDirectory)
+                .build());
+        List<UpdatePriceRecordRequest> updatePriceRecordRequests = createRandomUpdatePriceRecordRequest(5);
+
+        // Act
+        instrumentProducer.uploadRequests(startResponse.batchId(), updatePriceRecordRequests);
+        PriceRecordUpdateRequestBatch batch = instrumentProducer.getBatchById(startResponse.batchId());
+        BatchStagingStore stagingStore = batch.getStagingStore();
+        assertTrue(stagingStore.isSpilled());
+        assertEquals(5, batch.getRequests().size());
+        instrumentProducer.completeBatch(startResponse.batchId());
+
+        // Assert
+        verify(chunkProcessor, times(1)).processStagedBatch(startResponse.batchId(), stagingStore);
+        verify(chunkProcessor, never()).processBatch(anyString(), anyList());
+        assertEquals(BatchStatus.COMPLETED, batch.getStatus());
+        assertTrue(batch.isPayloadReleased());
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count()); // The spill file is deleted once the batch is processed
+        }
+    }
+
+    @Test
+    void testEncodedUploadIsProcessedAsColumnarBatch() {
+        // Arrange
+        when(chunkProcessor.processColumnarBatch(anyString(), any(ColumnarRequestBatch.class)))
+                .thenReturn(CompletableFuture.completedFuture(new BatchProcessResponse(true, new ArrayList<>())));
+        BatchStartResponse startResponse = instrumentProducer.startNewBatch();
+        List<UpdatePriceRecordRequest> updatePriceRecordRequests = createRandomUpdatePriceRecordRequest(5);
+
+        // Act
+        BatchUploadResponse uploadResponse = instrumentProducer.uploadRequests(startResponse.batchId(),
+                UpdateRequestWireEncoder.encode(updatePriceRecordRequests));
+        PriceRecordUpdateRequestBatch batch = instrumentProducer.getBatchById(startResponse.batchId());
+        ColumnarRequestBatch columnarRequests = batch.getColumnarRequests();
+        assertEquals(updatePriceRecordRequests.get(3).getId(), batch.getRequests().get(3).getId());
+        instrumentProducer.completeBatch(startResponse.batchId());
+
+        // Assert
+        assertEquals(5, uploadResponse.uploadedCount());
+        assertEquals(5, columnarRequests.size());
+        verify(chunkProcessor, times(1)).processColumnarBatch(startResponse.batchId(), columnarRequests);
+        verify(chunkProcessor, never()).processBatch(anyString(), anyList());
+        assertEquals(BatchStatus.COMPLETED, batch.getStatus());
+    }
+
+    @Test
+    void testEncodedUploadCannotBeMixedWithRequestLists() {
+        BatchStartResponse startResponse = instrumentProducer.startNewBatch();
+        instrumentProducer.uploadRequests(startResponse.batchId(), createRandomUpdatePriceRecordRequest(2));
+
+        assertThrows(IllegalStateException.class, () -> instrumentProducer.uploadRequests(startResponse.batchId(),
+                UpdateRequestWireEncoder.encode(createRandomUpdatePriceRecordRequest(2))));
+    }
+
+    @Test
+    void testStartingWithAKnownIdempotencyKeyReturnsTheSameBatch() {
+        BatchStartRequest request = new BatchStartRequest.Builder().setIdempotencyKey(UUID.randomUUID().toString()).build();
+        BatchStartResponse first = instrumentProducer.startNewBatch(request);
+
+        BatchStartResponse replay = instrumentProducer.startNewBatch(request);
+
+        assertFalse(first.replay());
+        assertTrue(replay.replay());
+        assertEquals(first.batchId(), replay.batchId());
+
+        // A cancelled batch can be started anew
+        instrumentProducer.cancelBatch(first.batchId());
+        BatchStartResponse restart = instrumentProducer.startNewBatch(request);
+        assertFalse(restart.replay());
+        assertNotEquals(first.batchId(), restart.batchId());
+    }
+
+    @Test
+    void testReplayedRecordsAreSkipped() {
+        InstrumentProducer producer = new InstrumentProducer(chunkProcessor, new FingerprintWindow(100));
+        List<UpdatePriceRecordRequest> updatePriceRecordRequests = createRandomUpdatePriceRecordRequest(5);
+        String firstBatchId = producer.startNewBatch(new BatchStartRequest.Builder().setIdempotencyKey(UUID.randomUUID().toString()).build()).batchId();
+        String secondBatchId = producer.startNewBatch(new BatchStartRequest.Builder().setIdempotencyKey(UUID.randomUUID().toString()).build()).batchId();
+        producer.uploadRequests(firstBatchId, updatePriceRecordRequests.subList(0, 3));
+
+        BatchUploadResponse listUpload = producer.uploadRequests(secondBatchId, updatePriceRecordRequests.subList(0, 4));
+        BatchUploadResponse encodedUpload = producer.uploadRequests(producer.startNewBatch(
+                        new BatchStartRequest.Builder().setIdempotencyKey(UUID.randomUUID().toString()).build()).batchId(),
+                UpdateRequestWireEncoder.encode(updatePriceRecordRequests));
+
+        assertEquals(1, listUpload.uploadedCount());
+        assertEquals(3, listUpload.duplicateCount());
+        assertEquals(1, encodedUpload.uploadedCount());
+        assertEquals(4, encodedUpload.duplicateCount());
+        assertEquals(updatePriceRecordRequests.get(3).getId(), producer.getBatchById(secondBatchId).getRequests().get(0).getId());
+
+        // Records of a batch without idempotency key are not checked
+        BatchUploadResponse uncheckedUpload = producer.uploadRequests(producer.startNewBatch().batchId(), updatePriceRecordRequests);
+        assertEquals(5, uncheckedUpload.uploadedCount());
+
+        // Cancelled records can be sent again
+        producer.cancelBatch(firstBatchId);
+        BatchUploadResponse resentUpload = producer.uploadRequests(secondBatchId, updatePriceRecordRequests.subList(0, 3));
+        assertEquals(3, resentUpload.uploadedCount());
+    }
+
+    @Test
+    void testOldestFinishedBatchIsEvictedBeyondTheRetentionBound() {
+        InstrumentProducer producer = new InstrumentProducer(chunkProcessor, null, null,
+                new RetentionPolicy.Builder().setMaxRetainedBatches(1).build());
+        BatchStartRequest request = new BatchStartRequest.Builder().setIdempotencyKey(UUID.randomUUID().toString()).build();
+        String completedBatchId = producer.startNewBatch(request).batchId();
+        List<UpdatePriceRecordRequest> requests = createRandomUpdatePriceRecordRequest(5);
+        producer.uploadRequests(completedBatchId, requests);
+        when(chunkProcessor.processBatch(completedBatchId, requests))
+                .thenReturn(CompletableFuture.completedFuture(new BatchProcessResponse(false, requests.subList(0, 2))));
+        producer.completeBatch(completedBatchId);
+
+        PriceRecordUpdateRequestBatch completedBatch = producer.getBatchById(completedBatchId);
+        assertEquals(BatchStatus.PROCESSED_WITH_ERRORS, completedBatch.getStatus());
+        assertTrue(completedBatch.isPayloadReleased());
+        assertTrue(completedBatch.getRequests().isEmpty());
+        assertEquals(5, completedBatch.getUploadedCount());
+        assertTrue(producer.startNewBatch(request).replay());
+
+        String cancelledBatchId = producer.startNewBatch().batchId();
+        producer.uploadRequests(cancelledBatchId, createRandomUpdatePriceRecordRequest(3));
+        BatchCancellationResponse cancellation = producer.cancelBatch(cancelledBatchId);
+
+        // Only the cancelled batch is retained now; the key of the evicted batch starts a new one
+        assertEquals(3, cancellation.cancelledRequests().size());
+        assertNull(producer.getBatchById(completedBatchId));
+        assertFalse(InstrumentProducer.failedRequestsMap.containsKey(completedBatchId));
+        assertEquals(3, InstrumentProducer.failedRequestsMap.get(cancelledBatchId).size());
+        assertTrue(producer.getBatchById(cancelledBatchId).isPayloadReleased());
+        assertFalse(producer.startNewBatch(request).replay());
+    }
+
     // Helper method to create price records using PriceRecordFactory
     private List<UpdatePriceRecordRequest> createRandomUpdatePriceRecordRequest(int count) {
         List<UpdatePriceRecordRequest> records = new ArrayList<>();
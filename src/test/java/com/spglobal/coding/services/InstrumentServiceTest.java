@@ -1,13 +1,20 @@
 package com.spglobal.coding.services;
 
 import com.spglobal.coding.consumers.dto.GetPriceRecordsListResponse;
+import com.spglobal.coding.utils.CancellationToken;
+import com.spglobal.coding.utils.HotPathEventLog;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
 import com.spglobal.coding.utils.dto.ChunkProcessRequest;
+import com.spglobal.coding.utils.dto.ColumnarChunkProcessRequest;
 import com.spglobal.coding.services.dto.ChunkProcessResponse;
 import com.spglobal.coding.services.model.PriceRecord;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
 import com.spglobal.coding.utils.enums.Currency;
 import com.spglobal.coding.utils.exceptions.UpdateRequestProcessingException;
 import com.spglobal.coding.utils.enums.InstrumentType;
+import com.spglobal.coding.utils.enums.PriceRepresentation;
+import com.spglobal.coding.utils.enums.PublicationMode;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -33,8 +40,6 @@ class InstrumentServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        // Reset static fields if needed (e.g., latestPrices)
-        // Note: If you're using an IDE, sometimes you may need to use reflection to reset static fields for tests.
     }
 
     @Test
@@ -68,8 +73,8 @@ class InstrumentServiceTest {
         // Assert
         assertTrue(response.isSuccess());
         assertTrue(response.failedRequests().isEmpty());
-        assertNotNull(InstrumentPriceService.latestPrices.get(InstrumentType.STOCK));
-        assertNotNull(InstrumentPriceService.latestPrices.get(InstrumentType.BOND));
+        assertNotNull(instrumentPriceService.latestPrices.get(InstrumentType.STOCK));
+        assertNotNull(instrumentPriceService.latestPrices.get(InstrumentType.BOND));
     }
 
     @Test
@@ -97,6 +102,173 @@ class InstrumentServiceTest {
     }
 
 
+    @Test
+    void testProcessChunkPreAggregatesRepeatedInstrument() {
+        String batchId = "batch123";
+        LocalDateTime baseTime = LocalDateTime.now().minusHours(1);
+
+        // Many updates for the same instrument in one chunk, deliberately out of order
+        List<UpdatePriceRecordRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int offset = (i * 7) % 50;
+            requests.add(new UpdatePriceRecordRequest.Builder()
+                    .setId(offset)
+                    .setInstrument("Platinum")
+                    .setInstrumentType(InstrumentType.COMMODITIES)
+                    .setValue(BigDecimal.valueOf(offset))
+                    .setCurrency(Currency.USD)
+                    .setRequestTime(baseTime.plusSeconds(offset))
+                    .build());
+        }
+
+        instrumentPriceService.clearAllPrices();
+        ChunkProcessResponse response = instrumentPriceService.processChunk(new ChunkProcessRequest(batchId, requests));
+
+        assertTrue(response.isSuccess());
+        PriceRecord priceRecord = instrumentPriceService.latestPrices.get(InstrumentType.COMMODITIES).get("PLATINUM");
+        assertNotNull(priceRecord);
+        assertEquals(BigDecimal.valueOf(49), priceRecord.getLatestPrice());
+        assertEquals(baseTime.plusSeconds(49), priceRecord.getLastUpdateTime());
+
+        // Only the ten newest payloads are kept, newest first
+        assertEquals(10, priceRecord.getPayloadHistory().size());
+        assertEquals(49, priceRecord.getPayloadHistory().first().getId());
+        assertEquals(40, priceRecord.getPayloadHistory().last().getId());
+    }
+
+    @Test
+    void testProcessChunkInFixedPointMode() {
+        InstrumentPriceService fixedPointService = new InstrumentPriceService(PriceRepresentation.FIXED_POINT);
+        LocalDateTime now = LocalDateTime.now();
+
+        UpdatePriceRecordRequest decimalRequest = new UpdatePriceRecordRequest.Builder()
+                .setId(1)
+                .setInstrument("Palladium")
+                .setInstrumentType(InstrumentType.COMMODITIES)
+                .setValue(new BigDecimal("101.123456"))
+                .setCurrency(Currency.USD)
+                .setRequestTime(now.minusSeconds(1))
+                .build();
+
+        UpdatePriceRecordRequest fixedPointRequest = new UpdatePriceRecordRequest.Builder()
+                .setId(2)
+                .setInstrument("Palladium")
+                .setInstrumentType(InstrumentType.COMMODITIES)
+                .setFixedPointValue(10225, 2)
+                .setCurrency(Currency.USD)
+                .setRequestTime(now)
+                .build();
+
+        UpdatePriceRecordRequest overflowRequest = new UpdatePriceRecordRequest.Builder()
+                .setId(3)
+                .setInstrument("Palladium")
+                .setInstrumentType(InstrumentType.COMMODITIES)
+                .setValue(new BigDecimal("1e30"))
+                .setCurrency(Currency.USD)
+                .setRequestTime(now.minusSeconds(2))
+                .build();
+
+        fixedPointService.clearAllPrices();
+        ChunkProcessResponse response = fixedPointService.processChunk(new ChunkProcessRequest("batch123", List.of(decimalRequest, fixedPointRequest, overflowRequest)));
+
+        assertFalse(response.isSuccess());
+        assertEquals(List.of(overflowRequest), response.failedRequests());
+
+        PriceRecord priceRecord = fixedPointService.latestPrices.get(InstrumentType.COMMODITIES).get("PALLADIUM");
+        assertTrue(priceRecord.getLatestPayload().isFixedPoint());
+        assertEquals(1022500L, priceRecord.getLatestPayload().getValueMantissa());
+        assertEquals(new BigDecimal("102.2500"), priceRecord.getLatestPrice());
+        assertEquals(new BigDecimal("101.1235"), priceRecord.getPayloadHistory().last().getValue());
+    }
+
+    @Test
+    void testProcessChunkReportsOutcomes() {
+        InstrumentPriceService fixedPointService = new InstrumentPriceService(PriceRepresentation.FIXED_POINT);
+        LocalDateTime baseTime = LocalDateTime.now().minusHours(1);
+        List<UpdatePriceRecordRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 12; i++) { // Two more than the history holds
+            requests.add(new UpdatePriceRecordRequest.Builder()
+                    .setId(i)
+                    .setInstrument("Iridium")
+                    .setInstrumentType(InstrumentType.COMMODITIES)
+                    .setValue(BigDecimal.valueOf(100 + i))
+                    .setCurrency(Currency.USD)
+                    .setRequestTime(baseTime.plusSeconds(i))
+                    .build());
+        }
+        UpdatePriceRecordRequest overflowRequest = new UpdatePriceRecordRequest.Builder()
+                .setId(20)
+                .setInstrument("Osmium")
+                .setInstrumentType(InstrumentType.COMMODITIES)
+                .setValue(new BigDecimal("1e30"))
+                .setCurrency(Currency.USD)
+                .setRequestTime(baseTime)
+                .build();
+        UpdatePriceRecordRequest nullFieldRequest = new UpdatePriceRecordRequest.Builder().setId(21).setInstrument("Iridium").build();
+        requests.add(overflowRequest);
+        requests.add(nullFieldRequest);
+
+        fixedPointService.clearAllPrices();
+        ChunkProcessResponse response = fixedPointService.processChunk(new ChunkProcessRequest("batch123", requests));
+
+        assertEquals(Map.of(UpdateOutcome.APPLIED, 10L, UpdateOutcome.SUPERSEDED, 2L,
+                UpdateOutcome.INVALID_PRICE, 1L, UpdateOutcome.INVALID_NULL_FIELD, 1L), response.outcomes().toMap());
+        assertEquals(List.of(nullFieldRequest, overflowRequest), response.failedRequests());
+        assertEquals(UpdateOutcome.INVALID_NULL_FIELD, response.outcomes().getFailureReason(0));
+        assertEquals(UpdateOutcome.INVALID_PRICE, response.outcomes().getFailureReason(1));
+
+        // Older than the whole retained history: ignored, but not a failure
+        UpdatePriceRecordRequest staleRequest = new UpdatePriceRecordRequest.Builder()
+                .setId(30)
+                .setInstrument("Iridium")
+                .setInstrumentType(InstrumentType.COMMODITIES)
+                .setValue(BigDecimal.valueOf(90))
+                .setCurrency(Currency.USD)
+                .setRequestTime(baseTime.minusSeconds(1))
+                .build();
+        ChunkProcessResponse staleResponse = fixedPointService.processChunk(new ChunkProcessRequest("batch124", List.of(staleRequest)));
+
+        assertTrue(staleResponse.isSuccess());
+        assertEquals(Map.of(UpdateOutcome.STALE_IGNORED, 1L), staleResponse.outcomes().toMap());
+        assertEquals(UpdateOutcome.STALE_IGNORED, fixedPointService.applyUpdate("batch125", staleRequest));
+        assertEquals(UpdateOutcome.INVALID_NULL_FIELD, fixedPointService.applyUpdate("batch125", nullFieldRequest));
+    }
+
+    @Test
+    void testProcessColumnarChunkPreAggregatesRepeatedInstrument() {
+        LocalDateTime baseTime = LocalDateTime.now().minusHours(1);
+        ColumnarRequestBatch batch = new ColumnarRequestBatch();
+        for (int i = 0; i < 50; i++) {
+            int offset = (i * 7) % 50;
+            batch.add(new UpdatePriceRecordRequest.Builder()
+                    .setId(offset)
+                    .setInstrument("Rhodium")
+                    .setInstrumentType(InstrumentType.COMMODITIES)
+                    .setValue(BigDecimal.valueOf(offset))
+                    .setCurrency(Currency.USD)
+                    .setRequestTime(baseTime.plusSeconds(offset))
+                    .build());
+        }
+        UpdatePriceRecordRequest invalidRequest = new UpdatePriceRecordRequest.Builder().setId(99).setInstrument("Rhodium").build();
+        batch.add(invalidRequest);
+
+        instrumentPriceService.clearAllPrices();
+        ChunkProcessResponse response = instrumentPriceService.processColumnarChunk(new ColumnarChunkProcessRequest("batch123", batch, 0, batch.size()));
+
+        assertFalse(response.isSuccess());
+        assertEquals(1, response.failedRequests().size());
+        assertEquals(99, response.failedRequests().get(0).getId());
+        PriceRecord priceRecord = instrumentPriceService.latestPrices.get(InstrumentType.COMMODITIES).get("RHODIUM");
+        assertEquals(BigDecimal.valueOf(49), priceRecord.getLatestPrice());
+        assertEquals(baseTime.plusSeconds(49), priceRecord.getLastUpdateTime());
+
+        // Only the ten newest rows are kept, newest first
+        assertEquals(10, priceRecord.getPayloadHistory().size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(49 - i, priceRecord.getPayloadHistory().get(i).getId());
+        }
+    }
+
     @Test
     void testUpdateLatestPriceWithValidUpdateRequest() {
         UpdatePriceRecordRequest updateRequest = new UpdatePriceRecordRequest.Builder()
@@ -110,7 +282,7 @@ class InstrumentServiceTest {
 
         instrumentPriceService.updateLatestPrice("batch123", updateRequest);
 
-        Map<String, PriceRecord> priceMap = InstrumentPriceService.latestPrices.get(InstrumentType.STOCK);
+        Map<String, PriceRecord> priceMap = instrumentPriceService.latestPrices.get(InstrumentType.STOCK);
         assertNotNull(priceMap);
 
         String generatedInstrumentId = InstrumentPriceService.generateIdFromInstrument(updateRequest.getInstrument());
@@ -124,6 +296,45 @@ class InstrumentServiceTest {
     }
 
 
+    @Test
+    void testUpdateLatestPriceSwapsInNewVersion() {
+        LocalDateTime now = LocalDateTime.now();
+        UpdatePriceRecordRequest firstRequest = new UpdatePriceRecordRequest.Builder()
+                .setId(1)
+                .setInstrument("Copper")
+                .setInstrumentType(InstrumentType.COMMODITIES)
+                .setValue(BigDecimal.valueOf(100))
+                .setCurrency(Currency.USD)
+                .setRequestTime(now.minusMinutes(1))
+                .build();
+        UpdatePriceRecordRequest secondRequest = new UpdatePriceRecordRequest.Builder()
+                .setId(2)
+                .setInstrument("Copper")
+                .setInstrumentType(InstrumentType.COMMODITIES)
+                .setValue(BigDecimal.valueOf(110))
+                .setCurrency(Currency.USD)
+                .setRequestTime(now)
+                .build();
+
+        instrumentPriceService.clearPriceForInstrumentId("COPPER");
+        instrumentPriceService.updateLatestPrice("batch123", firstRequest);
+        PriceRecord firstVersion = instrumentPriceService.getPriceRecordWithInstrumentId("COPPER", InstrumentType.COMMODITIES).orElseThrow();
+
+        instrumentPriceService.updateLatestPrice("batch123", secondRequest);
+        PriceRecord secondVersion = instrumentPriceService.getPriceRecordWithInstrumentId("COPPER", InstrumentType.COMMODITIES).orElseThrow();
+
+        // The earlier version is untouched, the new one carries the next version number and the same record ID
+        assertEquals(1, firstVersion.getVersion());
+        assertEquals(BigDecimal.valueOf(100), firstVersion.getLatestPrice());
+        assertEquals(1, firstVersion.getPayloadHistory().size());
+
+        assertEquals(2, secondVersion.getVersion());
+        assertEquals(firstVersion.getId(), secondVersion.getId());
+        assertEquals(BigDecimal.valueOf(110), secondVersion.getLatestPrice());
+        assertEquals(now, secondVersion.getLastUpdateTime());
+        assertEquals(2, secondVersion.getPayloadHistory().size());
+    }
+
     @Test
     void testUpdateLatestPriceWithInvalidUpdateRequest() {
         UpdatePriceRecordRequest updateRequest = new UpdatePriceRecordRequest.Builder()
@@ -153,7 +364,7 @@ class InstrumentServiceTest {
 
         instrumentPriceService.updateLatestPrice("batch123", updateRequest);
 
-        Map<InstrumentType, Map<String, PriceRecord>> latestPrices = InstrumentPriceService.getLatestPrices();
+        Map<InstrumentType, Map<String, PriceRecord>> latestPrices = instrumentPriceService.getLatestPrices();
         String recordId = latestPrices.get(InstrumentType.STOCK).get("SILVER").getId();
 
         Optional<PriceRecord> result1 = instrumentPriceService.getPriceRecordWithRecordId(recordId, InstrumentType.STOCK);
@@ -253,7 +464,7 @@ class InstrumentServiceTest {
                 .setRequestTime(pastTime2)
                 .build();
 
-        InstrumentPriceService.latestPrices.clear();
+        instrumentPriceService.latestPrices.clear();
 
         instrumentPriceService.updateLatestPrice("batch123", recentRequest);
         instrumentPriceService.updateLatestPrice("batch123", oldRequest);
@@ -294,7 +505,154 @@ class InstrumentServiceTest {
         instrumentPriceService.updateLatestPrice("batch123", updateRequest);
         instrumentPriceService.clearAllPrices();
 
-        assertTrue(InstrumentPriceService.latestPrices.isEmpty());
+        assertTrue(instrumentPriceService.latestPrices.isEmpty());
+    }
+
+    @Test
+    void testEpochPublicationMakesBatchVisibleAtOnce() {
+        InstrumentPriceService epochService = new InstrumentPriceService(PriceRepresentation.DECIMAL, PublicationMode.EPOCH);
+        epochService.clearAllPrices();
+        LocalDateTime now = LocalDateTime.now();
+        List<UpdatePriceRecordRequest> requests = List.of(
+                createRequest(1, "Cobalt", 50, now),
+                createRequest(2, "Nickel", 20, now));
+
+        ChunkProcessResponse response = epochService.processChunk(new ChunkProcessRequest("batch1", requests));
+        PriceSnapshot before = epochService.getSnapshot();
+
+        assertTrue(response.isSuccess());
+        assertTrue(epochService.getPriceRecordsWithInstrumentType(InstrumentType.COMMODITIES).isEmpty()); // Staged only
+
+        long epoch = epochService.publishBatch("batch1");
+
+        assertEquals(before.getEpoch() + 1, epoch);
+        assertEquals(epoch, epochService.getEpoch());
+        assertEquals(2, epochService.getPriceRecordsWithInstrumentType(InstrumentType.COMMODITIES).size());
+        assertTrue(before.getPriceRecordsWithInstrumentType(InstrumentType.COMMODITIES).isEmpty()); // Earlier epochs never change
+        assertEquals(epoch, epochService.getPriceRecordsWithDuration(Duration.ofHours(1)).epoch());
+    }
+
+    @Test
+    void testImmediateUpdatesDoNotLeakIntoAnEpochService() {
+        InstrumentPriceService epochService = new InstrumentPriceService(PriceRepresentation.DECIMAL, PublicationMode.EPOCH);
+        LocalDateTime now = LocalDateTime.now();
+
+        instrumentPriceService.processChunk(new ChunkProcessRequest("batch1", List.of(createRequest(1, "Manganese", 10, now))));
+        epochService.processChunk(new ChunkProcessRequest("batch2", List.of(createRequest(2, "Lithium", 30, now))));
+        epochService.publishBatch("batch2");
+
+        assertTrue(epochService.getPriceRecordWithInstrumentId("MANGANESE", InstrumentType.COMMODITIES).isEmpty());
+        assertEquals(1, epochService.getPriceRecordsWithInstrumentType(InstrumentType.COMMODITIES).size());
+        assertTrue(instrumentPriceService.getPriceRecordWithInstrumentId("LITHIUM", InstrumentType.COMMODITIES).isEmpty());
+    }
+
+    @Test
+    void testBatchUpdatedRequestByRequestEndsLikeAChunkedBatch() {
+        HotPathEventLog eventLog = new HotPathEventLog();
+        InstrumentPriceService epochService = new InstrumentPriceService(PriceRepresentation.DECIMAL, eventLog, PublicationMode.EPOCH);
+        epochService.clearAllPrices();
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(UpdateOutcome.APPLIED, epochService.applyUpdate("single", createRequest(1, "Iridium", 90, now)));
+        epochService.updateLatestPrice("single", createRequest(2, "Rhodium", 80, now));
+
+        assertTrue(epochService.getPriceRecordWithInstrumentId("IRIDIUM").isEmpty()); // Staged until published
+        assertEquals(1, eventLog.getOpenBatchCount());
+
+        epochService.publishBatch("single");
+        epochService.summarizeBatch("single");
+
+        assertTrue(epochService.getPriceRecordWithInstrumentId("IRIDIUM").isPresent());
+        assertTrue(epochService.getPriceRecordWithInstrumentId("RHODIUM").isPresent());
+        assertEquals(0, eventLog.getOpenBatchCount());
+    }
+
+    @Test
+    void testEpochPublicationRebasesConcurrentBatches() {
+        InstrumentPriceService epochService = new InstrumentPriceService(PriceRepresentation.DECIMAL, PublicationMode.EPOCH);
+        epochService.clearAllPrices();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Both batches start from the same, empty epoch
+        epochService.processChunk(new ChunkProcessRequest("batch1", List.of(createRequest(1, "Cobalt", 50, now.minusSeconds(1)))));
+        epochService.processChunk(new ChunkProcessRequest("batch2", List.of(createRequest(2, "Cobalt", 51, now))));
+        epochService.processChunk(new ChunkProcessRequest("batch3", List.of(createRequest(3, "Cobalt", 52, now.plusSeconds(1)))));
+        epochService.publishBatch("batch1");
+        epochService.publishBatch("batch2");
+        epochService.discardBatch("batch3");
+
+        PriceRecord priceRecord = epochService.getPriceRecordWithInstrumentId("COBALT", InstrumentType.COMMODITIES).orElseThrow();
+        assertEquals(BigDecimal.valueOf(51), priceRecord.getLatestPrice());
+        assertEquals(2, priceRecord.getPayloadHistory().size()); // The update of batch1 was not overwritten
+        assertEquals(epochService.getEpoch(), epochService.publishBatch("batch3")); // Discarded, nothing left to publish
+    }
+
+    @Test
+    void testStaleRequestsAreRejectedBeforeTheyAreApplied() {
+        instrumentPriceService.clearAllPrices();
+        LocalDateTime baseTime = LocalDateTime.now().minusHours(1);
+        List<UpdatePriceRecordRequest> history = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            history.add(createRequest(i, "Tungsten", 100 + i, baseTime.plusSeconds(i)));
+        }
+        instrumentPriceService.processChunk(new ChunkProcessRequest("batch1", history));
+        PriceRecord filledRecord = instrumentPriceService.latestPrices.get(InstrumentType.COMMODITIES).get("TUNGSTEN");
+        assertEquals(baseTime, filledRecord.getStaleBefore());
+        assertTrue(filledRecord.isStale(baseTime.minusNanos(1)));
+        assertFalse(filledRecord.isStale(baseTime));
+
+        // A backfill replay: seven requests older than the retained history, three newer ones
+        ColumnarRequestBatch replay = new ColumnarRequestBatch();
+        for (int i = 0; i < 10; i++) {
+            replay.add(createRequest(20 + i, "Tungsten", 200 + i, i < 7 ? baseTime.minusMinutes(i + 1) : baseTime.plusMinutes(i)));
+        }
+        ChunkProcessResponse response = instrumentPriceService.processColumnarChunk(new ColumnarChunkProcessRequest("batch2", replay, 0, replay.size()));
+
+        assertEquals(Map.of(UpdateOutcome.STALE_IGNORED, 7L, UpdateOutcome.APPLIED, 3L), response.outcomes().toMap());
+        assertEquals(0.7, response.outcomes().getRate(UpdateOutcome.STALE_IGNORED), 1e-9);
+        PriceRecord priceRecord = instrumentPriceService.latestPrices.get(InstrumentType.COMMODITIES).get("TUNGSTEN");
+        assertEquals(filledRecord.getVersion() + 1, priceRecord.getVersion());
+        assertEquals(baseTime.plusSeconds(3), priceRecord.getStaleBefore());
+
+        // The same replay as request objects is rejected as well
+        ChunkProcessResponse listResponse = instrumentPriceService.processChunk(new ChunkProcessRequest("batch3", replay.asRequestList().subList(0, 7)));
+        assertEquals(Map.of(UpdateOutcome.STALE_IGNORED, 7L), listResponse.outcomes().toMap());
+        assertSame(priceRecord, instrumentPriceService.latestPrices.get(InstrumentType.COMMODITIES).get("TUNGSTEN"));
+    }
+
+    @Test
+    void testCancelledChunkAppliesNothing() {
+        instrumentPriceService.clearAllPrices();
+        LocalDateTime now = LocalDateTime.now();
+        List<UpdatePriceRecordRequest> requests = List.of(
+                createRequest(1, "Iridium", 10, now),
+                createRequest(2, "Osmium", 20, now),
+                new UpdatePriceRecordRequest.Builder().setId(3).setInstrument("Osmium").build());
+        CancellationToken cancellation = new CancellationToken();
+        cancellation.cancel();
+
+        ChunkProcessResponse response = instrumentPriceService.processChunk(new ChunkProcessRequest("batch1", requests, cancellation));
+        ColumnarRequestBatch batch = ColumnarRequestBatch.of(requests);
+        ChunkProcessResponse columnarResponse = instrumentPriceService.processColumnarChunk(
+                new ColumnarChunkProcessRequest("batch2", batch, 0, batch.size()).withCancellation(cancellation));
+
+        for (ChunkProcessResponse chunkResponse : List.of(response, columnarResponse)) {
+            assertEquals(Map.of(UpdateOutcome.CANCELLED, 2L, UpdateOutcome.INVALID_NULL_FIELD, 1L), chunkResponse.outcomes().toMap());
+            assertEquals(3, chunkResponse.failedRequests().size());
+        }
+        assertTrue(instrumentPriceService.getPriceRecordWithInstrumentId("IRIDIUM", InstrumentType.COMMODITIES).isEmpty());
+        assertTrue(instrumentPriceService.getPriceRecordWithInstrumentId("OSMIUM", InstrumentType.COMMODITIES).isEmpty());
+    }
+
+    private static UpdatePriceRecordRequest createRequest(int id, String instrument, long value, LocalDateTime requestTime) {
+        return new UpdatePriceRecordRequest.Builder()
+                .setId(id)
+                .setInstrument(instrument)
+                .setInstrumentType(InstrumentType.COMMODITIES)
+                .setValue(BigDecimal.valueOf(value))
+                .setCurrency(Currency.USD)
+                .setRequestTime(requestTime)
+                .build();
     }
 
     @Test
@@ -322,8 +680,8 @@ class InstrumentServiceTest {
 
         instrumentPriceService.clearPriceForInstrumentId("SILVER");
 
-        assertNull(InstrumentPriceService.latestPrices.get(InstrumentType.STOCK).get("SILVER"));
-        assertNull(InstrumentPriceService.latestPrices.get(InstrumentType.STOCK).get("GOLD"));
+        assertNull(instrumentPriceService.latestPrices.get(InstrumentType.COMMODITIES).get("SILVER"));
+        assertNotNull(instrumentPriceService.latestPrices.get(InstrumentType.COMMODITIES).get("GOLD"));
     }
 
 }
@@ -0,0 +1,99 @@
+package com.spglobal.coding.services.model;
+
+import com.spglobal.coding.utils.enums.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadHistoryTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 9, 15, 10, 0);
+
+    @Test
+    void testInOrderAddsEvictOldest() {
+        PayloadHistory history = PayloadHistory.empty(3);
+        for (int i = 0; i < 5; i++) {
+            history = history.withPayloads(List.of(payload(i, i)));
+        }
+
+        assertEquals(3, history.size());
+        assertEquals(List.of(4, 3, 2), ids(history));
+        assertEquals(4, history.first().getId());
+        assertEquals(2, history.last().getId());
+    }
+
+    @Test
+    void testOutOfOrderAddIsSortedIn() {
+        PayloadHistory history = PayloadHistory.empty(4)
+                .withPayloads(List.of(payload(1, 10)))
+                .withPayloads(List.of(payload(2, 30)))
+                .withPayloads(List.of(payload(3, 20)))
+                .withPayloads(List.of(payload(4, 5)));
+
+        assertEquals(List.of(2, 3, 1, 4), ids(history));
+
+        // Full history: an out-of-order payload evicts the oldest one
+        history = history.withPayloads(List.of(payload(5, 25)));
+        assertEquals(List.of(2, 5, 3, 1), ids(history));
+    }
+
+    @Test
+    void testWithPayloadsAddsNewestFirstList() {
+        PayloadHistory history = PayloadHistory.empty(3).withPayloads(List.of(payload(1, 10)));
+        history = history.withPayloads(List.of(payload(4, 40), payload(3, 30), payload(2, 5)));
+
+        assertEquals(List.of(4, 3, 1), ids(history));
+    }
+
+    @Test
+    void testPayloadOlderThanFullHistoryIsRejected() {
+        PayloadHistory history = PayloadHistory.empty(2)
+                .withPayloads(List.of(payload(2, 20), payload(1, 10)));
+
+        assertSame(history, history.withPayloads(List.of(payload(3, 5))));
+        assertEquals(List.of(2, 1), ids(history));
+    }
+
+    @Test
+    void testPayloadsWithSameTimestampAreKept() {
+        PayloadHistory history = PayloadHistory.empty(5)
+                .withPayloads(List.of(payload(1, 10)))
+                .withPayloads(List.of(payload(2, 10)))
+                .withPayloads(List.of(payload(3, 20)))
+                .withPayloads(List.of(payload(4, 10)));
+
+        assertEquals(4, history.size());
+        assertEquals(List.of(3, 2, 1, 4), ids(history));
+    }
+
+    @Test
+    void testHistoryIsImmutable() {
+        PayloadHistory original = PayloadHistory.empty(2).withPayloads(List.of(payload(1, 10)));
+        PayloadHistory updated = original.withPayloads(List.of(payload(2, 20)));
+
+        assertEquals(List.of(1), ids(original));
+        assertEquals(List.of(2, 1), ids(updated));
+        assertThrows(UnsupportedOperationException.class, () -> updated.add(payload(3, 30)));
+    }
+
+    @Test
+    void testEmptyHistory() {
+        PayloadHistory history = PayloadHistory.empty(2);
+        assertTrue(history.isEmpty());
+        assertThrows(NoSuchElementException.class, history::first);
+        assertThrows(IllegalArgumentException.class, () -> PayloadHistory.empty(0));
+    }
+
+    private static Payload payload(int id, long secondsAfterBase) {
+        return new Payload(id, BigDecimal.valueOf(id), Currency.USD, BASE_TIME.plusSeconds(secondsAfterBase));
+    }
+
+    private static List<Integer> ids(List<Payload> payloads) {
+        return payloads.stream().map(Payload::getId).toList();
+    }
+}
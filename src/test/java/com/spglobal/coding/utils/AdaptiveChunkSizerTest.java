@@ -0,0 +1,46 @@
+package com.spglobal.coding.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveChunkSizerTest {
+
+    private static final long TARGET_NANOS = 1_000_000; // 1 ms
+
+    @Test
+    void testSpreadsBatchOverIdleWorkersBeforeFirstMeasurement() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(TARGET_NANOS, 10, 10_000);
+
+        assertEquals(250, sizer.chunkSizeFor(1000, 4));
+        assertEquals(10_000, sizer.chunkSizeFor(1_000_000, 1));
+    }
+
+    @Test
+    void testSizesChunksToTargetDuration() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(TARGET_NANOS, 10, 10_000);
+        sizer.record(1000, 2_000_000); // 2 µs per record
+
+        assertEquals(2000.0, sizer.getNanosPerRecord());
+        assertEquals(500, sizer.chunkSizeFor(1_000_000, 1));
+    }
+
+    @Test
+    void testMovingAverageFollowsRecentChunks() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(TARGET_NANOS, 10, 10_000);
+        sizer.record(1000, 1_000_000);
+        sizer.record(1000, 11_000_000);
+
+        // 1 µs moved a fifth of the way towards 11 µs
+        assertEquals(3000.0, sizer.getNanosPerRecord(), 0.001);
+    }
+
+    @Test
+    void testChunkSizeStaysWithinBounds() {
+        AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(TARGET_NANOS, 100, 2000);
+
+        sizer.record(10, 100_000_000); // very slow records
+        assertEquals(100, sizer.chunkSizeFor(1_000_000, 1));
+        assertEquals(100, sizer.chunkSizeFor(50, 8));
+    }
+}
@@ -0,0 +1,114 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.services.InstrumentPriceService;
+import com.spglobal.coding.services.dto.ChunkProcessResponse;
+import com.spglobal.coding.utils.config.ChunkProcessorConfig;
+import com.spglobal.coding.utils.dto.ChunkProcessRequest;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.ExecutionEngine;
+import com.spglobal.coding.utils.enums.InstrumentType;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the platform pool with virtual threads on chunks that block after being applied, as a write-ahead log
+ * write or a downstream notification would, and checks that virtual threads are not slower once chunks block. Only
+ * runs with {@code mvn test -Pbenchmarks}; the virtual-thread side additionally needs a Java 21 runtime.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ChunkProcessorBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkProcessorBenchmarkTest.class);
+
+    private static final int BATCH_SIZE = 200_000;
+    private static final int INSTRUMENTS = 500;
+    private static final int ROUNDS = 3;
+    private static final double TOLERANCE = 1.2; // Run-to-run noise allowed before virtual threads count as slower
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 5, 20})
+    void compareExecutionEnginesWithBlockingChunks(int blockMillis) {
+        assumeTrue(VirtualThreads.isAvailable(), "Virtual threads require Java 21");
+        List<UpdatePriceRecordRequest> requests = createRequests();
+
+        long platformNanos = run(ExecutionEngine.PLATFORM_POOL, blockMillis, requests);
+        long virtualNanos = run(ExecutionEngine.VIRTUAL_THREADS, blockMillis, requests);
+
+        logger.info("Blocking {} ms per chunk: platform pool {} ms, virtual threads {} ms",
+                blockMillis, platformNanos / 1_000_000, virtualNanos / 1_000_000);
+        if (blockMillis > 0) {
+            assertTrue(virtualNanos <= platformNanos * TOLERANCE,
+                    "Virtual threads took " + virtualNanos / 1_000_000 + " ms, the platform pool " + platformNanos / 1_000_000 + " ms");
+        }
+    }
+
+    // Best of a few rounds, after a warm-up round
+    private long run(ExecutionEngine executionEngine, int blockMillis, List<UpdatePriceRecordRequest> requests) {
+        ChunkProcessor chunkProcessor = new ChunkProcessor(new BlockingPriceService(blockMillis), new ChunkProcessorConfig.Builder()
+                .setExecutionEngine(executionEngine)
+                .build());
+        long best = Long.MAX_VALUE;
+        try {
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                chunkProcessor.processBatch("benchmark-" + executionEngine + "-" + round, requests).join();
+                long elapsed = System.nanoTime() - start;
+                if (round > 0) {
+                    best = Math.min(best, elapsed);
+                }
+            }
+        } finally {
+            chunkProcessor.shutdown();
+        }
+        return best;
+    }
+
+    private List<UpdatePriceRecordRequest> createRequests() {
+        List<UpdatePriceRecordRequest> requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            requests.add(new UpdatePriceRecordRequest.Builder()
+                    .setId(i)
+                    .setInstrument("BENCHMARK_" + (i % INSTRUMENTS))
+                    .setInstrumentType(InstrumentType.COMMODITIES)
+                    .setValue(BigDecimal.valueOf(i, 2))
+                    .setCurrency(Currency.USD)
+                    .setRequestTime(LocalDateTime.now())
+                    .build());
+        }
+        return requests;
+    }
+
+    // Applies the chunk, then blocks as if waiting for I/O
+    private static class BlockingPriceService extends InstrumentPriceService {
+        private final int blockMillis;
+
+        BlockingPriceService(int blockMillis) {
+            this.blockMillis = blockMillis;
+        }
+
+        @Override
+        public ChunkProcessResponse processChunk(ChunkProcessRequest chunkProcessRequest) {
+            ChunkProcessResponse response = super.processChunk(chunkProcessRequest);
+            if (blockMillis > 0) {
+                try {
+                    Thread.sleep(blockMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return response;
+        }
+    }
+}
@@ -3,17 +3,46 @@ package com.spglobal.coding.utils;
 import com.spglobal.coding.utils.dto.BatchProcessResponse;
 import com.spglobal.coding.services.InstrumentPriceService;
 import com.spglobal.coding.services.dto.ChunkProcessResponse;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+import com.spglobal.coding.utils.config.ChunkProcessorConfig;
+import com.spglobal.coding.utils.dto.BatchMetrics;
+import com.spglobal.coding.utils.dto.ChunkProcessRequest;
+import com.spglobal.coding.utils.dto.ChunkProcessorMetrics;
+import com.spglobal.coding.utils.dto.LaneMetrics;
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
 import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.ChunkSizing;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.ExecutionEngine;
+import com.spglobal.coding.utils.enums.InstrumentType;
+import com.spglobal.coding.utils.enums.PartitioningStrategy;
+import com.spglobal.coding.utils.enums.PriorityClass;
+import com.spglobal.coding.utils.enums.SaturationPolicy;
+import com.spglobal.coding.utils.enums.SchedulingPolicy;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+import com.spglobal.coding.utils.exceptions.ChunkProcessorSaturatedException;
+import com.spglobal.coding.utils.staging.BatchStagingStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -21,6 +50,8 @@ class ChunkProcessorTest {
 
     private ChunkProcessor chunkProcessor;
     private InstrumentPriceService mockInstrumentPriceService;
+    private final CountDownLatch workerBusy = new CountDownLatch(1);
+    private final CountDownLatch releaseWorker = new CountDownLatch(1);
 
     @BeforeEach
     void setUp() {
@@ -46,6 +77,60 @@ class ChunkProcessorTest {
         assertTrue(response.failedRequests().isEmpty());
     }
 
+    @Test
+    void testProcessBatchReportsChunkMetrics() {
+        when(mockInstrumentPriceService.processChunk(any())).thenReturn(new ChunkProcessResponse(true, Collections.emptyList()));
+
+        BatchMetrics metrics = chunkProcessor.processBatch("batchMetrics", createMockRequests(2500)).join().metrics();
+
+        assertEquals(1000, metrics.plannedChunkSize());
+        assertEquals(3, metrics.chunkCount());
+        assertEquals(500, metrics.minChunkSize());
+        assertEquals(1000, metrics.maxChunkSize());
+        assertTrue(metrics.maxChunkNanos() >= metrics.averageChunkNanos());
+    }
+
+    @Test
+    void testTrackedBatchCountsItsProgressPerChunk() {
+        when(mockInstrumentPriceService.processChunk(any()))
+                .thenReturn(new ChunkProcessResponse(true, Collections.emptyList(), new UpdateOutcomes.Builder()
+                        .add(UpdateOutcome.APPLIED, 900)
+                        .add(UpdateOutcome.STALE_IGNORED, 100)
+                        .build()))
+                .thenReturn(new ChunkProcessResponse(false, createMockRequests(100)));
+        BatchProgressRecorder progress = new BatchProgressRecorder();
+
+        chunkProcessor.trackProgress("batchProgress", progress);
+        assertTrue(progress.isStarted());
+        chunkProcessor.processBatch("batchProgress", createMockRequests(1100)).join();
+
+        // The chunks of 1000 and 100 requests may complete in any order, the totals are the same
+        assertEquals(2, progress.getProcessedChunks());
+        assertEquals(1100, progress.getProcessedRequests());
+        assertEquals(900, progress.getCount(UpdateOutcome.APPLIED));
+        assertEquals(100, progress.getCount(UpdateOutcome.STALE_IGNORED));
+        assertEquals(100, progress.getFailedCount());
+        assertTrue(progress.getRequestsPerSecond(true) > 0);
+    }
+
+    @Test
+    void testAdaptiveChunkSizingSpreadsSmallBatchOverIdleWorkers() {
+        ChunkProcessor adaptiveProcessor = new ChunkProcessor(mockInstrumentPriceService, new ChunkProcessorConfig.Builder()
+                .setPoolSize(4)
+                .setChunkSizing(ChunkSizing.ADAPTIVE)
+                .setMinChunkSize(10)
+                .build());
+        when(mockInstrumentPriceService.processChunk(any())).thenReturn(new ChunkProcessResponse(true, Collections.emptyList()));
+
+        BatchMetrics metrics = adaptiveProcessor.processBatch("batchAdaptive", createMockRequests(400)).join().metrics();
+
+        // A fixed chunk size of 1000 would have put the whole batch on a single worker
+        assertEquals(100, metrics.plannedChunkSize());
+        assertEquals(4, metrics.chunkCount());
+        verify(mockInstrumentPriceService, times(4)).processChunk(any());
+        adaptiveProcessor.shutdown();
+    }
+
     @Test
     void testProcessBatchWithFailures() {
         String batchId = "batch456";
@@ -65,6 +150,8 @@ class ChunkProcessorTest {
         verify(mockInstrumentPriceService, times(2)).processChunk(any()); // 2 chunks
         assertFalse(response.isSuccess());
         assertEquals(500, response.failedRequests().size());
+        assertEquals(500, response.outcomes().getCount(UpdateOutcome.CHUNK_FAILED));
+        assertEquals(UpdateOutcome.CHUNK_FAILED, response.outcomes().getFailureReason(499));
     }
 
     @Test
@@ -114,6 +201,370 @@ class ChunkProcessorTest {
         verify(mockInstrumentPriceService, never()).processChunk(any());
     }
 
+    @Test
+    void testPartitionBatchByInstrumentKeepsEachInstrumentOnOneShard() {
+        ChunkProcessor affineProcessor = new ChunkProcessor(mockInstrumentPriceService, PartitioningStrategy.INSTRUMENT_AFFINE);
+        List<UpdatePriceRecordRequest> requests = createRequests(List.of("Gold", "Silver", "Crude Oil", "crude  oil", "Apple Inc."), 100);
+
+        List<List<UpdatePriceRecordRequest>> shards = affineProcessor.partitionBatchByInstrument(requests);
+
+        // Every request is routed exactly once
+        assertEquals(requests.size(), shards.stream().mapToInt(List::size).sum());
+
+        // Names normalising to the same instrument ID must share a shard
+        Set<Integer> crudeOilShards = new HashSet<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (UpdatePriceRecordRequest request : shards.get(shard)) {
+                if (request.getInstrument().equalsIgnoreCase("Crude Oil") || request.getInstrument().equals("crude  oil")) {
+                    crudeOilShards.add(shard);
+                }
+            }
+        }
+        assertEquals(1, crudeOilShards.size());
+        affineProcessor.shutdown();
+    }
+
+    @Test
+    void testProcessBatchWithInstrumentAffineStrategy() {
+        ChunkProcessor affineProcessor = new ChunkProcessor(mockInstrumentPriceService, PartitioningStrategy.INSTRUMENT_AFFINE);
+        List<UpdatePriceRecordRequest> requests = createRequests(List.of("Gold", "Silver", "Copper"), 1500);
+        when(mockInstrumentPriceService.processChunk(any())).thenReturn(new ChunkProcessResponse(true, Collections.emptyList()));
+
+        BatchProcessResponse response = affineProcessor.processBatch("batchAffine", requests).join();
+
+        assertTrue(response.isSuccess());
+        assertTrue(response.failedRequests().isEmpty());
+        verify(mockInstrumentPriceService, atLeast(1)).processChunk(any());
+        affineProcessor.shutdown();
+    }
+
+    @Test
+    void testProcessStagedBatchReadsSpilledChunks(@TempDir Path spillDirectory) {
+        BatchStagingStore store = new BatchStagingStore(500, spillDirectory);
+        store.addAll(createRequests(List.of("Gold", "Silver", "Copper"), 2500));
+        when(mockInstrumentPriceService.processChunk(any())).thenReturn(new ChunkProcessResponse(true, Collections.emptyList()));
+
+        BatchProcessResponse response = chunkProcessor.processStagedBatch("batchStaged", store).join();
+
+        // One chunk of heap requests, then two chunks read from the spill file
+        assertTrue(store.isSpilled());
+        assertTrue(response.isSuccess());
+        assertEquals(3, response.metrics().chunkCount());
+        verify(mockInstrumentPriceService, times(3)).processChunk(any());
+        store.release();
+    }
+
+    @Test
+    void testPartitionSpilledByInstrumentKeepsInstrumentOnOneShard(@TempDir Path spillDirectory) {
+        ChunkProcessor affineProcessor = new ChunkProcessor(mockInstrumentPriceService,
+                new ChunkProcessorConfig.Builder().setPartitioningStrategy(PartitioningStrategy.INSTRUMENT_AFFINE).setPoolSize(4).build());
+        List<UpdatePriceRecordRequest> requests = createRequests(List.of("Gold", "Silver", "Copper", "Platinum"), 100);
+        BatchStagingStore store = new BatchStagingStore(0, spillDirectory);
+        store.addAll(requests);
+
+        int[][] shards = affineProcessor.partitionSpilledByInstrument(store);
+
+        int routed = 0;
+        for (int shard = 0; shard < shards.length; shard++) {
+            for (int index : shards[shard]) {
+                assertEquals(affineProcessor.shardOf(requests.get(index)), shard);
+                routed++;
+            }
+        }
+        assertEquals(100, routed);
+        store.release();
+        affineProcessor.shutdown();
+    }
+
+    @Test
+    void testProcessColumnarBatchSubmitsRowRanges() {
+        ColumnarRequestBatch batch = ColumnarRequestBatch.of(createRequests(List.of("Gold", "Silver"), 2500));
+        when(mockInstrumentPriceService.processColumnarChunk(any())).thenReturn(new ChunkProcessResponse(true, Collections.emptyList()));
+
+        BatchProcessResponse response = chunkProcessor.processColumnarBatch("batchColumnar", batch).join();
+
+        assertTrue(response.isSuccess());
+        assertEquals(3, response.metrics().chunkCount());
+        verify(mockInstrumentPriceService, times(3)).processColumnarChunk(any());
+        verify(mockInstrumentPriceService, never()).processChunk(any());
+    }
+
+    @Test
+    void testProcessColumnarBatchReportsRowsOfFailedChunk() {
+        ColumnarRequestBatch batch = ColumnarRequestBatch.of(createRequests(List.of("Gold"), 5));
+        when(mockInstrumentPriceService.processColumnarChunk(any())).thenThrow(new RuntimeException("Processing error"));
+
+        BatchProcessResponse response = chunkProcessor.processColumnarBatch("batchColumnarFailed", batch).join();
+
+        assertFalse(response.isSuccess());
+        assertEquals(List.of(0, 1, 2, 3, 4), response.failedRequests().stream().map(UpdatePriceRecordRequest::getId).toList());
+    }
+
+    @Test
+    void testOpenStreamProcessesFullChunksDuringUpload() {
+        when(mockInstrumentPriceService.processChunk(any())).thenReturn(new ChunkProcessResponse(true, Collections.emptyList()));
+        ChunkStream stream = chunkProcessor.openStream("batchStream");
+
+        stream.append(createMockRequests(600));
+        stream.append(createMockRequests(600));
+        stream.append(createMockRequests(1300));
+
+        // Two full chunks are processed before the batch is completed
+        verify(mockInstrumentPriceService, timeout(1000).times(2)).processChunk(any());
+        assertEquals(2, stream.getSubmittedChunkCount());
+
+        BatchProcessResponse response = stream.complete().join();
+
+        verify(mockInstrumentPriceService, times(3)).processChunk(any());
+        assertTrue(response.isSuccess());
+        assertThrows(IllegalStateException.class, () -> stream.append(createMockRequests(1)));
+    }
+
+    @Test
+    void testCancelStreamReturnsUnsubmittedRequests() {
+        when(mockInstrumentPriceService.processChunk(any())).thenReturn(new ChunkProcessResponse(true, Collections.emptyList()));
+        ChunkStream stream = chunkProcessor.openStream("batchStreamCancel");
+
+        stream.append(createMockRequests(1250));
+        List<UpdatePriceRecordRequest> unsubmitted = stream.cancel();
+
+        assertEquals(250, unsubmitted.size());
+        verify(mockInstrumentPriceService, timeout(1000).times(1)).processChunk(any());
+        // The submitted chunk is published and the batch is summarized as for a completed stream
+        verify(mockInstrumentPriceService, timeout(1000)).publishBatch("batchStreamCancel");
+        verify(mockInstrumentPriceService, timeout(1000)).summarizeBatch("batchStreamCancel");
+        verify(mockInstrumentPriceService, never()).discardBatch("batchStreamCancel");
+    }
+
+    @Test
+    void testRejectPolicyRejectsBatchWhenQueueIsFull() throws InterruptedException {
+        ChunkProcessor boundedProcessor = newSaturatedProcessor(SaturationPolicy.REJECT);
+        CompletableFuture<BatchProcessResponse> running = boundedProcessor.processBatch("batchRunning", createMockRequests(10));
+        awaitWorkerBusy();
+        CompletableFuture<BatchProcessResponse> queued = boundedProcessor.processBatch("batchQueued", createMockRequests(10));
+
+        assertThrows(ChunkProcessorSaturatedException.class,
+                () -> boundedProcessor.processBatch("batchRejected", createMockRequests(10)));
+
+        ChunkProcessorMetrics metrics = boundedProcessor.getMetrics();
+        assertEquals(1, metrics.queueDepth());
+        assertEquals(1, metrics.rejectedSubmissions());
+        assertEquals(2, metrics.submittedChunks());
+
+        releaseWorker.countDown();
+        assertTrue(running.join().isSuccess());
+        assertTrue(queued.join().isSuccess());
+        verify(mockInstrumentPriceService, times(2)).processChunk(any());
+        assertEquals(0, boundedProcessor.getMetrics().queueDepth());
+        boundedProcessor.shutdown();
+    }
+
+    @Test
+    void testCallerRunsPolicyProcessesChunkOnSubmittingThread() throws InterruptedException {
+        ChunkProcessor boundedProcessor = newSaturatedProcessor(SaturationPolicy.CALLER_RUNS);
+        CompletableFuture<BatchProcessResponse> running = boundedProcessor.processBatch("batchRunning", createMockRequests(10));
+        awaitWorkerBusy();
+        CompletableFuture<BatchProcessResponse> queued = boundedProcessor.processBatch("batchQueued", createMockRequests(10));
+
+        // The queue is full, so this chunk is processed right away by the test thread
+        CompletableFuture<BatchProcessResponse> callerRun = boundedProcessor.processBatch("batchCallerRuns", createMockRequests(10));
+        assertTrue(callerRun.isDone());
+        assertEquals(1, boundedProcessor.getMetrics().callerRunChunks());
+
+        releaseWorker.countDown();
+        assertTrue(running.join().isSuccess());
+        assertTrue(queued.join().isSuccess());
+        verify(mockInstrumentPriceService, times(3)).processChunk(any());
+        boundedProcessor.shutdown();
+    }
+
+    @Test
+    void testFairSchedulingRunsSmallBatchBetweenChunksOfLargeBatch() throws InterruptedException {
+        List<String> processedBatchIds = Collections.synchronizedList(new ArrayList<>());
+        when(mockInstrumentPriceService.processChunk(any())).thenAnswer(invocation -> {
+            ChunkProcessRequest request = invocation.getArgument(0);
+            processedBatchIds.add(request.batchId());
+            if (request.batchId().equals("blocker")) {
+                workerBusy.countDown();
+                releaseWorker.await();
+            }
+            return new ChunkProcessResponse(true, Collections.emptyList());
+        });
+        ChunkProcessor fairProcessor = new ChunkProcessor(mockInstrumentPriceService, new ChunkProcessorConfig.Builder()
+                .setPoolSize(1)
+                .setSchedulingPolicy(SchedulingPolicy.FAIR)
+                .build());
+
+        CompletableFuture<BatchProcessResponse> blocker = fairProcessor.processBatch("blocker", createMockRequests(10));
+        awaitWorkerBusy();
+        CompletableFuture<BatchProcessResponse> large = fairProcessor.processBatch("large", createMockRequests(10_000));
+        CompletableFuture<BatchProcessResponse> small = fairProcessor.processBatch("small", createMockRequests(1000));
+        releaseWorker.countDown();
+
+        assertTrue(small.join().isSuccess());
+        assertTrue(large.join().isSuccess());
+        assertTrue(blocker.join().isSuccess());
+        // In submission order the small batch would run after all ten chunks of the large one
+        assertEquals(List.of("blocker", "large", "small", "large"), processedBatchIds.subList(0, 4));
+        assertEquals(12, processedBatchIds.size());
+        fairProcessor.shutdown();
+    }
+
+    @Test
+    void testBatchWeightMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> chunkProcessor.setBatchWeight("batch123", 0));
+    }
+
+    @Test
+    void testRealTimeBatchOvertakesQueuedBackfill() throws InterruptedException {
+        List<String> processedBatchIds = Collections.synchronizedList(new ArrayList<>());
+        when(mockInstrumentPriceService.processChunk(any())).thenAnswer(invocation -> {
+            ChunkProcessRequest request = invocation.getArgument(0);
+            processedBatchIds.add(request.batchId());
+            if (request.batchId().equals("blocker")) {
+                workerBusy.countDown();
+                releaseWorker.await();
+            }
+            return new ChunkProcessResponse(true, Collections.emptyList());
+        });
+        ChunkProcessor laneProcessor = new ChunkProcessor(mockInstrumentPriceService, new ChunkProcessorConfig.Builder()
+                .setPoolSize(1)
+                .build());
+        laneProcessor.setBatchPriority("backfill", PriorityClass.BACKFILL);
+        laneProcessor.setBatchPriority("ticks", PriorityClass.REAL_TIME);
+
+        CompletableFuture<BatchProcessResponse> blocker = laneProcessor.processBatch("blocker", createMockRequests(10));
+        awaitWorkerBusy();
+        CompletableFuture<BatchProcessResponse> backfill = laneProcessor.processBatch("backfill", createMockRequests(3000));
+        CompletableFuture<BatchProcessResponse> ticks = laneProcessor.processBatch("ticks", createMockRequests(2000));
+        assertEquals(3, laneProcessor.getLaneMetrics().get(PriorityClass.BACKFILL).queuedChunks());
+        releaseWorker.countDown();
+
+        assertTrue(backfill.join().isSuccess());
+        assertTrue(ticks.join().isSuccess());
+        assertTrue(blocker.join().isSuccess());
+        assertEquals(List.of("blocker", "ticks", "ticks", "backfill", "backfill", "backfill"), processedBatchIds);
+        Map<PriorityClass, LaneMetrics> laneMetrics = laneProcessor.getLaneMetrics();
+        assertEquals(2, laneMetrics.get(PriorityClass.REAL_TIME).processedChunks());
+        assertEquals(2000, laneMetrics.get(PriorityClass.REAL_TIME).processedRequests());
+        assertEquals(3, laneMetrics.get(PriorityClass.BACKFILL).processedChunks());
+        laneProcessor.shutdown();
+    }
+
+    @Test
+    void testCancelledBatchDropsItsQueuedChunks() throws InterruptedException {
+        List<String> processedBatchIds = Collections.synchronizedList(new ArrayList<>());
+        when(mockInstrumentPriceService.processChunk(any())).thenAnswer(invocation -> {
+            ChunkProcessRequest request = invocation.getArgument(0);
+            processedBatchIds.add(request.batchId());
+            if (request.batchId().equals("blocker")) {
+                workerBusy.countDown();
+                releaseWorker.await();
+            }
+            return new ChunkProcessResponse(true, Collections.emptyList());
+        });
+        ChunkProcessor singleWorkerProcessor = new ChunkProcessor(mockInstrumentPriceService, new ChunkProcessorConfig.Builder()
+                .setPoolSize(1)
+                .build());
+
+        CompletableFuture<BatchProcessResponse> blocker = singleWorkerProcessor.processBatch("blocker", createMockRequests(10));
+        awaitWorkerBusy();
+        CompletableFuture<BatchProcessResponse> cancelled = singleWorkerProcessor.processBatch("cancelled", createMockRequests(3000));
+        CompletableFuture<BatchProcessResponse> other = singleWorkerProcessor.processBatch("other", createMockRequests(1000));
+
+        assertTrue(singleWorkerProcessor.cancelBatch("cancelled"));
+        BatchProcessResponse response = cancelled.join(); // Without waiting for the worker
+        releaseWorker.countDown();
+
+        assertTrue(response.isCancelled());
+        assertEquals(3000, response.failedRequests().size());
+        assertEquals(Map.of(UpdateOutcome.CANCELLED, 3000L), response.outcomes().toMap());
+        assertTrue(other.join().isSuccess());
+        assertTrue(blocker.join().isSuccess());
+        assertEquals(List.of("blocker", "other"), processedBatchIds);
+        assertEquals(0, singleWorkerProcessor.getMetrics().queueDepth());
+        assertFalse(singleWorkerProcessor.cancelBatch("cancelled")); // Already processed
+        singleWorkerProcessor.shutdown();
+    }
+
+    @Test
+    void testBatchCancelledBeforeItsChunksAreSubmittedIsNotProcessed() {
+        chunkProcessor.registerBatch("cancelledEarly");
+
+        assertTrue(chunkProcessor.cancelBatch("cancelledEarly"));
+        BatchProcessResponse response = chunkProcessor.processBatch("cancelledEarly", createMockRequests(1500)).join();
+
+        assertTrue(response.isCancelled());
+        assertEquals(Map.of(UpdateOutcome.CANCELLED, 1500L), response.outcomes().toMap());
+        verify(mockInstrumentPriceService, never()).processChunk(any());
+        assertFalse(chunkProcessor.cancelBatch("cancelledEarly")); // Forgotten once processed
+    }
+
+    // Single worker with a single queue slot; chunks processed by the worker block until releaseWorker is counted down
+    @Test
+    void testProcessBatchOnVirtualThreads() {
+        assumeTrue(VirtualThreads.isAvailable());
+        ChunkProcessor virtualProcessor = new ChunkProcessor(mockInstrumentPriceService, new ChunkProcessorConfig.Builder()
+                .setExecutionEngine(ExecutionEngine.VIRTUAL_THREADS)
+                .setMaxConcurrentChunks(2)
+                .build());
+        List<Boolean> virtualThreadFlags = Collections.synchronizedList(new ArrayList<>());
+        when(mockInstrumentPriceService.processChunk(any())).thenAnswer(invocation -> {
+            virtualThreadFlags.add(Thread.currentThread().getClass().getSimpleName().contains("Virtual"));
+            return new ChunkProcessResponse(true, Collections.emptyList());
+        });
+
+        BatchProcessResponse response = virtualProcessor.processBatch("batchVirtual", createMockRequests(5000)).join();
+
+        assertTrue(response.isSuccess());
+        assertEquals(List.of(true, true, true, true, true), virtualThreadFlags);
+        virtualProcessor.shutdown();
+    }
+
+    @Test
+    void testVirtualThreadsRequireJava21() {
+        assumeFalse(VirtualThreads.isAvailable());
+        ChunkProcessorConfig config = new ChunkProcessorConfig.Builder().setExecutionEngine(ExecutionEngine.VIRTUAL_THREADS).build();
+
+        assertThrows(UnsupportedOperationException.class, () -> new ChunkProcessor(mockInstrumentPriceService, config));
+    }
+
+    private ChunkProcessor newSaturatedProcessor(SaturationPolicy saturationPolicy) {
+        Thread testThread = Thread.currentThread();
+        when(mockInstrumentPriceService.processChunk(any())).thenAnswer(invocation -> {
+            if (Thread.currentThread() != testThread) {
+                workerBusy.countDown();
+                releaseWorker.await();
+            }
+            return new ChunkProcessResponse(true, Collections.emptyList());
+        });
+        return new ChunkProcessor(mockInstrumentPriceService, new ChunkProcessorConfig.Builder()
+                .setPoolSize(1)
+                .setQueueCapacity(1)
+                .setSaturationPolicy(saturationPolicy)
+                .build());
+    }
+
+    private void awaitWorkerBusy() throws InterruptedException {
+        assertTrue(workerBusy.await(1, TimeUnit.SECONDS));
+    }
+
+    // Helper method to create real UpdatePriceRecordRequest objects cycling over the given instruments
+    private List<UpdatePriceRecordRequest> createRequests(List<String> instruments, int count) {
+        List<UpdatePriceRecordRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(new UpdatePriceRecordRequest.Builder()
+                    .setId(i)
+                    .setInstrument(instruments.get(i % instruments.size()))
+                    .setInstrumentType(InstrumentType.COMMODITIES)
+                    .setValue(BigDecimal.valueOf(i))
+                    .setCurrency(Currency.USD)
+                    .setRequestTime(LocalDateTime.now())
+                    .build());
+        }
+        return requests;
+    }
+
     // Helper method to create mock UpdatePriceRecordRequest objects
     private List<UpdatePriceRecordRequest> createMockRequests(int count) {
         List<UpdatePriceRecordRequest> requests = new ArrayList<>();
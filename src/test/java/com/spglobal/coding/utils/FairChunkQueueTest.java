@@ -0,0 +1,84 @@
+package com.spglobal.coding.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairChunkQueueTest {
+
+    @Test
+    void testSmallBatchIsNotStarvedByLargeBatch() {
+        FairChunkQueue<String> queue = new FairChunkQueue<>(100);
+        for (int i = 0; i < 20; i++) {
+            queue.add("large", 1, "large" + i, 100);
+        }
+        queue.add("small", 1, "small0", 100);
+        queue.add("small", 1, "small1", 100);
+
+        List<String> order = drain(queue);
+
+        assertEquals(22, order.size());
+        assertEquals(List.of("large0", "small0", "large1", "small1", "large2"), order.subList(0, 5));
+        assertEquals("large19", order.get(21)); // Every batch keeps its own order
+        assertNull(queue.poll());
+        assertEquals(0, queue.batchCount());
+    }
+
+    @Test
+    void testBatchesShareRequestsByWeight() {
+        FairChunkQueue<String> queue = new FairChunkQueue<>(100);
+        for (int i = 0; i < 40; i++) {
+            queue.add("heavy", 3, "heavy", 100);
+            queue.add("light", 1, "light", 100);
+        }
+
+        List<String> firstTwenty = drain(queue).subList(0, 20);
+
+        assertEquals(15, firstTwenty.stream().filter("heavy"::equals).count());
+        assertEquals(5, firstTwenty.stream().filter("light"::equals).count());
+    }
+
+    @Test
+    void testSharesAreCountedInRequestsNotChunks() {
+        FairChunkQueue<String> queue = new FairChunkQueue<>(100);
+        for (int i = 0; i < 5; i++) {
+            queue.add("bigChunks", 1, "bigChunks", 1000);
+        }
+        for (int i = 0; i < 50; i++) {
+            queue.add("smallChunks", 1, "smallChunks", 100);
+        }
+
+        List<String> order = drain(queue);
+
+        // Ten chunks of 100 requests run between two chunks of 1000
+        int firstBigChunk = order.indexOf("bigChunks");
+        assertEquals(10, order.subList(firstBigChunk + 1, order.size()).indexOf("bigChunks"));
+    }
+
+    @Test
+    void testRemovedChunksLeaveTheRound() {
+        FairChunkQueue<String> queue = new FairChunkQueue<>(100);
+        for (int i = 0; i < 3; i++) {
+            queue.add("cancelled", 1, "cancelled" + i, 100);
+            queue.add("kept", 1, "kept" + i, 100);
+        }
+
+        List<String> removed = queue.removeIf(chunk -> chunk.startsWith("cancelled"));
+
+        assertEquals(List.of("cancelled0", "cancelled1", "cancelled2"), removed);
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.batchCount());
+        assertEquals(List.of("kept0", "kept1", "kept2"), drain(queue));
+    }
+
+    private static List<String> drain(FairChunkQueue<String> queue) {
+        List<String> order = new ArrayList<>();
+        for (String chunk = queue.poll(); chunk != null; chunk = queue.poll()) {
+            order.add(chunk);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,44 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.enums.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointPricesTest {
+
+    @Test
+    void testToMantissaRoundsHalfEven() {
+        assertEquals(1234500L, FixedPointPrices.toMantissa(new BigDecimal("123.45"), 4));
+        assertEquals(12L, FixedPointPrices.toMantissa(new BigDecimal("0.125"), 2));
+        assertEquals(14L, FixedPointPrices.toMantissa(new BigDecimal("0.135"), 2));
+    }
+
+    @Test
+    void testToMantissaOverflow() {
+        assertThrows(ArithmeticException.class, () -> FixedPointPrices.toMantissa(new BigDecimal("1e30"), 4));
+    }
+
+    @Test
+    void testToBigDecimal() {
+        assertEquals(new BigDecimal("123.4500"), FixedPointPrices.toBigDecimal(1234500L, 4));
+    }
+
+    @Test
+    void testRescale() {
+        assertEquals(1234500L, FixedPointPrices.rescale(12345L, 2, 4));
+        assertEquals(12L, FixedPointPrices.rescale(1250L, 4, 2));
+        assertEquals(14L, FixedPointPrices.rescale(1350L, 4, 2));
+        assertEquals(-14L, FixedPointPrices.rescale(-1350L, 4, 2));
+        assertEquals(13L, FixedPointPrices.rescale(1251L, 4, 2));
+        assertThrows(ArithmeticException.class, () -> FixedPointPrices.rescale(Long.MAX_VALUE, 0, 2));
+    }
+
+    @Test
+    void testScaleOfCurrency() {
+        assertEquals(Currency.USD.getFixedPointScale(), FixedPointPrices.scaleOf(Currency.USD));
+        assertEquals(FixedPointPrices.DEFAULT_SCALE, FixedPointPrices.scaleOf(null));
+    }
+}
@@ -0,0 +1,52 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.enums.HotPathEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotPathEventLogTest {
+
+    @Test
+    void testFirstEventsOfABatchAndThenOneInNAreLogged() {
+        HotPathEventLog eventLog = new HotPathEventLog(2, 5);
+
+        int logged = 0;
+        for (int i = 1; i <= 20; i++) {
+            boolean wasLogged = eventLog.record("batch1", HotPathEvent.PRICE_RECORD_UPDATED, "id" + i, i);
+            assertEquals(i <= 2 || i % 5 == 0, wasLogged, "event " + i);
+            logged += wasLogged ? 1 : 0;
+        }
+
+        assertEquals(6, logged); // 1, 2, 5, 10, 15 and 20
+        // Every batch and every kind of event starts with its own first events
+        assertTrue(eventLog.record("batch2", HotPathEvent.PRICE_RECORD_UPDATED, "id1", 1));
+        assertTrue(eventLog.record("batch1", HotPathEvent.INVALID_REQUEST, null));
+    }
+
+    @Test
+    void testSummaryCountsEveryEventAndForgetsTheBatch() {
+        HotPathEventLog eventLog = new HotPathEventLog(0, 0);
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(eventLog.record("batch1", HotPathEvent.PRICE_RECORD_CREATED, "id" + i));
+        }
+        eventLog.record("batch1", HotPathEvent.INVALID_PRICE, "Gold");
+        eventLog.record("batch2", HotPathEvent.PRICE_RECORD_CREATED, "id1");
+
+        Map<HotPathEvent, Long> summary = eventLog.summarize("batch1");
+
+        assertEquals(Map.of(HotPathEvent.PRICE_RECORD_CREATED, 1000L, HotPathEvent.INVALID_PRICE, 1L), summary);
+        assertTrue(eventLog.summarize("batch1").isEmpty());
+        assertEquals(1, eventLog.getOpenBatchCount()); // batch2 is kept until it is summarized
+        assertEquals(1001, eventLog.getTotal(HotPathEvent.PRICE_RECORD_CREATED));
+        assertEquals(1, eventLog.getTotal(HotPathEvent.INVALID_PRICE));
+    }
+
+    @Test
+    void testNegativeSamplingIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new HotPathEventLog(-1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new HotPathEventLog(10, -1));
+    }
+}
@@ -0,0 +1,93 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.enums.InstrumentType;
+import com.spglobal.coding.utils.model.InstrumentReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentRegistryTest {
+
+    private InstrumentRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InstrumentRegistry();
+    }
+
+    @Test
+    void testNormaliseMatchesRegexBasedGeneration() {
+        for (String instrument : List.of("Apple Inc.", "Crude Oil", "crude \t oil", " Natural  Gas ", "Johnson & Johnson", "gold")) {
+            assertEquals(instrument.replaceAll("\\s+", "_").toUpperCase(), InstrumentRegistry.normalise(instrument));
+        }
+    }
+
+    @Test
+    void testNamesNormalisingToSameIdShareReference() {
+        InstrumentReference first = registry.resolve("Crude Oil");
+        InstrumentReference second = registry.resolve("crude  oil");
+
+        assertSame(first, second);
+        assertEquals("CRUDE_OIL", first.getInstrumentId());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testSpellingsBeyondTheNameCacheResolveToTheSameReference() {
+        InstrumentReference reference = registry.resolve("Natural Gas");
+
+        for (int i = 0; i < 10_000; i++) {
+            String spelling = "natural" + " ".repeat(1 + i % 50) + "\t".repeat(i / 50) + "gAS";
+            assertSame(reference, registry.resolve(spelling));
+        }
+        assertSame(reference, registry.resolve("Natural Gas"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testDenseIdsAreAssignedInRegistrationOrder() {
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, registry.resolve("instrument" + i).getDenseId());
+        }
+        assertEquals("INSTRUMENT150", registry.getByDenseId(150).getInstrumentId());
+        assertThrows(IllegalArgumentException.class, () -> registry.getByDenseId(200));
+    }
+
+    @Test
+    void testLearnedTypeDoesNotOverrideRegisteredType() {
+        registry.register("Silver", InstrumentType.COMMODITIES);
+        registry.resolve("Silver", InstrumentType.STOCK);
+        assertEquals(InstrumentType.COMMODITIES, registry.findInstrumentType("SILVER").orElseThrow());
+
+        registry.resolve("Bond A", InstrumentType.BOND);
+        assertEquals(InstrumentType.BOND, registry.findInstrumentType("BOND_A").orElseThrow());
+        assertTrue(registry.findRegisteredType("BOND_A").isEmpty()); // Learned from traffic, not reference data
+
+        registry.register("Bond A", InstrumentType.ETF);
+        assertEquals(InstrumentType.ETF, registry.findInstrumentType("BOND_A").orElseThrow());
+        assertEquals(InstrumentType.ETF, registry.findRegisteredType("BOND_A").orElseThrow());
+        assertEquals(InstrumentType.BOND, registry.findByInstrumentId("BOND_A").orElseThrow().getLearnedType());
+    }
+
+    @Test
+    void testFirstLearnedTypeIsKept() {
+        InstrumentReference reference = registry.resolve("Platinum");
+
+        registry.learnType(reference, null);
+        assertNull(reference.getLearnedType());
+        registry.learnType(reference, InstrumentType.COMMODITIES);
+        registry.learnType(reference, InstrumentType.STOCK);
+
+        assertEquals(InstrumentType.COMMODITIES, reference.getLearnedType());
+        assertTrue(registry.findRegisteredType("PLATINUM").isEmpty());
+    }
+
+    @Test
+    void testUnknownInstrumentId() {
+        assertTrue(registry.findByInstrumentId("UNKNOWN").isEmpty());
+        assertTrue(registry.findInstrumentType(null).isEmpty());
+    }
+}
@@ -65,6 +65,10 @@ class PriceRecordFactoryTest {
             UpdatePriceRecordRequestFactory.getInstrumentTypeFromId("UNKNOWN_INSTRUMENT");
         });
         assertEquals("Instrument ID not found or unknown type: UNKNOWN_INSTRUMENT", exception.getMessage());
+
+        // An instrument only seen in update requests is not part of the reference data
+        InstrumentRegistry.getInstance().resolve("Traded Only", InstrumentType.BOND);
+        assertThrows(IllegalArgumentException.class, () -> UpdatePriceRecordRequestFactory.getInstrumentTypeFromId("TRADED_ONLY"));
     }
 }
 
@@ -0,0 +1,61 @@
+package com.spglobal.coding.utils;
+
+import com.spglobal.coding.utils.enums.PriorityClass;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityChunkQueueTest {
+
+    @Test
+    void testUrgentChunksOvertakeQueuedBackfill() {
+        PriorityChunkQueue<String> queue = new PriorityChunkQueue<>(false, 100);
+        queue.add(PriorityClass.BACKFILL, "history", 1, "backfill0", 100);
+        queue.add(PriorityClass.BACKFILL, "history", 1, "backfill1", 100);
+        queue.add(PriorityClass.STANDARD, "regular", 1, "standard0", 100);
+        queue.add(PriorityClass.REAL_TIME, "ticks", 1, "realTime0", 100);
+        queue.add(PriorityClass.REAL_TIME, "ticks", 1, "realTime1", 100);
+
+        assertEquals(2, queue.size(PriorityClass.BACKFILL));
+        assertEquals(List.of("realTime0", "realTime1", "standard0", "backfill0", "backfill1"), drain(queue));
+        assertEquals(0, queue.size(PriorityClass.BACKFILL));
+    }
+
+    @Test
+    void testBackfillRunsWhenNothingMoreUrgentIsQueued() {
+        PriorityChunkQueue<String> queue = new PriorityChunkQueue<>(false, 100);
+        queue.add(PriorityClass.BACKFILL, "history", 1, "backfill0", 100);
+        queue.add(PriorityClass.REAL_TIME, "ticks", 1, "realTime0", 100);
+
+        assertEquals("realTime0", queue.poll());
+        assertEquals("backfill0", queue.poll());
+        queue.add(PriorityClass.REAL_TIME, "ticks", 1, "realTime1", 100);
+        assertEquals("realTime1", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void testBatchesOfALaneTakeTurnsOnlyWhenFair() {
+        PriorityChunkQueue<String> fifo = new PriorityChunkQueue<>(false, 100);
+        PriorityChunkQueue<String> fair = new PriorityChunkQueue<>(true, 100);
+        for (PriorityChunkQueue<String> queue : List.of(fifo, fair)) {
+            queue.add(PriorityClass.STANDARD, "large", 1, "large", 100);
+            queue.add(PriorityClass.STANDARD, "large", 1, "large", 100);
+            queue.add(PriorityClass.STANDARD, "small", 1, "small", 100);
+        }
+
+        assertEquals(List.of("large", "large", "small"), drain(fifo));
+        assertEquals(List.of("large", "small", "large"), drain(fair));
+    }
+
+    private static List<String> drain(PriorityChunkQueue<String> queue) {
+        List<String> order = new ArrayList<>();
+        for (String chunk = queue.poll(); chunk != null; chunk = queue.poll()) {
+            order.add(chunk);
+        }
+        return order;
+    }
+}
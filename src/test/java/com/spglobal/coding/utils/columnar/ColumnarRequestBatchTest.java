@@ -0,0 +1,87 @@
+package com.spglobal.coding.utils.columnar;
+
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.InstrumentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarRequestBatchTest {
+
+    @Test
+    void testRowsRoundTripToRequests() {
+        List<UpdatePriceRecordRequest> requests = new ArrayList<>();
+        LocalDateTime baseTime = LocalDateTime.of(2024, 3, 1, 9, 30);
+        for (int i = 0; i < 3000; i++) { // Past the initial capacity, so the columns have to grow
+            requests.add(new UpdatePriceRecordRequest.Builder()
+                    .setId(i)
+                    .setInstrument(i % 2 == 0 ? "Gold" : "Apple Inc.")
+                    .setInstrumentType(i % 2 == 0 ? InstrumentType.COMMODITIES : InstrumentType.STOCK)
+                    .setValue(new BigDecimal("10.125").add(BigDecimal.valueOf(i)))
+                    .setCurrency(i % 3 == 0 ? Currency.INR : Currency.USD)
+                    .setRequestTime(baseTime.plusNanos(i * 1_000L))
+                    .build());
+        }
+
+        ColumnarRequestBatch batch = ColumnarRequestBatch.of(requests);
+
+        assertEquals(3000, batch.size());
+        for (int row = 0; row < batch.size(); row++) {
+            assertEquals(requests.get(row).toString(), batch.toRequest(row).toString());
+        }
+    }
+
+    @Test
+    void testMissingFieldsAreKept() {
+        ColumnarRequestBatch batch = new ColumnarRequestBatch(1);
+        UpdatePriceRecordRequest empty = new UpdatePriceRecordRequest.Builder().setId(7).build();
+
+        batch.add(empty);
+
+        assertEquals(-1, batch.getDenseInstrumentId(0));
+        assertNull(batch.getInstrument(0));
+        assertNull(batch.getInstrumentType(0));
+        assertNull(batch.getCurrency(0));
+        assertFalse(batch.hasPrice(0));
+        assertFalse(batch.hasRequestTime(0));
+        assertEquals(empty.toString(), batch.toRequest(0).toString());
+    }
+
+    @Test
+    void testPrimitiveRowsAndRequestTimeOrdering() {
+        ColumnarRequestBatch batch = new ColumnarRequestBatch();
+        int denseId = InstrumentRegistry.getInstance().resolve("Silver").getDenseId();
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 9, 30, 0, 500);
+
+        batch.add(1, denseId, InstrumentType.COMMODITIES, 2_512L, 2, Currency.USD, time.toEpochSecond(ZoneOffset.UTC), time.getNano());
+        batch.add(2, denseId, InstrumentType.COMMODITIES, 2_513L, 2, Currency.USD, time.toEpochSecond(ZoneOffset.UTC), time.getNano() + 1);
+
+        assertEquals("Silver", batch.getInstrument(0));
+        assertEquals(time, batch.getRequestTime(0));
+        assertEquals(new BigDecimal("25.12"), batch.toRequest(0).getValue());
+        assertTrue(batch.compareRequestTime(0, 1) < 0);
+        assertTrue(batch.compareRequestTime(1, 0) > 0);
+        assertEquals(0, batch.compareRequestTime(1, 1));
+    }
+
+    @Test
+    void testPriceThatDoesNotFitIsRejected() {
+        ColumnarRequestBatch batch = new ColumnarRequestBatch();
+        UpdatePriceRecordRequest hugePrice = new UpdatePriceRecordRequest.Builder()
+                .setId(1)
+                .setValue(new BigDecimal("123456789012345678901234567890"))
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> batch.add(hugePrice));
+        assertEquals(0, batch.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.getId(0));
+    }
+}
@@ -0,0 +1,80 @@
+package com.spglobal.coding.utils.dedup;
+
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.InstrumentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintWindowTest {
+
+    @Test
+    void testDuplicatesAreRecognisedWithinTheWindow() {
+        FingerprintWindow window = new FingerprintWindow(1000);
+        for (long i = 0; i < 1000; i++) {
+            assertTrue(window.addIfAbsent(i * 0x9E3779B97F4A7C15L), "fingerprint " + i);
+        }
+
+        for (long i = 0; i < 1000; i++) {
+            assertFalse(window.addIfAbsent(i * 0x9E3779B97F4A7C15L), "fingerprint " + i);
+        }
+
+        assertEquals(1000, window.getDuplicates());
+        assertTrue(window.getFilterHits() >= 1000);
+    }
+
+    @Test
+    void testOldestGenerationIsDropped() {
+        FingerprintWindow window = new FingerprintWindow(10);
+        for (long i = 1; i <= 30; i++) {
+            window.addIfAbsent(i);
+        }
+
+        // 21 to 30 are in the current generation, 11 to 20 in the previous one
+        assertFalse(window.addIfAbsent(11));
+        assertFalse(window.addIfAbsent(30));
+        assertTrue(window.addIfAbsent(5));
+    }
+
+    @Test
+    void testRemovedFingerprintIsAcceptedAgain() {
+        FingerprintWindow window = new FingerprintWindow(4);
+        window.addIfAbsent(0);
+        window.addIfAbsent(8); // May share a probe sequence with 0 in the small set
+
+        assertTrue(window.remove(0));
+        assertFalse(window.remove(0));
+
+        assertFalse(window.addIfAbsent(8));
+        assertTrue(window.addIfAbsent(0));
+    }
+
+    @Test
+    void testFingerprintIgnoresRequestIdAndPriceScale() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 9, 30, 0, 250);
+        UpdatePriceRecordRequest request = createRequest(1, new BigDecimal("1.50"), time);
+        UpdatePriceRecordRequest resent = createRequest(2, new BigDecimal("1.5"), time);
+        UpdatePriceRecordRequest later = createRequest(1, new BigDecimal("1.50"), time.plusNanos(1));
+
+        assertEquals(RecordFingerprints.of(request), RecordFingerprints.of(resent));
+        assertNotEquals(RecordFingerprints.of(request), RecordFingerprints.of(later));
+        assertEquals(RecordFingerprints.of(request), RecordFingerprints.of(ColumnarRequestBatch.of(List.of(request)), 0));
+    }
+
+    private static UpdatePriceRecordRequest createRequest(int id, BigDecimal value, LocalDateTime requestTime) {
+        return new UpdatePriceRecordRequest.Builder()
+                .setId(id)
+                .setInstrument("Gold")
+                .setInstrumentType(InstrumentType.COMMODITIES)
+                .setValue(value)
+                .setCurrency(Currency.USD)
+                .setRequestTime(requestTime)
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.spglobal.coding.utils.retry;
+
+import com.spglobal.coding.utils.ChunkProcessor;
+import com.spglobal.coding.utils.config.RetryPolicy;
+import com.spglobal.coding.utils.dto.BatchProcessResponse;
+import com.spglobal.coding.utils.dto.UpdateOutcomes;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.PriorityClass;
+import com.spglobal.coding.utils.enums.UpdateOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FailedRequestRetrierTest {
+
+    private final ChunkProcessor chunkProcessor = mock(ChunkProcessor.class);
+    private final RetryPolicy retryPolicy = new RetryPolicy.Builder()
+            .setMaxAttempts(UpdateOutcome.CHUNK_FAILED, 3)
+            .setInitialBackoff(Duration.ZERO)
+            .setMaxBackoff(Duration.ZERO)
+            .build();
+    private final FailedRequestRetrier retrier = new FailedRequestRetrier(chunkProcessor, retryPolicy, new DeadLetterStore());
+
+    @AfterEach
+    void tearDown() {
+        retrier.shutdown();
+    }
+
+    @Test
+    void testFailedChunkIsRetriedAsBackfill() throws InterruptedException {
+        UpdatePriceRecordRequest request = new UpdatePriceRecordRequest.Builder().setId(1).build();
+        when(chunkProcessor.processBatch(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(new BatchProcessResponse(true, Collections.emptyList())));
+        Map<String, List<UpdatePriceRecordRequest>> recovered = new ConcurrentHashMap<>();
+        retrier.addRecoveryListener(recovered::put);
+
+        retrier.submit("batch-1", List.of(request), UpdateOutcomes.allFailed(1, UpdateOutcome.CHUNK_FAILED));
+
+        awaitUntil(() -> retrier.getRecoveredCount() == 1);
+        awaitUntil(() -> recovered.containsKey("batch-1"));
+        assertSame(request, recovered.get("batch-1").get(0));
+        verify(chunkProcessor).setBatchPriority(startsWith(FailedRequestRetrier.RETRY_BATCH_PREFIX), eq(PriorityClass.BACKFILL));
+        verify(chunkProcessor).processBatch(startsWith(FailedRequestRetrier.RETRY_BATCH_PREFIX), eq(List.of(request)));
+        assertEquals(1, retrier.getRetriedCount());
+        assertEquals(0, retrier.getPendingCount());
+        assertEquals(0, retrier.getDeadLetterStore().size());
+    }
+
+    @Test
+    void testRequestIsDeadLetteredOnceItsAttemptsAreUsedUp() throws InterruptedException {
+        UpdatePriceRecordRequest request = new UpdatePriceRecordRequest.Builder().setId(2).build();
+        when(chunkProcessor.processBatch(anyString(), anyList()))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(new RuntimeException("Processing error")));
+
+        retrier.submit("batch-2", List.of(request), UpdateOutcomes.allFailed(1, UpdateOutcome.CHUNK_FAILED));
+
+        awaitUntil(() -> retrier.getDeadLetterStore().size() == 1);
+        verify(chunkProcessor, times(2)).processBatch(anyString(), anyList());
+        assertEquals(0, retrier.getRecoveredCount());
+        assertEquals(UpdateOutcome.CHUNK_FAILED, retrier.getDeadLetterStore().getDeadLetters().get(0).reason());
+        assertEquals(3, retrier.getDeadLetterStore().getDeadLetters().get(0).attempts());
+        assertEquals("batch-2", retrier.getDeadLetterStore().getDeadLetters().get(0).batchId());
+    }
+
+    @Test
+    void testInvalidRequestIsNotRetried() {
+        UpdatePriceRecordRequest request = new UpdatePriceRecordRequest.Builder().setId(3).build();
+
+        retrier.submit("batch-3", List.of(request), UpdateOutcomes.allFailed(1, UpdateOutcome.INVALID_NULL_FIELD));
+
+        verifyNoInteractions(chunkProcessor);
+        assertEquals(1, retrier.getDeadLetterStore().size());
+        assertEquals(1, retrier.getDeadLetterStore().getDeadLetters().get(0).attempts());
+        assertEquals(0, retrier.getPendingCount());
+    }
+
+    @Test
+    void testBackoffGrowsUpToItsMaximum() {
+        RetryPolicy policy = RetryPolicy.defaults();
+
+        assertEquals(Duration.ofMillis(500), policy.getBackoff(1));
+        assertEquals(Duration.ofSeconds(4), policy.getBackoff(4));
+        assertEquals(Duration.ofSeconds(30), policy.getBackoff(40));
+        assertFalse(policy.shouldRetry(UpdateOutcome.INVALID_PRICE, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RetryPolicy.Builder().setMaxAttempts(UpdateOutcome.STALE_IGNORED, 2).build());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.spglobal.coding.utils.staging;
+
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.InstrumentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchStagingStoreTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void testRequestsBelowThresholdStayOnHeap() throws IOException {
+        BatchStagingStore store = new BatchStagingStore(10, spillDirectory);
+        List<UpdatePriceRecordRequest> requests = createRequests(10);
+
+        store.addAll(requests);
+
+        assertFalse(store.isSpilled());
+        assertSame(store.heapRequests(), store.asList());
+        assertEquals(requests, store.asList());
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testRequestsPastThresholdAreSpilledAndReadBack() {
+        // Small segments so that the spilled requests span several mappings
+        BatchStagingStore store = new BatchStagingStore(3, spillDirectory, 4, InstrumentRegistry.getInstance());
+        List<UpdatePriceRecordRequest> requests = createRequests(20);
+
+        store.addAll(requests.subList(0, 7));
+        store.addAll(requests.subList(7, 20));
+
+        assertTrue(store.isSpilled());
+        assertEquals(3, store.heapRequests().size());
+        assertEquals(17, store.spilledCount());
+        assertEquals(20, store.size());
+        List<UpdatePriceRecordRequest> staged = store.asList();
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(requests.get(i).toString(), staged.get(i).toString());
+        }
+        store.release();
+    }
+
+    @Test
+    void testSpilledViewsDecodeRangesAndSelections() {
+        BatchStagingStore store = new BatchStagingStore(0, spillDirectory);
+        List<UpdatePriceRecordRequest> requests = createRequests(10);
+        store.addAll(requests);
+
+        List<UpdatePriceRecordRequest> range = store.spilledRange(2, 5);
+        List<UpdatePriceRecordRequest> selection = store.spilledSelection(new int[]{1, 4, 9}, 1, 3);
+
+        assertEquals(List.of(2, 3, 4), range.stream().map(UpdatePriceRecordRequest::getId).toList());
+        assertEquals(List.of(4, 9), selection.stream().map(UpdatePriceRecordRequest::getId).toList());
+        assertEquals(InstrumentRegistry.getInstance().resolve("Gold").getDenseId(), store.spilledDenseInstrumentId(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.spilledRange(5, 11));
+        store.release();
+    }
+
+    @Test
+    void testFixedPointAndMissingFieldsSurviveSpilling() {
+        BatchStagingStore store = new BatchStagingStore(0, spillDirectory);
+        UpdatePriceRecordRequest fixedPoint = new UpdatePriceRecordRequest.Builder()
+                .setId(1)
+                .setInstrument("Silver")
+                .setFixedPointValue(2_345_678L, 4)
+                .build();
+        UpdatePriceRecordRequest empty = new UpdatePriceRecordRequest.Builder().setId(2).build();
+
+        store.addAll(List.of(fixedPoint, empty));
+
+        UpdatePriceRecordRequest decoded = store.asList().get(0);
+        assertTrue(decoded.hasFixedPointValue());
+        assertEquals(2_345_678L, decoded.getPriceMantissa());
+        assertEquals(4, decoded.getPriceScale());
+        assertNull(decoded.getInstrumentType());
+        assertEquals(empty.toString(), store.asList().get(1).toString());
+        store.release();
+    }
+
+    @Test
+    void testRequestsThatCannotBeEncodedStayOnHeap() {
+        BatchStagingStore store = new BatchStagingStore(0, spillDirectory);
+        UpdatePriceRecordRequest hugePrice = new UpdatePriceRecordRequest.Builder()
+                .setId(1)
+                .setInstrument("Gold")
+                .setValue(new BigDecimal("123456789012345678901234567890.5"))
+                .build();
+
+        store.addAll(List.of(hugePrice));
+
+        assertFalse(store.isSpilled());
+        assertSame(hugePrice, store.asList().get(0));
+    }
+
+    @Test
+    void testReleaseDeletesSpillFile() throws IOException {
+        BatchStagingStore store = new BatchStagingStore(0, spillDirectory);
+        store.addAll(createRequests(5));
+
+        store.release();
+
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private List<UpdatePriceRecordRequest> createRequests(int count) {
+        List<String> instruments = List.of("Gold", "Silver", "Apple Inc.");
+        List<UpdatePriceRecordRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(new UpdatePriceRecordRequest.Builder()
+                    .setId(i)
+                    .setInstrument(instruments.get(i % instruments.size()))
+                    .setInstrumentType(i % 3 == 2 ? InstrumentType.STOCK : InstrumentType.COMMODITIES)
+                    .setValue(new BigDecimal("100.25").add(BigDecimal.valueOf(i)))
+                    .setCurrency(Currency.USD)
+                    .setRequestTime(LocalDateTime.of(2024, 1, 1, 12, 0).plusNanos(i * 1_000L))
+                    .build());
+        }
+        return requests;
+    }
+}
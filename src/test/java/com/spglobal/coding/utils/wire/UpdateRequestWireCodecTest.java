@@ -0,0 +1,130 @@
+package com.spglobal.coding.utils.wire;
+
+import com.spglobal.coding.utils.InstrumentRegistry;
+import com.spglobal.coding.utils.columnar.ColumnarRequestBatch;
+import com.spglobal.coding.utils.dto.UpdatePriceRecordRequest;
+import com.spglobal.coding.utils.enums.Currency;
+import com.spglobal.coding.utils.enums.InstrumentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateRequestWireCodecTest {
+
+    @Test
+    void testEncodedRequestsDecodeIntoColumnarBatch() {
+        List<UpdatePriceRecordRequest> requests = createRequests(500);
+        ByteBuffer message = UpdateRequestWireEncoder.encode(requests);
+        ColumnarRequestBatch batch = new ColumnarRequestBatch();
+
+        int decoded = UpdateRequestWireDecoder.decodeInto(message, batch);
+
+        assertEquals(500, decoded);
+        assertEquals(0, message.position()); // The message is not consumed
+        for (int row = 0; row < decoded; row++) {
+            assertEquals(requests.get(row).toString(), batch.toRequest(row).toString());
+        }
+    }
+
+    @Test
+    void testInstrumentNamesAreSentOnce() {
+        List<UpdatePriceRecordRequest> requests = createRequests(1000);
+
+        ByteBuffer message = UpdateRequestWireEncoder.encode(requests);
+
+        // Three dictionary entries, then about 20 bytes per record since the timestamps are sent as small deltas
+        assertTrue(message.remaining() < 1000 * 22, "Encoded size was " + message.remaining());
+    }
+
+    @Test
+    void testTimestampsBeforeTheEpochAndOutOfOrder() {
+        List<UpdatePriceRecordRequest> requests = List.of(
+                createRequest(1, "Gold", LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999)),
+                createRequest(2, "Gold", LocalDateTime.of(2024, 1, 1, 0, 0)),
+                createRequest(3, "Gold", LocalDateTime.of(2023, 6, 1, 12, 0, 0, 1)));
+        ColumnarRequestBatch batch = new ColumnarRequestBatch();
+
+        UpdateRequestWireDecoder.decodeInto(UpdateRequestWireEncoder.encode(requests), batch);
+
+        for (int row = 0; row < requests.size(); row++) {
+            assertEquals(requests.get(row).getRequestTime(), batch.getRequestTime(row));
+        }
+    }
+
+    @Test
+    void testMalformedMessageLeavesBatchUnchanged() {
+        ColumnarRequestBatch batch = new ColumnarRequestBatch();
+        UpdateRequestWireDecoder.decodeInto(UpdateRequestWireEncoder.encode(createRequests(10)), batch);
+        ByteBuffer truncated = UpdateRequestWireEncoder.encode(createRequests(10));
+        truncated.limit(truncated.limit() - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> UpdateRequestWireDecoder.decodeInto(truncated, batch));
+        assertThrows(IllegalArgumentException.class, () -> UpdateRequestWireDecoder.decodeInto(ByteBuffer.wrap(new byte[]{7}), batch));
+        assertEquals(10, batch.size());
+    }
+
+    @Test
+    void testMalformedMessageRegistersNoInstrument() {
+        String instrument = "WIRE_ONLY_" + UUID.randomUUID().toString().toUpperCase();
+        ByteBuffer truncated = UpdateRequestWireEncoder.encode(List.of(createRequest(1, instrument, LocalDateTime.of(2024, 1, 1, 0, 0))));
+        truncated.limit(truncated.limit() - 1); // The dictionary entry is complete, the record is not
+
+        assertThrows(IllegalArgumentException.class, () -> UpdateRequestWireDecoder.decodeInto(truncated, new ColumnarRequestBatch()));
+        assertTrue(InstrumentRegistry.getInstance().findByInstrumentId(instrument).isEmpty());
+
+        ColumnarRequestBatch batch = new ColumnarRequestBatch();
+        UpdateRequestWireDecoder.decodeInto(truncated.limit(truncated.limit() + 1), batch);
+        assertEquals(instrument, batch.getInstrument(0));
+        assertTrue(InstrumentRegistry.getInstance().findByInstrumentId(instrument).isPresent());
+    }
+
+    @Test
+    void testFullBufferKeepsMessageConsistent() {
+        ByteBuffer buffer = ByteBuffer.allocate(40);
+        UpdateRequestWireEncoder encoder = new UpdateRequestWireEncoder(buffer);
+        encoder.write(createRequest(1, "Gold", LocalDateTime.of(2024, 1, 1, 0, 0)));
+
+        assertThrows(BufferOverflowException.class, () -> encoder.write(createRequest(2, "Silver", LocalDateTime.of(2024, 1, 1, 0, 1))));
+
+        ColumnarRequestBatch batch = new ColumnarRequestBatch();
+        assertEquals(1, UpdateRequestWireDecoder.decodeInto(buffer.flip(), batch));
+        assertEquals(1, encoder.getRecordCount());
+    }
+
+    @Test
+    void testRequestWithoutValueIsRejected() {
+        UpdatePriceRecordRequest request = new UpdatePriceRecordRequest.Builder().setId(1).setRequestTime(LocalDateTime.now()).build();
+        UpdateRequestWireEncoder encoder = new UpdateRequestWireEncoder(ByteBuffer.allocate(64));
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.write(request));
+    }
+
+    private List<UpdatePriceRecordRequest> createRequests(int count) {
+        List<String> instruments = List.of("Gold", "Silver", "Apple Inc.");
+        LocalDateTime baseTime = LocalDateTime.of(2024, 3, 1, 9, 30);
+        List<UpdatePriceRecordRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(createRequest(i, instruments.get(i % instruments.size()), baseTime.plusNanos(i * 250_000L)));
+        }
+        return requests;
+    }
+
+    private UpdatePriceRecordRequest createRequest(int id, String instrument, LocalDateTime requestTime) {
+        return new UpdatePriceRecordRequest.Builder()
+                .setId(id)
+                .setInstrument(instrument)
+                .setInstrumentType(instrument.equals("Apple Inc.") ? InstrumentType.STOCK : InstrumentType.COMMODITIES)
+                .setValue(new BigDecimal("1850.25").add(BigDecimal.valueOf(id)))
+                .setCurrency(id % 2 == 0 ? Currency.USD : Currency.INR)
+                .setRequestTime(requestTime)
+                .build();
+    }
+}